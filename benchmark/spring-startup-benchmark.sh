@@ -0,0 +1,121 @@
+#!/usr/bin/env bash
+#
+# Time-to-ready of the Spring services, default start vs the fast-startup
+# setup (AOT-processed jar, CDS archive, fast-startup profile).
+#
+# Build each service with the AOT code first; the same jar is used for both modes:
+#   (cd clinical-service && ./mvnw -Pfast-startup package -DskipTests)
+#
+# Usage: benchmark/spring-startup-benchmark.sh [runs] [services...]
+#   e.g. benchmark/spring-startup-benchmark.sh 10 clinical-service user-service
+#
+# Ready means /actuator/health/readiness answers 200, measured from process
+# start. user-service and message-service need their database; point them at
+# one with the usual SPRING_DATASOURCE_URL/USERNAME/PASSWORD variables.
+# user-service also needs AUTH_TOKEN_SECRET; a throwaway one is used if it is unset.
+# JAVA_OPTS is passed to every run.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+shift || true
+SERVICES=("$@")
+if [ ${#SERVICES[@]} -eq 0 ]; then
+    SERVICES=(clinical-service user-service message-service)
+fi
+
+# Keep background work out of the measurement
+OPTS=(-Dfhir.changefeed.enabled=false ${JAVA_OPTS:-})
+export AUTH_TOKEN_SECRET="${AUTH_TOKEN_SECRET:-benchmark-only-session-token-secret}"
+
+port_of() {
+    case "$1" in
+        user-service) echo 8081 ;;
+        clinical-service) echo 8082 ;;
+        message-service) echo 8083 ;;
+    esac
+}
+
+now_ms() {
+    date +%s%3N
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { if (NR % 2) print v[(NR + 1) / 2]; else print int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+# Extracts the jar and records the CDS archive with a training run, like
+# Dockerfile.fast-startup does
+prepare_fast() {
+    local service=$1 jar=$2 dir="$1/target/fast-startup"
+    if [ -f "$dir/app.jsa" ] && [ "$dir/app.jar" -nt "$jar" ]; then
+        return
+    fi
+    rm -rf "$dir"
+    cp "$jar" "$service/target/app.jar"
+    java -Djarmode=tools -jar "$service/target/app.jar" extract --destination "$dir" > /dev/null
+    rm "$service/target/app.jar"
+    (cd "$dir" && java -XX:ArchiveClassesAtExit=app.jsa \
+        -Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup \
+        -Dspring.context.exit=onRefresh \
+        -Dspring.jpa.hibernate.ddl-auto=none \
+        -Dspring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false \
+        "${OPTS[@]}" -jar app.jar > /dev/null 2>&1)
+}
+
+# Runs in the background subshell, so cd and exec leave the script untouched
+# and $! is the service's own pid
+start() {
+    local service=$1 mode=$2 jar=$3
+    case "$mode" in
+        default)
+            exec java "${OPTS[@]}" -jar "$jar" ;;
+        fast-startup)
+            cd "$service/target/fast-startup" && exec java -XX:SharedArchiveFile=app.jsa \
+                -Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup \
+                "${OPTS[@]}" -jar app.jar ;;
+    esac
+}
+
+printf '%-18s %-14s %10s\n' service mode ready_ms
+for service in "${SERVICES[@]}"; do
+    port=$(port_of "$service")
+    jar="$service/target/$service-0.0.1-SNAPSHOT.jar"
+    if [ ! -f "$jar" ]; then
+        printf '%-18s %s\n' "$service" "not built, skipped"
+        continue
+    fi
+    if ! unzip -l "$jar" | grep -q '__ApplicationContextInitializer'; then
+        echo "$service: jar has no AOT code, build it with -Pfast-startup" >&2
+        exit 1
+    fi
+    prepare_fast "$service" "$jar"
+
+    for mode in default fast-startup; do
+        if curl -s -o /dev/null "http://localhost:$port/actuator/health"; then
+            echo "port $port is already in use" >&2
+            exit 1
+        fi
+
+        ready=()
+        for _ in $(seq "$RUNS"); do
+            begin=$(now_ms)
+            start "$service" "$mode" "$jar" > /dev/null 2>&1 &
+            pid=$!
+            until curl -sf -o /dev/null "http://localhost:$port/actuator/health/readiness"; do
+                if ! kill -0 "$pid" 2> /dev/null; then
+                    echo "$service ($mode): process exited before it was ready" >&2
+                    exit 1
+                fi
+                sleep 0.02
+            done
+            ready+=($(( $(now_ms) - begin )))
+            kill "$pid"
+            wait "$pid" 2> /dev/null || true
+        done
+
+        printf '%-18s %-14s %10s\n' "$service" "$mode" "$(printf '%s\n' "${ready[@]}" | median)"
+    done
+done
@@ -0,0 +1,53 @@
+package com.journalSystem.clinical_service.controller;
+
+import com.journalSystem.clinical_service.service.ClinicalEventBus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/v1/clinical/events")
+@CrossOrigin(origins = {"http://localhost:30000", "http://localhost:3000"})
+@RequiredArgsConstructor
+public class ClinicalEventController {
+
+    private final ClinicalEventBus eventBus;
+
+    /**
+     * Server-sent events for records created for a patient and/or by a practitioner:
+     * GET /api/v1/clinical/events?patientId=123
+     * GET /api/v1/clinical/events?practitionerId=9999994392
+     * Events are named encounter, condition or observation and carry the new
+     * record. EventSource reconnects with Last-Event-ID and gets what it missed,
+     * or a "reset" event when it has to reload instead.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(
+            @RequestParam(required = false) String patientId,
+            @RequestParam(required = false) String practitionerId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        try {
+            return ResponseEntity.ok(eventBus.subscribe(patientId, practitionerId, parseId(lastEventId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    private static Long parseId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            // Not one of ours; replay is impossible, so the client gets a reset
+            return 0L;
+        }
+    }
+}
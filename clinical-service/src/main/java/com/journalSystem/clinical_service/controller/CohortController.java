@@ -0,0 +1,47 @@
+package com.journalSystem.clinical_service.controller;
+
+import com.journalSystem.clinical_service.dto.CohortQueryDTO;
+import com.journalSystem.clinical_service.dto.CohortResultDTO;
+import com.journalSystem.clinical_service.service.CohortQueryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/clinical/cohorts")
+@CrossOrigin(origins = {"http://localhost:30000", "http://localhost:3000"})
+@RequiredArgsConstructor
+public class CohortController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final CohortQueryService cohortQueryService;
+
+    /**
+     * Patients matching a combination of criteria, e.g. type 2 diabetes and a
+     * systolic blood pressure of 140 or more within the last year:
+     * POST /api/v1/clinical/cohorts/query?page=0&size=100
+     * {"type":"and","of":[
+     *   {"type":"condition","code":"snomed|44054006"},
+     *   {"type":"observation","code":"loinc|8480-6","min":140,"within":"P1Y"}]}
+     * size=0 returns only the count. Returns 503 until the local store has synced.
+     */
+    @PostMapping("/query")
+    public ResponseEntity<CohortResultDTO> query(
+            @RequestBody CohortQueryDTO query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size
+    ) {
+        if (page < 0 || size < 0 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(cohortQueryService.query(query, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
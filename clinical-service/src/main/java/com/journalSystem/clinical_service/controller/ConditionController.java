@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/clinical/conditions")
@@ -20,19 +21,21 @@ public class ConditionController {
     private final HapiConditionService hapiConditionService;
 
     @GetMapping("/patient/{patientId}")
-    public List<ConditionDTO> getConditionsForPatient(@PathVariable String patientId) {
-        return hapiConditionService.getConditionsForPatient(patientId)
-                .stream()
-                .map(FhirMapper::conditionToDTO)
-                .toList();
+    public CompletableFuture<List<ConditionDTO>> getConditionsForPatient(@PathVariable String patientId) {
+        return hapiConditionService.getConditionsForPatientAsync(patientId)
+                .thenApply(conditions -> conditions
+                        .stream()
+                        .map(FhirMapper::conditionToDTO)
+                        .toList());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ConditionDTO> getConditionById(@PathVariable String id) {
-        return hapiConditionService.getConditionById(id)
-                .map(FhirMapper::conditionToDTO)
-                .map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.notFound().build());
+    public CompletableFuture<ResponseEntity<ConditionDTO>> getConditionById(@PathVariable String id) {
+        return hapiConditionService.getConditionByIdAsync(id)
+                .thenApply(condition -> condition
+                        .map(FhirMapper::conditionToDTO)
+                        .map(ResponseEntity::ok)
+                        .orElseGet(() -> ResponseEntity.notFound().build()));
     }
 
     @PostMapping
@@ -45,6 +48,7 @@ public class ConditionController {
                     request.patientPersonnummer(),
                     request.practitionerPersonnummer(),
                     request.description(),
+                    request.code(),
                     recordedDate
             );
 
@@ -60,6 +64,7 @@ public class ConditionController {
             String patientPersonnummer,
             String practitionerPersonnummer,
             String description,
+            String code,
             String assertedDate
     ) {}
 }
\ No newline at end of file
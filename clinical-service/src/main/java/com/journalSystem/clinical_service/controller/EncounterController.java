@@ -1,15 +1,22 @@
 package com.journalSystem.clinical_service.controller;
 
+import com.journalSystem.clinical_service.dto.CalendarDayDTO;
 import com.journalSystem.clinical_service.dto.EncounterDTO;
 import com.journalSystem.clinical_service.mapper.FhirMapper;
+import com.journalSystem.clinical_service.service.EncounterCalendar;
 import com.journalSystem.clinical_service.service.HapiEncounterService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.TimeZone;
 
 @RestController
@@ -18,26 +25,55 @@ import java.util.TimeZone;
 @RequiredArgsConstructor
 public class EncounterController {
 
+    private static final int MAX_CALENDAR_DAYS = 62;
+
     private final HapiEncounterService hapiEncounterService;
+    private final EncounterCalendar encounterCalendar;
+
+    /**
+     * A practitioner's schedule from the in-memory calendar, one element per day:
+     * GET /api/v1/clinical/encounters/calendar?practitionerId=9999994392&from=2024-01-01&to=2024-01-07
+     * to defaults to from, and at most 62 days are returned. Returns 503 until
+     * the local store has synced.
+     */
+    @GetMapping("/calendar")
+    public ResponseEntity<List<CalendarDayDTO>> getCalendar(
+            @RequestParam String practitionerId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        LocalDate until = to != null ? to : from;
+        if (practitionerId.isBlank() || until.isBefore(from)
+                || ChronoUnit.DAYS.between(from, until) >= MAX_CALENDAR_DAYS) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(encounterCalendar.days(practitionerId.trim(), from, until));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
 
     @GetMapping("/patient/{patientId}")
-    public List<EncounterDTO> getEncountersForPatient(@PathVariable String patientId) {
-        return hapiEncounterService.getEncountersForPatient(patientId)
-                .stream()
-                .map(FhirMapper::encounterToDTO)
-                .toList();
+    public CompletableFuture<List<EncounterDTO>> getEncountersForPatient(@PathVariable String patientId) {
+        return hapiEncounterService.getEncountersForPatientAsync(patientId)
+                .thenApply(encounters -> encounters
+                        .stream()
+                        .map(FhirMapper::encounterToDTO)
+                        .toList());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<EncounterDTO> getEncounterById(@PathVariable String id) {
-        return hapiEncounterService.getEncounterById(id)
-                .map(FhirMapper::encounterToDTO)
-                .map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.notFound().build());
+    public CompletableFuture<ResponseEntity<EncounterDTO>> getEncounterById(@PathVariable String id) {
+        return hapiEncounterService.getEncounterByIdAsync(id)
+                .thenApply(encounter -> encounter
+                        .map(FhirMapper::encounterToDTO)
+                        .map(ResponseEntity::ok)
+                        .orElseGet(() -> ResponseEntity.notFound().build()));
     }
 
     @PostMapping
-    public ResponseEntity<String> createEncounter(@RequestBody CreateEncounterRequest request) {
+    public ResponseEntity<?> createEncounter(@RequestBody CreateEncounterRequest request) {
         try {
             SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm");
             sdf.setTimeZone(TimeZone.getTimeZone("Europe/Stockholm"));
@@ -55,7 +91,7 @@ public class EncounterController {
                     endTime
             );
 
-            return ResponseEntity.ok("Encounter created: " + encounter.getIdElement().getIdPart());
+            return ResponseEntity.ok(FhirMapper.encounterToDTO(encounter));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.badRequest().body("Could not create encounter: " + e.getMessage());
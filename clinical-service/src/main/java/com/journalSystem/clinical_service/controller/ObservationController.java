@@ -1,15 +1,37 @@
 package com.journalSystem.clinical_service.controller;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.journalSystem.clinical_service.dto.BulkIngestResultDTO;
 import com.journalSystem.clinical_service.dto.ObservationDTO;
+import com.journalSystem.clinical_service.dto.ObservationReadingDTO;
+import com.journalSystem.clinical_service.dto.ObservationSeriesDTO;
 import com.journalSystem.clinical_service.mapper.FhirMapper;
 import com.journalSystem.clinical_service.service.HapiObservationService;
+import com.journalSystem.clinical_service.service.ObservationDownsampler;
+import com.journalSystem.clinical_service.service.ObservationIngestService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/clinical/observations")
@@ -17,26 +39,62 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ObservationController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final HapiObservationService hapiObservationService;
+    private final ObservationIngestService observationIngestService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/patient/{patientId}")
-    public List<ObservationDTO> getObservationsForPatient(@PathVariable String patientId) {
-        return hapiObservationService.getObservationsForPatient(patientId)
-                .stream()
-                .map(FhirMapper::observationToDTO)
-                .toList();
+    public CompletableFuture<List<ObservationDTO>> getObservationsForPatient(@PathVariable String patientId) {
+        return hapiObservationService.getObservationsForPatientAsync(patientId)
+                .thenApply(observations -> observations
+                        .stream()
+                        .map(FhirMapper::observationToDTO)
+                        .toList());
+    }
+
+    /**
+     * Numeric time series for one LOINC code, e.g.
+     * GET /api/v1/clinical/observations/patient/123/series?code=8867-4&from=2020-01-01&points=300&downsample=lttb
+     * downsample is one of none (default), min, max, avg or lttb.
+     */
+    @GetMapping("/patient/{patientId}/series")
+    public ResponseEntity<ObservationSeriesDTO> getObservationSeries(
+            @PathVariable String patientId,
+            @RequestParam String code,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "500") int points,
+            @RequestParam(required = false) String downsample
+    ) {
+        ObservationDownsampler.Mode mode;
+        try {
+            mode = ObservationDownsampler.Mode.parse(downsample);
+            if (from != null) {
+                LocalDate.parse(from);
+            }
+            if (to != null) {
+                LocalDate.parse(to);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(hapiObservationService.getObservationSeries(patientId, code, from, to, points, mode));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ObservationDTO> getObservationById(@PathVariable String id) {
-        return hapiObservationService.getObservationById(id)
-                .map(FhirMapper::observationToDTO)
-                .map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.notFound().build());
+    public CompletableFuture<ResponseEntity<ObservationDTO>> getObservationById(@PathVariable String id) {
+        return hapiObservationService.getObservationByIdAsync(id)
+                .thenApply(observation -> observation
+                        .map(FhirMapper::observationToDTO)
+                        .map(ResponseEntity::ok)
+                        .orElseGet(() -> ResponseEntity.notFound().build()));
     }
 
     @PostMapping
-    public ResponseEntity<String> createObservation(@RequestBody CreateObservationRequest request) {
+    public ResponseEntity<?> createObservation(@RequestBody CreateObservationRequest request) {
         try {
             Date effectiveDate;
             try {
@@ -55,13 +113,78 @@ public class ObservationController {
                     effectiveDate
             );
 
-            return ResponseEntity.ok("Observation created: " + observation.getIdElement().getIdPart());
+            return ResponseEntity.ok(FhirMapper.observationToDTO(observation));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.badRequest().body("Could not create observation: " + e.getMessage());
         }
     }
 
+    /**
+     * Bulk upload of device readings as a JSON array. The response has one
+     * outcome per reading, in order. The array is read one reading at a time,
+     * so an upload over max-items is refused before the rest of it is parsed.
+     * An element that is not a valid reading is reported as invalid; only a
+     * body that is not well-formed JSON is refused as a whole.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkIngestResultDTO> ingestObservations(InputStream body) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(ObservationReadingDTO.class);
+        List<ObservationReadingDTO> readings = new ArrayList<>();
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return ResponseEntity.badRequest().build();
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    return ResponseEntity.badRequest().build();
+                }
+                if (readings.size() == observationIngestService.getMaxItems()) {
+                    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+                }
+                // Bind each element on its own, so a reading of the wrong shape is
+                // reported as invalid like a bad NDJSON line
+                JsonNode element = parser.readValueAsTree();
+                try {
+                    readings.add(reader.readValue(element));
+                } catch (IOException e) {
+                    readings.add(null);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(observationIngestService.ingest(readings));
+    }
+
+    /**
+     * Same as the JSON array upload, one reading per line. Blank lines are
+     * skipped; a line that is not a valid reading is reported as invalid.
+     */
+    @PostMapping(value = "/bulk", consumes = NDJSON)
+    public ResponseEntity<BulkIngestResultDTO> ingestObservationsNdjson(InputStream body) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(ObservationReadingDTO.class);
+        List<ObservationReadingDTO> readings = new ArrayList<>();
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (readings.size() == observationIngestService.getMaxItems()) {
+                    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+                }
+                try {
+                    readings.add(reader.readValue(line));
+                } catch (IOException e) {
+                    readings.add(null);
+                }
+            }
+        }
+        return ResponseEntity.ok(observationIngestService.ingest(readings));
+    }
+
     public record CreateObservationRequest(
             String patientPersonnummer,
             String performerPersonnummer,
@@ -8,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/patients")
@@ -26,10 +27,11 @@ public class PatientController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<PatientDTO> getPatientById(@PathVariable String id) {
-        return hapiPatientService.getPatientById(id)
-                .map(FhirMapper::patientToDTO)
-                .map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.notFound().build());
+    public CompletableFuture<ResponseEntity<PatientDTO>> getPatientById(@PathVariable String id) {
+        return hapiPatientService.getPatientByIdAsync(id)
+                .thenApply(patient -> patient
+                        .map(FhirMapper::patientToDTO)
+                        .map(ResponseEntity::ok)
+                        .orElseGet(() -> ResponseEntity.notFound().build()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.journalSystem.clinical_service.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk upload. items has one entry per submitted reading, in
+ * submission order.
+ */
+public record BulkIngestResultDTO(
+        int received,
+        int created,
+        int invalid,
+        int failed,
+        List<Item> items
+) {
+
+    public static final String CREATED = "created";
+    public static final String INVALID = "invalid";
+    public static final String FAILED = "failed";
+
+    /**
+     * id is set for created readings, error for the others.
+     */
+    public record Item(int index, String status, String id, String error) {}
+}
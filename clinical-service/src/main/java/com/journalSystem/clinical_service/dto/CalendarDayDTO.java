@@ -0,0 +1,9 @@
+package com.journalSystem.clinical_service.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record CalendarDayDTO(
+        LocalDate date,
+        List<CalendarEntryDTO> encounters
+) {}
@@ -0,0 +1,19 @@
+package com.journalSystem.clinical_service.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One encounter in a practitioner's calendar, with the patient and
+ * practitioner names already filled in. A name is null while the patient or
+ * practitioner is not in the local store.
+ */
+public record CalendarEntryDTO(
+        String encounterId,
+        String patientId,
+        String patientName,
+        String practitionerId,
+        String practitionerName,
+        LocalDateTime startTime,
+        LocalDateTime endTime,
+        String status
+) {}
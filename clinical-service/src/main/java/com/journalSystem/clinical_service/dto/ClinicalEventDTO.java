@@ -0,0 +1,22 @@
+package com.journalSystem.clinical_service.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A record created through this service, pushed to dashboards subscribed to
+ * its patient or one of its practitioners. resource is the same DTO the
+ * record's REST endpoint returns (EncounterDTO, ConditionDTO or ObservationDTO).
+ */
+public record ClinicalEventDTO(
+        long id,
+        String type,
+        String resourceType,
+        String resourceId,
+        String patientId,
+        List<String> practitionerIds,
+        Instant occurredAt,
+        Object resource
+) {
+    public static final String CREATED = "created";
+}
@@ -0,0 +1,38 @@
+package com.journalSystem.clinical_service.dto;
+
+import java.util.List;
+
+/**
+ * One node of a cohort query. and, or and not combine the nodes in of; the
+ * other types select the patients with at least one matching resource:
+ * <ul>
+ *     <li>condition: code or text, onset between from and to or within</li>
+ *     <li>observation: as condition, plus a numeric value between min and max</li>
+ *     <li>encounter: optional practitionerId, start between from and to or within</li>
+ * </ul>
+ * code is system|code, with snomed, icd10 and loinc accepted as systems, or a
+ * bare code in any system. text matches part of the code text, ignoring case;
+ * given both, a resource matching either is selected.
+ * from and to are yyyy-MM-dd, both inclusive; within is an ISO period back from
+ * now, e.g. P1Y. min and max are inclusive.
+ */
+public record CohortQueryDTO(
+        String type,
+        List<CohortQueryDTO> of,
+        String code,
+        String text,
+        Double min,
+        Double max,
+        String from,
+        String to,
+        String within,
+        String practitionerId
+) {
+
+    public static final String AND = "and";
+    public static final String OR = "or";
+    public static final String NOT = "not";
+    public static final String CONDITION = "condition";
+    public static final String OBSERVATION = "observation";
+    public static final String ENCOUNTER = "encounter";
+}
@@ -0,0 +1,18 @@
+package com.journalSystem.clinical_service.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Size of a cohort and one page of its patient ids, in id order. population
+ * is the number of patients in the snapshot the query ran against.
+ */
+public record CohortResultDTO(
+        int count,
+        int population,
+        int page,
+        int size,
+        List<String> patientIds,
+        Instant snapshotAt,
+        long elapsedMillis
+) {}
@@ -0,0 +1,14 @@
+package com.journalSystem.clinical_service.dto;
+
+/**
+ * One reading in a bulk upload. effectiveDate is yyyy-MM-dd or an ISO-8601
+ * date-time with offset, e.g. 2024-03-01T08:15:00+01:00.
+ */
+public record ObservationReadingDTO(
+        String patientPersonnummer,
+        String performerPersonnummer,
+        String description,
+        String value,
+        String unit,
+        String effectiveDate
+) {}
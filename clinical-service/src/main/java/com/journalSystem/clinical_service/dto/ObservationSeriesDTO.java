@@ -0,0 +1,11 @@
+package com.journalSystem.clinical_service.dto;
+
+public record ObservationSeriesDTO(
+        String patientId,
+        String code,
+        String unit,
+        String downsampling,
+        int sourcePoints,
+        long[] timestamps,
+        double[] values
+) {}
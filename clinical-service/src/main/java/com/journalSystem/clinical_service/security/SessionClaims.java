@@ -0,0 +1,10 @@
+package com.journalSystem.clinical_service.security;
+
+import java.time.Instant;
+
+public record SessionClaims(
+        Long userId,
+        String role,
+        String foreignId,
+        Instant expiresAt
+) {}
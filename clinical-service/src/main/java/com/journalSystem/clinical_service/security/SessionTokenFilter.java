@@ -0,0 +1,65 @@
+package com.journalSystem.clinical_service.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Requires a valid session token on the clinical record endpoints when
+ * auth.token.enforce is on, answering 401 otherwise. The token is checked by
+ * {@link SessionTokenVerifier} without calling user-service and its claims are
+ * put on the request as {@link #CLAIMS_ATTRIBUTE}. The patient and practitioner
+ * lists stay open, since registration reads them before anyone is logged in.
+ */
+@Component
+public class SessionTokenFilter extends OncePerRequestFilter {
+
+    public static final String CLAIMS_ATTRIBUTE = SessionClaims.class.getName();
+
+    static final String PROTECTED_PATH = "/api/v1/clinical/";
+    // EventSource cannot set headers, so the event stream takes the token as a parameter
+    static final String EVENTS_PATH = "/api/v1/clinical/events";
+    static final String TOKEN_PARAMETER = "access_token";
+
+    private final SessionTokenVerifier verifier;
+    private final boolean enforce;
+
+    public SessionTokenFilter(SessionTokenVerifier verifier, @Value("${auth.token.enforce:false}") boolean enforce) {
+        if (enforce && !verifier.isConfigured()) {
+            throw new IllegalStateException("auth.token.enforce needs auth.token.secret (AUTH_TOKEN_SECRET)");
+        }
+        this.verifier = verifier;
+        this.enforce = enforce;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enforce
+                || "OPTIONS".equals(request.getMethod())
+                || !request.getRequestURI().startsWith(PROTECTED_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Optional<SessionClaims> claims = verifier.verifyAuthorizationHeader(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (claims.isEmpty() && request.getRequestURI().startsWith(EVENTS_PATH)) {
+            claims = verifier.verify(request.getParameter(TOKEN_PARAMETER));
+        }
+        if (claims.isEmpty()) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        request.setAttribute(CLAIMS_ATTRIBUTE, claims.get());
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,259 @@
+package com.journalSystem.clinical_service.service;
+
+import ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException;
+import jakarta.annotation.PreDestroy;
+import org.hl7.fhir.r4.model.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking FHIR reads and searches on the JDK HttpClient. No thread waits
+ * for the server: requests are sent asynchronously and responses are decoded
+ * with the per-thread parsers of {@link FhirParsers} on a small pool sized to
+ * the CPU count, so a slow server costs open connections rather than threads.
+ * At most maxConcurrent requests are in flight; further requests wait in a
+ * queue of at most maxQueued and are failed beyond that.
+ * Errors complete the future with the same HAPI exceptions the blocking client
+ * throws, except that a missing resource on read is an empty Optional.
+ */
+@Service
+public class AsyncFhirClient {
+
+    private static final String FHIR_JSON = "application/fhir+json";
+    // Leaves out the narrative, which is often most of a resource and never shown
+    private static final String SUMMARY_DATA = "_summary=data";
+
+    private final FhirParsers parsers;
+    private final FhirClientMetrics metrics;
+    private final String baseUrl;
+    private final Duration timeout;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final HttpClient httpClient;
+    private final ExecutorService decodeExecutor;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    public AsyncFhirClient(
+            FhirParsers parsers,
+            FhirClientMetrics metrics,
+            @Value("${fhir.server.url}") String fhirServerUrl,
+            @Value("${fhir.async.timeout-ms:30000}") long timeoutMs,
+            @Value("${fhir.async.max-concurrent:2000}") int maxConcurrent,
+            @Value("${fhir.async.max-queued:10000}") int maxQueued
+    ) {
+        this.parsers = parsers;
+        this.metrics = metrics;
+        this.baseUrl = fhirServerUrl.replaceAll("/+$", "");
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.decodeExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "fhir-decode");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        decodeExecutor.shutdown();
+    }
+
+    /**
+     * Reads one resource; empty if the server answers 404 or 410.
+     */
+    public <T extends Resource> CompletableFuture<Optional<T>> read(Class<T> type, String id) {
+        String resourceType = type.getSimpleName();
+        URI uri = URI.create(baseUrl + "/" + resourceType + "/" + encode(id) + "?" + SUMMARY_DATA);
+        return limited(() -> send(uri, resourceType, "read"))
+                .thenApplyAsync(response -> {
+                    if (response.status() == 404 || response.status() == 410) {
+                        return Optional.<T>empty();
+                    }
+                    return Optional.of(parse(type, response));
+                }, decodeExecutor);
+    }
+
+    /**
+     * First page of a search, e.g. search(Encounter.class, Map.of("patient", "123")).
+     */
+    public <T extends Resource> CompletableFuture<List<T>> search(Class<T> type, Map<String, String> params) {
+        return search(type, params, Function.identity());
+    }
+
+    /**
+     * First page of a search, with each entry of the type mapped as the bundle
+     * is decoded; see {@link FhirParsers#decodeBundle}.
+     */
+    public <T extends Resource, R> CompletableFuture<List<R>> search(
+            Class<T> type, Map<String, String> params, Function<T, R> mapper) {
+        String resourceType = type.getSimpleName();
+        StringJoiner query = new StringJoiner("&", "?", "");
+        params.forEach((name, value) -> query.add(encode(name) + "=" + encode(value)));
+        query.add(SUMMARY_DATA);
+        URI uri = URI.create(baseUrl + "/" + resourceType + query);
+        return limited(() -> send(uri, resourceType, "search"))
+                .thenApplyAsync(response -> {
+                    checkStatus(response);
+                    return parsers.decodeBundle(new ByteArrayInputStream(response.body()), type, mapper,
+                            entries -> metrics.recordEntries(resourceType, "search", entries));
+                }, decodeExecutor);
+    }
+
+    /**
+     * {@link #search} for callers that answer synchronously. Throws the HAPI
+     * exception of a failed search itself, as the blocking client would.
+     */
+    public <T extends Resource> List<T> searchAndWait(Class<T> type, Map<String, String> params) {
+        try {
+            return search(type, params).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private record Response(int status, byte[] body) {}
+
+    private CompletableFuture<Response> send(URI uri, String resourceType, String operation) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Accept", FHIR_JSON)
+                .GET();
+        metrics.injectTraceContext(request::header);
+
+        long start = System.nanoTime();
+        return sendAsync(request.build())
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        metrics.record(resourceType, operation, FhirClientMetrics.IO_ERROR, start, -1);
+                    }
+                })
+                .thenApply(response -> {
+                    byte[] body = response.body();
+                    metrics.record(resourceType, operation, Integer.toString(response.statusCode()), start, body.length);
+                    return new Response(response.statusCode(), body);
+                });
+    }
+
+    CompletableFuture<HttpResponse<byte[]>> sendAsync(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private <T extends Resource> T parse(Class<T> type, Response response) {
+        checkStatus(response);
+        return parsers.parse(type, new ByteArrayInputStream(response.body()));
+    }
+
+    private static void checkStatus(Response response) {
+        if (response.status() >= 300) {
+            throw BaseServerResponseException.newInstance(response.status(),
+                    new String(response.body(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Runs the request now if fewer than maxConcurrent are in flight, otherwise
+     * when one of them completes. Nothing blocks while waiting.
+     */
+    private <R> CompletableFuture<R> limited(Supplier<CompletableFuture<R>> request) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<R> started;
+            try {
+                started = request.get();
+            } catch (RuntimeException e) {
+                started = CompletableFuture.failedFuture(e);
+            }
+            started.whenComplete((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+
+        if (tryAcquire()) {
+            start.run();
+        } else if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            result.completeExceptionally(new RejectedExecutionException(
+                    "Too many pending FHIR requests (" + maxQueued + ")"));
+        } else {
+            waiting.add(start);
+            // A request may have completed between the failed acquire and the add
+            drain();
+        }
+        return result;
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxConcurrent) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    private void drain() {
+        while (!waiting.isEmpty() && tryAcquire()) {
+            Runnable next = waiting.poll();
+            if (next == null) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            queued.decrementAndGet();
+            next.run();
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
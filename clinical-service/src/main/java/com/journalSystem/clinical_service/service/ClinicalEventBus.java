@@ -0,0 +1,284 @@
+package com.journalSystem.clinical_service.service;
+
+import com.journalSystem.clinical_service.dto.ClinicalEventDTO;
+import com.journalSystem.clinical_service.mapper.FhirMapper;
+import jakarta.annotation.PreDestroy;
+import org.hl7.fhir.r4.model.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes records created through the Hapi*Service create methods to open
+ * dashboards over server-sent events, so they can add the new record instead
+ * of reloading everything. A dashboard subscribes to a patient, a practitioner
+ * or both and gets the events about them as they are published.
+ * Events are sent from one dispatcher thread, in publish order, so a slow
+ * client never holds up the request that created the record. The newest
+ * events are kept for replay: a client reconnecting with Last-Event-ID gets
+ * what it missed, or a "reset" event if that is no longer available.
+ */
+@Service
+public class ClinicalEventBus {
+
+    static final String RESET = "reset";
+
+    private final int replaySize;
+    private final int maxSubscribers;
+    private final long emitterTimeoutMillis;
+    private final Executor dispatcher;
+
+    private final Map<String, Set<Subscription>> byPatient = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscription>> byPractitioner = new ConcurrentHashMap<>();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Deque<ClinicalEventDTO> recent = new ArrayDeque<>();
+
+    // Ids start at the clock so they keep increasing across restarts; a
+    // Last-Event-ID from before a restart is older than the replay buffer
+    private long lastId = System.currentTimeMillis();
+
+    private record Subscription(String patientId, String practitionerId, SseEmitter emitter) {
+
+        boolean matches(ClinicalEventDTO event) {
+            return patientId != null && patientId.equals(event.patientId())
+                    || practitionerId != null && event.practitionerIds().contains(practitionerId);
+        }
+    }
+
+    @Autowired
+    public ClinicalEventBus(
+            @Value("${fhir.events.replay-size:1000}") int replaySize,
+            @Value("${fhir.events.max-subscribers:1000}") int maxSubscribers,
+            @Value("${fhir.events.emitter-timeout-ms:1800000}") long emitterTimeoutMillis
+    ) {
+        this(replaySize, maxSubscribers, emitterTimeoutMillis, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "clinical-events");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    ClinicalEventBus(int replaySize, int maxSubscribers, long emitterTimeoutMillis, Executor dispatcher) {
+        this.replaySize = replaySize;
+        this.maxSubscribers = maxSubscribers;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Publishes a "created" event for an encounter, condition or observation.
+     * Other resource types are ignored.
+     */
+    public void publishCreated(Resource resource) {
+        Object dto;
+        if (resource instanceof Encounter encounter) {
+            dto = FhirMapper.encounterToDTO(encounter);
+        } else if (resource instanceof Condition condition) {
+            dto = FhirMapper.conditionToDTO(condition);
+        } else if (resource instanceof Observation observation) {
+            dto = FhirMapper.observationToDTO(observation);
+        } else {
+            return;
+        }
+
+        synchronized (this) {
+            ClinicalEventDTO event = new ClinicalEventDTO(++lastId, ClinicalEventDTO.CREATED, resource.fhirType(),
+                    resource.getIdElement().getIdPart(), LocalResourceStore.patientOf(resource),
+                    practitionersOf(resource), Instant.now(), dto);
+            recent.addLast(event);
+            if (recent.size() > replaySize) {
+                recent.removeFirst();
+            }
+
+            Set<Subscription> targets = new LinkedHashSet<>();
+            if (event.patientId() != null) {
+                targets.addAll(byPatient.getOrDefault(event.patientId(), Set.of()));
+            }
+            for (String practitionerId : event.practitionerIds()) {
+                targets.addAll(byPractitioner.getOrDefault(practitionerId, Set.of()));
+            }
+            if (!targets.isEmpty()) {
+                dispatcher.execute(() -> targets.forEach(subscription -> send(subscription, event)));
+            }
+        }
+    }
+
+    /**
+     * Opens a stream of the events about the patient and/or practitioner,
+     * starting after lastEventId when it is given.
+     *
+     * @throws IllegalArgumentException if neither patient nor practitioner is given
+     * @throws IllegalStateException    if the subscriber limit is reached
+     */
+    public SseEmitter subscribe(String patientId, String practitionerId, Long lastEventId) {
+        return subscribe(patientId, practitionerId, lastEventId, new SseEmitter(emitterTimeoutMillis));
+    }
+
+    SseEmitter subscribe(String patientId, String practitionerId, Long lastEventId, SseEmitter emitter) {
+        if (isBlank(patientId) && isBlank(practitionerId)) {
+            throw new IllegalArgumentException("patientId or practitionerId is required");
+        }
+        if (subscriptions.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many event subscribers");
+        }
+        Subscription subscription = new Subscription(
+                isBlank(patientId) ? null : patientId.trim(),
+                isBlank(practitionerId) ? null : practitionerId.trim(),
+                emitter);
+        emitter.onCompletion(() -> unsubscribe(subscription));
+        emitter.onTimeout(() -> unsubscribe(subscription));
+        emitter.onError(e -> unsubscribe(subscription));
+
+        synchronized (this) {
+            subscriptions.add(subscription);
+            if (subscription.patientId() != null) {
+                byPatient.computeIfAbsent(subscription.patientId(), key -> ConcurrentHashMap.newKeySet())
+                        .add(subscription);
+            }
+            if (subscription.practitionerId() != null) {
+                byPractitioner.computeIfAbsent(subscription.practitionerId(), key -> ConcurrentHashMap.newKeySet())
+                        .add(subscription);
+            }
+
+            if (lastEventId != null) {
+                List<ClinicalEventDTO> missed = missedSince(lastEventId, subscription);
+                long latest = lastId;
+                dispatcher.execute(() -> {
+                    if (missed == null) {
+                        sendReset(subscription, latest);
+                    } else {
+                        missed.forEach(event -> send(subscription, event));
+                    }
+                });
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Keeps idle streams open through proxies and finds clients that are gone.
+     */
+    @Scheduled(fixedDelayString = "${fhir.events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        List<Subscription> current = List.copyOf(subscriptions);
+        dispatcher.execute(() -> {
+            for (Subscription subscription : current) {
+                try {
+                    subscription.emitter().send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException e) {
+                    drop(subscription, e);
+                }
+            }
+        });
+    }
+
+    int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscriptions.forEach(subscription -> subscription.emitter().complete());
+        if (dispatcher instanceof ExecutorService executor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Events after lastEventId that match, or null if some of them are no
+     * longer kept and the client has to reload.
+     */
+    private List<ClinicalEventDTO> missedSince(long lastEventId, Subscription subscription) {
+        long oldestKept = recent.isEmpty() ? lastId + 1 : recent.getFirst().id();
+        if (lastEventId < oldestKept - 1 || lastEventId > lastId) {
+            return null;
+        }
+        List<ClinicalEventDTO> missed = new ArrayList<>();
+        for (ClinicalEventDTO event : recent) {
+            if (event.id() > lastEventId && subscription.matches(event)) {
+                missed.add(event);
+            }
+        }
+        return missed;
+    }
+
+    private void send(Subscription subscription, ClinicalEventDTO event) {
+        try {
+            subscription.emitter().send(SseEmitter.event()
+                    .id(Long.toString(event.id()))
+                    .name(event.resourceType().toLowerCase(Locale.ROOT))
+                    .data(event));
+        } catch (IOException | IllegalStateException e) {
+            drop(subscription, e);
+        }
+    }
+
+    private void sendReset(Subscription subscription, long latest) {
+        try {
+            subscription.emitter().send(SseEmitter.event()
+                    .id(Long.toString(latest))
+                    .name(RESET)
+                    .data(Map.of("reason", "Missed events are no longer available, reload")));
+        } catch (IOException | IllegalStateException e) {
+            drop(subscription, e);
+        }
+    }
+
+    private void drop(Subscription subscription, Exception cause) {
+        unsubscribe(subscription);
+        subscription.emitter().completeWithError(cause);
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+        if (subscription.patientId() != null) {
+            removeFrom(byPatient, subscription.patientId(), subscription);
+        }
+        if (subscription.practitionerId() != null) {
+            removeFrom(byPractitioner, subscription.practitionerId(), subscription);
+        }
+    }
+
+    private static void removeFrom(Map<String, Set<Subscription>> index, String key, Subscription subscription) {
+        index.computeIfPresent(key, (k, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static List<String> practitionersOf(Resource resource) {
+        List<Reference> references = new ArrayList<>();
+        if (resource instanceof Encounter encounter) {
+            encounter.getParticipant().forEach(participant -> references.add(participant.getIndividual()));
+        } else if (resource instanceof Condition condition) {
+            references.add(condition.getRecorder());
+            references.add(condition.getAsserter());
+        } else if (resource instanceof Observation observation) {
+            references.addAll(observation.getPerformer());
+        }
+        List<String> ids = new ArrayList<>();
+        for (Reference reference : references) {
+            if (reference != null && "Practitioner".equals(reference.getReferenceElement().getResourceType())) {
+                String id = reference.getReferenceElement().getIdPart();
+                if (!ids.contains(id)) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
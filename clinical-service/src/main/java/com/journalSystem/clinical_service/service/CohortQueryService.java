@@ -0,0 +1,288 @@
+package com.journalSystem.clinical_service.service;
+
+import com.journalSystem.clinical_service.dto.CohortQueryDTO;
+import com.journalSystem.clinical_service.dto.CohortResultDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+import static com.journalSystem.clinical_service.dto.CohortQueryDTO.*;
+
+/**
+ * Evaluates cohort queries against a {@link CohortSnapshot} of the local store.
+ * Every criterion becomes a BitSet of patient ordinals: leaves scan the
+ * matching rows in chunks on the common fork-join pool, and and/or/not are
+ * BitSet operations, with the children of and/or evaluated in parallel.
+ * The snapshot is rebuilt when the store has changed, but at most once per
+ * refresh interval, so results may lag the store by that long.
+ */
+@Service
+public class CohortQueryService {
+
+    static final int MAX_DEPTH = 32;
+
+    private static final int CHUNK_ROWS = 1 << 15;
+
+    private final LocalResourceStore store;
+    private final long refreshIntervalMillis;
+    private volatile CohortSnapshot snapshot;
+
+    public CohortQueryService(
+            LocalResourceStore store,
+            @Value("${fhir.cohort.refresh-interval-ms:5000}") long refreshIntervalMillis
+    ) {
+        this.store = store;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+    }
+
+    /**
+     * Counts the patients matching the query and returns page {@code page} of
+     * their ids, {@code size} per page; size 0 only counts.
+     *
+     * @throws IllegalArgumentException if the query is invalid
+     * @throws IllegalStateException    if the local store has not synced yet
+     */
+    public CohortResultDTO query(CohortQueryDTO query, int page, int size) {
+        if (page < 0 || size < 0) {
+            throw new IllegalArgumentException("page and size must not be negative");
+        }
+        long started = System.nanoTime();
+        CohortSnapshot current = snapshot();
+        BitSet cohort = evaluate(current, query, System.currentTimeMillis());
+
+        List<String> patientIds = new ArrayList<>(Math.min(size, cohort.cardinality()));
+        int ordinal = cohort.nextSetBit(0);
+        for (long skipped = 0, skip = (long) page * size; skipped < skip && ordinal >= 0; skipped++) {
+            ordinal = cohort.nextSetBit(ordinal + 1);
+        }
+        while (ordinal >= 0 && patientIds.size() < size) {
+            patientIds.add(current.patientId(ordinal));
+            ordinal = cohort.nextSetBit(ordinal + 1);
+        }
+
+        return new CohortResultDTO(cohort.cardinality(), current.population(), page, size, patientIds,
+                current.builtAt(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    CohortSnapshot snapshot() {
+        if (!store.isReady()) {
+            throw new IllegalStateException("Local resource store has not completed its first sync");
+        }
+        CohortSnapshot current = snapshot;
+        if (isCurrent(current)) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (!isCurrent(current)) {
+                current = CohortSnapshot.build(store, Instant.now());
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private boolean isCurrent(CohortSnapshot current) {
+        return current != null && (current.version() == store.version()
+                || System.currentTimeMillis() - current.builtAt().toEpochMilli() < refreshIntervalMillis);
+    }
+
+    static BitSet evaluate(CohortSnapshot snapshot, CohortQueryDTO query, long now) {
+        return evaluate(snapshot, query, now, 0);
+    }
+
+    private static BitSet evaluate(CohortSnapshot snapshot, CohortQueryDTO query, long now, int depth) {
+        if (query == null || query.type() == null) {
+            throw new IllegalArgumentException("Cohort criterion has no type");
+        }
+        if (depth >= MAX_DEPTH) {
+            throw new IllegalArgumentException("Cohort query is nested deeper than " + MAX_DEPTH);
+        }
+        String type = query.type().toLowerCase(Locale.ROOT);
+        if (!type.equals(OBSERVATION) && (query.min() != null || query.max() != null)) {
+            throw new IllegalArgumentException("min and max only apply to observations");
+        }
+
+        return switch (type) {
+            case AND, OR -> {
+                if (query.of() == null || query.of().isEmpty()) {
+                    throw new IllegalArgumentException(type + " needs at least one criterion");
+                }
+                List<BitSet> parts = query.of().parallelStream()
+                        .map(child -> evaluate(snapshot, child, now, depth + 1))
+                        .toList();
+                BitSet result = parts.get(0);
+                for (BitSet part : parts.subList(1, parts.size())) {
+                    if (type.equals(AND)) {
+                        result.and(part);
+                    } else {
+                        result.or(part);
+                    }
+                }
+                yield result;
+            }
+            case NOT -> {
+                if (query.of() == null || query.of().size() != 1) {
+                    throw new IllegalArgumentException("not takes exactly one criterion");
+                }
+                BitSet result = new BitSet(snapshot.population());
+                result.set(0, snapshot.population());
+                result.andNot(evaluate(snapshot, query.of().get(0), now, depth + 1));
+                yield result;
+            }
+            case CONDITION -> match(snapshot.conditions(), conceptKeys(snapshot.conditions(), query),
+                    query, now, snapshot.population());
+            case OBSERVATION -> match(snapshot.observations(), conceptKeys(snapshot.observations(), query),
+                    query, now, snapshot.population());
+            case ENCOUNTER -> {
+                String practitionerId = blankToNull(query.practitionerId());
+                CohortSnapshot.Table encounters = snapshot.encounters();
+                int[] keys = encounters.keys(key -> practitionerId == null
+                        || encounters.key(key).equals(practitionerId.trim()));
+                yield match(encounters, keys, query, now, snapshot.population());
+            }
+            default -> throw new IllegalArgumentException("Unknown cohort criterion type: " + query.type());
+        };
+    }
+
+    /**
+     * Keys matching the criterion's code or text; all keys if it has neither.
+     */
+    private static int[] conceptKeys(CohortSnapshot.Table table, CohortQueryDTO query) {
+        String code = blankToNull(query.code());
+        String text = blankToNull(query.text());
+        if (code == null && text == null) {
+            return table.keys(key -> true);
+        }
+        String token = code != null && code.contains("|") ? token(code) : null;
+        String suffix = code != null && token == null ? "|" + code.trim() : null;
+        String needle = text != null ? CohortSnapshot.normalize(text) : null;
+        return table.keys(key -> {
+            String value = table.key(key);
+            if (value.startsWith(CohortSnapshot.TEXT)) {
+                return needle != null && value.indexOf(needle, CohortSnapshot.TEXT.length()) >= 0;
+            }
+            return token != null ? value.equals(token) : suffix != null && value.endsWith(suffix);
+        });
+    }
+
+    /**
+     * Patients with a row under one of the keys, inside the criterion's time
+     * range and, for observations, value range.
+     */
+    private static BitSet match(CohortSnapshot.Table table, int[] keys, CohortQueryDTO query, long now,
+                                int population) {
+        long from = from(query, now);
+        long to = to(query);
+        boolean filterValue = query.min() != null || query.max() != null;
+        double min = query.min() != null ? query.min() : Double.NEGATIVE_INFINITY;
+        double max = query.max() != null ? query.max() : Double.POSITIVE_INFINITY;
+
+        // Row ranges to read, grouped into tasks of about CHUNK_ROWS rows
+        List<int[]> tasks = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        int rowsInTask = 0;
+        for (int key : keys) {
+            int start = table.firstRow(key, from);
+            int end = table.endRow(key, to);
+            while (start < end) {
+                int stop = Math.min(end, start + CHUNK_ROWS - rowsInTask);
+                current.add(start);
+                current.add(stop);
+                rowsInTask += stop - start;
+                start = stop;
+                if (rowsInTask >= CHUNK_ROWS) {
+                    tasks.add(current.stream().mapToInt(Integer::intValue).toArray());
+                    current.clear();
+                    rowsInTask = 0;
+                }
+            }
+        }
+        if (!current.isEmpty()) {
+            tasks.add(current.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        if (tasks.size() <= 1) {
+            BitSet result = new BitSet(population);
+            tasks.forEach(ranges -> scan(table, ranges, filterValue, min, max, result));
+            return result;
+        }
+        return tasks.parallelStream().collect(
+                () -> new BitSet(population),
+                (result, ranges) -> scan(table, ranges, filterValue, min, max, result),
+                BitSet::or);
+    }
+
+    private static void scan(CohortSnapshot.Table table, int[] ranges, boolean filterValue, double min, double max,
+                             BitSet result) {
+        for (int i = 0; i < ranges.length; i += 2) {
+            for (int row = ranges[i]; row < ranges[i + 1]; row++) {
+                if (filterValue) {
+                    double value = table.value(row);
+                    if (!(value >= min && value <= max)) {
+                        continue;
+                    }
+                }
+                result.set(table.patient(row));
+            }
+        }
+    }
+
+    private static long from(CohortQueryDTO query, long now) {
+        long from = CohortSnapshot.NO_TIME;
+        try {
+            if (blankToNull(query.within()) != null) {
+                from = Instant.ofEpochMilli(now).atZone(ZoneId.systemDefault())
+                        .minus(Period.parse(query.within().trim()))
+                        .toInstant().toEpochMilli();
+            }
+            if (blankToNull(query.from()) != null) {
+                from = Math.max(from, LocalDate.parse(query.from().trim())
+                        .atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid from or within: " + e.getParsedString(), e);
+        }
+        return from;
+    }
+
+    private static long to(CohortQueryDTO query) {
+        if (blankToNull(query.to()) == null) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return LocalDate.parse(query.to().trim()).plusDays(1)
+                    .atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli() - 1;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid to: " + query.to(), e);
+        }
+    }
+
+    /**
+     * system|code with the short system names snomed, icd10 and loinc expanded.
+     */
+    static String token(String code) {
+        int bar = code.indexOf('|');
+        String system = code.substring(0, bar).trim();
+        String value = code.substring(bar + 1).trim();
+        return switch (system.toLowerCase(Locale.ROOT)) {
+            case "snomed", "sct" -> "http://snomed.info/sct";
+            case "icd10", "icd-10" -> "http://hl7.org/fhir/sid/icd-10";
+            case "loinc" -> "http://loinc.org";
+            default -> system;
+        } + "|" + value;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
@@ -0,0 +1,343 @@
+package com.journalSystem.clinical_service.service;
+
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.*;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Immutable, column-oriented copy of the conditions, observations and
+ * encounters in the {@link LocalResourceStore}, for cohort queries. Patients
+ * are numbered in id order, so a set of patients is a BitSet of ordinals.
+ * Each resource type is a {@link Table} with one row per key a resource can
+ * be found by: a coding and the code text for conditions and observations, a
+ * practitioner for encounters. Rows are sorted by key and then by time, so a
+ * criterion only reads the rows of the keys it matches that fall in its time
+ * range.
+ */
+final class CohortSnapshot {
+
+    /** Time of a row whose resource has no date; sorts before every real time. */
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    /** Prefix of the keys that hold a normalized code text. */
+    static final String TEXT = "text:";
+
+    private final long version;
+    private final Instant builtAt;
+    private final String[] patientIds;
+    private final Table conditions;
+    private final Table observations;
+    private final Table encounters;
+
+    private CohortSnapshot(long version, Instant builtAt, String[] patientIds,
+                           Table conditions, Table observations, Table encounters) {
+        this.version = version;
+        this.builtAt = builtAt;
+        this.patientIds = patientIds;
+        this.conditions = conditions;
+        this.observations = observations;
+        this.encounters = encounters;
+    }
+
+    static CohortSnapshot build(LocalResourceStore store, Instant builtAt) {
+        long version = store.version();
+        List<Condition> conditionList = store.getAll(Condition.class);
+        List<Observation> observationList = store.getAll(Observation.class);
+        List<Encounter> encounterList = store.getAll(Encounter.class);
+
+        SortedSet<String> ids = new TreeSet<>();
+        for (Patient patient : store.getAll(Patient.class)) {
+            ids.add(patient.getIdElement().getIdPart());
+        }
+        for (List<? extends Resource> resources : List.of(conditionList, observationList, encounterList)) {
+            for (Resource resource : resources) {
+                String patientId = LocalResourceStore.patientOf(resource);
+                if (patientId != null) {
+                    ids.add(patientId);
+                }
+            }
+        }
+        String[] patientIds = ids.toArray(String[]::new);
+        Map<String, Integer> ordinals = new HashMap<>(patientIds.length * 2);
+        for (int i = 0; i < patientIds.length; i++) {
+            ordinals.put(patientIds[i], i);
+        }
+
+        TableBuilder conditionRows = new TableBuilder(conditionList.size());
+        for (Condition condition : conditionList) {
+            Integer patient = ordinals.get(LocalResourceStore.patientOf(condition));
+            if (patient != null) {
+                conditionRows.addConcept(condition.getCode(), patient, timeOf(condition), Double.NaN);
+            }
+        }
+
+        TableBuilder observationRows = new TableBuilder(observationList.size());
+        for (Observation observation : observationList) {
+            Integer patient = ordinals.get(LocalResourceStore.patientOf(observation));
+            if (patient != null) {
+                observationRows.addConcept(observation.getCode(), patient, timeOf(observation), valueOf(observation));
+            }
+        }
+
+        TableBuilder encounterRows = new TableBuilder(encounterList.size());
+        for (Encounter encounter : encounterList) {
+            Integer patient = ordinals.get(LocalResourceStore.patientOf(encounter));
+            if (patient == null) {
+                continue;
+            }
+            long time = encounter.getPeriod().getStart() != null ? encounter.getPeriod().getStart().getTime() : NO_TIME;
+            boolean added = false;
+            for (Encounter.EncounterParticipantComponent participant : encounter.getParticipant()) {
+                IIdType individual = participant.getIndividual().getReferenceElement();
+                if ("Practitioner".equals(individual.getResourceType()) && individual.getIdPart() != null) {
+                    encounterRows.add(individual.getIdPart(), patient, time, Double.NaN);
+                    added = true;
+                }
+            }
+            if (!added) {
+                encounterRows.add("", patient, time, Double.NaN);
+            }
+        }
+
+        return new CohortSnapshot(version, builtAt, patientIds,
+                conditionRows.build(), observationRows.build(), encounterRows.build());
+    }
+
+    long version() {
+        return version;
+    }
+
+    Instant builtAt() {
+        return builtAt;
+    }
+
+    int population() {
+        return patientIds.length;
+    }
+
+    String patientId(int ordinal) {
+        return patientIds[ordinal];
+    }
+
+    Table conditions() {
+        return conditions;
+    }
+
+    Table observations() {
+        return observations;
+    }
+
+    Table encounters() {
+        return encounters;
+    }
+
+    /**
+     * Lower-cased text with runs of whitespace collapsed, as stored in text keys.
+     */
+    static String normalize(String text) {
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static long timeOf(Condition condition) {
+        if (condition.hasOnsetDateTimeType() && condition.getOnsetDateTimeType().getValue() != null) {
+            return condition.getOnsetDateTimeType().getValue().getTime();
+        }
+        if (condition.hasOnsetPeriod() && condition.getOnsetPeriod().getStart() != null) {
+            return condition.getOnsetPeriod().getStart().getTime();
+        }
+        return condition.getRecordedDate() != null ? condition.getRecordedDate().getTime() : NO_TIME;
+    }
+
+    private static long timeOf(Observation observation) {
+        if (observation.hasEffectiveDateTimeType() && observation.getEffectiveDateTimeType().getValue() != null) {
+            return observation.getEffectiveDateTimeType().getValue().getTime();
+        }
+        if (observation.hasEffectivePeriod() && observation.getEffectivePeriod().getStart() != null) {
+            return observation.getEffectivePeriod().getStart().getTime();
+        }
+        return observation.getIssued() != null ? observation.getIssued().getTime() : NO_TIME;
+    }
+
+    private static double valueOf(Observation observation) {
+        if (observation.hasValueQuantity() && observation.getValueQuantity().hasValue()) {
+            return observation.getValueQuantity().getValue().doubleValue();
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Rows of one resource type. The rows of key k are keyStart[k] until
+     * keyStart[k + 1], in time order.
+     */
+    static final class Table {
+
+        private final String[] keys;
+        private final int[] keyStart;
+        private final int[] patient;
+        private final long[] time;
+        private final double[] value;
+
+        private Table(String[] keys, int[] keyStart, int[] patient, long[] time, double[] value) {
+            this.keys = keys;
+            this.keyStart = keyStart;
+            this.patient = patient;
+            this.time = time;
+            this.value = value;
+        }
+
+        int rows() {
+            return patient.length;
+        }
+
+        int keyCount() {
+            return keys.length;
+        }
+
+        String key(int key) {
+            return keys[key];
+        }
+
+        int patient(int row) {
+            return patient[row];
+        }
+
+        long time(int row) {
+            return time[row];
+        }
+
+        double value(int row) {
+            return value[row];
+        }
+
+        /**
+         * Ids of the keys the predicate accepts, in id order.
+         */
+        int[] keys(IntPredicate accept) {
+            int[] matched = new int[keys.length];
+            int count = 0;
+            for (int key = 0; key < keys.length; key++) {
+                if (accept.test(key)) {
+                    matched[count++] = key;
+                }
+            }
+            return Arrays.copyOf(matched, count);
+        }
+
+        /**
+         * First row of the key with a time at or after {@code from}.
+         */
+        int firstRow(int key, long from) {
+            return search(keyStart[key], keyStart[key + 1], from);
+        }
+
+        /**
+         * Row after the last row of the key with a time at or before {@code to}.
+         */
+        int endRow(int key, long to) {
+            return to == Long.MAX_VALUE ? keyStart[key + 1] : search(keyStart[key], keyStart[key + 1], to + 1);
+        }
+
+        private int search(int low, int high, long target) {
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (time[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class TableBuilder {
+
+        private final Map<String, Integer> keyIds = new HashMap<>();
+        private final List<String> keys = new ArrayList<>();
+        private int size;
+        private int[] key;
+        private int[] patient;
+        private long[] time;
+        private double[] value;
+
+        TableBuilder(int expected) {
+            int capacity = Math.max(16, expected + expected / 2);
+            key = new int[capacity];
+            patient = new int[capacity];
+            time = new long[capacity];
+            value = new double[capacity];
+        }
+
+        /** One row per coding and one for the text; a concept with neither gets the empty key. */
+        void addConcept(CodeableConcept concept, int patientOrdinal, long rowTime, double rowValue) {
+            int before = size;
+            for (Coding coding : concept.getCoding()) {
+                if (coding.hasCode()) {
+                    add((coding.hasSystem() ? coding.getSystem() : "") + "|" + coding.getCode(),
+                            patientOrdinal, rowTime, rowValue);
+                }
+            }
+            if (concept.hasText() && !concept.getText().isBlank()) {
+                add(TEXT + normalize(concept.getText()), patientOrdinal, rowTime, rowValue);
+            }
+            if (size == before) {
+                add("", patientOrdinal, rowTime, rowValue);
+            }
+        }
+
+        void add(String rowKey, int patientOrdinal, long rowTime, double rowValue) {
+            if (size == key.length) {
+                int capacity = size * 2;
+                key = Arrays.copyOf(key, capacity);
+                patient = Arrays.copyOf(patient, capacity);
+                time = Arrays.copyOf(time, capacity);
+                value = Arrays.copyOf(value, capacity);
+            }
+            key[size] = keyIds.computeIfAbsent(rowKey, k -> {
+                keys.add(k);
+                return keys.size() - 1;
+            });
+            patient[size] = patientOrdinal;
+            time[size] = rowTime;
+            value[size] = rowValue;
+            size++;
+        }
+
+        /**
+         * Counting sort by key, then a sort by time within each key.
+         */
+        Table build() {
+            int keyCount = keys.size();
+            int[] keyStart = new int[keyCount + 1];
+            for (int row = 0; row < size; row++) {
+                keyStart[key[row] + 1]++;
+            }
+            for (int k = 0; k < keyCount; k++) {
+                keyStart[k + 1] += keyStart[k];
+            }
+
+            Integer[] order = new Integer[size];
+            int[] next = Arrays.copyOf(keyStart, keyCount);
+            for (int row = 0; row < size; row++) {
+                order[next[key[row]]++] = row;
+            }
+            for (int k = 0; k < keyCount; k++) {
+                Arrays.sort(order, keyStart[k], keyStart[k + 1], Comparator.comparingLong(row -> time[row]));
+            }
+
+            int[] sortedPatient = new int[size];
+            long[] sortedTime = new long[size];
+            double[] sortedValue = new double[size];
+            for (int i = 0; i < size; i++) {
+                int row = order[i];
+                sortedPatient[i] = patient[row];
+                sortedTime[i] = time[row];
+                sortedValue[i] = value[row];
+            }
+            return new Table(keys.toArray(String[]::new), keyStart, sortedPatient, sortedTime, sortedValue);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.journalSystem.clinical_service.service;
+
+import com.journalSystem.clinical_service.dto.CalendarDayDTO;
+import com.journalSystem.clinical_service.dto.CalendarEntryDTO;
+import org.hl7.fhir.r4.model.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Practitioners' encounters bucketed by start day, with patient and
+ * practitioner names resolved up front, so a day or week schedule is read
+ * from memory without any FHIR call. The buckets follow every change to the
+ * {@link LocalResourceStore} as it happens: encounters from the change feed
+ * and from {@link HapiEncounterService#createEncounter}, and patient or
+ * practitioner renames, which rewrite the names in the affected entries.
+ */
+@Service
+public class EncounterCalendar implements LocalResourceStore.Listener {
+
+    private static final Comparator<CalendarEntryDTO> BY_START = Comparator
+            .comparing(CalendarEntryDTO::startTime)
+            .thenComparing(CalendarEntryDTO::encounterId);
+
+    private final LocalResourceStore store;
+    private final ZoneId zone;
+
+    // practitioner id -> start day -> encounter id -> entry
+    private final Map<String, ConcurrentSkipListMap<LocalDate, Map<String, CalendarEntryDTO>>> buckets =
+            new ConcurrentHashMap<>();
+    // encounter id -> the buckets holding it, to move or drop it when it changes
+    private final Map<String, List<Slot>> slots = new ConcurrentHashMap<>();
+
+    private record Slot(String practitionerId, LocalDate day) {}
+
+    public EncounterCalendar(
+            LocalResourceStore store,
+            @Value("${fhir.calendar.zone:Europe/Stockholm}") String zone
+    ) {
+        this.store = store;
+        this.zone = ZoneId.of(zone);
+        // Holding the store's lock keeps changes from slipping in between the
+        // initial load and registering for the rest
+        synchronized (store) {
+            store.getAll(Encounter.class).forEach(this::index);
+            store.addListener(this);
+        }
+    }
+
+    /**
+     * The practitioner's encounters on each day from {@code from} to {@code to}
+     * inclusive, ordered by start time; days without encounters are included
+     * with an empty list. The practitioner is given by FHIR id or identifier.
+     *
+     * @throws IllegalStateException if the local store has not synced yet
+     */
+    public List<CalendarDayDTO> days(String practitioner, LocalDate from, LocalDate to) {
+        if (!store.isReady()) {
+            throw new IllegalStateException("Local resource store has not completed its first sync");
+        }
+        NavigableMap<LocalDate, Map<String, CalendarEntryDTO>> days = buckets.get(resolve(practitioner));
+
+        List<CalendarDayDTO> result = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Map<String, CalendarEntryDTO> bucket = days != null ? days.get(day) : null;
+            List<CalendarEntryDTO> entries = bucket != null
+                    ? bucket.values().stream().sorted(BY_START).toList()
+                    : List.of();
+            result.add(new CalendarDayDTO(day, entries));
+        }
+        return result;
+    }
+
+    @Override
+    public void upserted(Resource resource) {
+        if (resource instanceof Encounter encounter) {
+            index(encounter);
+        } else if (resource instanceof Patient patient) {
+            store.getForPatient(Encounter.class, patient.getIdElement().getIdPart()).forEach(this::index);
+        } else if (resource instanceof Practitioner practitioner) {
+            renamePractitioner(practitioner.getIdElement().getIdPart(), nameOf(practitioner.getName()));
+        }
+    }
+
+    @Override
+    public void removed(Resource resource) {
+        if (resource instanceof Encounter encounter) {
+            unindex(encounter.getIdElement().getIdPart());
+        } else if (resource instanceof Patient patient) {
+            store.getForPatient(Encounter.class, patient.getIdElement().getIdPart()).forEach(this::index);
+        } else if (resource instanceof Practitioner practitioner) {
+            renamePractitioner(practitioner.getIdElement().getIdPart(), null);
+        }
+    }
+
+    @Override
+    public void cleared() {
+        buckets.clear();
+        slots.clear();
+    }
+
+    /**
+     * Replaces the encounter's entries: one per practitioner taking part,
+     * in the bucket of the day it starts. Encounters without a start are left out.
+     */
+    private void index(Encounter encounter) {
+        String id = encounter.getIdElement().getIdPart();
+        unindex(id);
+        if (id == null || !encounter.hasPeriod() || !encounter.getPeriod().hasStart()) {
+            return;
+        }
+
+        LocalDateTime start = toLocal(encounter.getPeriod().getStart());
+        LocalDateTime end = encounter.getPeriod().hasEnd() ? toLocal(encounter.getPeriod().getEnd()) : null;
+        String patientId = LocalResourceStore.patientOf(encounter);
+        String patientName = patientId != null
+                ? store.get(Patient.class, patientId).map(patient -> nameOf(patient.getName())).orElse(null)
+                : null;
+        String status = encounter.hasStatus() ? encounter.getStatus().toCode() : null;
+
+        List<Slot> added = new ArrayList<>(1);
+        for (String practitionerId : practitionersOf(encounter)) {
+            String practitionerName = store.get(Practitioner.class, practitionerId)
+                    .map(practitioner -> nameOf(practitioner.getName()))
+                    .orElse(null);
+            Slot slot = new Slot(practitionerId, start.toLocalDate());
+            bucket(slot, true).put(id, new CalendarEntryDTO(id, patientId, patientName, practitionerId,
+                    practitionerName, start, end, status));
+            added.add(slot);
+        }
+        if (!added.isEmpty()) {
+            slots.put(id, added);
+        }
+    }
+
+    private void unindex(String encounterId) {
+        List<Slot> previous = encounterId != null ? slots.remove(encounterId) : null;
+        if (previous == null) {
+            return;
+        }
+        for (Slot slot : previous) {
+            Map<String, CalendarEntryDTO> bucket = bucket(slot, false);
+            if (bucket == null) {
+                continue;
+            }
+            bucket.remove(encounterId);
+            if (bucket.isEmpty()) {
+                buckets.get(slot.practitionerId()).remove(slot.day());
+            }
+        }
+    }
+
+    private void renamePractitioner(String practitionerId, String name) {
+        NavigableMap<LocalDate, Map<String, CalendarEntryDTO>> days = buckets.get(practitionerId);
+        if (days == null) {
+            return;
+        }
+        for (Map<String, CalendarEntryDTO> bucket : days.values()) {
+            bucket.replaceAll((id, entry) -> new CalendarEntryDTO(entry.encounterId(), entry.patientId(),
+                    entry.patientName(), entry.practitionerId(), name, entry.startTime(), entry.endTime(),
+                    entry.status()));
+        }
+    }
+
+    private Map<String, CalendarEntryDTO> bucket(Slot slot, boolean create) {
+        if (!create) {
+            ConcurrentSkipListMap<LocalDate, Map<String, CalendarEntryDTO>> days = buckets.get(slot.practitionerId());
+            return days != null ? days.get(slot.day()) : null;
+        }
+        return buckets.computeIfAbsent(slot.practitionerId(), key -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(slot.day(), key -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * The practitioner's FHIR id; an identifier such as a personnummer is
+     * looked up among the stored practitioners.
+     */
+    private String resolve(String practitioner) {
+        String id = practitioner.replace("Practitioner/", "");
+        if (buckets.containsKey(id) || store.get(Practitioner.class, id).isPresent()) {
+            return id;
+        }
+        for (Practitioner candidate : store.getAll(Practitioner.class)) {
+            for (Identifier identifier : candidate.getIdentifier()) {
+                if (id.equals(identifier.getValue())) {
+                    return candidate.getIdElement().getIdPart();
+                }
+            }
+        }
+        return id;
+    }
+
+    private static Set<String> practitionersOf(Encounter encounter) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (Encounter.EncounterParticipantComponent participant : encounter.getParticipant()) {
+            if (participant.hasIndividual()
+                    && "Practitioner".equals(participant.getIndividual().getReferenceElement().getResourceType())) {
+                ids.add(participant.getIndividual().getReferenceElement().getIdPart());
+            }
+        }
+        return ids;
+    }
+
+    private static String nameOf(List<HumanName> names) {
+        if (names.isEmpty()) {
+            return null;
+        }
+        HumanName name = names.get(0);
+        String given = name.getGiven().isEmpty() ? "" : name.getGiven().get(0).getValue();
+        String full = ((given != null ? given : "") + " " + (name.hasFamily() ? name.getFamily() : "")).trim();
+        return full.isEmpty() ? null : full;
+    }
+
+    private LocalDateTime toLocal(Date date) {
+        return date.toInstant().atZone(zone).toLocalDateTime();
+    }
+}
@@ -0,0 +1,388 @@
+package com.journalSystem.clinical_service.service;
+
+import ca.uhn.fhir.parser.IParser;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.hl7.fhir.r4.model.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Initial load of {@link LocalResourceStore} through the FHIR Bulk Data
+ * system-level $export, which is much faster than paging through searches.
+ * The export is started asynchronously and its status URL polled until the
+ * server has written the NDJSON files. The files are downloaded in parallel
+ * to disk and then streamed into the store a line at a time, so memory use
+ * does not grow with file size.
+ * Progress survives a restart: the status URL is saved before polling, so a
+ * restarted service picks up the same export. Finished files are kept, and
+ * partial downloads continue with a Range request.
+ */
+@Service
+public class FhirBulkExportService {
+
+    static final String JOB_FILE = "export.properties";
+    private static final String STATUS_URL = "statusUrl";
+    private static final String PART = ".part";
+    private static final String NDJSON = ".ndjson";
+    private static final int DOWNLOAD_ATTEMPTS = 3;
+
+    private final HapiClientService hapiClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final boolean enabled;
+    private final Path dataDir;
+    private final Duration pollInterval;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+
+    /**
+     * Result of an export: the server time the data is consistent with, and the
+     * number of resources loaded.
+     */
+    public record Result(Instant transactionTime, int resources) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Manifest(String transactionTime, List<Output> output, List<Output> error) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Output(String type, String url, Long count) {}
+
+    public FhirBulkExportService(
+            HapiClientService hapiClient,
+            ObjectMapper objectMapper,
+            @Value("${fhir.server.url}") String fhirServerUrl,
+            @Value("${fhir.export.enabled:false}") boolean enabled,
+            @Value("${fhir.export.data-dir:data/export}") String dataDir,
+            @Value("${fhir.export.download-concurrency:4}") int downloadConcurrency,
+            @Value("${fhir.export.poll-interval-ms:5000}") long pollIntervalMs,
+            @Value("${fhir.export.timeout-minutes:60}") long timeoutMinutes
+    ) {
+        this.hapiClient = hapiClient;
+        this.objectMapper = objectMapper;
+        this.baseUrl = fhirServerUrl.replaceAll("/+$", "");
+        this.enabled = enabled;
+        this.dataDir = Path.of(dataDir);
+        this.pollInterval = Duration.ofMillis(pollIntervalMs);
+        this.timeout = Duration.ofMinutes(timeoutMinutes);
+        this.executor = Executors.newFixedThreadPool(downloadConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "fhir-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs the export, or resumes the saved one, and upserts every exported
+     * resource of the store's types into the store. The downloaded files are
+     * deleted once they have been loaded.
+     *
+     * @throws IOException if the server does not support $export, the export
+     *                     fails or a file cannot be downloaded
+     */
+    public Result exportInto(LocalResourceStore store) throws IOException {
+        Files.createDirectories(dataDir);
+        String statusUrl = savedStatusUrl();
+        Manifest manifest = statusUrl != null ? awaitManifest(statusUrl) : null;
+        if (manifest == null) {
+            // No saved export, or the server has forgotten it
+            deleteFiles();
+            statusUrl = kickOff();
+            saveStatusUrl(statusUrl);
+            manifest = awaitManifest(statusUrl);
+            if (manifest == null) {
+                throw new IOException("Bulk export " + statusUrl + " disappeared before it completed");
+            }
+        }
+        if (manifest.error() != null && !manifest.error().isEmpty()) {
+            System.err.println("Bulk export reported " + manifest.error().size() + " error file(s)");
+        }
+
+        List<Output> outputs = manifest.output() == null ? List.of() : manifest.output().stream()
+                .filter(output -> output.url() != null && store.supports(output.type()))
+                .toList();
+        List<Path> files = new ArrayList<>(outputs.size());
+        List<CompletableFuture<Void>> downloads = new ArrayList<>(outputs.size());
+        for (int i = 0; i < outputs.size(); i++) {
+            Output output = outputs.get(i);
+            Path file = dataDir.resolve(i + "." + output.type() + NDJSON);
+            files.add(file);
+            downloads.add(CompletableFuture.runAsync(() -> downloadWithRetry(URI.create(output.url()), file), executor));
+        }
+        join(downloads);
+
+        AtomicInteger loaded = new AtomicInteger();
+        join(files.stream()
+                .map(file -> CompletableFuture.runAsync(() -> loaded.addAndGet(load(file, store)), executor))
+                .toList());
+
+        delete(statusUrl);
+        deleteFiles();
+        Files.deleteIfExists(dataDir.resolve(JOB_FILE));
+        Instant transactionTime = manifest.transactionTime() != null
+                ? OffsetDateTime.parse(manifest.transactionTime()).toInstant()
+                : Instant.now();
+        System.out.println("✓ FHIR bulk export loaded " + loaded.get() + " resources from " + files.size()
+                + " files, transaction time " + transactionTime);
+        return new Result(transactionTime, loaded.get());
+    }
+
+    /**
+     * Starts a system-level export of the store's resource types.
+     *
+     * @return the status URL to poll
+     */
+    String kickOff() throws IOException {
+        String types = LocalResourceStore.RESOURCE_TYPES.stream()
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining(","));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/$export?_type=" + types))
+                .header("Accept", "application/fhir+json")
+                .header("Prefer", "respond-async")
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+        HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
+        String location = response.headers().firstValue("Content-Location").orElse(null);
+        if (response.statusCode() != 202 || location == null) {
+            throw new IOException("FHIR server did not accept $export: HTTP " + response.statusCode());
+        }
+        return URI.create(baseUrl + "/").resolve(location).toString();
+    }
+
+    /**
+     * Polls the status URL until the export is complete.
+     *
+     * @return the manifest, or null if the server no longer knows the export
+     */
+    Manifest awaitManifest(String statusUrl) throws IOException {
+        Instant deadline = Instant.now().plus(timeout);
+        while (true) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(statusUrl))
+                    .header("Accept", "application/json")
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+            HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
+            switch (response.statusCode()) {
+                case 200 -> {
+                    return objectMapper.readValue(response.body(), Manifest.class);
+                }
+                case 202 -> {
+                    if (Instant.now().isAfter(deadline)) {
+                        throw new IOException("Bulk export did not complete within " + timeout);
+                    }
+                    sleep(retryAfter(response));
+                }
+                case 404, 410 -> {
+                    return null;
+                }
+                default -> throw new IOException("Bulk export failed: HTTP " + response.statusCode()
+                        + " " + response.body());
+            }
+        }
+    }
+
+    /**
+     * Downloads one file, continuing a partial download left by an earlier
+     * attempt. Does nothing if the file is already complete.
+     */
+    void download(URI url, Path file) throws IOException {
+        if (Files.exists(file)) {
+            return;
+        }
+        Path part = file.resolveSibling(file.getFileName() + PART);
+        long have = Files.exists(part) ? Files.size(part) : 0;
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(url)
+                .header("Accept", "application/fhir+ndjson")
+                .GET();
+        if (have > 0) {
+            request.header("Range", "bytes=" + have + "-");
+        }
+        HttpResponse<InputStream> response = send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            int status = response.statusCode();
+            if (status == 416 && have > 0) {
+                // Nothing after what we already have
+                Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+                return;
+            }
+            if (status != 200 && status != 206) {
+                throw new IOException("Could not download " + url + ": HTTP " + status);
+            }
+            // A 200 to a Range request is the whole file again
+            StandardOpenOption mode = status == 206 ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+            try (OutputStream out = Files.newOutputStream(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+                body.transferTo(out);
+            }
+        }
+        Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Upserts every resource in an NDJSON file.
+     *
+     * @return number of resources read
+     */
+    int load(Path file, LocalResourceStore store) {
+        IParser parser = FhirParsers.configure(hapiClient.getContext().newJsonParser());
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                store.upsertOwned((Resource) parser.parseResource(line));
+                count++;
+            }
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+        return count;
+    }
+
+    private void downloadWithRetry(URI url, Path file) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                download(url, file);
+                return;
+            } catch (IOException e) {
+                if (attempt == DOWNLOAD_ATTEMPTS) {
+                    throw new CompletionException(e);
+                }
+                System.err.println("Download of " + url + " failed, resuming (attempt " + (attempt + 1) + "): "
+                        + e.getMessage());
+            }
+        }
+    }
+
+    /** Asks the server to remove the export's files; not needed for correctness. */
+    private void delete(String statusUrl) {
+        try {
+            send(HttpRequest.newBuilder(URI.create(statusUrl)).DELETE().build(),
+                    HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            System.err.println("Could not delete bulk export " + statusUrl + ": " + e.getMessage());
+        }
+    }
+
+    private String savedStatusUrl() throws IOException {
+        Path jobPath = dataDir.resolve(JOB_FILE);
+        if (!Files.exists(jobPath)) {
+            return null;
+        }
+        Properties job = new Properties();
+        try (Reader reader = Files.newBufferedReader(jobPath, StandardCharsets.UTF_8)) {
+            job.load(reader);
+        }
+        return job.getProperty(STATUS_URL);
+    }
+
+    private void saveStatusUrl(String statusUrl) throws IOException {
+        Properties job = new Properties();
+        job.setProperty(STATUS_URL, statusUrl);
+        Path tmp = dataDir.resolve(JOB_FILE + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            job.store(writer, "FHIR bulk export in progress");
+        }
+        Files.move(tmp, dataDir.resolve(JOB_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dataDir)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(NDJSON) || name.endsWith(NDJSON + PART)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private Duration retryAfter(HttpResponse<?> response) {
+        try {
+            return response.headers().firstValue("Retry-After")
+                    .map(seconds -> Duration.ofSeconds(Long.parseLong(seconds.trim())))
+                    .orElse(pollInterval);
+        } catch (NumberFormatException e) {
+            // An HTTP date rather than seconds
+            return pollInterval;
+        }
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return httpClient.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during bulk export");
+        }
+    }
+
+    private static void sleep(Duration duration) throws InterruptedIOException {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during bulk export");
+        }
+    }
+
+    private static void join(List<CompletableFuture<Void>> futures) throws IOException {
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+}
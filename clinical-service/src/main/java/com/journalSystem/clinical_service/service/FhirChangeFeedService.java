@@ -0,0 +1,355 @@
+package com.journalSystem.clinical_service.service;
+
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.client.api.IGenericClient;
+import org.hl7.fhir.r4.model.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Keeps {@link LocalResourceStore} in sync with the FHIR server.
+ * The first sync uses the bulk $export when it is enabled, falling back to paging
+ * through every resource type sorted by _lastUpdated; after
+ * that each poll only asks the type's _history for versions since the high-water
+ * mark (the newest lastUpdated seen). The mark and a snapshot of the store are
+ * written to disk at most once per snapshot interval, so a restart resumes from
+ * where it stopped instead of downloading everything again. Changes after the
+ * last snapshot are simply read from _history again.
+ */
+// Eager even with lazy initialization: its polls must run before any request
+// creates it
+@Lazy(false)
+@Service
+public class FhirChangeFeedService {
+
+    static final String SNAPSHOT_FILE = "resources.ndjson";
+    static final String STATE_FILE = "changefeed.properties";
+    private static final String HIGH_WATER_MARK = "highWaterMark";
+    private static final String RESOURCE_COUNT = "resourceCount";
+
+    private final HapiClientService hapiClient;
+    private final LocalResourceStore store;
+    private final FhirBulkExportService bulkExport;
+    private final boolean enabled;
+    private final Path dataDir;
+    private final int pageSize;
+    private final Duration overlap;
+    private final long snapshotIntervalNanos;
+
+    private volatile Instant highWaterMark;
+    private boolean snapshotLoaded;
+    private boolean unsavedChanges;
+    private long lastSnapshotNanos;
+
+    private record Change(String resourceType, String id, long version, Instant at, Resource resource) {}
+
+    public FhirChangeFeedService(
+            HapiClientService hapiClient,
+            LocalResourceStore store,
+            FhirBulkExportService bulkExport,
+            @Value("${fhir.changefeed.enabled:true}") boolean enabled,
+            @Value("${fhir.changefeed.data-dir:data/changefeed}") String dataDir,
+            @Value("${fhir.changefeed.page-size:500}") int pageSize,
+            @Value("${fhir.changefeed.overlap-seconds:5}") long overlapSeconds,
+            @Value("${fhir.changefeed.snapshot-interval-ms:300000}") long snapshotIntervalMs
+    ) {
+        this.hapiClient = hapiClient;
+        this.store = store;
+        this.bulkExport = bulkExport;
+        this.enabled = enabled;
+        this.dataDir = Path.of(dataDir);
+        this.pageSize = pageSize;
+        // Transactions that commit late can carry a lastUpdated slightly older than
+        // the mark, so every poll re-reads a short window. Re-applying is harmless.
+        this.overlap = Duration.ofSeconds(overlapSeconds);
+        this.snapshotIntervalNanos = Duration.ofMillis(snapshotIntervalMs).toNanos();
+        // The first change is saved straight away
+        this.lastSnapshotNanos = System.nanoTime() - snapshotIntervalNanos;
+    }
+
+    @Scheduled(
+            initialDelayString = "${fhir.changefeed.initial-delay-ms:0}",
+            fixedDelayString = "${fhir.changefeed.poll-interval-ms:30000}"
+    )
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!snapshotLoaded) {
+                loadSnapshot();
+                snapshotLoaded = true;
+            }
+
+            int changes = highWaterMark == null ? fullSync() : pollHistory();
+            store.markReady();
+            saveSnapshotIfDue(changes);
+        } catch (Exception e) {
+            System.err.println("FHIR change feed poll failed: " + e.getMessage());
+        }
+    }
+
+    public Instant getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    int fullSync() {
+        if (bulkExport.isEnabled()) {
+            store.clear();
+            try {
+                FhirBulkExportService.Result result = bulkExport.exportInto(store);
+                // Changes committed after the export's transaction time come from _history
+                highWaterMark = result.transactionTime();
+                return result.resources();
+            } catch (Exception e) {
+                System.err.println("FHIR bulk export failed, paging through search results instead: "
+                        + e.getMessage());
+            }
+        }
+
+        IGenericClient client = hapiClient.getClient();
+        store.clear();
+
+        Instant newest = Instant.EPOCH;
+        int count = 0;
+        for (Class<? extends Resource> type : LocalResourceStore.RESOURCE_TYPES) {
+            Bundle page = client
+                    .search()
+                    .forResource(type)
+                    .sort().ascending("_lastUpdated")
+                    .count(pageSize)
+                    .returnBundle(Bundle.class)
+                    .execute();
+
+            while (page != null) {
+                for (Bundle.BundleEntryComponent entry : page.getEntry()) {
+                    Resource resource = entry.getResource();
+                    if (resource == null) {
+                        continue;
+                    }
+                    store.upsertOwned(resource);
+                    count++;
+                    Date lastUpdated = resource.getMeta().getLastUpdated();
+                    if (lastUpdated != null && lastUpdated.toInstant().isAfter(newest)) {
+                        newest = lastUpdated.toInstant();
+                    }
+                }
+                page = nextPage(client, page);
+            }
+        }
+
+        highWaterMark = newest;
+        System.out.println("✓ FHIR change feed synced " + count + " resources, high-water mark " + newest);
+        return count;
+    }
+
+    int pollHistory() {
+        IGenericClient client = hapiClient.getClient();
+        Date since = Date.from(highWaterMark.minus(overlap));
+
+        // Fetch every type before applying anything, so a failure part-way
+        // cannot move the mark past changes that were never read
+        List<Bundle.BundleEntryComponent> entries = new ArrayList<>();
+        for (Class<? extends Resource> type : LocalResourceStore.RESOURCE_TYPES) {
+            Bundle page = client
+                    .history()
+                    .onType(type)
+                    .returnBundle(Bundle.class)
+                    .since(since)
+                    .count(pageSize)
+                    .execute();
+
+            while (page != null) {
+                entries.addAll(page.getEntry());
+                page = nextPage(client, page);
+            }
+        }
+        return applyHistory(entries);
+    }
+
+    /**
+     * Applies history entries to the store. History lists every version, so only
+     * the newest version of each resource is applied; a newest version that is a
+     * delete removes the resource.
+     *
+     * @return number of resources that changed in the store
+     */
+    int applyHistory(List<Bundle.BundleEntryComponent> entries) {
+        Map<String, Change> latest = new LinkedHashMap<>();
+        for (Bundle.BundleEntryComponent entry : entries) {
+            Change change = toChange(entry);
+            if (change == null || !store.supports(change.resourceType())) {
+                continue;
+            }
+            latest.merge(change.resourceType() + "/" + change.id(), change,
+                    (a, b) -> isLater(b, a) ? b : a);
+        }
+
+        int changed = 0;
+        Instant newest = highWaterMark;
+        for (Change change : latest.values()) {
+            boolean applied = change.resource() != null
+                    ? store.upsertOwned(change.resource())
+                    : store.remove(change.resourceType(), change.id());
+            if (applied) {
+                changed++;
+            }
+            if (change.at() != null && (newest == null || change.at().isAfter(newest))) {
+                newest = change.at();
+            }
+        }
+        highWaterMark = newest;
+        return changed;
+    }
+
+    void loadSnapshot() throws IOException {
+        Path statePath = dataDir.resolve(STATE_FILE);
+        Path snapshotPath = dataDir.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(statePath) || !Files.exists(snapshotPath)) {
+            return;
+        }
+
+        Properties state = new Properties();
+        try (Reader reader = Files.newBufferedReader(statePath, StandardCharsets.UTF_8)) {
+            state.load(reader);
+        }
+
+        IParser parser = FhirParsers.configure(hapiClient.getContext().newJsonParser());
+        int read;
+        try (BufferedReader reader = Files.newBufferedReader(snapshotPath, StandardCharsets.UTF_8)) {
+            read = store.readFrom(reader, parser);
+        } catch (Exception e) {
+            System.err.println("Could not read FHIR change feed snapshot, doing a full sync: " + e.getMessage());
+            store.clear();
+            return;
+        }
+
+        String expected = state.getProperty(RESOURCE_COUNT);
+        String mark = state.getProperty(HIGH_WATER_MARK);
+        if (mark == null || expected == null || Integer.parseInt(expected) != read) {
+            // Snapshot and state were not written by the same save
+            System.err.println("FHIR change feed snapshot is incomplete, doing a full sync");
+            store.clear();
+            return;
+        }
+
+        highWaterMark = Instant.parse(mark);
+        System.out.println("✓ FHIR change feed restored " + read + " resources, high-water mark " + mark);
+    }
+
+    /**
+     * Writes the snapshot when there is none yet, or when changes have been
+     * applied since the last one and the snapshot interval has passed. Rewriting
+     * the whole store after every poll that saw a change cost far more than
+     * replaying a few minutes of _history after a restart.
+     */
+    void saveSnapshotIfDue(int changes) throws IOException {
+        if (changes > 0) {
+            unsavedChanges = true;
+        }
+        boolean due = unsavedChanges && System.nanoTime() - lastSnapshotNanos >= snapshotIntervalNanos;
+        if (due || !Files.exists(dataDir.resolve(STATE_FILE))) {
+            saveSnapshot();
+        }
+    }
+
+    void saveSnapshot() throws IOException {
+        Files.createDirectories(dataDir);
+        Instant mark = highWaterMark;
+
+        Path snapshotTmp = dataDir.resolve(SNAPSHOT_FILE + ".tmp");
+        IParser parser = FhirParsers.configure(hapiClient.getContext().newJsonParser());
+        int written;
+        try (Writer writer = Files.newBufferedWriter(snapshotTmp, StandardCharsets.UTF_8)) {
+            written = store.writeTo(writer, parser);
+        }
+
+        Properties state = new Properties();
+        state.setProperty(HIGH_WATER_MARK, mark.toString());
+        state.setProperty(RESOURCE_COUNT, Integer.toString(written));
+        Path stateTmp = dataDir.resolve(STATE_FILE + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(stateTmp, StandardCharsets.UTF_8)) {
+            state.store(writer, "FHIR change feed state");
+        }
+
+        Files.move(snapshotTmp, dataDir.resolve(SNAPSHOT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(stateTmp, dataDir.resolve(STATE_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        unsavedChanges = false;
+        lastSnapshotNanos = System.nanoTime();
+    }
+
+    private static Bundle nextPage(IGenericClient client, Bundle page) {
+        return page.getLink(Bundle.LINK_NEXT) != null
+                ? client.loadPage().next(page).execute()
+                : null;
+    }
+
+    private static Change toChange(Bundle.BundleEntryComponent entry) {
+        Resource resource = entry.getResource();
+        boolean deleted = entry.hasRequest() && entry.getRequest().getMethod() == Bundle.HTTPVerb.DELETE;
+
+        IdType id;
+        Instant at;
+        if (resource != null && !deleted) {
+            id = resource.getIdElement();
+            if (!id.hasResourceType()) {
+                id = new IdType(resource.fhirType(), id.getIdPart(), id.getVersionIdPart());
+            }
+            Date lastUpdated = resource.getMeta().getLastUpdated();
+            at = lastUpdated != null ? lastUpdated.toInstant() : null;
+        } else {
+            String url = entry.hasRequest() && entry.getRequest().hasUrl()
+                    ? entry.getRequest().getUrl()
+                    : entry.getFullUrl();
+            if (url == null) {
+                return null;
+            }
+            id = new IdType(url);
+            resource = null;
+            Date lastModified = entry.hasResponse() ? entry.getResponse().getLastModified() : null;
+            at = lastModified != null ? lastModified.toInstant() : null;
+        }
+
+        if (!id.hasResourceType() || !id.hasIdPart()) {
+            return null;
+        }
+        long version = id.hasVersionIdPart() && id.isVersionIdPartValidLong() ? id.getVersionIdPartAsLong() : 0L;
+        if (version == 0L && entry.hasResponse() && entry.getResponse().hasEtag()) {
+            version = parseEtag(entry.getResponse().getEtag());
+        }
+        return new Change(id.getResourceType(), id.getIdPart(), version, at, resource);
+    }
+
+    private static boolean isLater(Change candidate, Change current) {
+        if (candidate.version() != current.version()) {
+            return candidate.version() > current.version();
+        }
+        return candidate.at() != null && current.at() != null && candidate.at().isAfter(current.at());
+    }
+
+    /** Version from an ETag such as W/"3"; 0 if it is not numeric. */
+    private static long parseEtag(String etag) {
+        String digits = etag.replaceAll("[^0-9]", "");
+        try {
+            return digits.isEmpty() ? 0L : Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.journalSystem.clinical_service.service;
+
+import ca.uhn.fhir.rest.client.api.IClientInterceptor;
+import ca.uhn.fhir.rest.client.api.IHttpRequest;
+import ca.uhn.fhir.rest.client.api.IHttpResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * HAPI client interceptor that times every IGenericClient call and records the
+ * response size and, for bundles, the number of entries, tagged by resource
+ * type and FHIR operation. It also forwards the current trace context, so the
+ * FHIR server's spans join the trace of the controller request.
+ * HAPI runs both callbacks of a call on the calling thread, which is what lets
+ * the response be matched to its request through a thread local. The body is
+ * measured while HAPI parses it and the call is recorded when HAPI closes it;
+ * a call that fails before there is a response is recorded by the HttpClient
+ * wrapper from {@link #meter(CloseableHttpClient)}, which also clears the
+ * thread local.
+ */
+@Component
+public class FhirClientMetrics implements IClientInterceptor {
+
+    static final String IO_ERROR = "IO_ERROR";
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final String basePath;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<Tracer> tracer;
+    private final ObjectProvider<Propagator> propagator;
+    private final ThreadLocal<Call> current = new ThreadLocal<>();
+
+    private record Call(String resourceType, String operation, long startNanos) {}
+
+    public FhirClientMetrics(@Value("${fhir.server.url}") String fhirServerUrl, MeterRegistry meterRegistry,
+                             ObjectProvider<Tracer> tracer, ObjectProvider<Propagator> propagator) {
+        String path = URI.create(fhirServerUrl).getPath();
+        this.basePath = path == null ? "" : path.replaceAll("/+$", "");
+        this.meterRegistry = meterRegistry;
+        this.tracer = tracer;
+        this.propagator = propagator;
+    }
+
+    @Override
+    public void interceptRequest(IHttpRequest request) {
+        URI uri = URI.create(request.getUri());
+        String[] path = relativePath(basePath, uri.getPath());
+        current.set(new Call(resourceType(path), operation(request.getHttpVerbName(), path, uri.getRawQuery()),
+                System.nanoTime()));
+        injectTraceContext(request::addHeader);
+    }
+
+    /**
+     * Adds the headers that carry the current trace context, if there is one.
+     */
+    public void injectTraceContext(BiConsumer<String, String> header) {
+        Tracer activeTracer = tracer.getIfAvailable();
+        Propagator activePropagator = propagator.getIfAvailable();
+        if (activeTracer != null && activePropagator != null) {
+            TraceContext context = activeTracer.currentTraceContext().context();
+            if (context != null) {
+                activePropagator.inject(context, header, BiConsumer::accept);
+            }
+        }
+    }
+
+    @Override
+    public void interceptResponse(IHttpResponse response) {
+        Call call = current.get();
+        current.remove();
+        if (call == null) {
+            return;
+        }
+
+        String status = Integer.toString(response.getStatus());
+        if (response.getResponse() instanceof HttpResponse http && http.getEntity() != null) {
+            boolean json = response.getMimeType() != null && response.getMimeType().contains("json");
+            http.setEntity(new MeteredEntity(http.getEntity(), call, status, json));
+        } else {
+            record(call.resourceType(), call.operation(), status, call.startNanos(), 0);
+        }
+    }
+
+    /**
+     * Wraps the HttpClient behind HAPI's client, so a call that fails before
+     * there is a response (connect or read timeout, refused connection) is
+     * recorded with status IO_ERROR.
+     */
+    public CloseableHttpClient meter(CloseableHttpClient client) {
+        return new MeteredHttpClient(client);
+    }
+
+    /**
+     * Records one exchange; bytes is -1 if no response body was received.
+     * Also used by {@link AsyncFhirClient}, which does not go through HAPI's client.
+     */
+    public void record(String resourceType, String operation, String status, long startNanos, long bytes) {
+        Timer.builder("fhir.client.requests")
+                .description("FHIR server round trip, including reading the response body")
+                .tags("resource", resourceType, "operation", operation, "status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (bytes >= 0) {
+            DistributionSummary.builder("fhir.client.response.bytes")
+                    .baseUnit("bytes")
+                    .tags("resource", resourceType, "operation", operation)
+                    .register(meterRegistry)
+                    .record(bytes);
+        }
+    }
+
+    /**
+     * Records the number of entries in a returned bundle.
+     */
+    public void recordEntries(String resourceType, String operation, int entries) {
+        DistributionSummary.builder("fhir.client.bundle.entries")
+                .tags("resource", resourceType, "operation", operation)
+                .register(meterRegistry)
+                .record(entries);
+    }
+
+    private void failed() {
+        Call call = current.get();
+        current.remove();
+        if (call != null) {
+            record(call.resourceType(), call.operation(), IO_ERROR, call.startNanos(), -1);
+        }
+    }
+
+    /**
+     * Path segments after the FHIR base, e.g. [Patient, 123] for /fhir/Patient/123.
+     */
+    static String[] relativePath(String basePath, String path) {
+        if (path == null) {
+            return new String[0];
+        }
+        String relative = path.startsWith(basePath) ? path.substring(basePath.length()) : path;
+        relative = relative.replaceAll("^/+|/+$", "");
+        return relative.isEmpty() ? new String[0] : relative.split("/");
+    }
+
+    static String resourceType(String[] path) {
+        return path.length > 0 && Character.isUpperCase(path[0].charAt(0)) ? path[0] : "other";
+    }
+
+    static String operation(String verb, String[] path, String query) {
+        if (query != null && query.contains("_getpages=")) {
+            return "page";
+        }
+        boolean typed = path.length > 0 && Character.isUpperCase(path[0].charAt(0));
+        for (String segment : path) {
+            if (segment.equals("_history")) {
+                return path.length > 3 ? "vread" : "history";
+            }
+            if (segment.startsWith("$")) {
+                return "operation";
+            }
+        }
+        return switch (verb) {
+            case "GET" -> typed && path.length > 1 ? "read" : "search";
+            case "POST" -> !typed ? "transaction" : path.length > 1 && path[1].equals("_search") ? "search" : "create";
+            case "PUT" -> "update";
+            case "PATCH" -> "patch";
+            case "DELETE" -> "delete";
+            default -> verb.toLowerCase(Locale.ROOT);
+        };
+    }
+
+    /**
+     * The response entity HAPI reads: counts the bytes and, for JSON, the bundle
+     * entries as they stream past, and records the call once the body is closed
+     * or reading it fails.
+     */
+    private final class MeteredEntity extends HttpEntityWrapper {
+
+        private final Call call;
+        private final String status;
+        private final boolean json;
+        private InputStream content;
+
+        MeteredEntity(HttpEntity entity, Call call, String status, boolean json) {
+            super(entity);
+            this.call = call;
+            this.status = status;
+            this.json = json;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            if (content == null) {
+                content = new MeteredStream(super.getContent(), json ? new EntryCounter() : null);
+            }
+            return content;
+        }
+
+        private final class MeteredStream extends FilterInputStream {
+
+            private final EntryCounter entries;
+            private long bytes;
+            private boolean recorded;
+
+            MeteredStream(InputStream in, EntryCounter entries) {
+                super(in);
+                this.entries = entries;
+            }
+
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read;
+                try {
+                    read = super.read(buffer, offset, length);
+                } catch (IOException e) {
+                    finish(IO_ERROR);
+                    throw e;
+                }
+                if (read > 0) {
+                    bytes += read;
+                    if (entries != null) {
+                        entries.feed(buffer, offset, read);
+                    }
+                }
+                return read;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(n);
+                bytes += skipped;
+                return skipped;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    finish(status);
+                }
+            }
+
+            private void finish(String outcome) {
+                if (recorded) {
+                    return;
+                }
+                recorded = true;
+                record(call.resourceType(), call.operation(), outcome, call.startNanos(), bytes);
+                int count = entries != null ? entries.result() : -1;
+                if (count >= 0) {
+                    recordEntries(call.resourceType(), call.operation(), count);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the entries of a JSON Bundle from the bytes HAPI reads, without
+     * keeping or reading the body again. Only tokenizes, which is much cheaper
+     * than the HAPI parse.
+     */
+    static final class EntryCounter {
+
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+        private int depth;
+        private String field;
+        private boolean inEntries;
+        private boolean bundle;
+        private boolean broken;
+        private int entries;
+
+        EntryCounter() throws IOException {
+            parser = JSON.createNonBlockingByteArrayParser();
+            feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        void feed(byte[] buffer, int offset, int length) {
+            if (broken) {
+                return;
+            }
+            try {
+                feeder.feedInput(buffer, offset, offset + length);
+                JsonToken token;
+                while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                    handle(token);
+                }
+            } catch (IOException e) {
+                broken = true;
+            }
+        }
+
+        /**
+         * Number of entries, or -1 if the body was not a bundle.
+         */
+        int result() {
+            return bundle && !broken ? entries : -1;
+        }
+
+        private void handle(JsonToken token) throws IOException {
+            switch (token) {
+                case START_OBJECT, START_ARRAY -> {
+                    depth++;
+                    if (depth == 2 && token == JsonToken.START_ARRAY && "entry".equals(field)) {
+                        inEntries = true;
+                    } else if (depth == 3 && inEntries) {
+                        entries++;
+                    }
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    if (depth == 2) {
+                        inEntries = false;
+                    }
+                    depth--;
+                }
+                case FIELD_NAME -> {
+                    if (depth == 1) {
+                        field = parser.currentName();
+                    }
+                }
+                case VALUE_STRING -> {
+                    if (depth == 1 && "resourceType".equals(field)) {
+                        bundle = "Bundle".equals(parser.getText());
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Delegates to the HttpClient HAPI built, recording calls that fail before
+     * a response arrives.
+     */
+    @SuppressWarnings("deprecation")
+    private final class MeteredHttpClient extends CloseableHttpClient {
+
+        private final CloseableHttpClient delegate;
+
+        MeteredHttpClient(CloseableHttpClient delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context)
+                throws IOException {
+            try {
+                return delegate.execute(target, request, context);
+            } catch (IOException | RuntimeException e) {
+                failed();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public HttpParams getParams() {
+            return delegate.getParams();
+        }
+
+        @Override
+        public ClientConnectionManager getConnectionManager() {
+            return delegate.getConnectionManager();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.journalSystem.clinical_service.service;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.parser.LenientErrorHandler;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Resource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Configured HAPI JSON parsers, one per thread: an IParser is not thread-safe
+ * but can be reused, so each thread sets one up once instead of per response.
+ * Decoding ignores unknown elements without logging each of them and keeps the
+ * resource's own id instead of deriving it from the entry's fullUrl; both cost
+ * time per entry on large bundles. Narratives are left out when encoding,
+ * since nothing here displays them.
+ */
+@Component
+public class FhirParsers {
+
+    private final ThreadLocal<IParser> json;
+
+    @Autowired
+    public FhirParsers(HapiClientService hapiClient) {
+        this(hapiClient.getContext());
+    }
+
+    public FhirParsers(FhirContext context) {
+        this.json = ThreadLocal.withInitial(() -> configure(context.newJsonParser()));
+    }
+
+    /**
+     * The calling thread's parser. Do not hand it to another thread.
+     */
+    public IParser json() {
+        return json.get();
+    }
+
+    public <T extends Resource> T parse(Class<T> type, InputStream body) {
+        return json.get().parseResource(type, body);
+    }
+
+    /**
+     * Decodes a search bundle and maps its entries of the given type in a single
+     * pass; entries of other types, such as OperationOutcomes, are skipped.
+     */
+    public <T extends Resource, R> List<R> decodeBundle(InputStream body, Class<T> type, Function<T, R> mapper) {
+        return decodeBundle(body, type, mapper, entries -> {});
+    }
+
+    /**
+     * As above, also reporting the bundle's total entry count, skipped ones included.
+     */
+    public <T extends Resource, R> List<R> decodeBundle(
+            InputStream body, Class<T> type, Function<T, R> mapper, IntConsumer entryCount) {
+        Bundle bundle = parse(Bundle.class, body);
+        entryCount.accept(bundle.getEntry().size());
+        // Straight off the entries, without BundleUtil's per-entry wrappers
+        List<R> mapped = new ArrayList<>(bundle.getEntry().size());
+        for (Bundle.BundleEntryComponent entry : bundle.getEntry()) {
+            if (type.isInstance(entry.getResource())) {
+                mapped.add(mapper.apply(type.cast(entry.getResource())));
+            }
+        }
+        return mapped;
+    }
+
+    static IParser configure(IParser parser) {
+        parser.setParserErrorHandler(new LenientErrorHandler(false));
+        parser.setOverrideResourceIdWithBundleEntryFullUrl(false);
+        parser.setDontEncodeElements(Set.of("*.text"));
+        return parser;
+    }
+}
@@ -1,19 +1,34 @@
 package com.journalSystem.clinical_service.service;
 
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.LenientErrorHandler;
+import ca.uhn.fhir.rest.client.apache.ApacheRestfulClientFactory;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+// Eager even with lazy initialization: building the FHIR context is slow and
+// every request needs it
+@Lazy(false)
 @Service
 public class HapiClientService {
 
     private final IGenericClient client;
     private final FhirContext context;
 
-    public HapiClientService(@Value("${fhir.server.url}") String fhirServerUrl) {
+    public HapiClientService(@Value("${fhir.server.url}") String fhirServerUrl, FhirClientMetrics metrics) {
         this.context = FhirContext.forR4();
+        // Same decoding options as FhirParsers, for the responses HAPI's client parses
+        this.context.setParserErrorHandler(new LenientErrorHandler(false));
+        this.context.getParserOptions().setOverrideResourceIdWithBundleEntryFullUrl(false);
+        if (context.getRestfulClientFactory() instanceof ApacheRestfulClientFactory factory) {
+            // Records the calls that fail before a response, which the interceptor never sees
+            factory.setHttpClient(metrics.meter((CloseableHttpClient) factory.getNativeHttpClient()));
+        }
         this.client = context.newRestfulGenericClient(fhirServerUrl);
+        this.client.registerInterceptor(metrics);
         System.out.println("✓ HAPI FHIR Client initialized: " + fhirServerUrl);
     }
 
@@ -2,51 +2,41 @@ package com.journalSystem.clinical_service.service;
 
 import ca.uhn.fhir.rest.api.MethodOutcome;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
-import ca.uhn.fhir.util.BundleUtil;
 import lombok.RequiredArgsConstructor;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
 public class HapiConditionService {
 
     private final HapiClientService hapiClient;
+    private final LocalResourceStore store;
+    private final AsyncFhirClient asyncClient;
+    private final ClinicalEventBus eventBus;
 
     public List<Condition> getAllConditions() {
-        IGenericClient client = hapiClient.getClient();
-
-        Bundle bundle = client
-                .search()
-                .forResource(Condition.class)
-                .returnBundle(Bundle.class)
-                .execute();
+        if (store.isReady()) {
+            return store.getAll(Condition.class);
+        }
 
-        return BundleUtil.toListOfEntries(hapiClient.getContext(), bundle)
-                .stream()
-                .map(entry -> (Condition) entry.getResource())
-                .toList();
+        return asyncClient.searchAndWait(Condition.class, Map.of());
     }
 
     public List<Condition> getConditionsForPatient(String patientId) {
-        try {
-            IGenericClient client = hapiClient.getClient();
-
-            Bundle bundle = client
-                    .search()
-                    .forResource(Condition.class)
-                    .where(Condition.PATIENT.hasId(patientId))
-                    .returnBundle(Bundle.class)
-                    .execute();
+        if (store.isReady()) {
+            return store.getForPatient(Condition.class, patientId);
+        }
 
-            return BundleUtil.toListOfEntries(hapiClient.getContext(), bundle)
-                    .stream()
-                    .map(entry -> (Condition) entry.getResource())
-                    .toList();
+        try {
+            return asyncClient.searchAndWait(Condition.class, Map.of("patient", patientId));
         } catch (Exception e) {
             System.err.println("Could not fetch conditions for patient: " + patientId);
             e.printStackTrace();
@@ -55,6 +45,13 @@ public class HapiConditionService {
     }
 
     public Optional<Condition> getConditionById(String id) {
+        if (store.isReady()) {
+            Optional<Condition> local = store.get(Condition.class, id);
+            if (local.isPresent()) {
+                return local;
+            }
+        }
+
         try {
             IGenericClient client = hapiClient.getClient();
 
@@ -64,6 +61,9 @@ public class HapiConditionService {
                     .withId(id)
                     .execute();
 
+            if (store.isReady()) {
+                store.upsert(condition);
+            }
             return Optional.of(condition);
         } catch (Exception e) {
             System.err.println("Could not find condition with ID: " + id);
@@ -71,11 +71,70 @@ public class HapiConditionService {
         }
     }
 
+    /**
+     * Non-blocking {@link #getConditionsForPatient}: no thread waits while the
+     * FHIR server answers.
+     */
+    public CompletableFuture<List<Condition>> getConditionsForPatientAsync(String patientId) {
+        if (store.isReady()) {
+            return CompletableFuture.completedFuture(store.getForPatient(Condition.class, patientId));
+        }
+
+        return asyncClient.search(Condition.class, Map.of("patient", patientId))
+                .exceptionally(e -> {
+                    System.err.println("Could not fetch conditions for patient: " + patientId + ": " + e.getMessage());
+                    return List.of();
+                });
+    }
+
+    /**
+     * Non-blocking {@link #getConditionById}.
+     */
+    public CompletableFuture<Optional<Condition>> getConditionByIdAsync(String id) {
+        if (store.isReady()) {
+            Optional<Condition> local = store.get(Condition.class, id);
+            if (local.isPresent()) {
+                return CompletableFuture.completedFuture(local);
+            }
+        }
+
+        return asyncClient.read(Condition.class, id)
+                .thenApply(condition -> {
+                    if (condition.isPresent() && store.isReady()) {
+                        store.upsert(condition.get());
+                    }
+                    return condition;
+                })
+                .exceptionally(e -> {
+                    System.err.println("Could not find condition with ID: " + id);
+                    return Optional.empty();
+                });
+    }
+
+    private static final String SNOMED = "http://snomed.info/sct";
+    private static final String ICD10 = "http://hl7.org/fhir/sid/icd-10";
+    private static final String UNSPECIFIED_FINDING = "404684003";
+
     public Condition createCondition(
             String patientPersonnummer,
             String practitionerPersonnummer,
             String description,
             Date recordedDate
+    ) {
+        return createCondition(patientPersonnummer, practitionerPersonnummer, description, null, recordedDate);
+    }
+
+    /**
+     * Creates a condition coded with {@code code}, given as system|code where the
+     * system may be snomed or icd10 for short. Without a code the condition gets
+     * the generic SNOMED "clinical finding", which is only findable by text.
+     */
+    public Condition createCondition(
+            String patientPersonnummer,
+            String practitionerPersonnummer,
+            String description,
+            String code,
+            Date recordedDate
     ) {
         IGenericClient client = hapiClient.getClient();
 
@@ -97,11 +156,7 @@ public class HapiConditionService {
             condition.setRecorder(new Reference("Practitioner/" + practitionerPersonnummer));
         }
 
-        condition.getCode()
-                .addCoding()
-                .setSystem("http://snomed.info/sct")
-                .setCode("404684003")
-                .setDisplay(description);
+        condition.getCode().addCoding(coding(code, description));
         condition.getCode().setText(description);
 
         condition.setRecordedDate(recordedDate);
@@ -115,11 +170,33 @@ public class HapiConditionService {
 
             String newId = outcome.getId().getIdPart();
             System.out.println("✓ Condition created with ID: " + newId);
-            return getConditionById(newId).orElse(condition);
+            Condition created = getConditionById(newId).orElse(condition);
+            eventBus.publishCreated(created);
+            return created;
         } catch (Exception e) {
             System.err.println("Error creating condition: " + e.getMessage());
             e.printStackTrace();
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    static Coding coding(String code, String description) {
+        if (code == null || code.isBlank()) {
+            return new Coding(SNOMED, UNSPECIFIED_FINDING, description);
+        }
+        int bar = code.indexOf('|');
+        if (bar < 0) {
+            return new Coding(SNOMED, code.trim(), description);
+        }
+        String system = code.substring(0, bar).trim();
+        String value = code.substring(bar + 1).trim();
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Condition code has no value: " + code);
+        }
+        return new Coding(switch (system.toLowerCase(Locale.ROOT)) {
+            case "", "snomed", "sct" -> SNOMED;
+            case "icd10", "icd-10" -> ICD10;
+            default -> system;
+        }, value, description);
+    }
+}
@@ -2,51 +2,40 @@ package com.journalSystem.clinical_service.service;
 
 import ca.uhn.fhir.rest.api.MethodOutcome;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
-import ca.uhn.fhir.util.BundleUtil;
 import lombok.RequiredArgsConstructor;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
 public class HapiEncounterService {
 
     private final HapiClientService hapiClient;
+    private final LocalResourceStore store;
+    private final AsyncFhirClient asyncClient;
+    private final ClinicalEventBus eventBus;
 
     public List<Encounter> getAllEncounters() {
-        IGenericClient client = hapiClient.getClient();
-
-        Bundle bundle = client
-                .search()
-                .forResource(Encounter.class)
-                .returnBundle(Bundle.class)
-                .execute();
+        if (store.isReady()) {
+            return store.getAll(Encounter.class);
+        }
 
-        return BundleUtil.toListOfEntries(hapiClient.getContext(), bundle)
-                .stream()
-                .map(entry -> (Encounter) entry.getResource())
-                .toList();
+        return asyncClient.searchAndWait(Encounter.class, Map.of());
     }
 
     public List<Encounter> getEncountersForPatient(String patientId) {
-        try {
-            IGenericClient client = hapiClient.getClient();
-
-            Bundle bundle = client
-                    .search()
-                    .forResource(Encounter.class)
-                    .where(Encounter.PATIENT.hasId(patientId))
-                    .returnBundle(Bundle.class)
-                    .execute();
+        if (store.isReady()) {
+            return store.getForPatient(Encounter.class, patientId);
+        }
 
-            return BundleUtil.toListOfEntries(hapiClient.getContext(), bundle)
-                    .stream()
-                    .map(entry -> (Encounter) entry.getResource())
-                    .toList();
+        try {
+            return asyncClient.searchAndWait(Encounter.class, Map.of("patient", patientId));
         } catch (Exception e) {
             System.err.println("Could not fetch encounters for patient: " + patientId);
             e.printStackTrace();
@@ -55,6 +44,13 @@ public class HapiEncounterService {
     }
 
     public Optional<Encounter> getEncounterById(String id) {
+        if (store.isReady()) {
+            Optional<Encounter> local = store.get(Encounter.class, id);
+            if (local.isPresent()) {
+                return local;
+            }
+        }
+
         try {
             IGenericClient client = hapiClient.getClient();
 
@@ -64,6 +60,9 @@ public class HapiEncounterService {
                     .withId(id)
                     .execute();
 
+            if (store.isReady()) {
+                store.upsert(encounter);
+            }
             return Optional.of(encounter);
         } catch (Exception e) {
             System.err.println("Could not find encounter with ID: " + id);
@@ -71,6 +70,46 @@ public class HapiEncounterService {
         }
     }
 
+    /**
+     * Non-blocking {@link #getEncountersForPatient}: no thread waits while the
+     * FHIR server answers.
+     */
+    public CompletableFuture<List<Encounter>> getEncountersForPatientAsync(String patientId) {
+        if (store.isReady()) {
+            return CompletableFuture.completedFuture(store.getForPatient(Encounter.class, patientId));
+        }
+
+        return asyncClient.search(Encounter.class, Map.of("patient", patientId))
+                .exceptionally(e -> {
+                    System.err.println("Could not fetch encounters for patient: " + patientId + ": " + e.getMessage());
+                    return List.of();
+                });
+    }
+
+    /**
+     * Non-blocking {@link #getEncounterById}.
+     */
+    public CompletableFuture<Optional<Encounter>> getEncounterByIdAsync(String id) {
+        if (store.isReady()) {
+            Optional<Encounter> local = store.get(Encounter.class, id);
+            if (local.isPresent()) {
+                return CompletableFuture.completedFuture(local);
+            }
+        }
+
+        return asyncClient.read(Encounter.class, id)
+                .thenApply(encounter -> {
+                    if (encounter.isPresent() && store.isReady()) {
+                        store.upsert(encounter.get());
+                    }
+                    return encounter;
+                })
+                .exceptionally(e -> {
+                    System.err.println("Could not find encounter with ID: " + id);
+                    return Optional.empty();
+                });
+    }
+
     public Encounter createEncounter(
             String patientPersonnummer,
             String practitionerPersonnummer,
@@ -129,7 +168,16 @@ public class HapiEncounterService {
 
             String newId = outcome.getId().getIdPart();
             System.out.println("✓ Encounter created with ID: " + newId);
-            return getEncounterById(newId).orElse(encounter);
+            Encounter created = getEncounterById(newId).orElseGet(() -> {
+                encounter.setId(outcome.getId());
+                return encounter;
+            });
+            // Straight into the store, and so the EncounterCalendar, instead of waiting for the change feed
+            if (store.isReady()) {
+                store.upsert(created);
+            }
+            eventBus.publishCreated(created);
+            return created;
         } catch (Exception e) {
             System.err.println("Error creating encounter: " + e.getMessage());
             e.printStackTrace();
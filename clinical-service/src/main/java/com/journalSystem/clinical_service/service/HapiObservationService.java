@@ -2,59 +2,165 @@ package com.journalSystem.clinical_service.service;
 
 import ca.uhn.fhir.rest.api.MethodOutcome;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
-import ca.uhn.fhir.util.BundleUtil;
+import ca.uhn.fhir.rest.gclient.IQuery;
+import com.journalSystem.clinical_service.dto.ObservationSeriesDTO;
 import lombok.RequiredArgsConstructor;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
 public class HapiObservationService {
 
+    static final String LOINC_SYSTEM = "http://loinc.org";
+    private static final int SERIES_PAGE_SIZE = 500;
+
     private final HapiClientService hapiClient;
+    private final LocalResourceStore store;
+    private final AsyncFhirClient asyncClient;
+    private final ClinicalEventBus eventBus;
 
-    public List<Observation> getAllObservations() {
-        IGenericClient client = hapiClient.getClient();
+    private record SeriesPoint(long time, double value) {}
 
-        Bundle bundle = client
-                .search()
-                .forResource(Observation.class)
-                .returnBundle(Bundle.class)
-                .execute();
+    public List<Observation> getAllObservations() {
+        if (store.isReady()) {
+            return store.getAll(Observation.class);
+        }
 
-        return BundleUtil.toListOfEntries(hapiClient.getContext(), bundle)
-                .stream()
-                .map(entry -> (Observation) entry.getResource())
-                .toList();
+        return asyncClient.searchAndWait(Observation.class, Map.of());
     }
 
     public List<Observation> getObservationsForPatient(String patientId) {
+        if (store.isReady()) {
+            return store.getForPatient(Observation.class, patientId);
+        }
+
+        try {
+            return asyncClient.searchAndWait(Observation.class, Map.of("patient", patientId));
+        } catch (Exception e) {
+            System.err.println("Could not fetch observations for patient: " + patientId);
+            e.printStackTrace();
+            return List.of();
+        }
+    }
+
+    /**
+     * Fetches a patient's observations for one LOINC code, oldest first, following
+     * every result page. Only code, effective time and value are requested.
+     * from/to are inclusive yyyy-MM-dd dates and may be null.
+     */
+    public List<Observation> getObservationsByCode(String patientId, String loincCode, String from, String to) {
         try {
             IGenericClient client = hapiClient.getClient();
 
-            Bundle bundle = client
+            IQuery<Bundle> query = client
                     .search()
                     .forResource(Observation.class)
                     .where(Observation.PATIENT.hasId(patientId))
-                    .returnBundle(Bundle.class)
+                    .and(Observation.CODE.exactly().systemAndCode(LOINC_SYSTEM, loincCode))
+                    .returnBundle(Bundle.class);
+            if (from != null && !from.isEmpty()) {
+                query = query.and(Observation.DATE.afterOrEquals().day(from));
+            }
+            if (to != null && !to.isEmpty()) {
+                query = query.and(Observation.DATE.beforeOrEquals().day(to));
+            }
+
+            Bundle bundle = query
+                    .sort().ascending(Observation.DATE)
+                    .count(SERIES_PAGE_SIZE)
+                    .elementsSubset("code", "effective", "value")
                     .execute();
 
-            return BundleUtil.toListOfEntries(hapiClient.getContext(), bundle)
-                    .stream()
-                    .map(entry -> (Observation) entry.getResource())
-                    .toList();
+            List<Observation> observations = new ArrayList<>();
+            while (bundle != null) {
+                for (Bundle.BundleEntryComponent entry : bundle.getEntry()) {
+                    if (entry.getResource() instanceof Observation observation) {
+                        observations.add(observation);
+                    }
+                }
+                bundle = bundle.getLink(Bundle.LINK_NEXT) != null
+                        ? client.loadPage().next(bundle).execute()
+                        : null;
+            }
+            return observations;
         } catch (Exception e) {
-            System.err.println("Could not fetch observations for patient: " + patientId);
+            System.err.println("Could not fetch observations with code " + loincCode + " for patient: " + patientId);
             e.printStackTrace();
             return List.of();
         }
     }
 
+    /**
+     * Numeric time series of one LOINC code for a patient, optionally downsampled
+     * to at most maxPoints points. Observations without a numeric value or an
+     * effective time are skipped.
+     */
+    public ObservationSeriesDTO getObservationSeries(
+            String patientId,
+            String loincCode,
+            String from,
+            String to,
+            int maxPoints,
+            ObservationDownsampler.Mode mode
+    ) {
+        List<Observation> observations = getObservationsByCode(patientId, loincCode, from, to);
+
+        String unit = null;
+        List<SeriesPoint> points = new ArrayList<>(observations.size());
+        for (Observation observation : observations) {
+            if (!observation.hasValueQuantity() || !observation.getValueQuantity().hasValue()) {
+                continue;
+            }
+            Date effective = effectiveTime(observation);
+            if (effective == null) {
+                continue;
+            }
+            Quantity quantity = observation.getValueQuantity();
+            if (unit == null) {
+                unit = quantity.hasUnit() ? quantity.getUnit() : quantity.getCode();
+            }
+            points.add(new SeriesPoint(effective.getTime(), quantity.getValue().doubleValue()));
+        }
+        // The server sorts by date, but instants within the same day may still interleave
+        points.sort(Comparator.comparingLong(SeriesPoint::time));
+
+        long[] timestamps = new long[points.size()];
+        double[] values = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            timestamps[i] = points.get(i).time();
+            values[i] = points.get(i).value();
+        }
+
+        ObservationDownsampler.Series series = ObservationDownsampler.downsample(timestamps, values, maxPoints, mode);
+        return new ObservationSeriesDTO(
+                patientId,
+                loincCode,
+                unit,
+                mode.name().toLowerCase(Locale.ROOT),
+                points.size(),
+                series.timestamps(),
+                series.values()
+        );
+    }
+
     public Optional<Observation> getObservationById(String id) {
+        if (store.isReady()) {
+            Optional<Observation> local = store.get(Observation.class, id);
+            if (local.isPresent()) {
+                return local;
+            }
+        }
+
         try {
             IGenericClient client = hapiClient.getClient();
 
@@ -64,6 +170,9 @@ public class HapiObservationService {
                     .withId(id)
                     .execute();
 
+            if (store.isReady()) {
+                store.upsert(observation);
+            }
             return Optional.of(observation);
         } catch (Exception e) {
             System.err.println("Could not find observation with ID: " + id);
@@ -71,6 +180,46 @@ public class HapiObservationService {
         }
     }
 
+    /**
+     * Non-blocking {@link #getObservationsForPatient}: no thread waits while the
+     * FHIR server answers.
+     */
+    public CompletableFuture<List<Observation>> getObservationsForPatientAsync(String patientId) {
+        if (store.isReady()) {
+            return CompletableFuture.completedFuture(store.getForPatient(Observation.class, patientId));
+        }
+
+        return asyncClient.search(Observation.class, Map.of("patient", patientId))
+                .exceptionally(e -> {
+                    System.err.println("Could not fetch observations for patient: " + patientId + ": " + e.getMessage());
+                    return List.of();
+                });
+    }
+
+    /**
+     * Non-blocking {@link #getObservationById}.
+     */
+    public CompletableFuture<Optional<Observation>> getObservationByIdAsync(String id) {
+        if (store.isReady()) {
+            Optional<Observation> local = store.get(Observation.class, id);
+            if (local.isPresent()) {
+                return CompletableFuture.completedFuture(local);
+            }
+        }
+
+        return asyncClient.read(Observation.class, id)
+                .thenApply(observation -> {
+                    if (observation.isPresent() && store.isReady()) {
+                        store.upsert(observation.get());
+                    }
+                    return observation;
+                })
+                .exceptionally(e -> {
+                    System.err.println("Could not find observation with ID: " + id);
+                    return Optional.empty();
+                });
+    }
+
     public Observation createObservation(
             String patientPersonnummer,
             String performerPersonnummer,
@@ -80,7 +229,39 @@ public class HapiObservationService {
             Date effectiveDateTime
     ) {
         IGenericClient client = hapiClient.getClient();
+        Observation observation = buildObservation(
+                patientPersonnummer, performerPersonnummer, description, value, unit, effectiveDateTime);
+
+        try {
+            MethodOutcome outcome = client
+                    .create()
+                    .resource(observation)
+                    .execute();
 
+            String newId = outcome.getId().getIdPart();
+            System.out.println("✓ Observation created with ID: " + newId);
+            Observation created = getObservationById(newId).orElse(observation);
+            eventBus.publishCreated(created);
+            return created;
+        } catch (Exception e) {
+            System.err.println("Error creating observation: " + e.getMessage());
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * The Observation createObservation sends, also used by bulk ingestion. A
+     * value that is not a number is stored as a string.
+     */
+    static Observation buildObservation(
+            String patientPersonnummer,
+            String performerPersonnummer,
+            String description,
+            String value,
+            String unit,
+            Date effectiveDateTime
+    ) {
         Observation observation = new Observation();
         observation.setStatus(Observation.ObservationStatus.FINAL);
 
@@ -120,19 +301,19 @@ public class HapiObservationService {
         observation.setEffective(new DateTimeType(effectiveDateTime));
         observation.setIssued(effectiveDateTime);
 
-        try {
-            MethodOutcome outcome = client
-                    .create()
-                    .resource(observation)
-                    .execute();
+        return observation;
+    }
 
-            String newId = outcome.getId().getIdPart();
-            System.out.println("✓ Observation created with ID: " + newId);
-            return getObservationById(newId).orElse(observation);
-        } catch (Exception e) {
-            System.err.println("Error creating observation: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
+    private static Date effectiveTime(Observation observation) {
+        if (observation.hasEffectiveDateTimeType()) {
+            return observation.getEffectiveDateTimeType().getValue();
+        }
+        if (observation.hasEffectivePeriod() && observation.getEffectivePeriod().hasStart()) {
+            return observation.getEffectivePeriod().getStart();
+        }
+        if (observation.hasEffectiveInstantType()) {
+            return observation.getEffectiveInstantType().getValue();
         }
+        return null;
     }
-}
\ No newline at end of file
+}
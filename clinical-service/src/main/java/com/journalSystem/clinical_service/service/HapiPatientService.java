@@ -1,37 +1,39 @@
 package com.journalSystem.clinical_service.service;
 
 import ca.uhn.fhir.rest.client.api.IGenericClient;
-import ca.uhn.fhir.util.BundleUtil;
 import lombok.RequiredArgsConstructor;
-import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Patient;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
 public class HapiPatientService {
 
     private final HapiClientService hapiClient;
+    private final LocalResourceStore store;
+    private final AsyncFhirClient asyncClient;
 
     public List<Patient> getAllPatients() {
-        IGenericClient client = hapiClient.getClient();
-
-        Bundle bundle = client
-                .search()
-                .forResource(Patient.class)
-                .returnBundle(Bundle.class)
-                .execute();
-
-        return BundleUtil.toListOfEntries(hapiClient.getContext(), bundle)
-                .stream()
-                .map(entry -> (Patient) entry.getResource())
-                .toList();
+        if (store.isReady()) {
+            return store.getAll(Patient.class);
+        }
+
+        return asyncClient.searchAndWait(Patient.class, Map.of());
     }
 
     public Optional<Patient> getPatientById(String id) {
+        if (store.isReady()) {
+            Optional<Patient> local = store.get(Patient.class, id);
+            if (local.isPresent()) {
+                return local;
+            }
+        }
+
         try {
             IGenericClient client = hapiClient.getClient();
             Patient patient = client
@@ -39,9 +41,36 @@ public class HapiPatientService {
                     .resource(Patient.class)
                     .withId(id)
                     .execute();
+            if (store.isReady()) {
+                store.upsert(patient);
+            }
             return Optional.of(patient);
         } catch (Exception e) {
             return Optional.empty();
         }
     }
+
+    /**
+     * Non-blocking {@link #getPatientById}.
+     */
+    public CompletableFuture<Optional<Patient>> getPatientByIdAsync(String id) {
+        if (store.isReady()) {
+            Optional<Patient> local = store.get(Patient.class, id);
+            if (local.isPresent()) {
+                return CompletableFuture.completedFuture(local);
+            }
+        }
+
+        return asyncClient.read(Patient.class, id)
+                .thenApply(patient -> {
+                    if (patient.isPresent() && store.isReady()) {
+                        store.upsert(patient.get());
+                    }
+                    return patient;
+                })
+                .exceptionally(e -> {
+                    System.err.println("Could not find patient with ID: " + id);
+                    return Optional.empty();
+                });
+    }
 }
\ No newline at end of file
@@ -1,13 +1,12 @@
 package com.journalSystem.clinical_service.service;
 
 import ca.uhn.fhir.rest.client.api.IGenericClient;
-import ca.uhn.fhir.util.BundleUtil;
 import lombok.RequiredArgsConstructor;
-import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Practitioner;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -15,23 +14,25 @@ import java.util.Optional;
 public class HapiPractitionerService {
 
     private final HapiClientService hapiClient;
+    private final LocalResourceStore store;
+    private final AsyncFhirClient asyncClient;
 
     public List<Practitioner> getAllPractitioners() {
-        IGenericClient client = hapiClient.getClient();
-
-        Bundle bundle = client
-                .search()
-                .forResource(Practitioner.class)
-                .returnBundle(Bundle.class)
-                .execute();
+        if (store.isReady()) {
+            return store.getAll(Practitioner.class);
+        }
 
-        return BundleUtil.toListOfEntries(hapiClient.getContext(), bundle)
-                .stream()
-                .map(entry -> (Practitioner) entry.getResource())
-                .toList();
+        return asyncClient.searchAndWait(Practitioner.class, Map.of());
     }
 
     public Optional<Practitioner> getPractitionerById(String id) {
+        if (store.isReady()) {
+            Optional<Practitioner> local = store.get(Practitioner.class, id);
+            if (local.isPresent()) {
+                return local;
+            }
+        }
+
         try {
             IGenericClient client = hapiClient.getClient();
             Practitioner practitioner = client
@@ -39,6 +40,9 @@ public class HapiPractitionerService {
                     .resource(Practitioner.class)
                     .withId(id)
                     .execute();
+            if (store.isReady()) {
+                store.upsert(practitioner);
+            }
             return Optional.of(practitioner);
         } catch (Exception e) {
             System.err.println("Could not find practitioner with ID: " + id);
@@ -48,19 +52,7 @@ public class HapiPractitionerService {
 
     public List<Practitioner> searchPractitionerByName(String name) {
         try {
-            IGenericClient client = hapiClient.getClient();
-
-            Bundle bundle = client
-                    .search()
-                    .forResource(Practitioner.class)
-                    .where(Practitioner.NAME.matches().value(name))
-                    .returnBundle(Bundle.class)
-                    .execute();
-
-            return BundleUtil.toListOfEntries(hapiClient.getContext(), bundle)
-                    .stream()
-                    .map(entry -> (Practitioner) entry.getResource())
-                    .toList();
+            return asyncClient.searchAndWait(Practitioner.class, Map.of("name", name));
         } catch (Exception e) {
             System.err.println("Could not search practitioner with name: " + name);
             e.printStackTrace();
@@ -0,0 +1,297 @@
+package com.journalSystem.clinical_service.service;
+
+import ca.uhn.fhir.parser.IParser;
+import org.hl7.fhir.r4.model.*;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Local materialized view of the FHIR resources this service serves, kept current
+ * by {@link FhirChangeFeedService}. Resources are stored per type and id, with an
+ * index from patient id to the encounters, conditions and observations about them.
+ * Reads are lock-free; writes are serialized so the patient index stays consistent.
+ * Writes store and reads return copies: HAPI getters create missing elements on the
+ * resource they are called on, so sharing the stored instances would let callers
+ * modify them. Views that are kept up to date change by change, such as
+ * {@link EncounterCalendar}, register a {@link Listener}.
+ */
+@Component
+public class LocalResourceStore {
+
+    static final List<Class<? extends Resource>> RESOURCE_TYPES = List.of(
+            Patient.class,
+            Practitioner.class,
+            Encounter.class,
+            Condition.class,
+            Observation.class
+    );
+
+    private final Map<String, Map<String, Resource>> resources = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Set<String>>> byPatient = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private volatile long version;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Told about every change to the stored view, in order, while the write
+     * lock is held; it may read the store but must not write to it. It is given
+     * the stored instance and must not modify it or keep it.
+     */
+    public interface Listener {
+
+        void upserted(Resource resource);
+
+        void removed(Resource resource);
+
+        void cleared();
+    }
+
+    public LocalResourceStore() {
+        for (Class<? extends Resource> type : RESOURCE_TYPES) {
+            resources.put(type.getSimpleName(), new ConcurrentHashMap<>());
+            byPatient.put(type.getSimpleName(), new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * True once the change feed has completed a full sync. Until then every
+     * read must go to the FHIR server.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    /**
+     * Counts the changes to the stored view, so derived views such as
+     * {@link CohortSnapshot} can tell whether they are out of date.
+     */
+    public long version() {
+        return version;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public <T extends Resource> Optional<T> get(Class<T> type, String id) {
+        Map<String, Resource> ofType = resources.get(type.getSimpleName());
+        if (ofType == null || id == null) {
+            return Optional.empty();
+        }
+        Resource resource = ofType.get(id);
+        return resource != null ? Optional.of(type.cast(resource.copy())) : Optional.empty();
+    }
+
+    public <T extends Resource> List<T> getAll(Class<T> type) {
+        Map<String, Resource> ofType = resources.get(type.getSimpleName());
+        if (ofType == null) {
+            return List.of();
+        }
+        return ofType.values().stream().map(resource -> type.cast(resource.copy())).toList();
+    }
+
+    public <T extends Resource> List<T> getForPatient(Class<T> type, String patientId) {
+        Map<String, Resource> ofType = resources.get(type.getSimpleName());
+        Set<String> ids = byPatient.get(type.getSimpleName()).get(patientId);
+        if (ofType == null || ids == null) {
+            return List.of();
+        }
+        List<T> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Resource resource = ofType.get(id);
+            if (resource != null) {
+                result.add(type.cast(resource.copy()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stores a copy of the resource unless an equal or newer version is already
+     * present, so the caller may keep using and modifying its instance.
+     *
+     * @return true if the stored view changed
+     */
+    public boolean upsert(Resource resource) {
+        return upsert(resource, true);
+    }
+
+    /**
+     * Like {@link #upsert(Resource)}, but stores the instance itself; for callers
+     * that parsed it only to store it and drop their reference right away.
+     */
+    boolean upsertOwned(Resource resource) {
+        return upsert(resource, false);
+    }
+
+    private synchronized boolean upsert(Resource resource, boolean copy) {
+        Map<String, Resource> ofType = resources.get(resource.fhirType());
+        String id = resource.getIdElement().getIdPart();
+        if (ofType == null || id == null) {
+            return false;
+        }
+
+        Resource existing = ofType.get(id);
+        if (existing != null && !isNewer(resource, existing)) {
+            return false;
+        }
+
+        Resource stored = copy ? resource.copy() : resource;
+        ofType.put(id, stored);
+        version++;
+        String oldPatient = existing != null ? patientOf(existing) : null;
+        String newPatient = patientOf(stored);
+        if (!Objects.equals(oldPatient, newPatient)) {
+            unindex(stored.fhirType(), oldPatient, id);
+        }
+        if (newPatient != null) {
+            byPatient.get(stored.fhirType())
+                    .computeIfAbsent(newPatient, key -> ConcurrentHashMap.newKeySet())
+                    .add(id);
+        }
+        notifyListeners(listener -> listener.upserted(stored));
+        return true;
+    }
+
+    public synchronized boolean remove(String resourceType, String id) {
+        Map<String, Resource> ofType = resources.get(resourceType);
+        if (ofType == null || id == null) {
+            return false;
+        }
+        Resource removed = ofType.remove(id);
+        if (removed == null) {
+            return false;
+        }
+        unindex(resourceType, patientOf(removed), id);
+        version++;
+        notifyListeners(listener -> listener.removed(removed));
+        return true;
+    }
+
+    public synchronized void clear() {
+        resources.values().forEach(Map::clear);
+        byPatient.values().forEach(Map::clear);
+        version++;
+        notifyListeners(Listener::cleared);
+    }
+
+    public int size() {
+        return resources.values().stream().mapToInt(Map::size).sum();
+    }
+
+    public boolean supports(String resourceType) {
+        return resources.containsKey(resourceType);
+    }
+
+    /**
+     * Writes every stored resource as one JSON line.
+     *
+     * @return number of resources written
+     */
+    int writeTo(Writer writer, IParser parser) throws IOException {
+        int count = 0;
+        for (Map<String, Resource> ofType : resources.values()) {
+            for (Resource resource : ofType.values()) {
+                writer.write(parser.encodeResourceToString(resource));
+                writer.write('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Loads resources written by {@link #writeTo(Writer, IParser)}.
+     *
+     * @return number of resources read
+     */
+    int readFrom(BufferedReader reader, IParser parser) throws IOException {
+        int count = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            upsertOwned((Resource) parser.parseResource(line));
+            count++;
+        }
+        return count;
+    }
+
+    private void notifyListeners(Consumer<Listener> event) {
+        for (Listener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                // A broken view must not stop the store from changing
+                System.err.println("Local store listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void unindex(String resourceType, String patientId, String id) {
+        if (patientId == null) {
+            return;
+        }
+        byPatient.get(resourceType).computeIfPresent(patientId, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    static String patientOf(Resource resource) {
+        Reference subject = null;
+        if (resource instanceof Encounter encounter && encounter.hasSubject()) {
+            subject = encounter.getSubject();
+        } else if (resource instanceof Condition condition && condition.hasSubject()) {
+            subject = condition.getSubject();
+        } else if (resource instanceof Observation observation && observation.hasSubject()) {
+            subject = observation.getSubject();
+        }
+        if (subject == null) {
+            return null;
+        }
+        String type = subject.getReferenceElement().getResourceType();
+        if (type != null && !type.equals("Patient")) {
+            return null;
+        }
+        return subject.getReferenceElement().getIdPart();
+    }
+
+    private static boolean isNewer(Resource incoming, Resource existing) {
+        Long incomingVersion = versionOf(incoming);
+        Long existingVersion = versionOf(existing);
+        if (incomingVersion != null && existingVersion != null) {
+            return incomingVersion > existingVersion;
+        }
+        Date incomingUpdated = incoming.getMeta().getLastUpdated();
+        Date existingUpdated = existing.getMeta().getLastUpdated();
+        if (incomingUpdated != null && existingUpdated != null) {
+            return incomingUpdated.after(existingUpdated);
+        }
+        return true;
+    }
+
+    static Long versionOf(Resource resource) {
+        String version = resource.getIdElement().getVersionIdPart();
+        if (version == null) {
+            version = resource.getMeta().getVersionId();
+        }
+        try {
+            return version != null ? Long.parseLong(version) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.journalSystem.clinical_service.service;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Reduces a numeric time series to at most a given number of points for charting.
+ * Bucket modes split the time range into equal-width buckets and keep one
+ * aggregate per non-empty bucket. LTTB (Largest-Triangle-Three-Buckets) keeps
+ * real samples chosen to preserve the visual shape of the line.
+ * Timestamps are epoch milliseconds and must be sorted ascending.
+ */
+public final class ObservationDownsampler {
+
+    public enum Mode {
+        NONE, MIN, MAX, AVG, LTTB;
+
+        public static Mode parse(String value) {
+            if (value == null || value.isBlank()) {
+                return NONE;
+            }
+            return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    public record Series(long[] timestamps, double[] values) {}
+
+    private ObservationDownsampler() {
+    }
+
+    public static Series downsample(long[] timestamps, double[] values, int maxPoints, Mode mode) {
+        if (timestamps.length != values.length) {
+            throw new IllegalArgumentException("timestamps and values must have the same length");
+        }
+        if (mode == Mode.NONE || maxPoints <= 0 || timestamps.length <= maxPoints) {
+            return new Series(timestamps, values);
+        }
+        if (mode == Mode.LTTB) {
+            return lttb(timestamps, values, Math.max(maxPoints, 3));
+        }
+        return buckets(timestamps, values, maxPoints, mode);
+    }
+
+    private static Series buckets(long[] t, double[] v, int bucketCount, Mode mode) {
+        long[] outT = new long[bucketCount];
+        double[] outV = new double[bucketCount];
+        int out = 0;
+
+        long start = t[0];
+        // +1 so the last timestamp falls inside the last bucket
+        double width = (double) (t[t.length - 1] - start + 1) / bucketCount;
+
+        int i = 0;
+        for (int b = 0; b < bucketCount && i < t.length; b++) {
+            long bucketEnd = start + (long) Math.ceil(width * (b + 1));
+            if (t[i] >= bucketEnd) {
+                continue;
+            }
+
+            int selected = i;
+            double sum = 0;
+            long timeSum = 0;
+            int count = 0;
+            for (; i < t.length && t[i] < bucketEnd; i++) {
+                if ((mode == Mode.MIN && v[i] < v[selected]) || (mode == Mode.MAX && v[i] > v[selected])) {
+                    selected = i;
+                }
+                sum += v[i];
+                timeSum += t[i] - start;
+                count++;
+            }
+
+            if (mode == Mode.AVG) {
+                outT[out] = start + timeSum / count;
+                outV[out] = sum / count;
+            } else {
+                outT[out] = t[selected];
+                outV[out] = v[selected];
+            }
+            out++;
+        }
+
+        return new Series(Arrays.copyOf(outT, out), Arrays.copyOf(outV, out));
+    }
+
+    private static Series lttb(long[] t, double[] v, int threshold) {
+        int n = t.length;
+        long[] outT = new long[threshold];
+        double[] outV = new double[threshold];
+
+        // Always keep the first and last point; the middle is split into threshold - 2 buckets
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        outT[0] = t[0];
+        outV[0] = v[0];
+
+        for (int i = 0; i < threshold - 2; i++) {
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double avgT = 0;
+            double avgV = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgT += t[j];
+                avgV += v[j];
+            }
+            int avgLength = avgEnd - avgStart;
+            avgT /= avgLength;
+            avgV /= avgLength;
+
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((t[a] - avgT) * (v[j] - v[a]) - (t[a] - t[j]) * (avgV - v[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+
+            outT[i + 1] = t[next];
+            outV[i + 1] = v[next];
+            a = next;
+        }
+
+        outT[threshold - 1] = t[n - 1];
+        outV[threshold - 1] = v[n - 1];
+        return new Series(outT, outV);
+    }
+}
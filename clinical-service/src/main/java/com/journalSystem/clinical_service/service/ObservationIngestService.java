@@ -0,0 +1,216 @@
+package com.journalSystem.clinical_service.service;
+
+import ca.uhn.fhir.rest.client.api.IGenericClient;
+import com.journalSystem.clinical_service.dto.BulkIngestResultDTO;
+import com.journalSystem.clinical_service.dto.ObservationReadingDTO;
+import jakarta.annotation.PreDestroy;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Observation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk ingestion of device readings. Readings are validated and turned into
+ * Observations in parallel, then written as transaction bundles of batchSize
+ * entries, with up to concurrency transactions in flight. A transaction is
+ * all or nothing, so a rejected bundle fails only the readings in it.
+ * Created observations are not read back; the ids come from the transaction
+ * response. Each one is published as a created event, as a single create is.
+ */
+@Service
+public class ObservationIngestService {
+
+    private final HapiClientService hapiClient;
+    private final LocalResourceStore store;
+    private final ClinicalEventBus eventBus;
+    private final int batchSize;
+    private final int maxItems;
+    private final ExecutorService executor;
+
+    public ObservationIngestService(
+            HapiClientService hapiClient,
+            LocalResourceStore store,
+            ClinicalEventBus eventBus,
+            @Value("${fhir.ingest.batch-size:200}") int batchSize,
+            @Value("${fhir.ingest.concurrency:4}") int concurrency,
+            @Value("${fhir.ingest.max-items:10000}") int maxItems
+    ) {
+        this.hapiClient = hapiClient;
+        this.store = store;
+        this.eventBus = eventBus;
+        this.batchSize = batchSize;
+        this.maxItems = maxItems;
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "fhir-ingest");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    /**
+     * Ingests the readings and reports an outcome for each. A null reading
+     * stands for one that could not be parsed and is reported as invalid.
+     */
+    public BulkIngestResultDTO ingest(List<ObservationReadingDTO> readings) {
+        int count = readings.size();
+        BulkIngestResultDTO.Item[] outcomes = new BulkIngestResultDTO.Item[count];
+        Observation[] observations = new Observation[count];
+
+        IntStream.range(0, count).parallel().forEach(index -> {
+            ObservationReadingDTO reading = readings.get(index);
+            String error = validate(reading);
+            if (error != null) {
+                outcomes[index] = new BulkIngestResultDTO.Item(index, BulkIngestResultDTO.INVALID, null, error);
+                return;
+            }
+            observations[index] = HapiObservationService.buildObservation(
+                    reading.patientPersonnummer().trim(),
+                    reading.performerPersonnummer() != null ? reading.performerPersonnummer().trim() : null,
+                    reading.description().trim(),
+                    reading.value().trim(),
+                    reading.unit() != null ? reading.unit().trim() : null,
+                    parseEffectiveDate(reading.effectiveDate())
+            );
+        });
+
+        int[] valid = IntStream.range(0, count).filter(index -> observations[index] != null).toArray();
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int from = 0; from < valid.length; from += batchSize) {
+            int[] batch = Arrays.copyOfRange(valid, from, Math.min(from + batchSize, valid.length));
+            batches.add(CompletableFuture.runAsync(() -> writeBatch(batch, observations, outcomes), executor));
+        }
+        CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).join();
+
+        int created = 0;
+        int invalid = 0;
+        int failed = 0;
+        for (BulkIngestResultDTO.Item outcome : outcomes) {
+            switch (outcome.status()) {
+                case BulkIngestResultDTO.CREATED -> created++;
+                case BulkIngestResultDTO.INVALID -> invalid++;
+                default -> failed++;
+            }
+        }
+        System.out.println("✓ Bulk observation ingest: " + created + " created, "
+                + invalid + " invalid, " + failed + " failed");
+        return new BulkIngestResultDTO(count, created, invalid, failed, List.of(outcomes));
+    }
+
+    /**
+     * Sends one transaction bundle and records the outcome of every reading in it.
+     */
+    void writeBatch(int[] batch, Observation[] observations, BulkIngestResultDTO.Item[] outcomes) {
+        Bundle transaction = new Bundle();
+        transaction.setType(Bundle.BundleType.TRANSACTION);
+        for (int index : batch) {
+            transaction.addEntry()
+                    .setFullUrl("urn:uuid:" + UUID.randomUUID())
+                    .setResource(observations[index])
+                    .getRequest()
+                    .setMethod(Bundle.HTTPVerb.POST)
+                    .setUrl("Observation");
+        }
+
+        Bundle response;
+        try {
+            IGenericClient client = hapiClient.getClient();
+            response = client.transaction().withBundle(transaction).execute();
+        } catch (Exception e) {
+            System.err.println("Bulk observation transaction of " + batch.length + " failed: " + e.getMessage());
+            for (int index : batch) {
+                outcomes[index] = new BulkIngestResultDTO.Item(index, BulkIngestResultDTO.FAILED, null,
+                        "Transaction failed: " + e.getMessage());
+            }
+            return;
+        }
+
+        // Response entries are in the same order as the request entries
+        List<Bundle.BundleEntryComponent> entries = response.getEntry();
+        for (int i = 0; i < batch.length; i++) {
+            int index = batch[i];
+            String location = i < entries.size() && entries.get(i).hasResponse()
+                    ? entries.get(i).getResponse().getLocation()
+                    : null;
+            if (location == null || location.isEmpty()) {
+                outcomes[index] = new BulkIngestResultDTO.Item(index, BulkIngestResultDTO.FAILED, null,
+                        "No location in transaction response");
+                continue;
+            }
+
+            IdType id = new IdType(location);
+            outcomes[index] = new BulkIngestResultDTO.Item(index, BulkIngestResultDTO.CREATED, id.getIdPart(), null);
+            Observation observation = observations[index];
+            observation.setId(id.toUnqualified());
+            if (store.isReady()) {
+                store.upsert(observation);
+            }
+            eventBus.publishCreated(observation);
+        }
+    }
+
+    static String validate(ObservationReadingDTO reading) {
+        if (reading == null) {
+            return "Malformed reading";
+        }
+        if (isBlank(reading.patientPersonnummer())) {
+            return "patientPersonnummer is required";
+        }
+        if (isBlank(reading.description())) {
+            return "description is required";
+        }
+        if (isBlank(reading.value())) {
+            return "value is required";
+        }
+        if (isBlank(reading.effectiveDate())) {
+            return "effectiveDate is required";
+        }
+        if (parseEffectiveDate(reading.effectiveDate()) == null) {
+            return "Invalid effectiveDate. Use yyyy-MM-dd or an ISO-8601 date-time with offset";
+        }
+        return null;
+    }
+
+    /**
+     * yyyy-MM-dd (start of day in server time, like createObservation) or an
+     * ISO-8601 date-time with offset; null if neither.
+     */
+    static Date parseEffectiveDate(String value) {
+        String trimmed = value.trim();
+        try {
+            if (trimmed.length() == 10) {
+                return Date.from(LocalDate.parse(trimmed).atStartOfDay(ZoneId.systemDefault()).toInstant());
+            }
+            return Date.from(OffsetDateTime.parse(trimmed).toInstant());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
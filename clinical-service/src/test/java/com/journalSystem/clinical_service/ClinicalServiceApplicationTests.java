@@ -3,7 +3,7 @@ package com.journalSystem.clinical_service;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "fhir.changefeed.enabled=false")
 class ClinicalServiceApplicationTests {
 
 	@Test
@@ -0,0 +1,119 @@
+package com.journalSystem.clinical_service.benchmark;
+
+import com.journalSystem.clinical_service.dto.CohortQueryDTO;
+import com.journalSystem.clinical_service.dto.CohortResultDTO;
+import com.journalSystem.clinical_service.service.CohortQueryService;
+import com.journalSystem.clinical_service.service.LocalResourceStore;
+import org.hl7.fhir.r4.model.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cohort queries over 50 000 patients with 2 conditions, 4 observations and 2
+ * encounters each, against an already built snapshot:
+ * - diabetesAndHighPressure: condition code and a recent observation above a threshold
+ * - notSeenByPractitioner: all patients minus those with an encounter with one practitioner
+ *
+ * Run with:
+ *   ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *       "-Dexec.args=-cp %classpath com.journalSystem.clinical_service.benchmark.CohortQueryBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class CohortQueryBenchmark {
+
+    private static final int PATIENTS = 50_000;
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private CohortQueryService cohortQueryService;
+    private CohortQueryDTO diabetesAndHighPressure;
+    private CohortQueryDTO notSeenByPractitioner;
+
+    @Setup
+    public void setUp() {
+        LocalResourceStore store = new LocalResourceStore() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+        };
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        int id = 0;
+        for (int p = 0; p < PATIENTS; p++) {
+            Patient patient = new Patient();
+            patient.setId("p" + p);
+            store.upsert(patient);
+            for (int i = 0; i < 2; i++) {
+                Condition condition = new Condition();
+                condition.setId("c" + id++);
+                condition.setSubject(new Reference("Patient/p" + p));
+                condition.getCode().addCoding().setSystem("http://snomed.info/sct")
+                        .setCode(Integer.toString(1000 + random.nextInt(50)));
+                condition.getCode().setText("Condition " + random.nextInt(50));
+                condition.setOnset(new DateTimeType(new Date(now - random.nextInt(3650) * DAY)));
+                store.upsert(condition);
+            }
+            for (int i = 0; i < 4; i++) {
+                Observation observation = new Observation();
+                observation.setId("o" + id++);
+                observation.setSubject(new Reference("Patient/p" + p));
+                observation.getCode().addCoding().setSystem("http://loinc.org")
+                        .setCode(random.nextBoolean() ? "8480-6" : "8462-4");
+                observation.setValue(new Quantity().setValue(90 + random.nextInt(90)).setUnit("mm[Hg]"));
+                observation.setEffective(new DateTimeType(new Date(now - random.nextInt(1095) * DAY)));
+                store.upsert(observation);
+            }
+            for (int i = 0; i < 2; i++) {
+                Encounter encounter = new Encounter();
+                encounter.setId("e" + id++);
+                encounter.setSubject(new Reference("Patient/p" + p));
+                encounter.addParticipant().setIndividual(new Reference("Practitioner/doc-" + random.nextInt(200)));
+                encounter.setPeriod(new Period().setStart(new Date(now - random.nextInt(730) * DAY)));
+                store.upsert(encounter);
+            }
+        }
+
+        cohortQueryService = new CohortQueryService(store, Long.MAX_VALUE);
+        diabetesAndHighPressure = new CohortQueryDTO(CohortQueryDTO.AND, List.of(
+                new CohortQueryDTO(CohortQueryDTO.CONDITION, null, "snomed|1007", null,
+                        null, null, null, null, null, null),
+                new CohortQueryDTO(CohortQueryDTO.OBSERVATION, null, "loinc|8480-6", null,
+                        140.0, null, null, null, "P1Y", null)),
+                null, null, null, null, null, null, null, null);
+        notSeenByPractitioner = new CohortQueryDTO(CohortQueryDTO.NOT, List.of(
+                new CohortQueryDTO(CohortQueryDTO.ENCOUNTER, null, null, null,
+                        null, null, null, null, null, "doc-7")),
+                null, null, null, null, null, null, null, null);
+        cohortQueryService.query(notSeenByPractitioner, 0, 0);
+    }
+
+    @Benchmark
+    public CohortResultDTO diabetesAndHighPressure() {
+        return cohortQueryService.query(diabetesAndHighPressure, 0, 100);
+    }
+
+    @Benchmark
+    public CohortResultDTO notSeenByPractitioner() {
+        return cohortQueryService.query(notSeenByPractitioner, 0, 100);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CohortQueryBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
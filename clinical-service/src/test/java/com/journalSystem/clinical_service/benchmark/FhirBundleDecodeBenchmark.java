@@ -0,0 +1,127 @@
+package com.journalSystem.clinical_service.benchmark;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.util.BundleUtil;
+import com.journalSystem.clinical_service.dto.ObservationDTO;
+import com.journalSystem.clinical_service.mapper.FhirMapper;
+import com.journalSystem.clinical_service.service.FhirParsers;
+import org.hl7.fhir.r4.model.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a 1000-entry Observation search bundle into ObservationDTOs:
+ * - baseline: a new default parser per response, BundleUtil.toListOfEntries and
+ *   two stream copies, as the services did before FhirParsers
+ * - pooled: the calling thread's configured parser, mapping entries straight to DTOs
+ * The response is either the full resources, generated narratives included, or
+ * what the server sends for _summary=data.
+ *
+ * Run with (JMH forks a JVM, so it needs the real classpath rather than exec:java):
+ *   ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *       "-Dexec.args=-cp %classpath com.journalSystem.clinical_service.benchmark.FhirBundleDecodeBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FhirBundleDecodeBenchmark {
+
+    private static final int ENTRIES = 1000;
+
+    @Param({"full", "summaryData"})
+    public String response;
+
+    private FhirContext context;
+    private FhirParsers parsers;
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        context = FhirContext.forR4();
+        parsers = new FhirParsers(context);
+
+        Bundle bundle = new Bundle();
+        bundle.setType(Bundle.BundleType.SEARCHSET);
+        bundle.setTotal(ENTRIES);
+        for (int i = 0; i < ENTRIES; i++) {
+            Observation observation = observation(i);
+            bundle.addEntry()
+                    .setFullUrl("https://fhir.example.org/fhir/Observation/" + (100000 + i))
+                    .setResource(observation)
+                    .getSearch().setMode(Bundle.SearchEntryMode.MATCH);
+        }
+        // The pooled parser leaves narratives out when encoding, like _summary=data
+        String json = response.equals("full")
+                ? context.newJsonParser().encodeResourceToString(bundle)
+                : parsers.json().encodeResourceToString(bundle);
+        body = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<ObservationDTO> baseline() {
+        Bundle bundle = context.newJsonParser().parseResource(Bundle.class, new ByteArrayInputStream(body));
+        return BundleUtil.toListOfEntries(context, bundle)
+                .stream()
+                .map(entry -> (Observation) entry.getResource())
+                .toList()
+                .stream()
+                .map(FhirMapper::observationToDTO)
+                .toList();
+    }
+
+    @Benchmark
+    public List<ObservationDTO> pooled() {
+        return parsers.decodeBundle(new ByteArrayInputStream(body), Observation.class, FhirMapper::observationToDTO);
+    }
+
+    /**
+     * Shaped like the server's vital-sign observations, generated narrative included.
+     */
+    private static Observation observation(int i) {
+        Observation observation = new Observation();
+        observation.setId(Integer.toString(100000 + i));
+        observation.getMeta().setVersionId("1").setLastUpdated(new Date());
+        observation.setStatus(Observation.ObservationStatus.FINAL);
+        observation.addCategory().addCoding()
+                .setSystem("http://terminology.hl7.org/CodeSystem/observation-category")
+                .setCode("vital-signs")
+                .setDisplay("Vital signs");
+        observation.getCode().addCoding()
+                .setSystem("http://loinc.org")
+                .setCode("8867-4")
+                .setDisplay("Heart rate");
+        observation.getCode().setText("Heart rate");
+        observation.setSubject(new Reference("Patient/" + (i % 50 + 1)));
+        observation.setEncounter(new Reference("Encounter/" + (i + 5000)));
+        observation.setEffective(new DateTimeType(new Date(1_700_000_000_000L + i * 60_000L)));
+        observation.setIssued(new Date(1_700_000_000_000L + i * 60_000L));
+        observation.setValue(new Quantity().setValue(60 + i % 40).setUnit("/min")
+                .setSystem("http://unitsofmeasure.org").setCode("/min"));
+        observation.getText().setStatus(Narrative.NarrativeStatus.GENERATED).setDivAsString(
+                "<div xmlns=\"http://www.w3.org/1999/xhtml\"><p><b>Generated Narrative</b></p>"
+                        + "<p><b>status</b>: final</p><p><b>category</b>: Vital signs</p>"
+                        + "<p><b>code</b>: Heart rate <span>(Details : {LOINC code '8867-4' = 'Heart rate'})</span></p>"
+                        + "<p><b>subject</b>: Patient/" + (i % 50 + 1) + "</p>"
+                        + "<p><b>value</b>: " + (60 + i % 40) + " /min</p></div>");
+        return observation;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(FhirBundleDecodeBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,80 @@
+package com.journalSystem.clinical_service.benchmark;
+
+import com.journalSystem.clinical_service.security.SessionClaims;
+import com.journalSystem.clinical_service.security.SessionTokenVerifier;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checking the session token of one request locally, which replaces a call to
+ * user-service:
+ * - verify: a valid token, HMAC with the thread's Mac plus parsing the claims
+ * - rejectTampered: a token whose signature does not match, stopped after the HMAC
+ * Both should take a few microseconds, against milliseconds for a network hop.
+ *
+ * Run with:
+ *   ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *       "-Dexec.args=-cp %classpath com.journalSystem.clinical_service.benchmark.SessionTokenVerifierBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionTokenVerifierBenchmark {
+
+    private static final String SECRET = "benchmark-session-token-secret-of-32-bytes";
+
+    private SessionTokenVerifier verifier;
+    private String header;
+    private String tampered;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        verifier = new SessionTokenVerifier(SECRET);
+
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String claims = "{\"sub\":\"42\",\"role\":\"DOCTOR\",\"fid\":\"30681750-1667-311a-a3e3-878ae10a35bb\","
+                + "\"iat\":" + Instant.now().getEpochSecond()
+                + ",\"exp\":" + Instant.now().plusSeconds(3600).getEpochSecond() + "}";
+        String signingInput = encoder.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8))
+                + "." + encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String token = signingInput + "." + encoder.encodeToString(
+                mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+
+        header = "Bearer " + token;
+        tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+    }
+
+    @Benchmark
+    public Optional<SessionClaims> verify() {
+        return verifier.verifyAuthorizationHeader(header);
+    }
+
+    @Benchmark
+    public Optional<SessionClaims> rejectTampered() {
+        return verifier.verify(tampered);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SessionTokenVerifierBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,143 @@
+package com.journalSystem.clinical_service.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.journalSystem.clinical_service.dto.BulkIngestResultDTO;
+import com.journalSystem.clinical_service.dto.ObservationReadingDTO;
+import com.journalSystem.clinical_service.service.HapiObservationService;
+import com.journalSystem.clinical_service.service.ObservationIngestService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ObservationControllerTest {
+
+    private static final String READING = """
+            {"patientPersonnummer":"19700101-1234","description":"Pulse","value":"72","unit":"bpm","effectiveDate":"2024-03-01"}""";
+
+    @Mock
+    private HapiObservationService hapiObservationService;
+
+    @Mock
+    private ObservationIngestService observationIngestService;
+
+    private ObservationController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new ObservationController(hapiObservationService, observationIngestService, new ObjectMapper());
+    }
+
+    // ingestObservations() TESTS
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ingestObservations_shouldIngestEveryReading_inOrder() throws Exception {
+        // Arrange
+        when(observationIngestService.getMaxItems()).thenReturn(10);
+        BulkIngestResultDTO result = new BulkIngestResultDTO(2, 2, 0, 0, List.of());
+        when(observationIngestService.ingest(any())).thenReturn(result);
+
+        // Act
+        ResponseEntity<BulkIngestResultDTO> response = controller.ingestObservations(
+                body("[" + READING + "," + READING.replace("72", "80") + "]"));
+
+        // Assert
+        assertThat(response.getBody()).isSameAs(result);
+        ArgumentCaptor<List<ObservationReadingDTO>> readings = ArgumentCaptor.forClass(List.class);
+        verify(observationIngestService).ingest(readings.capture());
+        assertThat(readings.getValue()).extracting(ObservationReadingDTO::value).containsExactly("72", "80");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ingestObservations_shouldReportMalformedElementsAsInvalid_andKeepReading() throws Exception {
+        // Arrange
+        when(observationIngestService.getMaxItems()).thenReturn(10);
+        when(observationIngestService.ingest(any())).thenReturn(new BulkIngestResultDTO(4, 2, 2, 0, List.of()));
+
+        // Act
+        ResponseEntity<BulkIngestResultDTO> response = controller.ingestObservations(
+                body("[" + READING + ",5,{\"value\":[1,2]}," + READING.replace("72", "80") + "]"));
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        ArgumentCaptor<List<ObservationReadingDTO>> readings = ArgumentCaptor.forClass(List.class);
+        verify(observationIngestService).ingest(readings.capture());
+        assertThat(readings.getValue()).hasSize(4);
+        assertThat(readings.getValue().get(1)).isNull();
+        assertThat(readings.getValue().get(2)).isNull();
+        assertThat(readings.getValue().get(3).value()).isEqualTo("80");
+    }
+
+    @Test
+    void ingestObservations_shouldStopReading_onceMaxItemsIsExceeded() throws Exception {
+        // Arrange
+        when(observationIngestService.getMaxItems()).thenReturn(2);
+        CountingStream tail = new CountingStream(("," + READING).repeat(1000) + "]");
+        InputStream upload = new SequenceInputStream(
+                body("[" + READING + "," + READING + "," + READING), tail);
+
+        // Act
+        ResponseEntity<BulkIngestResultDTO> response = controller.ingestObservations(upload);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        assertThat(tail.read).isLessThan(tail.size / 10);
+        verify(observationIngestService, never()).ingest(any());
+    }
+
+    @Test
+    void ingestObservations_shouldRejectBodies_thatAreNotAnArrayOfReadings() throws Exception {
+        // Arrange
+        when(observationIngestService.getMaxItems()).thenReturn(10);
+
+        // Act & Assert
+        assertThat(controller.ingestObservations(body(READING)).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(controller.ingestObservations(body("[" + READING)).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(controller.ingestObservations(body("[{\"value\":")).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(observationIngestService, never()).ingest(any());
+    }
+
+    // HELPER METHODS
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Counts how much of the upload the controller actually pulled. */
+    private static class CountingStream extends ByteArrayInputStream {
+
+        final int size;
+        int read;
+
+        CountingStream(String json) {
+            super(json.getBytes(StandardCharsets.UTF_8));
+            size = count;
+        }
+
+        @Override
+        public synchronized int read(byte[] buffer, int offset, int length) {
+            int n = super.read(buffer, offset, length);
+            read += Math.max(n, 0);
+            return n;
+        }
+    }
+}
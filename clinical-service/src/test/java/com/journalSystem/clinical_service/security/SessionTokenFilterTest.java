@@ -0,0 +1,99 @@
+package com.journalSystem.clinical_service.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.journalSystem.clinical_service.security.SessionTokenVerifierTest.SECRET;
+import static com.journalSystem.clinical_service.security.SessionTokenVerifierTest.token;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SessionTokenFilterTest {
+
+    private final SessionTokenVerifier verifier = new SessionTokenVerifier(SECRET);
+    private final List<Object> passedClaims = new ArrayList<>();
+
+    // doFilter() TESTS
+
+    @Test
+    void doFilter_shouldPassRecordRequests_withValidBearerToken() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/clinical/observations/patient/p1");
+        request.addHeader("Authorization", "Bearer " + validToken());
+
+        // Act
+        MockHttpServletResponse response = filter(true, request);
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(passedClaims).singleElement().isInstanceOfSatisfying(SessionClaims.class,
+                claims -> assertThat(claims.foreignId()).isEqualTo("doc-1"));
+    }
+
+    @Test
+    void doFilter_shouldAnswer401_forRecordRequestsWithoutValidToken() throws Exception {
+        // Arrange
+        MockHttpServletRequest missing = new MockHttpServletRequest("GET", "/api/v1/clinical/conditions/patient/p1");
+        MockHttpServletRequest invalid = new MockHttpServletRequest("POST", "/api/v1/clinical/encounters");
+        invalid.addHeader("Authorization", "Bearer " + validToken() + "x");
+
+        // Act
+        MockHttpServletResponse missingResponse = filter(true, missing);
+        MockHttpServletResponse invalidResponse = filter(true, invalid);
+
+        // Assert
+        assertThat(missingResponse.getStatus()).isEqualTo(401);
+        assertThat(missingResponse.getHeader("WWW-Authenticate")).isEqualTo("Bearer");
+        assertThat(invalidResponse.getStatus()).isEqualTo(401);
+        assertThat(passedClaims).isEmpty();
+    }
+
+    @Test
+    void doFilter_shouldAcceptTokenParameter_onlyOnEventStream() throws Exception {
+        // Arrange
+        MockHttpServletRequest events = new MockHttpServletRequest("GET", "/api/v1/clinical/events");
+        events.setParameter(SessionTokenFilter.TOKEN_PARAMETER, validToken());
+        MockHttpServletRequest records = new MockHttpServletRequest("GET", "/api/v1/clinical/observations/patient/p1");
+        records.setParameter(SessionTokenFilter.TOKEN_PARAMETER, validToken());
+
+        // Act & Assert
+        assertThat(filter(true, events).getStatus()).isEqualTo(200);
+        assertThat(filter(true, records).getStatus()).isEqualTo(401);
+    }
+
+    @Test
+    void doFilter_shouldPassEverything_whenNotEnforced_andOpenListsAlways() throws Exception {
+        // Act & Assert
+        assertThat(filter(false, new MockHttpServletRequest("GET", "/api/v1/clinical/conditions/patient/p1"))
+                .getStatus()).isEqualTo(200);
+        assertThat(filter(true, new MockHttpServletRequest("GET", "/api/patients")).getStatus()).isEqualTo(200);
+        assertThat(filter(true, new MockHttpServletRequest("OPTIONS", "/api/v1/clinical/encounters")).getStatus())
+                .isEqualTo(200);
+    }
+
+    @Test
+    void constructor_shouldRefuseToEnforce_withoutSecret() {
+        // Act & Assert
+        assertThatThrownBy(() -> new SessionTokenFilter(new SessionTokenVerifier(""), true))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("AUTH_TOKEN_SECRET");
+    }
+
+    // HELPER METHODS
+
+    private MockHttpServletResponse filter(boolean enforce, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new SessionTokenFilter(verifier, enforce).doFilter(request, response,
+                (req, res) -> passedClaims.add(req.getAttribute(SessionTokenFilter.CLAIMS_ATTRIBUTE)));
+        return response;
+    }
+
+    private static String validToken() {
+        return token(SECRET, 7, "DOCTOR", "doc-1", Instant.now().plusSeconds(3600));
+    }
+}
@@ -0,0 +1,88 @@
+package com.journalSystem.clinical_service.security;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SessionTokenVerifierTest {
+
+    static final String SECRET = "test-session-token-secret-of-32-bytes";
+
+    private final SessionTokenVerifier verifier = new SessionTokenVerifier(SECRET);
+
+    // verify() TESTS
+
+    @Test
+    void verify_shouldReturnClaims_ofTokenSignedWithSharedSecret() {
+        // Arrange
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+        String token = token(SECRET, 42, "DOCTOR", "doc-1", expiresAt);
+
+        // Act
+        SessionClaims claims = verifier.verifyAuthorizationHeader("Bearer " + token).orElseThrow();
+
+        // Assert
+        assertThat(claims.userId()).isEqualTo(42L);
+        assertThat(claims.role()).isEqualTo("DOCTOR");
+        assertThat(claims.foreignId()).isEqualTo("doc-1");
+        assertThat(claims.expiresAt()).isEqualTo(Instant.ofEpochSecond(expiresAt.getEpochSecond()));
+    }
+
+    @Test
+    void verify_shouldReject_expiredForeignOrTamperedTokens() {
+        // Arrange
+        Instant later = Instant.now().plusSeconds(3600);
+        String valid = token(SECRET, 42, "PATIENT", "p1", later);
+        String tampered = valid.substring(0, valid.indexOf('.') + 1)
+                + payload(43, "DOCTOR", "p1", later) + valid.substring(valid.lastIndexOf('.'));
+
+        // Act & Assert
+        assertThat(verifier.verify(token(SECRET, 42, "PATIENT", "p1", Instant.now().minusSeconds(1)))).isEmpty();
+        assertThat(verifier.verify(token("another-secret-that-is-at-least-32-bytes", 42, "PATIENT", "p1", later)))
+                .isEmpty();
+        assertThat(verifier.verify(tampered)).isEmpty();
+        assertThat(verifier.verify("not.a.token")).isEmpty();
+        assertThat(verifier.verifyAuthorizationHeader(valid)).isEmpty();
+    }
+
+    @Test
+    void constructor_shouldLeaveVerifierUnconfigured_withoutSecret_andRejectShortSecret() {
+        // Arrange
+        SessionTokenVerifier unconfigured = new SessionTokenVerifier("");
+
+        // Act & Assert
+        assertThat(unconfigured.isConfigured()).isFalse();
+        assertThat(unconfigured.verify(token(SECRET, 42, "PATIENT", "p1", Instant.now().plusSeconds(60)))).isEmpty();
+        assertThatThrownBy(() -> new SessionTokenVerifier("short")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // HELPER METHODS
+
+    /** Signs a token the way user-service's SessionTokenService does. */
+    static String token(String secret, long userId, String role, String foreignId, Instant expiresAt) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+        String signingInput = header + "." + payload(userId, role, foreignId, expiresAt);
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return signingInput + "." + encoder.encodeToString(
+                    mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String payload(long userId, String role, String foreignId, Instant expiresAt) {
+        String json = "{\"sub\":\"" + userId + "\",\"role\":\"" + role + "\",\"fid\":\"" + foreignId
+                + "\",\"exp\":" + expiresAt.getEpochSecond() + "}";
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,203 @@
+package com.journalSystem.clinical_service.service;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.hl7.fhir.r4.model.Encounter;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpTimeoutException;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncFhirClientTest {
+
+    private static final FhirContext FHIR_CONTEXT = FhirContext.forR4();
+
+    @Mock
+    private ObjectProvider<Tracer> tracer;
+
+    @Mock
+    private ObjectProvider<Propagator> propagator;
+
+    private SimpleMeterRegistry meterRegistry;
+    private List<HttpRequest> sent;
+    private List<CompletableFuture<HttpResponse<byte[]>>> pending;
+    private AsyncFhirClient asyncClient;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sent = new ArrayList<>();
+        pending = new ArrayList<>();
+        asyncClient = client(2, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncClient.shutdown();
+    }
+
+    // read() TESTS
+
+    @Test
+    void read_shouldDecodeResource() {
+        // Act
+        CompletableFuture<Optional<Patient>> result = asyncClient.read(Patient.class, "123");
+        respond(0, 200, "{\"resourceType\":\"Patient\",\"id\":\"123\",\"name\":[{\"family\":\"Andersson\"}]}");
+
+        // Assert
+        Patient patient = result.join().orElseThrow();
+        assertThat(patient.getIdElement().getIdPart()).isEqualTo("123");
+        assertThat(patient.getNameFirstRep().getFamily()).isEqualTo("Andersson");
+        assertThat(sent.get(0).uri().toString()).isEqualTo("https://fhir.example.org/fhir/Patient/123?_summary=data");
+        assertThat(meterRegistry.find("fhir.client.requests")
+                .tags("resource", "Patient", "operation", "read", "status", "200").timer()).isNotNull();
+    }
+
+    @Test
+    void read_shouldReturnEmpty_whenNotFound() {
+        // Act
+        CompletableFuture<Optional<Patient>> result = asyncClient.read(Patient.class, "missing");
+        respond(0, 404, "{\"resourceType\":\"OperationOutcome\"}");
+
+        // Assert
+        assertThat(result.join()).isEmpty();
+    }
+
+    @Test
+    void read_shouldFailWithHapiException_onServerError() {
+        // Act
+        CompletableFuture<Optional<Patient>> result = asyncClient.read(Patient.class, "123");
+        respond(0, 500, "boom");
+
+        // Assert
+        assertThatThrownBy(result::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(InternalErrorException.class);
+    }
+
+    @Test
+    void read_shouldRecordIoError_whenRequestTimesOut() {
+        // Act
+        CompletableFuture<Optional<Patient>> result = asyncClient.read(Patient.class, "123");
+        pending.get(0).completeExceptionally(new HttpTimeoutException("request timed out"));
+
+        // Assert
+        assertThatThrownBy(result::join).hasCauseInstanceOf(HttpTimeoutException.class);
+        assertThat(meterRegistry.find("fhir.client.requests")
+                .tags("resource", "Patient", "operation", "read", "status", FhirClientMetrics.IO_ERROR)
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("fhir.client.response.bytes").summary()).isNull();
+    }
+
+    // search() TESTS
+
+    @Test
+    void search_shouldReturnEntriesOfTheRequestedType() {
+        // Act
+        CompletableFuture<List<Encounter>> result = asyncClient.search(Encounter.class, Map.of("patient", "123"));
+        respond(0, 200, """
+                {"resourceType":"Bundle","type":"searchset","entry":[
+                  {"resource":{"resourceType":"Encounter","id":"e1"}},
+                  {"resource":{"resourceType":"Encounter","id":"e2"}},
+                  {"resource":{"resourceType":"OperationOutcome"}}
+                ]}""");
+
+        // Assert
+        assertThat(result.join()).extracting(encounter -> encounter.getIdElement().getIdPart())
+                .containsExactly("e1", "e2");
+        assertThat(sent.get(0).uri().toString()).isEqualTo("https://fhir.example.org/fhir/Encounter?patient=123&_summary=data");
+        assertThat(meterRegistry.get("fhir.client.bundle.entries").summary().totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void searchAndWait_shouldThrowTheFailureItself_notACompletionException() {
+        // Arrange
+        asyncClient.read(Patient.class, "1");
+        asyncClient.read(Patient.class, "2");
+        asyncClient.read(Patient.class, "3");
+
+        // Act & Assert
+        assertThatThrownBy(() -> asyncClient.searchAndWait(Encounter.class, Map.of("patient", "123")))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    // Concurrency limit TESTS
+
+    @Test
+    void requests_shouldWaitForAFreeSlot_whenMaxConcurrentAreInFlight() {
+        // Act
+        CompletableFuture<Optional<Patient>> first = asyncClient.read(Patient.class, "1");
+        asyncClient.read(Patient.class, "2");
+        CompletableFuture<Optional<Patient>> third = asyncClient.read(Patient.class, "3");
+
+        // Assert
+        assertThat(sent).hasSize(2);
+        respond(0, 200, "{\"resourceType\":\"Patient\",\"id\":\"1\"}");
+        first.join();
+        assertThat(sent).hasSize(3);
+        respond(2, 200, "{\"resourceType\":\"Patient\",\"id\":\"3\"}");
+        assertThat(third.join()).isPresent();
+    }
+
+    @Test
+    void requests_shouldBeRejected_whenQueueIsFull() {
+        // Act
+        asyncClient.read(Patient.class, "1");
+        asyncClient.read(Patient.class, "2");
+        asyncClient.read(Patient.class, "3");
+        CompletableFuture<Optional<Patient>> rejected = asyncClient.read(Patient.class, "4");
+
+        // Assert
+        assertThatThrownBy(rejected::join).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(asyncClient.inFlight()).isEqualTo(2);
+    }
+
+    // HELPER METHODS
+
+    private AsyncFhirClient client(int maxConcurrent, int maxQueued) {
+        FhirClientMetrics metrics = new FhirClientMetrics("https://fhir.example.org/fhir", meterRegistry,
+                tracer, propagator);
+        return new AsyncFhirClient(new FhirParsers(FHIR_CONTEXT), metrics, "https://fhir.example.org/fhir/", 1000,
+                maxConcurrent, maxQueued) {
+            @Override
+            CompletableFuture<HttpResponse<byte[]>> sendAsync(HttpRequest request) {
+                CompletableFuture<HttpResponse<byte[]>> response = new CompletableFuture<>();
+                sent.add(request);
+                pending.add(response);
+                return response;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private void respond(int request, int status, String body) {
+        HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.body()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+        pending.get(request).complete(response);
+    }
+}
@@ -0,0 +1,174 @@
+package com.journalSystem.clinical_service.service;
+
+import com.journalSystem.clinical_service.dto.ClinicalEventDTO;
+import com.journalSystem.clinical_service.dto.EncounterDTO;
+import org.hl7.fhir.r4.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClinicalEventBusTest {
+
+    private ClinicalEventBus eventBus;
+
+    @BeforeEach
+    void setUp() {
+        eventBus = new ClinicalEventBus(100, 10, 60_000, Runnable::run);
+    }
+
+    // publishCreated() TESTS
+
+    @Test
+    void publishCreated_shouldReachSubscribersOfPatientOrPractitioner_only() {
+        // Arrange
+        CapturingEmitter byPatient = subscribe("p1", null, null);
+        CapturingEmitter byPractitioner = subscribe(null, "doc-1", null);
+        CapturingEmitter otherPatient = subscribe("p2", null, null);
+
+        // Act
+        eventBus.publishCreated(encounter("101", "p1", "doc-1"));
+
+        // Assert
+        assertThat(byPatient.names).containsExactly("encounter");
+        assertThat(byPatient.events).singleElement().satisfies(event -> {
+            assertThat(event.type()).isEqualTo(ClinicalEventDTO.CREATED);
+            assertThat(event.resourceId()).isEqualTo("101");
+            assertThat(event.practitionerIds()).containsExactly("doc-1");
+            assertThat(event.resource()).isInstanceOf(EncounterDTO.class);
+        });
+        assertThat(byPractitioner.events).hasSize(1);
+        assertThat(otherPatient.events).isEmpty();
+    }
+
+    @Test
+    void publishCreated_shouldSendConditionsAndObservations_byRecorderAndPerformer() {
+        // Arrange
+        CapturingEmitter practitioner = subscribe(null, "doc-1", null);
+        Condition condition = new Condition();
+        condition.setId("c1");
+        condition.setSubject(new Reference("Patient/p1"));
+        condition.setRecorder(new Reference("Practitioner/doc-1"));
+        Observation observation = new Observation();
+        observation.setId("o1");
+        observation.setSubject(new Reference("Patient/p1"));
+        observation.addPerformer(new Reference("Practitioner/doc-1"));
+
+        // Act
+        eventBus.publishCreated(condition);
+        eventBus.publishCreated(observation);
+        eventBus.publishCreated(new Patient());
+
+        // Assert
+        assertThat(practitioner.names).containsExactly("condition", "observation");
+    }
+
+    // subscribe() TESTS
+
+    @Test
+    void subscribe_shouldReplayMissedEvents_afterLastEventId() {
+        // Arrange
+        CapturingEmitter first = subscribe("p1", null, null);
+        eventBus.publishCreated(encounter("101", "p1", "doc-1"));
+        eventBus.publishCreated(encounter("102", "p2", "doc-1"));
+        eventBus.publishCreated(encounter("103", "p1", "doc-2"));
+        long seen = first.events.get(0).id();
+
+        // Act
+        CapturingEmitter reconnected = subscribe("p1", null, seen);
+
+        // Assert
+        assertThat(reconnected.events).extracting(ClinicalEventDTO::resourceId).containsExactly("103");
+    }
+
+    @Test
+    void subscribe_shouldSendReset_whenMissedEventsAreNoLongerKept() {
+        // Arrange
+        eventBus = new ClinicalEventBus(1, 10, 60_000, Runnable::run);
+        CapturingEmitter first = subscribe("p1", null, null);
+        eventBus.publishCreated(encounter("101", "p1", "doc-1"));
+        eventBus.publishCreated(encounter("102", "p1", "doc-1"));
+        eventBus.publishCreated(encounter("103", "p1", "doc-1"));
+
+        // Act
+        CapturingEmitter reconnected = subscribe("p1", null, first.events.get(0).id());
+        CapturingEmitter afterRestart = subscribe("p1", null, 0L);
+
+        // Assert
+        assertThat(reconnected.names).containsExactly(ClinicalEventBus.RESET);
+        assertThat(afterRestart.names).containsExactly(ClinicalEventBus.RESET);
+    }
+
+    @Test
+    void subscribe_shouldRejectMissingFilter_andTooManySubscribers() {
+        // Arrange
+        eventBus = new ClinicalEventBus(100, 1, 60_000, Runnable::run);
+        subscribe("p1", null, null);
+
+        // Act & Assert
+        assertThatThrownBy(() -> eventBus.subscribe(" ", null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> eventBus.subscribe("p2", null, null))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void publishCreated_shouldDropSubscriber_whenSendFails() {
+        // Arrange
+        CapturingEmitter broken = subscribe("p1", null, null);
+        broken.failing = true;
+
+        // Act
+        eventBus.publishCreated(encounter("101", "p1", "doc-1"));
+
+        // Assert
+        assertThat(eventBus.subscriberCount()).isZero();
+    }
+
+    // HELPER METHODS
+
+    private CapturingEmitter subscribe(String patientId, String practitionerId, Long lastEventId) {
+        CapturingEmitter emitter = new CapturingEmitter();
+        eventBus.subscribe(patientId, practitionerId, lastEventId, emitter);
+        return emitter;
+    }
+
+    private static Encounter encounter(String id, String patientId, String practitionerId) {
+        Encounter encounter = new Encounter();
+        encounter.setId(id);
+        encounter.setSubject(new Reference("Patient/" + patientId));
+        encounter.addParticipant().setIndividual(new Reference("Practitioner/" + practitionerId));
+        encounter.setPeriod(new Period().setStart(new Date()));
+        return encounter;
+    }
+
+    /** Keeps what would have been written to the stream. */
+    private static class CapturingEmitter extends SseEmitter {
+
+        final List<String> names = new ArrayList<>();
+        final List<ClinicalEventDTO> events = new ArrayList<>();
+        boolean failing;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            for (var part : builder.build()) {
+                if (part.getData() instanceof ClinicalEventDTO event) {
+                    events.add(event);
+                } else if (part.getData() instanceof String text && text.contains("event:")) {
+                    String name = text.substring(text.indexOf("event:") + 6);
+                    names.add(name.substring(0, name.indexOf('\n')));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.journalSystem.clinical_service.service;
+
+import com.journalSystem.clinical_service.dto.CohortQueryDTO;
+import com.journalSystem.clinical_service.dto.CohortResultDTO;
+import org.hl7.fhir.r4.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CohortQueryServiceTest {
+
+    private LocalResourceStore store;
+    private CohortQueryService cohortQueryService;
+
+    @BeforeEach
+    void setUp() {
+        store = new LocalResourceStore();
+        cohortQueryService = new CohortQueryService(store, 0);
+
+        store.upsert(patient("p1"));
+        store.upsert(patient("p2"));
+        store.upsert(patient("p3"));
+        store.upsert(patient("p4"));
+
+        store.upsert(condition("c1", "p1", "http://snomed.info/sct", "44054006", "Diabetes typ 2", daysAgo(800)));
+        store.upsert(condition("c2", "p2", "http://snomed.info/sct", "44054006", "Diabetes typ 2", daysAgo(30)));
+        store.upsert(condition("c3", "p3", "http://snomed.info/sct", "404684003", "Astma", daysAgo(30)));
+
+        store.upsert(observation("o1", "p1", "8480-6", 150, daysAgo(10)));
+        store.upsert(observation("o2", "p2", "8480-6", 120, daysAgo(10)));
+        store.upsert(observation("o3", "p2", "8480-6", 160, daysAgo(500)));
+        store.upsert(observation("o4", "p4", "8480-6", 145, daysAgo(5)));
+
+        store.upsert(encounter("e1", "p3", "doc-1", daysAgo(3)));
+        store.upsert(encounter("e2", "p4", "doc-2", daysAgo(3)));
+        store.markReady();
+    }
+
+    // query() TESTS
+
+    @Test
+    void query_shouldIntersectConditionAndRecentObservationAboveThreshold() {
+        // Arrange
+        CohortQueryDTO query = and(
+                condition("snomed|44054006", null),
+                observation("loinc|8480-6", 140.0, "P1Y"));
+
+        // Act
+        CohortResultDTO result = cohortQueryService.query(query, 0, 100);
+
+        // Assert
+        assertThat(result.count()).isEqualTo(1);
+        assertThat(result.population()).isEqualTo(4);
+        assertThat(result.patientIds()).containsExactly("p1");
+    }
+
+    @Test
+    void query_shouldMatchBareCodeAndCodeText() {
+        // Act
+        CohortResultDTO byBareCode = cohortQueryService.query(condition("44054006", null), 0, 100);
+        CohortResultDTO byText = cohortQueryService.query(condition(null, "  ASTMA "), 0, 100);
+
+        // Assert
+        assertThat(byBareCode.patientIds()).containsExactly("p1", "p2");
+        assertThat(byText.patientIds()).containsExactly("p3");
+    }
+
+    @Test
+    void query_shouldSupportOrNotAndEncounterPractitioner() {
+        // Arrange
+        CohortQueryDTO seenByDoc1OrNoCondition = new CohortQueryDTO(CohortQueryDTO.OR, List.of(
+                new CohortQueryDTO(CohortQueryDTO.ENCOUNTER, null, null, null, null, null, null, null, null, "doc-1"),
+                new CohortQueryDTO(CohortQueryDTO.NOT, List.of(condition(null, null)),
+                        null, null, null, null, null, null, null, null)),
+                null, null, null, null, null, null, null, null);
+
+        // Act
+        CohortResultDTO result = cohortQueryService.query(seenByDoc1OrNoCondition, 0, 100);
+
+        // Assert
+        assertThat(result.patientIds()).containsExactly("p3", "p4");
+    }
+
+    @Test
+    void query_shouldPageMembersInIdOrder_andOnlyCountWhenSizeIsZero() {
+        // Arrange
+        CohortQueryDTO anyObservation = observation(null, null, null);
+
+        // Act
+        CohortResultDTO second = cohortQueryService.query(anyObservation, 1, 2);
+        CohortResultDTO countOnly = cohortQueryService.query(anyObservation, 0, 0);
+
+        // Assert
+        assertThat(second.count()).isEqualTo(3);
+        assertThat(second.patientIds()).containsExactly("p4");
+        assertThat(countOnly.count()).isEqualTo(3);
+        assertThat(countOnly.patientIds()).isEmpty();
+    }
+
+    @Test
+    void query_shouldSeeStoreChanges_afterRefreshInterval() {
+        // Arrange
+        CohortQueryDTO diabetes = condition("snomed|44054006", null);
+        assertThat(cohortQueryService.query(diabetes, 0, 100).count()).isEqualTo(2);
+
+        // Act
+        store.upsert(condition("c4", "p4", "http://snomed.info/sct", "44054006", "Diabetes typ 2", daysAgo(1)));
+        store.remove("Condition", "c1");
+
+        // Assert
+        assertThat(cohortQueryService.query(diabetes, 0, 100).patientIds()).containsExactly("p2", "p4");
+    }
+
+    @Test
+    void query_shouldRejectInvalidQuery_andFailUntilStoreIsReady() {
+        // Assert
+        assertThatThrownBy(() -> cohortQueryService.query(
+                new CohortQueryDTO("sometimes", null, null, null, null, null, null, null, null, null), 0, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cohortQueryService.query(
+                new CohortQueryDTO(CohortQueryDTO.CONDITION, null, null, null, 1.0, null, null, null, null, null), 0, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cohortQueryService.query(observation(null, null, "a year"), 0, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CohortQueryService(new LocalResourceStore(), 0)
+                .query(condition(null, null), 0, 10))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    // HELPER METHODS
+
+    private static CohortQueryDTO and(CohortQueryDTO... criteria) {
+        return new CohortQueryDTO(CohortQueryDTO.AND, List.of(criteria), null, null, null, null, null, null, null, null);
+    }
+
+    private static CohortQueryDTO condition(String code, String text) {
+        return new CohortQueryDTO(CohortQueryDTO.CONDITION, null, code, text, null, null, null, null, null, null);
+    }
+
+    private static CohortQueryDTO observation(String code, Double min, String within) {
+        return new CohortQueryDTO(CohortQueryDTO.OBSERVATION, null, code, null, min, null, null, null, within, null);
+    }
+
+    private static Date daysAgo(int days) {
+        return Date.from(LocalDate.now().minusDays(days).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static Patient patient(String id) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        return patient;
+    }
+
+    private static Condition condition(String id, String patientId, String system, String code, String text,
+                                       Date onset) {
+        Condition condition = new Condition();
+        condition.setId(id);
+        condition.setSubject(new Reference("Patient/" + patientId));
+        condition.getCode().addCoding().setSystem(system).setCode(code);
+        condition.getCode().setText(text);
+        condition.setOnset(new DateTimeType(onset));
+        return condition;
+    }
+
+    private static Observation observation(String id, String patientId, String code, double value, Date effective) {
+        Observation observation = new Observation();
+        observation.setId(id);
+        observation.setSubject(new Reference("Patient/" + patientId));
+        observation.getCode().addCoding().setSystem("http://loinc.org").setCode(code);
+        observation.setValue(new Quantity().setValue(value).setUnit("mm[Hg]"));
+        observation.setEffective(new DateTimeType(effective));
+        return observation;
+    }
+
+    private static Encounter encounter(String id, String patientId, String practitionerId, Date start) {
+        Encounter encounter = new Encounter();
+        encounter.setId(id);
+        encounter.setSubject(new Reference("Patient/" + patientId));
+        encounter.addParticipant().setIndividual(new Reference("Practitioner/" + practitionerId));
+        encounter.setPeriod(new Period().setStart(start));
+        return encounter;
+    }
+}
@@ -0,0 +1,139 @@
+package com.journalSystem.clinical_service.service;
+
+import com.journalSystem.clinical_service.dto.CalendarDayDTO;
+import com.journalSystem.clinical_service.dto.CalendarEntryDTO;
+import org.hl7.fhir.r4.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EncounterCalendarTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Stockholm");
+    private static final LocalDate MONDAY = LocalDate.of(2024, 3, 4);
+
+    private LocalResourceStore store;
+    private EncounterCalendar calendar;
+
+    @BeforeEach
+    void setUp() {
+        store = new LocalResourceStore();
+        store.upsert(patient("p1", "Anna", "Andersson"));
+        store.upsert(practitioner("doc-1", "Erik", "Karlsson", "198001011234"));
+        store.upsert(encounter("e1", "p1", "doc-1", MONDAY.atTime(14, 0)));
+        calendar = new EncounterCalendar(store, ZONE.getId());
+        store.markReady();
+    }
+
+    // days() TESTS
+
+    @Test
+    void days_shouldBucketByStartDay_withNamesResolved_inStartOrder() {
+        // Arrange
+        store.upsert(encounter("e2", "p1", "doc-1", MONDAY.atTime(9, 30)));
+        store.upsert(encounter("e3", "p1", "doc-1", MONDAY.plusDays(2).atTime(0, 30)));
+        store.upsert(encounter("e4", "p1", "doc-2", MONDAY.atTime(10, 0)));
+
+        // Act
+        List<CalendarDayDTO> week = calendar.days("doc-1", MONDAY, MONDAY.plusDays(6));
+
+        // Assert
+        assertThat(week).hasSize(7);
+        assertThat(week.get(0).encounters()).extracting(CalendarEntryDTO::encounterId).containsExactly("e2", "e1");
+        assertThat(week.get(0).encounters().get(0)).satisfies(entry -> {
+            assertThat(entry.patientName()).isEqualTo("Anna Andersson");
+            assertThat(entry.practitionerName()).isEqualTo("Erik Karlsson");
+            assertThat(entry.startTime()).isEqualTo(MONDAY.atTime(9, 30));
+        });
+        assertThat(week.get(1).encounters()).isEmpty();
+        assertThat(week.get(2).encounters()).extracting(CalendarEntryDTO::encounterId).containsExactly("e3");
+    }
+
+    @Test
+    void days_shouldFollowStoreChanges() {
+        // Arrange
+        Encounter moved = encounter("e1", "p1", "doc-1", MONDAY.plusDays(1).atTime(8, 0));
+        moved.getMeta().setVersionId("2");
+
+        // Act
+        store.upsert(moved);
+        store.upsert(encounter("e2", "p1", "doc-1", MONDAY.atTime(11, 0)));
+        store.remove("Encounter", "e2");
+        store.upsert(patient("p1", "Anna", "Berg"));
+        store.upsert(practitioner("doc-1", "Erik", "Lind", "198001011234"));
+
+        // Assert
+        List<CalendarDayDTO> days = calendar.days("doc-1", MONDAY, MONDAY.plusDays(1));
+        assertThat(days.get(0).encounters()).isEmpty();
+        assertThat(days.get(1).encounters()).singleElement().satisfies(entry -> {
+            assertThat(entry.encounterId()).isEqualTo("e1");
+            assertThat(entry.patientName()).isEqualTo("Anna Berg");
+            assertThat(entry.practitionerName()).isEqualTo("Erik Lind");
+        });
+    }
+
+    @Test
+    void days_shouldFindPractitionerByIdentifier() {
+        // Act & Assert
+        assertThat(calendar.days("198001011234", MONDAY, MONDAY).get(0).encounters())
+                .extracting(CalendarEntryDTO::encounterId).containsExactly("e1");
+        assertThat(calendar.days("Practitioner/doc-1", MONDAY, MONDAY).get(0).encounters()).hasSize(1);
+        assertThat(calendar.days("unknown", MONDAY, MONDAY).get(0).encounters()).isEmpty();
+    }
+
+    @Test
+    void days_shouldBeEmpty_afterStoreIsCleared() {
+        // Act
+        store.clear();
+
+        // Assert
+        assertThat(calendar.days("doc-1", MONDAY, MONDAY).get(0).encounters()).isEmpty();
+    }
+
+    @Test
+    void days_shouldFail_untilStoreIsReady() {
+        // Arrange
+        EncounterCalendar notReady = new EncounterCalendar(new LocalResourceStore(), ZONE.getId());
+
+        // Act & Assert
+        assertThatThrownBy(() -> notReady.days("doc-1", MONDAY, MONDAY))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    // HELPER METHODS
+
+    private static Patient patient(String id, String given, String family) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.addName().addGiven(given).setFamily(family);
+        return patient;
+    }
+
+    private static Practitioner practitioner(String id, String given, String family, String identifier) {
+        Practitioner practitioner = new Practitioner();
+        practitioner.setId(id);
+        practitioner.addName().addGiven(given).setFamily(family);
+        practitioner.addIdentifier().setValue(identifier);
+        return practitioner;
+    }
+
+    private static Encounter encounter(String id, String patientId, String practitionerId, LocalDateTime start) {
+        Encounter encounter = new Encounter();
+        encounter.setId(id);
+        encounter.setStatus(Encounter.EncounterStatus.FINISHED);
+        encounter.setSubject(new Reference("Patient/" + patientId));
+        encounter.addParticipant().setIndividual(new Reference("Practitioner/" + practitionerId));
+        encounter.setPeriod(new Period()
+                .setStart(Date.from(start.atZone(ZONE).toInstant()))
+                .setEnd(Date.from(start.plusMinutes(30).atZone(ZONE).toInstant())));
+        return encounter;
+    }
+}
@@ -0,0 +1,205 @@
+package com.journalSystem.clinical_service.service;
+
+import ca.uhn.fhir.context.FhirContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class FhirBulkExportServiceTest {
+
+    private static final FhirContext CONTEXT = FhirContext.forR4();
+    private static final String PATIENTS = """
+            {"resourceType":"Patient","id":"p1","name":[{"family":"Andersson"}]}
+            {"resourceType":"Patient","id":"p2","name":[{"family":"Berg"}]}
+            """;
+    private static final String OBSERVATIONS = """
+            {"resourceType":"Observation","id":"o1","status":"final","code":{"text":"Puls"},"subject":{"reference":"Patient/p1"}}
+            """;
+
+    @Mock
+    private HapiClientService hapiClientService;
+
+    @TempDir
+    Path dataDir;
+
+    private HttpServer server;
+    private String baseUrl;
+    private FhirBulkExportService bulkExport;
+    private LocalResourceStore store;
+
+    private final AtomicInteger kickOffs = new AtomicInteger();
+    private final AtomicInteger statusPolls = new AtomicInteger();
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private volatile boolean exportSupported = true;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        lenient().when(hapiClientService.getContext()).thenReturn(CONTEXT);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        baseUrl = "http://localhost:" + server.getAddress().getPort() + "/fhir";
+        server.createContext("/fhir/$export", this::kickOff);
+        server.createContext("/fhir/export-status/1", this::status);
+        server.createContext("/files/", this::file);
+        server.start();
+
+        store = new LocalResourceStore();
+        bulkExport = new FhirBulkExportService(hapiClientService, new ObjectMapper(), baseUrl, true,
+                dataDir.toString(), 2, 0, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        bulkExport.shutdown();
+    }
+
+    // exportInto() TESTS
+
+    @Test
+    void exportInto_shouldKickOffPollDownloadAndLoad() throws Exception {
+        // Act
+        FhirBulkExportService.Result result = bulkExport.exportInto(store);
+
+        // Assert
+        assertThat(result.resources()).isEqualTo(3);
+        assertThat(result.transactionTime()).isEqualTo(Instant.parse("2024-03-01T11:00:00Z"));
+        assertThat(store.get(Patient.class, "p2")).isPresent();
+        assertThat(store.getForPatient(Observation.class, "p1")).hasSize(1);
+        assertThat(kickOffs).hasValue(1);
+        assertThat(statusPolls.get()).isGreaterThanOrEqualTo(2);
+        assertThat(Files.list(dataDir)).isEmpty();
+    }
+
+    @Test
+    void exportInto_shouldResumeSavedExport_andPartialDownload() throws Exception {
+        // Arrange
+        Files.writeString(dataDir.resolve(FhirBulkExportService.JOB_FILE),
+                "statusUrl=" + baseUrl.replace(":", "\\:") + "/export-status/1\n");
+        Files.writeString(dataDir.resolve("0.Patient.ndjson.part"), PATIENTS.substring(0, 30));
+
+        // Act
+        FhirBulkExportService.Result result = bulkExport.exportInto(store);
+
+        // Assert
+        assertThat(kickOffs).hasValue(0);
+        assertThat(ranges).containsExactly("bytes=30-");
+        assertThat(result.resources()).isEqualTo(3);
+        assertThat(store.get(Patient.class, "p1")).get()
+                .extracting(patient -> patient.getNameFirstRep().getFamily())
+                .isEqualTo("Andersson");
+    }
+
+    @Test
+    void exportInto_shouldFail_whenServerDoesNotSupportExport() {
+        // Arrange
+        exportSupported = false;
+
+        // Act & Assert
+        assertThatThrownBy(() -> bulkExport.exportInto(store))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("$export");
+        assertThat(store.size()).isZero();
+    }
+
+    // download() TESTS
+
+    @Test
+    void download_shouldStartOver_whenServerIgnoresRange() throws Exception {
+        // Arrange
+        Path file = dataDir.resolve("whole.ndjson");
+        Files.writeString(dataDir.resolve("whole.ndjson.part"), "garbage");
+
+        // Act
+        bulkExport.download(URI.create("http://localhost:" + server.getAddress().getPort() + "/files/whole"), file);
+
+        // Assert
+        assertThat(Files.readString(file)).isEqualTo(PATIENTS);
+        assertThat(Files.exists(dataDir.resolve("whole.ndjson.part"))).isFalse();
+    }
+
+    // HELPER METHODS
+
+    private void kickOff(HttpExchange exchange) throws IOException {
+        if (!exportSupported) {
+            respond(exchange, 404, "{\"resourceType\":\"OperationOutcome\"}");
+            return;
+        }
+        kickOffs.incrementAndGet();
+        assertThat(exchange.getRequestHeaders().getFirst("Prefer")).isEqualTo("respond-async");
+        exchange.getResponseHeaders().add("Content-Location", baseUrl + "/export-status/1");
+        respond(exchange, 202, "");
+    }
+
+    private void status(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestMethod().equals("DELETE")) {
+            respond(exchange, 202, "");
+            return;
+        }
+        if (statusPolls.incrementAndGet() == 1) {
+            exchange.getResponseHeaders().add("Retry-After", "0");
+            exchange.getResponseHeaders().add("X-Progress", "in progress");
+            respond(exchange, 202, "");
+            return;
+        }
+        String files = "http://localhost:" + server.getAddress().getPort() + "/files/";
+        respond(exchange, 200, """
+                {"transactionTime":"2024-03-01T12:00:00+01:00","request":"%s/$export","requiresAccessToken":false,
+                 "output":[{"type":"Patient","url":"%spatients"},{"type":"Observation","url":"%sobservations"},
+                           {"type":"Device","url":"%sdevices"}],
+                 "error":[]}
+                """.formatted(baseUrl, files, files, files));
+    }
+
+    private void file(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String body = path.endsWith("observations") ? OBSERVATIONS : PATIENTS;
+        if (path.endsWith("whole")) {
+            respond(exchange, 200, body);
+            return;
+        }
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null) {
+            ranges.add(range);
+            int from = Integer.parseInt(range.replaceAll("[^0-9]", ""));
+            exchange.getResponseHeaders().add("Content-Range",
+                    "bytes " + from + "-" + (body.length() - 1) + "/" + body.length());
+            respond(exchange, 206, body.substring(from));
+            return;
+        }
+        respond(exchange, 200, body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
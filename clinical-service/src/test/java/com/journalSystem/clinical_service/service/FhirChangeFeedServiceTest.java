@@ -0,0 +1,292 @@
+package com.journalSystem.clinical_service.service;
+
+import ca.uhn.fhir.context.FhirContext;
+import org.hl7.fhir.r4.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FhirChangeFeedServiceTest {
+
+    private static final FhirContext CONTEXT = FhirContext.forR4();
+
+    @Mock
+    private HapiClientService hapiClientService;
+
+    @Mock
+    private FhirBulkExportService bulkExport;
+
+    @TempDir
+    Path dataDir;
+
+    private LocalResourceStore store;
+    private FhirChangeFeedService changeFeed;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(hapiClientService.getContext()).thenReturn(CONTEXT);
+        store = new LocalResourceStore();
+        changeFeed = newChangeFeed(store);
+    }
+
+    // applyHistory() TESTS
+
+    @Test
+    void applyHistory_shouldApplyNewestVersion_whenHistoryContainsSeveralVersions() {
+        // Arrange
+        Instant t1 = Instant.parse("2024-03-01T10:00:00Z");
+        Instant t2 = Instant.parse("2024-03-01T10:05:00Z");
+        // _history lists newest first
+        List<Bundle.BundleEntryComponent> entries = List.of(
+                versionEntry(patient("p1", "2", t2, "Andersson")),
+                versionEntry(patient("p1", "1", t1, "Svensson"))
+        );
+
+        // Act
+        int changed = changeFeed.applyHistory(entries);
+
+        // Assert
+        assertThat(changed).isEqualTo(1);
+        assertThat(store.get(Patient.class, "p1")).get()
+                .extracting(p -> p.getNameFirstRep().getFamily())
+                .isEqualTo("Andersson");
+        assertThat(changeFeed.getHighWaterMark()).isEqualTo(t2);
+    }
+
+    @Test
+    void applyHistory_shouldRemoveResource_whenNewestVersionIsDelete() {
+        // Arrange
+        Instant t1 = Instant.parse("2024-03-01T10:00:00Z");
+        Instant t2 = Instant.parse("2024-03-01T10:05:00Z");
+        store.upsert(encounter("e1", "1", t1, "Patient/p1"));
+
+        List<Bundle.BundleEntryComponent> entries = List.of(
+                deleteEntry("Encounter/e1/_history/2", t2)
+        );
+
+        // Act
+        int changed = changeFeed.applyHistory(entries);
+
+        // Assert
+        assertThat(changed).isEqualTo(1);
+        assertThat(store.get(Encounter.class, "e1")).isEmpty();
+        assertThat(store.getForPatient(Encounter.class, "p1")).isEmpty();
+        assertThat(changeFeed.getHighWaterMark()).isEqualTo(t2);
+    }
+
+    @Test
+    void applyHistory_shouldNotCountChange_whenVersionIsAlreadyStored() {
+        // Arrange
+        Instant t1 = Instant.parse("2024-03-01T10:00:00Z");
+        store.upsert(patient("p1", "1", t1, "Andersson"));
+
+        // Act - the overlap window re-reads versions that were already applied
+        int changed = changeFeed.applyHistory(List.of(versionEntry(patient("p1", "1", t1, "Andersson"))));
+
+        // Assert
+        assertThat(changed).isZero();
+    }
+
+    @Test
+    void applyHistory_shouldMovePatientIndex_whenSubjectChanges() {
+        // Arrange
+        Instant t1 = Instant.parse("2024-03-01T10:00:00Z");
+        Instant t2 = Instant.parse("2024-03-01T10:05:00Z");
+        store.upsert(condition("c1", "1", t1, "Patient/p1"));
+
+        // Act
+        changeFeed.applyHistory(List.of(versionEntry(condition("c1", "2", t2, "Patient/p2"))));
+
+        // Assert
+        assertThat(store.getForPatient(Condition.class, "p1")).isEmpty();
+        assertThat(store.getForPatient(Condition.class, "p2")).hasSize(1);
+    }
+
+    @Test
+    void applyHistory_shouldIgnoreUnsupportedResourceTypes() {
+        // Arrange
+        Organization organization = new Organization();
+        organization.setId("Organization/o1/_history/1");
+        organization.getMeta().setLastUpdated(new Date());
+
+        // Act
+        int changed = changeFeed.applyHistory(List.of(versionEntry(organization)));
+
+        // Assert
+        assertThat(changed).isZero();
+        assertThat(store.size()).isZero();
+    }
+
+    // SNAPSHOT TESTS
+
+    @Test
+    void saveSnapshot_shouldRestoreStoreAndHighWaterMark_whenLoadedByNewInstance() throws Exception {
+        // Arrange
+        Instant t1 = Instant.parse("2024-03-01T10:00:00Z");
+        changeFeed.applyHistory(List.of(
+                versionEntry(patient("p1", "1", t1, "Andersson")),
+                versionEntry(observation("o1", "3", t1, "Patient/p1"))
+        ));
+        changeFeed.saveSnapshot();
+
+        LocalResourceStore restoredStore = new LocalResourceStore();
+        FhirChangeFeedService restored = newChangeFeed(restoredStore);
+
+        // Act
+        restored.loadSnapshot();
+
+        // Assert
+        assertThat(restored.getHighWaterMark()).isEqualTo(t1);
+        assertThat(restoredStore.size()).isEqualTo(2);
+        assertThat(restoredStore.getForPatient(Observation.class, "p1")).hasSize(1);
+        assertThat(restoredStore.get(Patient.class, "p1")).get()
+                .extracting(p -> p.getNameFirstRep().getFamily())
+                .isEqualTo("Andersson");
+    }
+
+    @Test
+    void saveSnapshotIfDue_shouldWriteFirstSnapshot_thenWaitForTheInterval() throws Exception {
+        // Arrange
+        changeFeed = newChangeFeed(store, 3_600_000);
+        Instant t1 = Instant.parse("2024-03-01T10:00:00Z");
+        Instant t2 = Instant.parse("2024-03-01T10:05:00Z");
+        changeFeed.applyHistory(List.of(versionEntry(patient("p1", "1", t1, "Andersson"))));
+        changeFeed.saveSnapshotIfDue(1);
+        String first = Files.readString(dataDir.resolve(FhirChangeFeedService.SNAPSHOT_FILE));
+
+        // Act
+        int changes = changeFeed.applyHistory(List.of(versionEntry(patient("p2", "1", t2, "Berg"))));
+        changeFeed.saveSnapshotIfDue(changes);
+
+        // Assert
+        assertThat(first).contains("Andersson");
+        assertThat(Files.readString(dataDir.resolve(FhirChangeFeedService.SNAPSHOT_FILE))).isEqualTo(first);
+    }
+
+    @Test
+    void loadSnapshot_shouldStartFromScratch_whenSnapshotDoesNotMatchState() throws Exception {
+        // Arrange
+        Instant t1 = Instant.parse("2024-03-01T10:00:00Z");
+        changeFeed.applyHistory(List.of(versionEntry(patient("p1", "1", t1, "Andersson"))));
+        changeFeed.saveSnapshot();
+        Files.writeString(dataDir.resolve(FhirChangeFeedService.SNAPSHOT_FILE), "");
+
+        LocalResourceStore restoredStore = new LocalResourceStore();
+        FhirChangeFeedService restored = newChangeFeed(restoredStore);
+
+        // Act
+        restored.loadSnapshot();
+
+        // Assert
+        assertThat(restored.getHighWaterMark()).isNull();
+        assertThat(restoredStore.size()).isZero();
+    }
+
+    @Test
+    void loadSnapshot_shouldDoNothing_whenNoSnapshotExists() throws Exception {
+        // Act
+        changeFeed.loadSnapshot();
+
+        // Assert
+        assertThat(changeFeed.getHighWaterMark()).isNull();
+        assertThat(store.size()).isZero();
+    }
+
+    // fullSync() TESTS
+
+    @Test
+    void fullSync_shouldLoadFromBulkExport_andContinueFromItsTransactionTime() throws Exception {
+        // Arrange
+        Instant transactionTime = Instant.parse("2024-03-01T12:00:00Z");
+        store.upsert(patient("stale", "1", transactionTime, "Gammal"));
+        when(bulkExport.isEnabled()).thenReturn(true);
+        when(bulkExport.exportInto(store)).thenAnswer(invocation -> {
+            store.upsert(patient("p1", "1", transactionTime, "Andersson"));
+            return new FhirBulkExportService.Result(transactionTime, 1);
+        });
+
+        // Act
+        int count = changeFeed.fullSync();
+
+        // Assert
+        assertThat(count).isEqualTo(1);
+        assertThat(store.get(Patient.class, "stale")).isEmpty();
+        assertThat(store.get(Patient.class, "p1")).isPresent();
+        assertThat(changeFeed.getHighWaterMark()).isEqualTo(transactionTime);
+        verify(hapiClientService, never()).getClient();
+    }
+
+    // HELPER METHODS
+
+    private FhirChangeFeedService newChangeFeed(LocalResourceStore store) {
+        return newChangeFeed(store, 0);
+    }
+
+    private FhirChangeFeedService newChangeFeed(LocalResourceStore store, long snapshotIntervalMs) {
+        return new FhirChangeFeedService(hapiClientService, store, bulkExport, true, dataDir.toString(), 100, 5,
+                snapshotIntervalMs);
+    }
+
+    private Patient patient(String id, String version, Instant lastUpdated, String family) {
+        Patient patient = new Patient();
+        patient.setId(new IdType("Patient", id, version));
+        patient.getMeta().setVersionId(version).setLastUpdated(Date.from(lastUpdated));
+        patient.addName().setFamily(family).addGiven("Anna");
+        return patient;
+    }
+
+    private Encounter encounter(String id, String version, Instant lastUpdated, String subject) {
+        Encounter encounter = new Encounter();
+        encounter.setId(new IdType("Encounter", id, version));
+        encounter.getMeta().setVersionId(version).setLastUpdated(Date.from(lastUpdated));
+        encounter.setSubject(new Reference(subject));
+        return encounter;
+    }
+
+    private Condition condition(String id, String version, Instant lastUpdated, String subject) {
+        Condition condition = new Condition();
+        condition.setId(new IdType("Condition", id, version));
+        condition.getMeta().setVersionId(version).setLastUpdated(Date.from(lastUpdated));
+        condition.setSubject(new Reference(subject));
+        return condition;
+    }
+
+    private Observation observation(String id, String version, Instant lastUpdated, String subject) {
+        Observation observation = new Observation();
+        observation.setId(new IdType("Observation", id, version));
+        observation.getMeta().setVersionId(version).setLastUpdated(Date.from(lastUpdated));
+        observation.setSubject(new Reference(subject));
+        observation.getCode().setText("Pulse");
+        return observation;
+    }
+
+    private Bundle.BundleEntryComponent versionEntry(Resource resource) {
+        Bundle.BundleEntryComponent entry = new Bundle.BundleEntryComponent();
+        entry.setResource(resource);
+        entry.getRequest().setMethod(Bundle.HTTPVerb.PUT).setUrl(resource.fhirType() + "/" + resource.getIdElement().getIdPart());
+        return entry;
+    }
+
+    private Bundle.BundleEntryComponent deleteEntry(String url, Instant at) {
+        Bundle.BundleEntryComponent entry = new Bundle.BundleEntryComponent();
+        entry.getRequest().setMethod(Bundle.HTTPVerb.DELETE).setUrl(url);
+        entry.getResponse().setLastModified(Date.from(at));
+        return entry;
+    }
+}
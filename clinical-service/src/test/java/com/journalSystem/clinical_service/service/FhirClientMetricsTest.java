@@ -0,0 +1,198 @@
+package com.journalSystem.clinical_service.service;
+
+import ca.uhn.fhir.rest.client.api.IHttpRequest;
+import ca.uhn.fhir.rest.client.api.IHttpResponse;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FhirClientMetricsTest {
+
+    @Mock
+    private ObjectProvider<Tracer> tracer;
+
+    @Mock
+    private ObjectProvider<Propagator> propagator;
+
+    @Mock
+    private IHttpRequest request;
+
+    @Mock
+    private IHttpResponse response;
+
+    private SimpleMeterRegistry meterRegistry;
+    private FhirClientMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new FhirClientMetrics("https://fhir.example.org/fhir", meterRegistry, tracer, propagator);
+    }
+
+    // interceptResponse() TESTS
+
+    @Test
+    void interceptResponse_shouldRecordLatencyBytesAndEntries_forSearch() throws Exception {
+        // Arrange
+        byte[] body = """
+                {"resourceType":"Bundle","total":2,"entry":[
+                  {"resource":{"resourceType":"Encounter","id":"1","participant":[{"individual":{}}]}},
+                  {"resource":{"resourceType":"Encounter","id":"2"}}
+                ]}""".getBytes(StandardCharsets.UTF_8);
+        when(request.getUri()).thenReturn("https://fhir.example.org/fhir/Encounter?patient=123");
+        when(request.getHttpVerbName()).thenReturn("GET");
+        HttpResponse http = respondWith(body);
+
+        // Act
+        metrics.interceptRequest(request);
+        metrics.interceptResponse(response);
+        boolean recordedBeforeBodyWasRead = meterRegistry.find("fhir.client.requests").timer() != null;
+        readBody(http);
+
+        // Assert
+        Timer timer = meterRegistry.find("fhir.client.requests")
+                .tags("resource", "Encounter", "operation", "search", "status", "200")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(meterRegistry.get("fhir.client.bundle.entries").summary().totalAmount()).isEqualTo(2);
+        assertThat(meterRegistry.get("fhir.client.response.bytes").summary().totalAmount()).isEqualTo(body.length);
+        assertThat(recordedBeforeBodyWasRead).isFalse();
+        verify(response, never()).bufferEntity();
+    }
+
+    @Test
+    void interceptResponse_shouldNotCountEntries_forSingleResourceRead() throws Exception {
+        // Arrange
+        byte[] body = "{\"resourceType\":\"Patient\",\"id\":\"123\"}".getBytes(StandardCharsets.UTF_8);
+        when(request.getUri()).thenReturn("https://fhir.example.org/fhir/Patient/123");
+        when(request.getHttpVerbName()).thenReturn("GET");
+        HttpResponse http = respondWith(body);
+
+        // Act
+        metrics.interceptRequest(request);
+        metrics.interceptResponse(response);
+        readBody(http);
+
+        // Assert
+        assertThat(meterRegistry.find("fhir.client.requests")
+                .tags("resource", "Patient", "operation", "read").timer()).isNotNull();
+        assertThat(meterRegistry.find("fhir.client.bundle.entries").summary()).isNull();
+    }
+
+    @Test
+    void interceptResponse_shouldRecordIoError_whenReadingTheBodyFails() throws Exception {
+        // Arrange
+        when(request.getUri()).thenReturn("https://fhir.example.org/fhir/Observation?patient=123");
+        when(request.getHttpVerbName()).thenReturn("GET");
+        HttpResponse http = respondWith(new byte[0]);
+        http.setEntity(new InputStreamEntity(new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new SocketTimeoutException("Read timed out");
+            }
+        }));
+
+        // Act
+        metrics.interceptRequest(request);
+        metrics.interceptResponse(response);
+
+        // Assert
+        assertThatThrownBy(() -> readBody(http)).isInstanceOf(SocketTimeoutException.class);
+        assertThat(meterRegistry.find("fhir.client.requests")
+                .tags("resource", "Observation", "operation", "search", "status", FhirClientMetrics.IO_ERROR)
+                .timer().count()).isEqualTo(1);
+    }
+
+    // meter() TESTS
+
+    @Test
+    void meter_shouldRecordCallThatFailsBeforeAResponse_andForgetIt() throws Exception {
+        // Arrange
+        when(request.getUri()).thenReturn("https://fhir.example.org/fhir/Patient/123");
+        when(request.getHttpVerbName()).thenReturn("GET");
+        CloseableHttpClient delegate = mock(CloseableHttpClient.class);
+        when(delegate.execute(any(HttpHost.class), any(org.apache.http.HttpRequest.class), isNull(HttpContext.class)))
+                .thenThrow(new ConnectTimeoutException("Connect timed out"));
+        CloseableHttpClient metered = metrics.meter(delegate);
+
+        // Act
+        metrics.interceptRequest(request);
+        assertThatThrownBy(() -> metered.execute(new HttpGet("https://fhir.example.org/fhir/Patient/123")))
+                .isInstanceOf(ConnectTimeoutException.class);
+        metrics.interceptResponse(response);
+
+        // Assert
+        assertThat(meterRegistry.get("fhir.client.requests").timers()).singleElement().satisfies(timer -> {
+            assertThat(timer.getId().getTag("status")).isEqualTo(FhirClientMetrics.IO_ERROR);
+            assertThat(timer.count()).isEqualTo(1);
+        });
+    }
+
+    // operation() TESTS
+
+    @Test
+    void operation_shouldClassifyFhirInteractions() {
+        // Assert
+        assertThat(operation("GET", "/fhir/Patient/123")).isEqualTo("read");
+        assertThat(operation("GET", "/fhir/Patient/123/_history/2")).isEqualTo("vread");
+        assertThat(operation("GET", "/fhir/Patient/_history")).isEqualTo("history");
+        assertThat(operation("GET", "/fhir/Observation")).isEqualTo("search");
+        assertThat(operation("POST", "/fhir/Observation")).isEqualTo("create");
+        assertThat(operation("POST", "/fhir")).isEqualTo("transaction");
+        assertThat(operation("PUT", "/fhir/Encounter/1")).isEqualTo("update");
+        assertThat(FhirClientMetrics.operation("GET", new String[0], "_getpages=abc&_getpagesoffset=20"))
+                .isEqualTo("page");
+    }
+
+    // HELPER METHODS
+
+    private HttpResponse respondWith(byte[] body) {
+        HttpResponse http = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        http.setEntity(new ByteArrayEntity(body));
+        when(response.getResponse()).thenReturn(http);
+        when(response.getMimeType()).thenReturn("application/fhir+json");
+        when(response.getStatus()).thenReturn(200);
+        return http;
+    }
+
+    // Reads and closes the body the way HAPI does when it parses the response
+    private static void readBody(HttpResponse http) throws IOException {
+        try (InputStream body = http.getEntity().getContent()) {
+            body.readAllBytes();
+        }
+    }
+
+    private String operation(String verb, String path) {
+        return FhirClientMetrics.operation(verb, FhirClientMetrics.relativePath("/fhir", path), null);
+    }
+}
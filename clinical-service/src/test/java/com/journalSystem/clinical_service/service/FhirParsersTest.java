@@ -0,0 +1,58 @@
+package com.journalSystem.clinical_service.service;
+
+import ca.uhn.fhir.context.FhirContext;
+import org.hl7.fhir.r4.model.Encounter;
+import org.hl7.fhir.r4.model.Narrative;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FhirParsersTest {
+
+    private static final FhirContext FHIR_CONTEXT = FhirContext.forR4();
+
+    private final FhirParsers parsers = new FhirParsers(FHIR_CONTEXT);
+
+    // decodeBundle() TESTS
+
+    @Test
+    void decodeBundle_shouldMapEntriesOfTheType_andKeepResourceIds() {
+        // Arrange
+        byte[] body = """
+                {"resourceType":"Bundle","type":"searchset","entry":[
+                  {"fullUrl":"https://other.example.org/fhir/Encounter/x","resource":{"resourceType":"Encounter","id":"e1","unknownElement":true}},
+                  {"resource":{"resourceType":"Encounter","id":"e2"}},
+                  {"resource":{"resourceType":"OperationOutcome"}}
+                ]}""".getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        List<String> ids = parsers.decodeBundle(new ByteArrayInputStream(body), Encounter.class,
+                encounter -> encounter.getIdElement().getIdPart());
+
+        // Assert
+        assertThat(ids).containsExactly("e1", "e2");
+    }
+
+    // json() TESTS
+
+    @Test
+    void json_shouldReuseParserPerThread_andLeaveOutNarrativeWhenEncoding() {
+        // Arrange
+        Patient patient = new Patient();
+        patient.setId("123");
+        patient.getText().setStatus(Narrative.NarrativeStatus.GENERATED).setDivAsString("<div>Anna</div>");
+        patient.addName().setFamily("Andersson");
+
+        // Act
+        String encoded = parsers.json().encodeResourceToString(patient);
+
+        // Assert
+        assertThat(parsers.json()).isSameAs(parsers.json());
+        assertThat(encoded).contains("Andersson").doesNotContain("div");
+    }
+}
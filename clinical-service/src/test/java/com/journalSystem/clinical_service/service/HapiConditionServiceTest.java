@@ -24,6 +24,12 @@ class HapiConditionServiceTest {
     @Mock
     private HapiClientService hapiClientService;
 
+    @Mock
+    private AsyncFhirClient asyncFhirClient;
+
+    @Mock
+    private ClinicalEventBus clinicalEventBus;
+
     private HapiConditionService hapiConditionService;
 
     private Condition testCondition;
@@ -31,7 +37,8 @@ class HapiConditionServiceTest {
 
     @BeforeEach
     void setUp() {
-        hapiConditionService = new HapiConditionService(hapiClientService);
+        hapiConditionService = new HapiConditionService(hapiClientService, new LocalResourceStore(), asyncFhirClient,
+                clinicalEventBus);
 
         recordedDate = new Date();
 
@@ -622,6 +629,34 @@ class HapiConditionServiceTest {
         assertThat(result.get(1).hasClinicalStatus()).isFalse();
     }
 
+    // coding() TESTS
+
+    @Test
+    void coding_shouldUseGivenCode_andExpandSystemAliases() {
+        // Act
+        Coding icd = HapiConditionService.coding(" icd10 | E11 ", "Diabetes Type 2");
+        Coding snomed = HapiConditionService.coding("44054006", "Diabetes Type 2");
+
+        // Assert
+        assertThat(icd.getSystem()).isEqualTo("http://hl7.org/fhir/sid/icd-10");
+        assertThat(icd.getCode()).isEqualTo("E11");
+        assertThat(icd.getDisplay()).isEqualTo("Diabetes Type 2");
+        assertThat(snomed.getSystem()).isEqualTo("http://snomed.info/sct");
+        assertThat(snomed.getCode()).isEqualTo("44054006");
+    }
+
+    @Test
+    void coding_shouldFallBackToClinicalFinding_whenNoCodeGiven() {
+        // Act
+        Coding coding = HapiConditionService.coding(null, "Self-reported condition");
+
+        // Assert
+        assertThat(coding.getSystem()).isEqualTo("http://snomed.info/sct");
+        assertThat(coding.getCode()).isEqualTo("404684003");
+        assertThatThrownBy(() -> HapiConditionService.coding("snomed|", "x"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     // HELPER METHODS
 
     private Condition createTestCondition(String id, String patientRef, String practitionerRef,
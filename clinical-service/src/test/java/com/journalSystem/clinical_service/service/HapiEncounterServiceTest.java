@@ -24,6 +24,12 @@ class HapiEncounterServiceTest {
     @Mock
     private HapiClientService hapiClientService;
 
+    @Mock
+    private AsyncFhirClient asyncFhirClient;
+
+    @Mock
+    private ClinicalEventBus clinicalEventBus;
+
     private HapiEncounterService hapiEncounterService;
 
     private Encounter testEncounter;
@@ -32,7 +38,8 @@ class HapiEncounterServiceTest {
 
     @BeforeEach
     void setUp() {
-        hapiEncounterService = new HapiEncounterService(hapiClientService);
+        hapiEncounterService = new HapiEncounterService(hapiClientService, new LocalResourceStore(), asyncFhirClient,
+                clinicalEventBus);
 
         Calendar cal = Calendar.getInstance();
         startTime = cal.getTime();
@@ -582,6 +589,27 @@ class HapiEncounterServiceTest {
         assertThat(result.getPeriod().getStart()).isEqualTo(result.getPeriod().getEnd());
     }
 
+    // LOCAL STORE TESTS
+
+    @Test
+    void getEncountersForPatient_shouldServeFromLocalStore_whenStoreIsReady() {
+        // Arrange
+        LocalResourceStore store = new LocalResourceStore();
+        store.upsert(createTestEncounter("enc-1", "Patient/12345", "Practitioner/999", new Date(), null));
+        store.upsert(createTestEncounter("enc-2", "Patient/12345", null, new Date(), null));
+        store.upsert(createTestEncounter("enc-3", "Patient/67890", null, new Date(), null));
+        store.markReady();
+        HapiEncounterService service = new HapiEncounterService(hapiClientService, store, asyncFhirClient, clinicalEventBus);
+
+        // Act
+        List<Encounter> result = service.getEncountersForPatient("12345");
+
+        // Assert
+        assertThat(result).extracting(e -> e.getIdElement().getIdPart())
+                .containsExactlyInAnyOrder("enc-1", "enc-2");
+        verifyNoInteractions(hapiClientService);
+    }
+
     // HELPER METHODS
 
     private Encounter createTestEncounter(String id, String patientRef, String practitionerRef,
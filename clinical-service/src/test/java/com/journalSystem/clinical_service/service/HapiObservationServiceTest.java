@@ -3,6 +3,7 @@ package com.journalSystem.clinical_service.service;
 import ca.uhn.fhir.rest.api.MethodOutcome;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import com.journalSystem.clinical_service.dto.ObservationSeriesDTO;
 import org.hl7.fhir.r4.model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,6 +26,12 @@ class HapiObservationServiceTest {
     @Mock
     private HapiClientService hapiClientService;
 
+    @Mock
+    private AsyncFhirClient asyncFhirClient;
+
+    @Mock
+    private ClinicalEventBus clinicalEventBus;
+
     @Mock
     private IGenericClient genericClient;
 
@@ -34,7 +41,8 @@ class HapiObservationServiceTest {
 
     @BeforeEach
     void setUp() {
-        hapiObservationService = new HapiObservationService(hapiClientService);
+        hapiObservationService = new HapiObservationService(hapiClientService, new LocalResourceStore(), asyncFhirClient,
+                clinicalEventBus);
 
         testObservation = createTestObservation("12345", "Patient/98765", "Practitioner/11111",
                 "Blood Pressure", "120", "mmHg", new Date());
@@ -500,6 +508,68 @@ class HapiObservationServiceTest {
         assertThat(result.getValueQuantity().getUnit()).isEqualTo("{score}");
     }
 
+    // getObservationSeries() TESTS
+
+    @Test
+    void getObservationSeries_shouldReturnSortedNumericValues() {
+        // Arrange
+        List<Observation> observations = List.of(
+                createTestObservation("2", "Patient/1", null, "Temp", "37.5", "Cel", new Date(2_000_000L)),
+                createTestObservation("1", "Patient/1", null, "Temp", "36.6", "Cel", new Date(1_000_000L)),
+                createTestObservation("3", "Patient/1", null, "Temp", "feverish", null, new Date(3_000_000L))
+        );
+        HapiObservationService spyService = spy(hapiObservationService);
+        doReturn(observations).when(spyService).getObservationsByCode("1", "8310-5", null, null);
+
+        // Act
+        ObservationSeriesDTO result = spyService.getObservationSeries(
+                "1", "8310-5", null, null, 500, ObservationDownsampler.Mode.NONE);
+
+        // Assert
+        assertThat(result.sourcePoints()).isEqualTo(2);
+        assertThat(result.unit()).isEqualTo("Cel");
+        assertThat(result.timestamps()).containsExactly(1_000_000L, 2_000_000L);
+        assertThat(result.values()).containsExactly(36.6, 37.5);
+        assertThat(result.downsampling()).isEqualTo("none");
+    }
+
+    @Test
+    void getObservationSeries_shouldDownsample_whenMorePointsThanRequested() {
+        // Arrange
+        List<Observation> observations = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            observations.add(createTestObservation(String.valueOf(i), "Patient/1", null, "Pulse",
+                    String.valueOf(60 + i % 30), "/min", new Date(i * 60_000L)));
+        }
+        HapiObservationService spyService = spy(hapiObservationService);
+        doReturn(observations).when(spyService).getObservationsByCode("1", "8867-4", "2024-01-01", null);
+
+        // Act
+        ObservationSeriesDTO result = spyService.getObservationSeries(
+                "1", "8867-4", "2024-01-01", null, 100, ObservationDownsampler.Mode.LTTB);
+
+        // Assert
+        assertThat(result.sourcePoints()).isEqualTo(1_000);
+        assertThat(result.timestamps()).hasSize(100);
+        assertThat(result.values()).hasSize(100);
+    }
+
+    @Test
+    void getObservationSeries_shouldReturnEmptySeries_whenNoObservations() {
+        // Arrange
+        HapiObservationService spyService = spy(hapiObservationService);
+        doReturn(List.of()).when(spyService).getObservationsByCode("1", "8867-4", null, null);
+
+        // Act
+        ObservationSeriesDTO result = spyService.getObservationSeries(
+                "1", "8867-4", null, null, 100, ObservationDownsampler.Mode.AVG);
+
+        // Assert
+        assertThat(result.sourcePoints()).isZero();
+        assertThat(result.unit()).isNull();
+        assertThat(result.timestamps()).isEmpty();
+    }
+
     // HELPER METHODS
 
     private Observation createTestObservation(String id, String patientRef, String performerRef,
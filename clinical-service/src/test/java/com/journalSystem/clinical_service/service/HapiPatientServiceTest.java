@@ -26,13 +26,16 @@ class HapiPatientServiceTest {
     @Mock
     private HapiClientService hapiClientService;
 
+    @Mock
+    private AsyncFhirClient asyncFhirClient;
+
     private HapiPatientService hapiPatientService;
 
     private Patient testPatient;
 
     @BeforeEach
     void setUp() {
-        hapiPatientService = new HapiPatientService(hapiClientService);
+        hapiPatientService = new HapiPatientService(hapiClientService, new LocalResourceStore(), asyncFhirClient);
 
         // Skapa en komplett testpatient
         testPatient = createTestPatient("12345", "Anna", "Andersson", "197001011234");
@@ -450,6 +453,46 @@ class HapiPatientServiceTest {
         assertThat(result.get(2).getName()).isEmpty();
     }
 
+    // LOCAL STORE TESTS
+
+    @Test
+    void getPatientById_shouldServeFromLocalStore_whenStoreIsReady() {
+        // Arrange
+        LocalResourceStore store = new LocalResourceStore();
+        store.upsert(testPatient);
+        store.markReady();
+        HapiPatientService service = new HapiPatientService(hapiClientService, store, asyncFhirClient);
+
+        // Act
+        Optional<Patient> result = service.getPatientById("12345");
+
+        // Assert
+        assertThat(result).hasValueSatisfying(patient -> {
+            assertThat(patient).isNotSameAs(testPatient);
+            assertThat(patient.getIdElement().getIdPart()).isEqualTo("12345");
+            assertThat(patient.getNameFirstRep().getFamily()).isEqualTo(testPatient.getNameFirstRep().getFamily());
+        });
+        verifyNoInteractions(hapiClientService);
+    }
+
+    @Test
+    void getAllPatients_shouldServeFromLocalStore_whenStoreIsReady() {
+        // Arrange
+        LocalResourceStore store = new LocalResourceStore();
+        store.upsert(testPatient);
+        store.upsert(createTestPatient("67890", "Erik", "Eriksson", "198502021234"));
+        store.markReady();
+        HapiPatientService service = new HapiPatientService(hapiClientService, store, asyncFhirClient);
+
+        // Act
+        List<Patient> result = service.getAllPatients();
+
+        // Assert
+        assertThat(result).extracting(p -> p.getIdElement().getIdPart())
+                .containsExactlyInAnyOrder("12345", "67890");
+        verifyNoInteractions(hapiClientService);
+    }
+
     // HELPER METHODS
 
     private Patient createTestPatient(String id, String givenName, String familyName, String ssn) {
@@ -24,13 +24,16 @@ class HapiPractitionerServiceTest {
     @Mock
     private HapiClientService hapiClientService;
 
+    @Mock
+    private AsyncFhirClient asyncFhirClient;
+
     private HapiPractitionerService hapiPractitionerService;
 
     private Practitioner testPractitioner;
 
     @BeforeEach
     void setUp() {
-        hapiPractitionerService = new HapiPractitionerService(hapiClientService);
+        hapiPractitionerService = new HapiPractitionerService(hapiClientService, new LocalResourceStore(), asyncFhirClient);
 
         testPractitioner = createTestPractitioner("12345", "Eva", "Andersson", "198001011234", "Läkare");
     }
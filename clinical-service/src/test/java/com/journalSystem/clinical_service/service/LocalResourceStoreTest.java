@@ -0,0 +1,66 @@
+package com.journalSystem.clinical_service.service;
+
+import org.hl7.fhir.r4.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalResourceStoreTest {
+
+    private LocalResourceStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new LocalResourceStore();
+    }
+
+    // get() TESTS
+
+    @Test
+    void reads_shouldReturnCopies_soCallersCannotChangeTheStoredResource() {
+        // Arrange
+        Encounter encounter = new Encounter();
+        encounter.setId(new IdType("Encounter", "e1", "1"));
+        encounter.setSubject(new Reference("Patient/p1"));
+        store.upsert(encounter);
+
+        // Act
+        Encounter read = store.get(Encounter.class, "e1").orElseThrow();
+        read.getPeriod().setStart(new Date());
+        read.addParticipant();
+        store.getAll(Encounter.class).get(0).setStatus(Encounter.EncounterStatus.CANCELLED);
+        store.getForPatient(Encounter.class, "p1").get(0).getServiceProvider();
+
+        // Assert
+        Encounter stored = store.get(Encounter.class, "e1").orElseThrow();
+        assertThat(stored).isNotSameAs(read);
+        assertThat(stored.hasPeriod()).isFalse();
+        assertThat(stored.hasParticipant()).isFalse();
+        assertThat(stored.hasStatus()).isFalse();
+        assertThat(stored.hasServiceProvider()).isFalse();
+    }
+
+    // upsert() TESTS
+
+    @Test
+    void upsert_shouldStoreCopy_soTheCallerCanKeepUsingItsInstance() {
+        // Arrange
+        Encounter encounter = new Encounter();
+        encounter.setId(new IdType("Encounter", "e1", "1"));
+        encounter.setSubject(new Reference("Patient/p1"));
+
+        // Act
+        store.upsert(encounter);
+        encounter.getPeriod().setStart(new Date());
+        encounter.setSubject(new Reference("Patient/p2"));
+
+        // Assert
+        Encounter stored = store.get(Encounter.class, "e1").orElseThrow();
+        assertThat(stored.hasPeriod()).isFalse();
+        assertThat(stored.getSubject().getReference()).isEqualTo("Patient/p1");
+        assertThat(store.getForPatient(Encounter.class, "p1")).hasSize(1);
+    }
+}
@@ -0,0 +1,170 @@
+package com.journalSystem.clinical_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ObservationDownsamplerTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    // NONE / small input TESTS
+
+    @Test
+    void downsample_shouldReturnInput_whenModeIsNone() {
+        // Arrange
+        long[] t = hourly(1_000);
+        double[] v = sine(1_000);
+
+        // Act
+        ObservationDownsampler.Series result = ObservationDownsampler.downsample(t, v, 10, ObservationDownsampler.Mode.NONE);
+
+        // Assert
+        assertThat(result.timestamps()).hasSize(1_000);
+    }
+
+    @Test
+    void downsample_shouldReturnInput_whenAlreadySmallEnough() {
+        // Arrange
+        long[] t = hourly(5);
+        double[] v = sine(5);
+
+        // Act
+        ObservationDownsampler.Series result = ObservationDownsampler.downsample(t, v, 10, ObservationDownsampler.Mode.LTTB);
+
+        // Assert
+        assertThat(result.timestamps()).containsExactly(t);
+        assertThat(result.values()).containsExactly(v);
+    }
+
+    @Test
+    void downsample_shouldHandleEmptySeries() {
+        // Act
+        ObservationDownsampler.Series result = ObservationDownsampler.downsample(
+                new long[0], new double[0], 10, ObservationDownsampler.Mode.AVG);
+
+        // Assert
+        assertThat(result.timestamps()).isEmpty();
+    }
+
+    // bucket TESTS
+
+    @Test
+    void downsample_avg_shouldAverageEachBucket() {
+        // Arrange - two buckets of two points each
+        long[] t = {0, HOUR, 2 * HOUR, 3 * HOUR};
+        double[] v = {1, 3, 10, 20};
+
+        // Act
+        ObservationDownsampler.Series result = ObservationDownsampler.downsample(t, v, 2, ObservationDownsampler.Mode.AVG);
+
+        // Assert
+        assertThat(result.values()).containsExactly(2.0, 15.0);
+        assertThat(result.timestamps()).containsExactly(HOUR / 2, 2 * HOUR + HOUR / 2);
+    }
+
+    @Test
+    void downsample_minAndMax_shouldKeepExtremesOfEachBucket() {
+        // Arrange
+        long[] t = {0, HOUR, 2 * HOUR, 3 * HOUR};
+        double[] v = {5, 1, 7, 9};
+
+        // Act
+        ObservationDownsampler.Series min = ObservationDownsampler.downsample(t, v, 2, ObservationDownsampler.Mode.MIN);
+        ObservationDownsampler.Series max = ObservationDownsampler.downsample(t, v, 2, ObservationDownsampler.Mode.MAX);
+
+        // Assert
+        assertThat(min.values()).containsExactly(1.0, 7.0);
+        assertThat(min.timestamps()).containsExactly(HOUR, 2 * HOUR);
+        assertThat(max.values()).containsExactly(5.0, 9.0);
+        assertThat(max.timestamps()).containsExactly(0L, 3 * HOUR);
+    }
+
+    @Test
+    void downsample_buckets_shouldSkipEmptyBucketsInGaps() {
+        // Arrange - a cluster at the start and one at the end, nothing in between
+        long[] t = {0, 1, 2, 1000 * HOUR, 1000 * HOUR + 1};
+        double[] v = {1, 2, 3, 4, 5};
+
+        // Act
+        ObservationDownsampler.Series result = ObservationDownsampler.downsample(t, v, 4, ObservationDownsampler.Mode.AVG);
+
+        // Assert
+        assertThat(result.values()).containsExactly(2.0, 4.5);
+    }
+
+    @Test
+    void downsample_buckets_shouldNeverExceedMaxPoints() {
+        // Arrange
+        long[] t = hourly(10_000);
+        double[] v = sine(10_000);
+
+        // Act
+        ObservationDownsampler.Series result = ObservationDownsampler.downsample(t, v, 300, ObservationDownsampler.Mode.MAX);
+
+        // Assert
+        assertThat(result.timestamps()).hasSizeLessThanOrEqualTo(300).hasSizeGreaterThan(290);
+        assertThat(result.timestamps()).isSorted();
+    }
+
+    // LTTB TESTS
+
+    @Test
+    void downsample_lttb_shouldKeepFirstLastAndRequestedCount() {
+        // Arrange
+        long[] t = hourly(10_000);
+        double[] v = sine(10_000);
+
+        // Act
+        ObservationDownsampler.Series result = ObservationDownsampler.downsample(t, v, 250, ObservationDownsampler.Mode.LTTB);
+
+        // Assert
+        assertThat(result.timestamps()).hasSize(250).isSorted();
+        assertThat(result.timestamps()[0]).isEqualTo(t[0]);
+        assertThat(result.timestamps()[249]).isEqualTo(t[9_999]);
+    }
+
+    @Test
+    void downsample_lttb_shouldKeepSpike() {
+        // Arrange - flat line with one outlier
+        long[] t = hourly(1_000);
+        double[] v = new double[1_000];
+        v[537] = 100;
+
+        // Act
+        ObservationDownsampler.Series result = ObservationDownsampler.downsample(t, v, 20, ObservationDownsampler.Mode.LTTB);
+
+        // Assert
+        assertThat(result.values()).contains(100.0);
+    }
+
+    // parse TESTS
+
+    @Test
+    void parse_shouldAcceptAnyCaseAndDefaultToNone() {
+        assertThat(ObservationDownsampler.Mode.parse("lttb")).isEqualTo(ObservationDownsampler.Mode.LTTB);
+        assertThat(ObservationDownsampler.Mode.parse(" Avg ")).isEqualTo(ObservationDownsampler.Mode.AVG);
+        assertThat(ObservationDownsampler.Mode.parse(null)).isEqualTo(ObservationDownsampler.Mode.NONE);
+        assertThatThrownBy(() -> ObservationDownsampler.Mode.parse("median"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // HELPER METHODS
+
+    private long[] hourly(int n) {
+        long[] t = new long[n];
+        for (int i = 0; i < n; i++) {
+            t[i] = 1_700_000_000_000L + i * HOUR;
+        }
+        return t;
+    }
+
+    private double[] sine(int n) {
+        double[] v = new double[n];
+        for (int i = 0; i < n; i++) {
+            v[i] = Math.sin(i / 50.0) * 20 + 70;
+        }
+        return v;
+    }
+}
@@ -0,0 +1,195 @@
+package com.journalSystem.clinical_service.service;
+
+import ca.uhn.fhir.rest.client.api.IGenericClient;
+import ca.uhn.fhir.rest.gclient.ITransaction;
+import ca.uhn.fhir.rest.gclient.ITransactionTyped;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import com.journalSystem.clinical_service.dto.BulkIngestResultDTO;
+import com.journalSystem.clinical_service.dto.ObservationReadingDTO;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Observation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ObservationIngestServiceTest {
+
+    @Mock
+    private HapiClientService hapiClientService;
+
+    @Mock
+    private IGenericClient genericClient;
+
+    @Mock
+    private ITransaction transaction;
+
+    @Mock
+    private ITransactionTyped<Bundle> transactionTyped;
+
+    @Mock
+    private ClinicalEventBus eventBus;
+
+    private final AtomicInteger nextId = new AtomicInteger(1000);
+
+    private LocalResourceStore store;
+    private ObservationIngestService ingestService;
+
+    @BeforeEach
+    void setUp() {
+        store = new LocalResourceStore();
+        ingestService = new ObservationIngestService(hapiClientService, store, eventBus, 2, 2, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ingestService.shutdown();
+    }
+
+    // ingest() TESTS
+
+    @Test
+    void ingest_shouldWriteValidReadingsInTransactionBatches() {
+        // Arrange
+        stubTransactions();
+        List<ObservationReadingDTO> readings = List.of(
+                reading("197001011234", "72", "2024-03-01"),
+                reading("197001011234", "75", "2024-03-01T08:15:00+01:00"),
+                reading("198001011234", "Normal", "2024-03-02"));
+
+        // Act
+        BulkIngestResultDTO result = ingestService.ingest(readings);
+
+        // Assert
+        assertThat(result.received()).isEqualTo(3);
+        assertThat(result.created()).isEqualTo(3);
+        assertThat(result.items()).extracting(BulkIngestResultDTO.Item::index).containsExactly(0, 1, 2);
+        assertThat(result.items()).allSatisfy(item -> assertThat(item.id()).isNotNull());
+
+        ArgumentCaptor<Bundle> sent = ArgumentCaptor.forClass(Bundle.class);
+        verify(transaction, times(2)).withBundle(sent.capture());
+        assertThat(sent.getAllValues()).extracting(bundle -> bundle.getEntry().size())
+                .containsExactlyInAnyOrder(2, 1);
+        assertThat(sent.getAllValues()).allSatisfy(bundle -> {
+            assertThat(bundle.getType()).isEqualTo(Bundle.BundleType.TRANSACTION);
+            assertThat(bundle.getEntryFirstRep().getRequest().getMethod()).isEqualTo(Bundle.HTTPVerb.POST);
+        });
+        verify(eventBus, times(3)).publishCreated(any(Observation.class));
+    }
+
+    @Test
+    void ingest_shouldRejectInvalidReadings_withoutSendingThem() {
+        // Arrange
+        stubTransactions();
+        List<ObservationReadingDTO> readings = Arrays.asList(
+                reading("197001011234", "72", "2024-03-01"),
+                reading("", "72", "2024-03-01"),
+                reading("197001011234", "72", "01/03/2024"),
+                null);
+
+        // Act
+        BulkIngestResultDTO result = ingestService.ingest(readings);
+
+        // Assert
+        assertThat(result.created()).isEqualTo(1);
+        assertThat(result.invalid()).isEqualTo(3);
+        assertThat(result.items().get(1).error()).isEqualTo("patientPersonnummer is required");
+        assertThat(result.items().get(2).error()).startsWith("Invalid effectiveDate");
+        assertThat(result.items().get(3).status()).isEqualTo(BulkIngestResultDTO.INVALID);
+        verify(transaction, times(1)).withBundle(any(Bundle.class));
+    }
+
+    @Test
+    void ingest_shouldFailOnlyTheReadingsOfARejectedTransaction() {
+        // Arrange
+        when(hapiClientService.getClient()).thenReturn(genericClient);
+        when(genericClient.transaction()).thenReturn(transaction);
+        when(transaction.withBundle(any(Bundle.class))).thenReturn(transactionTyped);
+        AtomicInteger calls = new AtomicInteger();
+        when(transactionTyped.execute()).thenAnswer(invocation -> {
+            if (calls.getAndIncrement() == 0) {
+                throw new InternalErrorException("HAPI-0389: Failed to process transaction");
+            }
+            return responseFor(2);
+        });
+
+        // Act
+        BulkIngestResultDTO result = ingestService.ingest(List.of(
+                reading("197001011234", "72", "2024-03-01"),
+                reading("197001011234", "73", "2024-03-01"),
+                reading("197001011234", "74", "2024-03-01"),
+                reading("197001011234", "75", "2024-03-01")));
+
+        // Assert
+        assertThat(result.created()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(2);
+        assertThat(result.items()).filteredOn(item -> item.status().equals(BulkIngestResultDTO.FAILED))
+                .allSatisfy(item -> assertThat(item.error()).contains("Failed to process transaction"));
+        verify(eventBus, times(2)).publishCreated(any(Observation.class));
+    }
+
+    @Test
+    void ingest_shouldAddCreatedObservationsToReadyStore() {
+        // Arrange
+        stubTransactions();
+        store.markReady();
+
+        // Act
+        BulkIngestResultDTO result = ingestService.ingest(List.of(reading("197001011234", "72", "2024-03-01")));
+
+        // Assert
+        String id = result.items().get(0).id();
+        assertThat(store.get(Observation.class, id)).isPresent();
+        assertThat(store.getForPatient(Observation.class, "197001011234")).hasSize(1);
+    }
+
+    // validate() TESTS
+
+    @Test
+    void validate_shouldRequireValue() {
+        // Assert
+        assertThat(ObservationIngestService.validate(reading("197001011234", " ", "2024-03-01")))
+                .isEqualTo("value is required");
+        assertThat(ObservationIngestService.validate(reading("197001011234", "72", "2024-03-01"))).isNull();
+    }
+
+    // HELPER METHODS
+
+    private void stubTransactions() {
+        when(hapiClientService.getClient()).thenReturn(genericClient);
+        when(genericClient.transaction()).thenReturn(transaction);
+        when(transaction.withBundle(any(Bundle.class))).thenAnswer(invocation -> {
+            Bundle request = invocation.getArgument(0);
+            ITransactionTyped<Bundle> typed = mock(ITransactionTyped.class);
+            when(typed.execute()).thenReturn(responseFor(request.getEntry().size()));
+            return typed;
+        });
+    }
+
+    private Bundle responseFor(int entries) {
+        Bundle response = new Bundle();
+        response.setType(Bundle.BundleType.TRANSACTIONRESPONSE);
+        for (int i = 0; i < entries; i++) {
+            response.addEntry().getResponse()
+                    .setStatus("201 Created")
+                    .setLocation("Observation/" + nextId.incrementAndGet() + "/_history/1");
+        }
+        return response;
+    }
+
+    private ObservationReadingDTO reading(String patient, String value, String effectiveDate) {
+        return new ObservationReadingDTO(patient, "198001011234", "Heart rate", value, "bpm", effectiveDate);
+    }
+}
@@ -1,5 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import API_CONFIG from '../config/api';
+import { authHeaders } from '../config/auth';
 
 function MessagingSystem({ currentUser, patientPersonnummer }) {
     const [messages, setMessages] = useState([]);
@@ -116,14 +117,14 @@ function MessagingSystem({ currentUser, patientPersonnummer }) {
             let allMessages = [];
             if (currentUser.role === 'PATIENT') {
                 const url = `${API_CONFIG.MESSAGE_SERVICE}/api/v1/messages/patient/${patientPersonnummer}`;
-                const response = await fetch(url);
+                const response = await fetch(url, { headers: authHeaders() });
                 if (response.ok) {
                     allMessages = await response.json();
                 }
             } else {
                 const [toMeRes, fromMeRes] = await Promise.all([
-                    fetch(`${API_CONFIG.MESSAGE_SERVICE}/api/v1/messages/to-user/${currentUser.id}`),
-                    fetch(`${API_CONFIG.MESSAGE_SERVICE}/api/v1/messages/from-user/${currentUser.id}`)
+                    fetch(`${API_CONFIG.MESSAGE_SERVICE}/api/v1/messages/to-user/${currentUser.id}`, { headers: authHeaders() }),
+                    fetch(`${API_CONFIG.MESSAGE_SERVICE}/api/v1/messages/from-user/${currentUser.id}`, { headers: authHeaders() })
                 ]);
 
                 const toMe = toMeRes.ok ? await toMeRes.json() : [];
@@ -216,7 +217,7 @@ function MessagingSystem({ currentUser, patientPersonnummer }) {
         try {
             const response = await fetch(`${API_CONFIG.MESSAGE_SERVICE}/api/v1/messages`, {
                 method: 'POST',
-                headers: { 'Content-Type': 'application/json' },
+                headers: authHeaders({ 'Content-Type': 'application/json' }),
                 body: JSON.stringify({
                     fromUserId: currentUser.id,
                     toUserId: toUserId,
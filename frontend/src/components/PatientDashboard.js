@@ -2,6 +2,7 @@ import React, { useState, useEffect } from 'react';
 import MessagingSystem from './MessagingSystem';
 import ImageGallery from './ImageGallery';
 import API_CONFIG from '../config/api';
+import { authHeaders } from '../config/auth';
 
 function PatientDashboard({ user, onLogout }) {
     const [activeTab, setActiveTab] = useState('overview');
@@ -32,9 +33,9 @@ function PatientDashboard({ user, onLogout }) {
                     console.log('Patient fetched from HAPI:', patient);
 
                     const [obsRes, condRes, encRes] = await Promise.all([
-                        fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/observations/patient/${patientId}`),
-                        fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/conditions/patient/${patientId}`),
-                        fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/encounters/patient/${patientId}`)
+                        fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/observations/patient/${patientId}`, { headers: authHeaders() }),
+                        fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/conditions/patient/${patientId}`, { headers: authHeaders() }),
+                        fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/encounters/patient/${patientId}`, { headers: authHeaders() })
                     ]);
 
                     if (obsRes.ok) {
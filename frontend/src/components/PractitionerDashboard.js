@@ -3,6 +3,7 @@ import MessagingSystem from './MessagingSystem';
 import ImageGallery from './ImageGallery';
 import SearchPanel from './SearchPanel';
 import API_CONFIG from '../config/api';
+import { authHeaders, sessionToken } from '../config/auth';
 
 function PractitionerDashboard({ user, onLogout }) {
     const [activeTab, setActiveTab] = useState('patients');
@@ -256,14 +257,49 @@ function PatientDetails({ patient, practitionerPersonnummer, isDoctor, onBack })
         fetchPatientData();
     }, [patient.socialSecurityNumber]);
 
+    // A record can arrive both from our own POST and as an event, keep it once
+    const addRecord = (setRecords, record) =>
+        setRecords(current => current.some(item => item.id === record.id) ? current : [...current, record]);
+
+    // Records created on other dashboards arrive as server-sent events
+    useEffect(() => {
+        // EventSource cannot send headers, so the token goes in the query string
+        const token = sessionToken();
+        const source = new EventSource(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/events?patientId=`
+            + encodeURIComponent(patient.socialSecurityNumber)
+            + (token ? '&access_token=' + encodeURIComponent(token) : ''));
+        const addTo = (setRecords) => (event) => addRecord(setRecords, JSON.parse(event.data).resource);
+        let interrupted = false;
+        source.addEventListener('observation', addTo(setObservations));
+        source.addEventListener('condition', addTo(setConditions));
+        source.addEventListener('encounter', addTo(setEncounters));
+        source.addEventListener('reset', () => fetchPatientData());
+        // The browser reconnects on its own unless the stream was closed for good;
+        // either way events may have been missed, so reload once we can
+        source.onerror = () => {
+            if (source.readyState === EventSource.CLOSED) {
+                fetchPatientData();
+            } else {
+                interrupted = true;
+            }
+        };
+        source.onopen = () => {
+            if (interrupted) {
+                interrupted = false;
+                fetchPatientData();
+            }
+        };
+        return () => source.close();
+    }, [patient.socialSecurityNumber]);
+
     const fetchPatientData = async () => {
         try {
             const patientPersonnummer = patient.socialSecurityNumber;
 
             const [obsRes, condRes, encRes] = await Promise.all([
-                fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/observations/patient/${patientPersonnummer}`),
-                fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/conditions/patient/${patientPersonnummer}`),
-                fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/encounters/patient/${patientPersonnummer}`)
+                fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/observations/patient/${patientPersonnummer}`, { headers: authHeaders() }),
+                fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/conditions/patient/${patientPersonnummer}`, { headers: authHeaders() }),
+                fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/encounters/patient/${patientPersonnummer}`, { headers: authHeaders() })
             ]);
 
             if (obsRes.ok) {
@@ -288,7 +324,7 @@ function PatientDetails({ patient, practitionerPersonnummer, isDoctor, onBack })
         try {
             const response = await fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/observations`, {
                 method: 'POST',
-                headers: { 'Content-Type': 'application/json' },
+                headers: authHeaders({ 'Content-Type': 'application/json' }),
                 body: JSON.stringify({
                     patientPersonnummer: patient.socialSecurityNumber,
                     performerPersonnummer: null,
@@ -300,6 +336,7 @@ function PatientDetails({ patient, practitionerPersonnummer, isDoctor, onBack })
             });
 
             if (response.ok) {
+                addRecord(setObservations, await response.json());
                 alert('Observation created in HAPI FHIR!');
                 setShowAddObservation(false);
                 setNewObservation({
@@ -308,7 +345,6 @@ function PatientDetails({ patient, practitionerPersonnummer, isDoctor, onBack })
                     unit: '',
                     effectiveDate: new Date().toISOString().slice(0, 10)
                 });
-                fetchPatientData();
             } else {
                 const errorText = await response.text();
                 console.error('Error from server:', errorText);
@@ -325,7 +361,7 @@ function PatientDetails({ patient, practitionerPersonnummer, isDoctor, onBack })
         try {
             const response = await fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/conditions`, {
                 method: 'POST',
-                headers: { 'Content-Type': 'application/json' },
+                headers: authHeaders({ 'Content-Type': 'application/json' }),
                 body: JSON.stringify({
                     patientPersonnummer: patient.socialSecurityNumber,
                     practitionerPersonnummer: null,
@@ -335,13 +371,13 @@ function PatientDetails({ patient, practitionerPersonnummer, isDoctor, onBack })
             });
 
             if (response.ok) {
+                addRecord(setConditions, await response.json());
                 alert('Diagnosis created in HAPI FHIR!');
                 setShowAddCondition(false);
                 setNewCondition({
                     description: '',
                     assertedDate: new Date().toISOString().slice(0, 10)
                 });
-                fetchPatientData();
             } else {
                 const errorText = await response.text();
                 console.error('Error from server:', errorText);
@@ -358,7 +394,7 @@ function PatientDetails({ patient, practitionerPersonnummer, isDoctor, onBack })
         try {
             const response = await fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/encounters`, {
                 method: 'POST',
-                headers: { 'Content-Type': 'application/json' },
+                headers: authHeaders({ 'Content-Type': 'application/json' }),
                 body: JSON.stringify({
                     patientPersonnummer: patient.socialSecurityNumber,
                     practitionerPersonnummer: null,
@@ -368,13 +404,13 @@ function PatientDetails({ patient, practitionerPersonnummer, isDoctor, onBack })
             });
 
             if (response.ok) {
+                addRecord(setEncounters, await response.json());
                 alert('Visit created in HAPI FHIR!');
                 setShowAddEncounter(false);
                 setNewEncounter({
                     startTime: new Date().toISOString().slice(0, 16),
                     endTime: ''
                 });
-                fetchPatientData();
             } else {
                 const errorText = await response.text();
                 console.error('Error from server:', errorText);
@@ -87,7 +87,7 @@ function Register({ onRegisterSuccess, onBackToLogin }) {
                 const errorData = await userResponse.text();
                 if (errorData.includes('already registered')) {
                     setError('This person already has a user account. Choose another person.');
-                } else if (errorData.includes('Username taken')) {
+                } else if (errorData.includes('Username already taken')) {
                     setError('Username is taken. Choose another username.');
                 } else {
                     setError(errorData || 'Registration failed');
@@ -1,5 +1,6 @@
 import React, { useState } from 'react';
 import API_CONFIG from '../config/api';
+import { authHeaders } from '../config/auth';
 
 function SearchPanel({ currentUser }) {
     const [searchType, setSearchType] = useState('name');
@@ -50,7 +51,7 @@ function SearchPanel({ currentUser }) {
             }
 
             console.log('Fetching from URL:', url);
-            const response = await fetch(url);
+            const response = await fetch(url, { headers: authHeaders() });
 
             if (response.ok) {
                 const data = await response.json();
@@ -86,9 +87,9 @@ function SearchPanel({ currentUser }) {
             console.log('Fetching details for patient:', patientId);
 
             const [obsRes, condRes, encRes] = await Promise.all([
-                fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/observations/patient/${patientId}`),
-                fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/conditions/patient/${patientId}`),
-                fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/encounters/patient/${patientId}`)
+                fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/observations/patient/${patientId}`, { headers: authHeaders() }),
+                fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/conditions/patient/${patientId}`, { headers: authHeaders() }),
+                fetch(`${API_CONFIG.CLINICAL_SERVICE}/api/v1/clinical/encounters/patient/${patientId}`, { headers: authHeaders() })
             ]);
 
             const observations = obsRes.ok ? await obsRes.json() : [];
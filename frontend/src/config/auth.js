@@ -0,0 +1,14 @@
+// Session token from the login response (kept with the user in localStorage).
+// clinical-, message- and search-service verify it when AUTH_TOKEN_ENFORCE is on.
+export function sessionToken() {
+    try {
+        return JSON.parse(localStorage.getItem('currentUser'))?.token || null;
+    } catch (e) {
+        return null;
+    }
+}
+
+export function authHeaders(headers = {}) {
+    const token = sessionToken();
+    return token ? { ...headers, Authorization: `Bearer ${token}` } : headers;
+}
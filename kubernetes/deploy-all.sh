@@ -6,6 +6,13 @@ echo "🚀 Deploying PatientSystem to Kubernetes..."
 echo "📦 Creating namespace..."
 kubectl apply -f namespace.yaml
 
+# Signeringsnyckel för sessionstokens, genereras en gång och återanvänds sedan
+if ! kubectl get secret auth-token -n patientsystem > /dev/null 2>&1; then
+    echo "🔑 Creating session token secret..."
+    kubectl create secret generic auth-token -n patientsystem \
+        --from-literal=secret="$(openssl rand -base64 48)"
+fi
+
 # Deploy MySQL först (andra tjänster beror på den)
 echo "🗄️  Deploying MySQL database..."
 kubectl apply -f mysql/
@@ -0,0 +1,25 @@
+package com.journalSystem.message_service.dto;
+
+import com.journalSystem.message_service.model.Message;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a message has been stored.
+ */
+public record MessageSentEvent(
+        Long messageId,
+        Long fromUserId,
+        Long toUserId,
+        String patientPersonnummer,
+        String content,
+        LocalDateTime sentAt
+) {
+    public static final String TYPE = "MessageSent";
+    public static final String AGGREGATE = "Message";
+
+    public static MessageSentEvent of(Message message) {
+        return new MessageSentEvent(message.getId(), message.getFromUserId(), message.getToUserId(),
+                message.getPatientPersonnummer(), message.getContent(), message.getSentAt());
+    }
+}
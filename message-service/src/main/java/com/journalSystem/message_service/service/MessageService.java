@@ -1,9 +1,11 @@
 package com.journalSystem.message_service.service;
 
+import com.journalSystem.message_service.dto.MessageSentEvent;
 import com.journalSystem.message_service.model.Message;
 import com.journalSystem.message_service.repository.MessageRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -11,9 +13,17 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MessageService {
     private final MessageRepository messageRepository;
+    private final OutboxWriter outboxWriter;
 
+    /**
+     * Stores the message and its MessageSent outbox event in one transaction.
+     */
+    @Transactional
     public Message send(Message message) {
-        return messageRepository.save(message);
+        Message saved = messageRepository.save(message);
+        outboxWriter.record(MessageSentEvent.AGGREGATE, saved.getId(), MessageSentEvent.TYPE,
+                MessageSentEvent.of(saved));
+        return saved;
     }
 
     public List<Message> forPatient(String patientPersonnummer) {
@@ -0,0 +1,62 @@
+package com.journalSystem.message_service.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementCountFilterTest {
+
+    private StatementCounter counter;
+    private SimpleMeterRegistry meterRegistry;
+    private StatementCountFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        counter = new StatementCounter();
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new StatementCountFilter(counter, meterRegistry, 20);
+    }
+
+    // doFilter() TESTS
+
+    @Test
+    void doFilter_shouldRecordStatementsRunByRequest_taggedWithRoutePattern() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/messages/patient/197001011234");
+
+        // Act
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/messages/patient/{personnummer}");
+            counter.inspect("select * from messages where patient_personnummer=?");
+            counter.inspect("select * from users where id=?");
+        });
+
+        // Assert
+        DistributionSummary summary = meterRegistry.find("jpa.request.statements")
+                .tags("method", "GET", "uri", "/api/messages/patient/{personnummer}")
+                .summary();
+        assertThat(summary).isNotNull();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void inspect_shouldNotCount_outsideRequest() throws Exception {
+        // Arrange
+        counter.inspect("select 1");
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/messages"), new MockHttpServletResponse(),
+                (req, res) -> { });
+
+        // Assert
+        assertThat(meterRegistry.get("jpa.request.statements").summary().totalAmount()).isZero();
+        assertThat(counter.stop()).isZero();
+    }
+}
@@ -0,0 +1,79 @@
+package com.journalSystem.message_service.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionTokenFilterTest {
+
+    private static final String SECRET = "test-session-token-secret-of-32-bytes";
+
+    private final SessionTokenVerifier verifier = new SessionTokenVerifier(SECRET);
+    private final List<Object> passedClaims = new ArrayList<>();
+
+    // doFilter() TESTS
+
+    @Test
+    void doFilter_shouldPassMessageRequests_withValidBearerToken() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/messages/to-user/7");
+        request.addHeader("Authorization", "Bearer " + token(SECRET, Instant.now().plusSeconds(3600)));
+
+        // Act
+        MockHttpServletResponse response = filter(true, request);
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(passedClaims).singleElement().isInstanceOfSatisfying(SessionClaims.class,
+                claims -> assertThat(claims.userId()).isEqualTo(7L));
+    }
+
+    @Test
+    void doFilter_shouldAnswer401_forMissingOrExpiredToken_onlyWhenEnforced() throws Exception {
+        // Arrange
+        MockHttpServletRequest expired = new MockHttpServletRequest("POST", "/api/v1/messages");
+        expired.addHeader("Authorization", "Bearer " + token(SECRET, Instant.now().minusSeconds(1)));
+
+        // Act & Assert
+        assertThat(filter(true, new MockHttpServletRequest("GET", "/api/v1/messages/from-user/7")).getStatus())
+                .isEqualTo(401);
+        assertThat(filter(true, expired).getStatus()).isEqualTo(401);
+        assertThat(filter(false, new MockHttpServletRequest("GET", "/api/v1/messages/from-user/7")).getStatus())
+                .isEqualTo(200);
+    }
+
+    // HELPER METHODS
+
+    private MockHttpServletResponse filter(boolean enforce, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new SessionTokenFilter(verifier, enforce).doFilter(request, response,
+                (req, res) -> passedClaims.add(req.getAttribute(SessionTokenFilter.CLAIMS_ATTRIBUTE)));
+        return response;
+    }
+
+    /** Signs a token the way user-service's SessionTokenService does. */
+    private static String token(String secret, Instant expiresAt) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String claims = "{\"sub\":\"7\",\"role\":\"PATIENT\",\"fid\":\"p1\",\"exp\":" + expiresAt.getEpochSecond() + "}";
+        String signingInput = encoder.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8))
+                + "." + encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return signingInput + "." + encoder.encodeToString(
+                    mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.journalSystem.message_service.service;
 
+import com.journalSystem.message_service.dto.MessageSentEvent;
 import com.journalSystem.message_service.model.Message;
 import com.journalSystem.message_service.repository.MessageRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,6 +24,9 @@ class MessageServiceTest {
     @Mock
     private MessageRepository messageRepository;
 
+    @Mock
+    private OutboxWriter outboxWriter;
+
     @InjectMocks
     private MessageService messageService;
 
@@ -59,6 +63,8 @@ class MessageServiceTest {
         assertThat(result.getContent()).isEqualTo("New message");
 
         verify(messageRepository, times(1)).save(messageToSend);
+        verify(outboxWriter).record(MessageSentEvent.AGGREGATE, 1L, MessageSentEvent.TYPE,
+                MessageSentEvent.of(savedMessage));
     }
 
     @Test
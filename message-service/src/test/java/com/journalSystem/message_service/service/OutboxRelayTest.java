@@ -0,0 +1,118 @@
+package com.journalSystem.message_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.journalSystem.message_service.dto.DomainEvent;
+import com.journalSystem.message_service.dto.MessageSentEvent;
+import com.journalSystem.message_service.model.Message;
+import com.journalSystem.message_service.repository.MessageRepository;
+import com.journalSystem.message_service.repository.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outboxdb",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "outbox.relay.enabled=false"
+})
+class OutboxRelayTest {
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private InMemoryEventTransport transport;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<DomainEvent> received = new ArrayList<>();
+    private Runnable unsubscribe;
+
+    @BeforeEach
+    void setUp() {
+        relay.relay();
+        outboxEventRepository.deleteAll();
+        messageRepository.deleteAll();
+        unsubscribe = transport.subscribe(received::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        unsubscribe.run();
+    }
+
+    // relay() TESTS
+
+    @Test
+    void relay_shouldPublishMessageSent_forStoredMessages_once() throws Exception {
+        // Arrange
+        Message message = new Message();
+        message.setContent("Provsvar klara");
+        message.setFromUserId(1L);
+        message.setToUserId(2L);
+        message.setPatientPersonnummer("197001011234");
+        Message saved = messageService.send(message);
+
+        // Act
+        int published = relay.relay();
+        int again = relay.relay();
+
+        // Assert
+        assertThat(published).isEqualTo(1);
+        assertThat(again).isZero();
+        assertThat(received).singleElement().satisfies(event -> {
+            assertThat(event.type()).isEqualTo(MessageSentEvent.TYPE);
+            assertThat(event.aggregateId()).isEqualTo(saved.getId().toString());
+            assertThat(objectMapper.readValue(event.payload(), MessageSentEvent.class))
+                    .isEqualTo(MessageSentEvent.of(saved));
+        });
+    }
+
+    @Test
+    void relay_shouldKeepEvent_untilTransportAcceptsIt() {
+        // Arrange
+        Message message = new Message();
+        message.setContent("Hej");
+        messageService.send(message);
+        Runnable failing = transport.subscribe(event -> {
+            throw new IllegalStateException("Broker unavailable");
+        });
+
+        // Act
+        int whileDown = relay.relay();
+        failing.run();
+        int afterRecovery = relay.relay();
+
+        // Assert
+        assertThat(whileDown).isZero();
+        assertThat(afterRecovery).isEqualTo(1);
+        assertThat(outboxEventRepository.findAll()).singleElement().satisfies(event -> {
+            assertThat(event.getAttempts()).isEqualTo(1);
+            assertThat(event.getPublishedAt()).isNotNull();
+        });
+    }
+}
@@ -0,0 +1,119 @@
+#!/usr/bin/env bash
+#
+# Compares startup time and first-request latency of search-service in
+# JVM, JVM + AppCDS and native mode, to choose the mode per environment.
+#
+# Build the modes to compare first (each build overwrites target/):
+#   ./mvnw package -DskipTests                 -> jvm
+#   ./mvnw package -DskipTests -Dappcds        -> appcds (and jvm)
+#   ./mvnw package -DskipTests -Dnative        -> native
+#
+# Usage: benchmark/startup-benchmark.sh [runs] [modes...]
+#   e.g. benchmark/startup-benchmark.sh 10 jvm appcds native
+#
+# Per run it measures:
+#   ready  - process start until /q/health/ready answers
+#   first  - latency of the first search request
+#   second - latency of the same search once warm (response cache disabled)
+# and prints the median of each. FHIR_URL points the service at the FHIR
+# server to search; the change feed and cache pre-warming are switched off so
+# background work does not skew the numbers.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+shift || true
+MODES=("$@")
+if [ ${#MODES[@]} -eq 0 ]; then
+    MODES=(jvm appcds native)
+fi
+
+PORT="${PORT:-18084}"
+FHIR_URL="${FHIR_URL:-https://hapi-fhir.app.cloud.cbh.kth.se/fhir}"
+SEARCH_PATH="${SEARCH_PATH:-/api/search/patients?name=Anna}"
+APP_DIR="target/quarkus-app"
+NATIVE_RUNNER="$(ls target/*-runner 2>/dev/null | head -1 || true)"
+
+PROPS=(
+    "-Dquarkus.http.port=$PORT"
+    "-Dfhir.server.url=$FHIR_URL"
+    "-Dsearch.changefeed.enabled=false"
+    "-Dsearch.practitioner-id-cache.prewarm=false"
+    "-Dsearch.response-cache.enabled=false"
+    "-Dquarkus.otel.sdk.disabled=true"
+)
+
+now_ms() {
+    date +%s%3N
+}
+
+request_ms() {
+    curl -s -o /dev/null -w '%{time_total}' "http://localhost:$PORT$1" | awk '{ printf "%d", $1 * 1000 }'
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { if (NR == 0) print "-"; else if (NR % 2) print v[(NR + 1) / 2]; else print int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+# Runs in the background subshell, so cd and exec leave the script untouched
+# and $! is the service's own pid
+start() {
+    case "$1" in
+        jvm)
+            cd "$APP_DIR" && exec java -Xshare:auto "${PROPS[@]}" -jar quarkus-run.jar ;;
+        appcds)
+            cd "$APP_DIR" && exec java -XX:SharedArchiveFile=app-cds.jsa -Xshare:on "${PROPS[@]}" -jar quarkus-run.jar ;;
+        native)
+            exec "$NATIVE_RUNNER" "${PROPS[@]}" ;;
+    esac
+}
+
+available() {
+    case "$1" in
+        jvm) [ -f "$APP_DIR/quarkus-run.jar" ] ;;
+        appcds) [ -f "$APP_DIR/app-cds.jsa" ] ;;
+        native) [ -n "$NATIVE_RUNNER" ] && [ -x "$NATIVE_RUNNER" ] ;;
+        *) return 1 ;;
+    esac
+}
+
+printf '%-8s %10s %10s %10s\n' mode ready_ms first_ms second_ms
+for mode in "${MODES[@]}"; do
+    if ! available "$mode"; then
+        printf '%-8s %s\n' "$mode" "not built, skipped"
+        continue
+    fi
+
+    if curl -s -o /dev/null "http://localhost:$PORT/q/health/ready"; then
+        echo "port $PORT is already in use" >&2
+        exit 1
+    fi
+
+    ready=() first=() second=()
+    for _ in $(seq "$RUNS"); do
+        begin=$(now_ms)
+        start "$mode" > /dev/null 2>&1 &
+        pid=$!
+
+        until curl -sf -o /dev/null "http://localhost:$PORT/q/health/ready"; do
+            if ! kill -0 "$pid" 2> /dev/null; then
+                echo "$mode: process exited before it was ready" >&2
+                exit 1
+            fi
+            sleep 0.01
+        done
+        ready+=($(( $(now_ms) - begin )))
+        first+=("$(request_ms "$SEARCH_PATH")")
+        second+=("$(request_ms "$SEARCH_PATH")")
+
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+    done
+
+    printf '%-8s %10s %10s %10s\n' "$mode" \
+        "$(printf '%s\n' "${ready[@]}" | median)" \
+        "$(printf '%s\n' "${first[@]}" | median)" \
+        "$(printf '%s\n' "${second[@]}" | median)"
+done
@@ -1,15 +1,27 @@
 package org.journalsystem;
 
 import org.journalsystem.dto.*;
+import org.journalsystem.service.ConditionTerminology;
+import org.journalsystem.service.SearchResponseCache;
 import org.journalsystem.service.SearchService;
+import org.journalsystem.service.SearchUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
+import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
 
-import java.util.List;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @Path("/api/search")
 @Produces(MediaType.APPLICATION_JSON)
@@ -18,9 +30,22 @@ public class SearchResource {
 
     private static final Logger LOG = Logger.getLogger(SearchResource.class);
 
+    private static final int MAX_ENCOUNTER_LIMIT = 1000;
+
     @Inject
     SearchService searchService;
 
+    @Inject
+    SearchResponseCache responseCache;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    // private keeps shared caches from storing patient data; set to public
+    // only if the proxy in front enforces the same access control
+    @ConfigProperty(name = "search.response-cache.cache-control-scope", defaultValue = "private")
+    String cacheControlScope;
+
     /**
      * Health check endpoint
      */
@@ -32,64 +57,160 @@ public class SearchResource {
     }
 
     /**
-     * Search patients by name, condition, or practitioner ID
+     * Search patients by name, condition, condition code, or practitioner ID
      * Examples:
      * GET /api/search/patients?name=Anna
+     * GET /api/search/patients?name=Anderson&fuzzy=true
      * GET /api/search/patients?condition=Diabetes
+     * GET /api/search/patients?code=snomed|44054006
+     * GET /api/search/patients?code=icd10|E11&below=true
      * GET /api/search/patients?practitionerId=12345
      */
     @GET
     @Path("/patients")
     public Uni<Response> searchPatients(
             @QueryParam("name") String name,
+            @QueryParam("fuzzy") boolean fuzzy,
             @QueryParam("condition") String condition,
-            @QueryParam("practitionerId") String practitionerId
+            @QueryParam("code") String code,
+            @QueryParam("below") boolean below,
+            @QueryParam("practitionerId") String practitionerId,
+            @HeaderParam("If-None-Match") String ifNoneMatch
     ) {
-        LOG.infof("Search patients - name: %s, condition: %s, practitionerId: %s",
-                name, condition, practitionerId);
+        LOG.infof("Search patients - name: %s, condition: %s, code: %s, practitionerId: %s",
+                name, condition, code, practitionerId);
 
-        if (name != null && !name.trim().isEmpty()) {
-            return searchService.searchPatientsByName(name.trim())
-                    .map(results -> Response.ok(results).build());
+        // FHIR name and condition searches ignore case, so the cache may too
+        if (name != null && !name.trim().isEmpty() && fuzzy) {
+            return cached(SearchResponseCache.PATIENTS,
+                    Map.of("name", name.trim().toLowerCase(Locale.ROOT), "fuzzy", "true"), ifNoneMatch,
+                    () -> searchService.searchPatientsByNameFuzzy(name.trim()));
+        } else if (name != null && !name.trim().isEmpty()) {
+            return cached(SearchResponseCache.PATIENTS,
+                    Map.of("name", name.trim().toLowerCase(Locale.ROOT)), ifNoneMatch,
+                    () -> searchService.searchPatientsByName(name.trim()));
         } else if (condition != null && !condition.trim().isEmpty()) {
-            return searchService.searchPatientsByCondition(condition.trim())
-                    .map(results -> Response.ok(results).build());
+            return cached(SearchResponseCache.PATIENTS,
+                    Map.of("condition", condition.trim().toLowerCase(Locale.ROOT)), ifNoneMatch,
+                    () -> searchService.searchPatientsByCondition(condition.trim()));
+        } else if (code != null && !code.trim().isEmpty()) {
+            return cached(SearchResponseCache.PATIENTS,
+                    Map.of("code", ConditionTerminology.token(code), "below", Boolean.toString(below)), ifNoneMatch,
+                    () -> searchService.searchPatientsByConditionCode(code, below));
         } else if (practitionerId != null && !practitionerId.trim().isEmpty()) {
-            return searchService.searchPatientsByPractitionerId(practitionerId.trim())
-                    .map(results -> Response.ok(results).build());
+            return cached(SearchResponseCache.PATIENTS,
+                    Map.of("practitionerId", practitionerId.trim()), ifNoneMatch,
+                    () -> searchService.searchPatientsByPractitionerId(practitionerId.trim()));
         }
 
         return Uni.createFrom().item(
                 Response.status(Response.Status.BAD_REQUEST)
-                        .entity("{\"error\": \"Please provide 'name', 'condition', or 'practitionerId' query parameter\"}")
+                        .entity("{\"error\": \"Please provide 'name', 'condition', 'code', or 'practitionerId' query parameter\"}")
                         .build()
         );
     }
 
     /**
-     * Search encounters by practitioner ID and optional date
+     * Search encounters by practitioner ID and optional date, or an inclusive date range
      * Examples:
      * GET /api/search/encounters?practitionerId=9999994392
      * GET /api/search/encounters?practitionerId=9999994392&date=1989-11-21
      * GET /api/search/encounters?practitionerId=aa21bb8e-dd17-3f9e-92ed-804c556a45d8&date=1989-11-21
+     * GET /api/search/encounters?practitionerId=9999994392&from=2024-01-01&to=2024-01-07&limit=50
      */
     @GET
     @Path("/encounters")
     public Uni<Response> searchEncounters(
             @QueryParam("practitionerId") String practitionerId,
-            @QueryParam("date") String date
+            @QueryParam("date") String date,
+            @QueryParam("from") String from,
+            @QueryParam("to") String to,
+            @QueryParam("limit") Integer limit,
+            @HeaderParam("If-None-Match") String ifNoneMatch
     ) {
-        LOG.infof("Search encounters - practitionerId: %s, date: %s", practitionerId, date);
+        LOG.infof("Search encounters - practitionerId: %s, date: %s, from: %s, to: %s, limit: %s",
+                practitionerId, date, from, to, limit);
 
         if (practitionerId == null || practitionerId.trim().isEmpty()) {
-            return Uni.createFrom().item(
-                    Response.status(Response.Status.BAD_REQUEST)
-                            .entity("{\"error\": \"Please provide 'practitionerId' query parameter\"}")
-                            .build()
-            );
+            return badRequest("Please provide 'practitionerId' query parameter");
+        }
+        if (isPresent(date) && (isPresent(from) || isPresent(to))) {
+            return badRequest("Use either 'date' or 'from'/'to', not both");
         }
+        if (!isDateOrAbsent(from) || !isDateOrAbsent(to)) {
+            return badRequest("'from' and 'to' must be dates in the format yyyy-MM-dd");
+        }
+        if (isPresent(from) && isPresent(to) && LocalDate.parse(from.trim()).isAfter(LocalDate.parse(to.trim()))) {
+            return badRequest("'from' must not be after 'to'");
+        }
+        if (limit != null && (limit < 1 || limit > MAX_ENCOUNTER_LIMIT)) {
+            return badRequest("'limit' must be between 1 and " + MAX_ENCOUNTER_LIMIT);
+        }
+
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("practitionerId", practitionerId.trim());
+        params.put("date", date);
+        params.put("from", from);
+        params.put("to", to);
+        params.put("limit", limit != null ? limit.toString() : null);
+        return cached(SearchResponseCache.ENCOUNTERS, params, ifNoneMatch,
+                () -> searchService.searchEncountersByPractitioner(practitionerId.trim(), date, from, to, limit));
+    }
 
-        return searchService.searchEncountersByPractitioner(practitionerId.trim(), date)
-                .map(results -> Response.ok(results).build());
+    /**
+     * The FHIR server could not answer; say so instead of returning an empty result
+     */
+    @ServerExceptionMapper
+    public Response mapSearchUnavailable(SearchUnavailableException e) {
+        meterRegistry.counter("search.degraded.responses", "reason", e.getReason()).increment();
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "circuit-open".equals(e.getReason()) ? 10 : 2)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(new DegradedResponse(e.getMessage(), e.getReason(), true))
+                .build();
+    }
+
+    /**
+     * Serves the search from the response cache, answering 304 when the client
+     * already has the current version
+     */
+    private Uni<Response> cached(String endpoint, Map<String, String> params, String ifNoneMatch,
+                                 Supplier<Uni<?>> search) {
+        return responseCache.get(endpoint, params, search)
+                .map(cached -> {
+                    Response.ResponseBuilder builder = cached.matches(ifNoneMatch)
+                            ? Response.notModified()
+                            : Response.ok(cached.body(), MediaType.APPLICATION_JSON);
+                    return builder
+                            .tag(cached.etag())
+                            .header("Cache-Control", cacheControlScope
+                                    + ", max-age=" + cached.maxAgeSeconds(Instant.now())
+                                    + ", stale-while-revalidate=" + cached.policy().staleFor().getSeconds())
+                            .build();
+                });
+    }
+
+    private static Uni<Response> badRequest(String message) {
+        return Uni.createFrom().item(
+                Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"" + message + "\"}")
+                        .build()
+        );
+    }
+
+    private static boolean isPresent(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    private static boolean isDateOrAbsent(String value) {
+        if (!isPresent(value)) {
+            return true;
+        }
+        try {
+            LocalDate.parse(value.trim());
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,13 +1,38 @@
 package org.journalsystem.client;
 
+import io.smallrye.faulttolerance.api.ExponentialBackoff;
+import io.smallrye.faulttolerance.api.RetryWhen;
 import io.smallrye.mutiny.Uni;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
+import org.eclipse.microprofile.faulttolerance.Bulkhead;
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
+import org.eclipse.microprofile.faulttolerance.Retry;
+import org.eclipse.microprofile.faulttolerance.Timeout;
+import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
+import org.jboss.resteasy.reactive.RestQuery;
 import org.journalsystem.dto.fhir.FhirBundle;
 
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FHIR server API. Every method is a GET, so all of them are retried with
+ * jittered exponential backoff. Each method has its own timeout, circuit breaker
+ * and bulkhead; the values below can be overridden per method in configuration,
+ * e.g. org.journalsystem.client.FhirClient/getPatient/Timeout/value=1500.
+ * Upstream latency and payload sizes are recorded by {@link FhirClientMetrics}.
+ */
 @RegisterRestClient(configKey = "fhir-api")
+@RegisterProvider(FhirClientMetrics.class)
 @Produces(MediaType.APPLICATION_JSON)
+@Timeout(5000)
+@Retry(maxRetries = 2, delay = 200, jitter = 100, maxDuration = 15000)
+@ExponentialBackoff(factor = 2, maxDelay = 2000)
+@RetryWhen(exception = RetryableFhirFailure.class)
+@CircuitBreaker(requestVolumeThreshold = 20, failureRatio = 0.5, delay = 10000, successThreshold = 2)
+@Bulkhead(value = 20, waitingTaskQueue = 100)
 public interface FhirClient {
 
     @GET
@@ -16,12 +41,28 @@ public interface FhirClient {
 
     @GET
     @Path("/Patient/{id}")
+    @Timeout(2000)
     Uni<FhirBundle.FhirResource> getPatient(@PathParam("id") String id);
 
     @GET
     @Path("/Condition")
     Uni<FhirBundle> searchConditions(@QueryParam("code:text") String conditionText);
 
+    /**
+     * codes is a comma-separated list of tokens (system|code), any of which matches.
+     */
+    @GET
+    @Path("/Condition")
+    Uni<FhirBundle> searchConditionsByCode(@QueryParam("code") String codes);
+
+    /**
+     * Conditions with the code or any code below it; the FHIR server needs the
+     * code system loaded for this.
+     */
+    @GET
+    @Path("/Condition")
+    Uni<FhirBundle> searchConditionsByCodeBelow(@QueryParam("code:below") String code);
+
     // Practitioner methods
     @GET
     @Path("/Practitioner")
@@ -31,8 +72,18 @@ public interface FhirClient {
     @Path("/Practitioner")
     Uni<FhirBundle> searchPractitionerByIdentifier(@QueryParam("identifier") String identifier);
 
+    @GET
+    @Path("/Practitioner")
+    @Timeout(20000)
+    @Retry(maxRetries = 2, delay = 1000, jitter = 500, maxDuration = 60000)
+    Uni<FhirBundle> searchPractitionerIdentifiers(
+            @QueryParam("_elements") String elements,
+            @QueryParam("_count") int count
+    );
+
     @GET
     @Path("/Practitioner/{id}")
+    @Timeout(2000)
     Uni<FhirBundle.FhirResource> getPractitioner(@PathParam("id") String id);
 
     // Encounter methods
@@ -49,6 +100,52 @@ public interface FhirClient {
 
     @GET
     @Path("/Encounter")
-    Uni<FhirBundle> searchEncountersByPractitionerOnly(@QueryParam("practitioner") String practitionerId);
+    Uni<FhirBundle> searchEncountersByPractitionerOnly(
+            @QueryParam("practitioner") String practitionerId,
+            @QueryParam("_sort") String sort,
+            @QueryParam("_count") int count
+    );
 
-}
\ No newline at end of file
+    /**
+     * dateBounds are prefixed FHIR dates, e.g. ge2024-01-01 and le2024-01-07,
+     * each sent as its own date parameter.
+     */
+    @GET
+    @Path("/Encounter")
+    Uni<FhirBundle> searchEncountersByPractitionerInRange(
+            @QueryParam("practitioner") String practitionerId,
+            @QueryParam("date") List<String> dateBounds,
+            @QueryParam("_sort") String sort,
+            @QueryParam("_count") int count
+    );
+
+    // Change feed methods
+    @GET
+    @Path("/{type}")
+    @Timeout(20000)
+    @Retry(maxRetries = 2, delay = 1000, jitter = 500, maxDuration = 60000)
+    Uni<FhirBundle> searchAllByLastUpdated(
+            @PathParam("type") String resourceType,
+            @QueryParam("_sort") String sort,
+            @QueryParam("_count") int count
+    );
+
+    @GET
+    @Path("/{type}/_history")
+    @Timeout(20000)
+    @Retry(maxRetries = 2, delay = 1000, jitter = 500, maxDuration = 60000)
+    Uni<FhirBundle> history(
+            @PathParam("type") String resourceType,
+            @QueryParam("_since") String since,
+            @QueryParam("_count") int count
+    );
+
+    /**
+     * Follows a paging link; params are the query parameters of the link URL.
+     */
+    @GET
+    @Path("/")
+    @Timeout(20000)
+    @Retry(maxRetries = 2, delay = 1000, jitter = 500, maxDuration = 60000)
+    Uni<FhirBundle> loadPage(@RestQuery Map<String, String> params);
+}
@@ -0,0 +1,167 @@
+package org.journalsystem.client;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import jakarta.ws.rs.ext.ReaderInterceptor;
+import jakarta.ws.rs.ext.ReaderInterceptorContext;
+import org.journalsystem.dto.fhir.FhirBundle;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records one sample per FhirClient HTTP exchange, so retries show up as
+ * separate requests: latency until the body has been read
+ * (fhir.client.requests), response size (fhir.client.response.bytes) and, for
+ * searches, bundle entries (fhir.client.bundle.entries). All are tagged with the
+ * resource type and the client method. Time spent mapping the result is not
+ * included, so it can be compared with the server request timings.
+ */
+@ApplicationScoped
+public class FhirClientMetrics implements ClientRequestFilter, ClientResponseFilter, ReaderInterceptor {
+
+    static final String INVOKED_METHOD = "org.eclipse.microprofile.rest.client.invokedMethod";
+
+    private static final String START = FhirClientMetrics.class.getName() + ".start";
+    private static final String RESOURCE = FhirClientMetrics.class.getName() + ".resource";
+    private static final String STATUS = FhirClientMetrics.class.getName() + ".status";
+    private static final String RECORDED = FhirClientMetrics.class.getName() + ".recorded";
+
+    private static final Set<String> RESOURCE_TYPES = Set.of(
+            "Patient", "Practitioner", "Encounter", "Condition", "Observation");
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Override
+    public void filter(ClientRequestContext request) {
+        request.setProperty(START, System.nanoTime());
+        request.setProperty(RESOURCE, resourceType(request.getUri().getPath()));
+    }
+
+    @Override
+    public void filter(ClientRequestContext request, ClientResponseContext response) {
+        request.setProperty(STATUS, response.getStatus());
+        // Error responses are not read through the interceptor, so time them here
+        if (response.getStatus() >= 300 || !response.hasEntity()) {
+            record(request.getProperty(START), (String) request.getProperty(RESOURCE),
+                    operation(request.getProperty(INVOKED_METHOD)), response.getStatus());
+            request.setProperty(RECORDED, true);
+        }
+    }
+
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException {
+        CountingInputStream counting = new CountingInputStream(context.getInputStream());
+        context.setInputStream(counting);
+        Object entity = context.proceed();
+
+        if (context.getProperty(START) == null || context.getProperty(RECORDED) != null) {
+            return entity;
+        }
+        String resourceType = (String) context.getProperty(RESOURCE);
+        String operation = operation(context.getProperty(INVOKED_METHOD));
+        if (entity instanceof FhirBundle bundle) {
+            if ("other".equals(resourceType)) {
+                resourceType = bundleResourceType(bundle);
+            }
+            DistributionSummary.builder("fhir.client.bundle.entries")
+                    .tags("resource", resourceType, "operation", operation)
+                    .register(meterRegistry)
+                    .record(bundle.entry != null ? bundle.entry.size() : 0);
+        }
+        DistributionSummary.builder("fhir.client.response.bytes")
+                .baseUnit("bytes")
+                .tags("resource", resourceType, "operation", operation)
+                .register(meterRegistry)
+                .record(counting.count);
+        Object status = context.getProperty(STATUS);
+        record(context.getProperty(START), resourceType, operation, status instanceof Integer s ? s : 200);
+        return entity;
+    }
+
+    private void record(Object start, String resourceType, String operation, int status) {
+        if (!(start instanceof Long startNanos)) {
+            return;
+        }
+        Timer.builder("fhir.client.requests")
+                .description("FHIR server round trip, including reading the response body")
+                .tags("resource", resourceType, "operation", operation, "status", Integer.toString(status))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    static String resourceType(String path) {
+        if (path == null) {
+            return "other";
+        }
+        for (String segment : path.split("/")) {
+            if (RESOURCE_TYPES.contains(segment)) {
+                return segment;
+            }
+        }
+        return "other";
+    }
+
+    private static String operation(Object invokedMethod) {
+        return invokedMethod instanceof Method method ? method.getName() : "unknown";
+    }
+
+    /** Paged bundles do not name a type in the URL; take it from the entries. */
+    private static String bundleResourceType(FhirBundle bundle) {
+        if (bundle.entry != null) {
+            for (FhirBundle.BundleEntry entry : bundle.entry) {
+                if (entry.resource != null && entry.resource.resourceType != null) {
+                    return resourceType("/" + entry.resource.resourceType);
+                }
+            }
+        }
+        return "other";
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
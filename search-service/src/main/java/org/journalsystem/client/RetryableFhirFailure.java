@@ -0,0 +1,27 @@
+package org.journalsystem.client;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.WebApplicationException;
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
+
+import java.util.function.Predicate;
+
+/**
+ * Decides which failed FhirClient GETs are worth retrying: timeouts, connection
+ * failures and the HTTP statuses a busy or restarting server answers with.
+ * Other 4xx responses would fail the same way again.
+ */
+public class RetryableFhirFailure implements Predicate<Throwable> {
+
+    @Override
+    public boolean test(Throwable failure) {
+        if (failure instanceof TimeoutException || failure instanceof ProcessingException) {
+            return true;
+        }
+        if (failure instanceof WebApplicationException web && web.getResponse() != null) {
+            int status = web.getResponse().getStatus();
+            return status == 429 || status == 502 || status == 503 || status == 504;
+        }
+        return false;
+    }
+}
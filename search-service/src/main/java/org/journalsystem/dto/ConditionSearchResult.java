@@ -1,5 +1,8 @@
 package org.journalsystem.dto;
 
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@RegisterForReflection
 public record ConditionSearchResult(
         String id,
         String patientId,
@@ -0,0 +1,10 @@
+package org.journalsystem.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@RegisterForReflection
+public record DegradedResponse(
+        String error,
+        String reason,
+        boolean degraded
+) {}
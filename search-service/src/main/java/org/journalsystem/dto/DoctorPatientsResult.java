@@ -1,7 +1,10 @@
 package org.journalsystem.dto;
 
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
 import java.util.List;
 
+@RegisterForReflection
 public record DoctorPatientsResult(
         String doctorId,
         String doctorName,
@@ -1,24 +1,53 @@
 package org.journalsystem.dto.fhir;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
 import java.util.List;
 
+// Nested classes are registered too, for the native image
+@RegisterForReflection
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class FhirBundle {
     public String resourceType;
     public String type;
     public int total;
     public List<BundleEntry> entry;
+    public List<Link> link;
 
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class BundleEntry {
+        public String fullUrl;
         public FhirResource resource;
+
+        // For history bundles
+        public EntryRequest request;
+        public EntryResponse response;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Link {
+        public String relation;
+        public String url;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class EntryRequest {
+        public String method;
+        public String url;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class EntryResponse {
+        public String etag;
+        public String lastModified;
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class FhirResource {
         public String resourceType;
         public String id;
+        public Meta meta;
         public List<HumanName> name;
         public List<Identifier> identifier;
         public String birthDate;
@@ -36,6 +65,12 @@ public class FhirBundle {
         public List<Qualification> qualification;
     }
 
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Meta {
+        public String versionId;
+        public String lastUpdated;
+    }
+
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class HumanName {
         public List<String> given;
@@ -0,0 +1,10 @@
+package org.journalsystem.security;
+
+import java.time.Instant;
+
+public record SessionClaims(
+        Long userId,
+        String role,
+        String foreignId,
+        Instant expiresAt
+) {}
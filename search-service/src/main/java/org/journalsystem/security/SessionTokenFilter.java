@@ -0,0 +1,61 @@
+package org.journalsystem.security;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+
+import java.util.Optional;
+
+/**
+ * Requires a valid session token on the search endpoints when
+ * auth.token.enforce is on, answering 401 otherwise. The token is checked by
+ * {@link SessionTokenVerifier} without calling user-service and its claims are
+ * put on the request as {@link #CLAIMS_PROPERTY}.
+ */
+@ApplicationScoped
+public class SessionTokenFilter {
+
+    public static final String CLAIMS_PROPERTY = SessionClaims.class.getName();
+
+    static final String PROTECTED_PATH = "/api/search/";
+    static final String HEALTH_PATH = "/api/search/hello";
+
+    @Inject
+    SessionTokenVerifier verifier;
+
+    @ConfigProperty(name = "auth.token.enforce", defaultValue = "false")
+    boolean enforce;
+
+    void checkConfiguration(@Observes StartupEvent event) {
+        if (enforce && !verifier.isConfigured()) {
+            throw new IllegalStateException("auth.token.enforce needs auth.token.secret (AUTH_TOKEN_SECRET)");
+        }
+    }
+
+    @ServerRequestFilter
+    public Optional<Response> requireSessionToken(ContainerRequestContext request) {
+        String path = request.getUriInfo().getRequestUri().getPath();
+        if (!enforce
+                || HttpMethod.OPTIONS.equals(request.getMethod())
+                || !path.startsWith(PROTECTED_PATH)
+                || path.equals(HEALTH_PATH)) {
+            return Optional.empty();
+        }
+        Optional<SessionClaims> claims = verifier.verifyAuthorizationHeader(
+                request.getHeaderString(HttpHeaders.AUTHORIZATION));
+        if (claims.isEmpty()) {
+            return Optional.of(Response.status(Response.Status.UNAUTHORIZED)
+                    .header(HttpHeaders.WWW_AUTHENTICATE, "Bearer")
+                    .build());
+        }
+        request.setProperty(CLAIMS_PROPERTY, claims.get());
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,108 @@
+package org.journalsystem.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Verifies session tokens issued by user-service (compact JWS, HS256) locally,
+ * using the shared auth.token.secret, so requests can be authorized without a
+ * call to user-service. The signing key and a Mac per thread are created once.
+ * Without a secret the verifier is not configured and accepts no token.
+ */
+@ApplicationScoped
+public class SessionTokenVerifier {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    // user-service only issues HS256, so the header segment is a constant
+    private static final String HEADER = Base64.getUrlEncoder().withoutPadding().encodeToString(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @ConfigProperty(name = "auth.token.secret")
+    Optional<String> secret;
+
+    private ThreadLocal<Mac> macs;
+
+    @PostConstruct
+    void init() {
+        macs = secret.filter(value -> !value.isBlank()).map(SessionTokenVerifier::macsFor).orElse(null);
+    }
+
+    public boolean isConfigured() {
+        return macs != null;
+    }
+
+    public Optional<SessionClaims> verifyAuthorizationHeader(String authorizationHeader) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith(BEARER_PREFIX)) {
+            return Optional.empty();
+        }
+        return verify(authorizationHeader.substring(BEARER_PREFIX.length()).trim());
+    }
+
+    public Optional<SessionClaims> verify(String token) {
+        if (macs == null || token == null || !token.startsWith(HEADER + ".")) {
+            return Optional.empty();
+        }
+        int signatureStart = token.lastIndexOf('.');
+        if (signatureStart <= HEADER.length()) {
+            return Optional.empty();
+        }
+
+        try {
+            String signingInput = token.substring(0, signatureStart);
+            byte[] signature = DECODER.decode(token.substring(signatureStart + 1));
+            byte[] expected = macs.get().doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+            if (!MessageDigest.isEqual(expected, signature)) {
+                return Optional.empty();
+            }
+
+            JsonNode claims = objectMapper.readTree(DECODER.decode(signingInput.substring(HEADER.length() + 1)));
+            Instant expiresAt = Instant.ofEpochSecond(claims.path("exp").asLong());
+            if (!Instant.now().isBefore(expiresAt)) {
+                return Optional.empty();
+            }
+
+            return Optional.of(new SessionClaims(
+                    Long.valueOf(claims.path("sub").asText()),
+                    claims.path("role").asText(null),
+                    claims.path("fid").asText(null),
+                    expiresAt
+            ));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    private static ThreadLocal<Mac> macsFor(String secret) {
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < 32) {
+            throw new IllegalArgumentException("auth.token.secret must be at least 32 bytes");
+        }
+        SecretKeySpec key = new SecretKeySpec(secretBytes, ALGORITHM);
+        return ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 not available", e);
+            }
+        });
+    }
+}
@@ -0,0 +1,205 @@
+package org.journalsystem.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Maps condition search terms to SNOMED CT and ICD-10 codes, so a search like
+ * "Diabetes" can be sent as an indexed token search (code=system|code,...)
+ * instead of a code:text scan. Terms come from terminology/conditions.tsv and,
+ * if search.terminology.file is set, from that file as well. The parent column
+ * gives a small local hierarchy: a term also finds every code below its codes,
+ * which is what code:below would return without needing the code system loaded
+ * on the FHIR server. All lookups are answered from memory.
+ */
+@ApplicationScoped
+public class ConditionTerminology {
+
+    private static final Logger LOG = Logger.getLogger(ConditionTerminology.class);
+
+    public static final String SNOMED = "http://snomed.info/sct";
+    public static final String ICD10 = "http://hl7.org/fhir/sid/icd-10";
+
+    static final String RESOURCE = "terminology/conditions.tsv";
+
+    private static final Map<String, String> SYSTEM_ALIASES = Map.of(
+            "snomed", SNOMED,
+            "sct", SNOMED,
+            "icd10", ICD10,
+            "icd-10", ICD10);
+
+    @ConfigProperty(name = "search.terminology.file")
+    Optional<String> file;
+
+    private final Map<String, Set<String>> codesByTerm = new HashMap<>();
+    private final Map<String, List<String>> childrenByCode = new HashMap<>();
+    private volatile Map<String, List<String>> expandedByTerm = Map.of();
+
+    private record Concept(String system, String code, String parent, String display, List<String> terms) {}
+
+    @PostConstruct
+    void init() {
+        try (InputStream in = ConditionTerminology.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing " + RESOURCE);
+            }
+            load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (file.isPresent()) {
+            try (Reader reader = Files.newBufferedReader(Path.of(file.get()), StandardCharsets.UTF_8)) {
+                load(reader);
+            } catch (IOException e) {
+                LOG.warnf("Could not read condition terminology %s: %s", file.get(), e.getMessage());
+            }
+        }
+        LOG.infof("Condition terminology has %d search terms", expandedByTerm.size());
+    }
+
+    /**
+     * Adds the concepts in a terminology file; see conditions.tsv for the format.
+     */
+    synchronized void load(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int number = 0;
+        while ((line = lines.readLine()) != null) {
+            number++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            Concept concept = parse(line);
+            if (concept == null) {
+                LOG.warnf("Skipping invalid condition terminology line %d: %s", number, line);
+                continue;
+            }
+            add(concept);
+        }
+        expandedByTerm = expandAll();
+    }
+
+    /**
+     * Token search values (system|code) for a free-text condition term,
+     * including the codes below them; empty if the term is not known.
+     */
+    public List<String> resolve(String term) {
+        return term == null ? List.of() : expandedByTerm.getOrDefault(normalize(term), List.of());
+    }
+
+    /**
+     * The token and every token below it in the local hierarchy, or empty if
+     * the code is not known here.
+     */
+    public List<String> below(String token) {
+        String normalized = token(token);
+        if (!normalized.contains("|") || !isKnown(normalized)) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        collect(normalized, tokens);
+        return List.copyOf(tokens);
+    }
+
+    /**
+     * Normalizes a code as given by a caller: system|code with a full system URL
+     * or one of the aliases snomed/sct/icd10, or a bare code, which matches the
+     * code in any system.
+     */
+    public static String token(String code) {
+        String trimmed = code.trim();
+        int bar = trimmed.indexOf('|');
+        if (bar < 0) {
+            return trimmed;
+        }
+        String system = trimmed.substring(0, bar).trim();
+        String alias = SYSTEM_ALIASES.get(system.toLowerCase(Locale.ROOT));
+        return (alias != null ? alias : system) + "|" + trimmed.substring(bar + 1).trim();
+    }
+
+    static String normalize(String term) {
+        return term.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private boolean isKnown(String token) {
+        return childrenByCode.containsKey(token);
+    }
+
+    private void add(Concept concept) {
+        String token = concept.system() + "|" + concept.code();
+        childrenByCode.computeIfAbsent(token, key -> new ArrayList<>());
+        if (concept.parent() != null) {
+            List<String> siblings = childrenByCode.computeIfAbsent(concept.system() + "|" + concept.parent(),
+                    key -> new ArrayList<>());
+            if (!siblings.contains(token)) {
+                siblings.add(token);
+            }
+        }
+        codesByTerm.computeIfAbsent(normalize(concept.display()), key -> new LinkedHashSet<>()).add(token);
+        for (String term : concept.terms()) {
+            codesByTerm.computeIfAbsent(normalize(term), key -> new LinkedHashSet<>()).add(token);
+        }
+    }
+
+    private Map<String, List<String>> expandAll() {
+        Map<String, List<String>> expanded = new HashMap<>();
+        codesByTerm.forEach((term, codes) -> {
+            Set<String> tokens = new LinkedHashSet<>();
+            codes.forEach(code -> collect(code, tokens));
+            expanded.put(term, List.copyOf(tokens));
+        });
+        return Map.copyOf(expanded);
+    }
+
+    private void collect(String token, Set<String> tokens) {
+        if (tokens.add(token)) {
+            for (String child : childrenByCode.getOrDefault(token, List.of())) {
+                collect(child, tokens);
+            }
+        }
+    }
+
+    private static Concept parse(String line) {
+        String[] columns = line.split("\t", -1);
+        if (columns.length < 4) {
+            return null;
+        }
+        String system = SYSTEM_ALIASES.getOrDefault(columns[0].trim().toLowerCase(Locale.ROOT), columns[0].trim());
+        String code = columns[1].trim();
+        String display = columns[3].trim();
+        if (system.isEmpty() || code.isEmpty() || display.isEmpty()) {
+            return null;
+        }
+        String parent = columns[2].trim().isEmpty() ? null : columns[2].trim();
+        List<String> terms = new ArrayList<>();
+        if (columns.length > 4) {
+            for (String term : columns[4].split("\\|")) {
+                if (!term.isBlank()) {
+                    terms.add(term.trim());
+                }
+            }
+        }
+        return new Concept(system, code, parent, display, terms);
+    }
+}
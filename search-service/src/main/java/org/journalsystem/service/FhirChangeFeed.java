@@ -0,0 +1,335 @@
+package org.journalsystem.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.logging.Logger;
+import org.journalsystem.client.FhirClient;
+import org.journalsystem.dto.fhir.FhirBundle;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Keeps {@link LocalFhirStore} in sync with the FHIR server.
+ * The first sync pages through each resource type sorted by _lastUpdated; after
+ * that each poll only reads the type's _history since the high-water mark (the
+ * newest lastUpdated seen). The mark and the store are saved to one snapshot
+ * file, so a restart only has to catch up on what changed while it was down.
+ * Polls that change the store also rewrite the {@link PatientDirectory} and
+ * rebuild the {@link PatientNameMatcher} index.
+ */
+@ApplicationScoped
+public class FhirChangeFeed {
+
+    private static final Logger LOG = Logger.getLogger(FhirChangeFeed.class);
+
+    static final String SNAPSHOT_FILE = "search-snapshot.json";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(90);
+
+    @Inject
+    @RestClient
+    FhirClient fhirClient;
+
+    @Inject
+    LocalFhirStore store;
+
+    @Inject
+    PatientDirectory patientDirectory;
+
+    @Inject
+    PatientNameMatcher nameMatcher;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "search.changefeed.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "search.changefeed.data-dir", defaultValue = "data/changefeed")
+    String dataDir;
+
+    @ConfigProperty(name = "search.changefeed.page-size", defaultValue = "500")
+    int pageSize;
+
+    // Late-committing transactions can carry a lastUpdated slightly older than
+    // the mark, so every poll re-reads a short window. Re-applying is harmless.
+    @ConfigProperty(name = "search.changefeed.overlap", defaultValue = "5s")
+    Duration overlap;
+
+    private volatile Instant highWaterMark;
+    private boolean snapshotLoaded;
+
+    @RegisterForReflection
+    public static class Snapshot {
+        public String highWaterMark;
+        public List<FhirBundle.FhirResource> resources;
+    }
+
+    private record Change(String resourceType, String id, long version, Instant at, FhirBundle.FhirResource resource) {}
+
+    @Scheduled(every = "${search.changefeed.poll-interval:30s}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!snapshotLoaded) {
+                loadSnapshot();
+                snapshotLoaded = true;
+            }
+
+            int changes = highWaterMark == null ? fullSync() : pollHistory();
+            store.markReady();
+
+            if (changes > 0 || !Files.exists(snapshotPath())) {
+                saveSnapshot();
+            }
+            if (changes > 0 || !patientDirectory.isCurrent(highWaterMark)) {
+                patientDirectory.rebuild(store.getAll("Patient"), highWaterMark);
+            }
+            patientDirectory.markSynced(highWaterMark);
+            if (changes > 0 || !nameMatcher.isReady()) {
+                nameMatcher.rebuild(store.getAll("Patient"));
+            }
+        } catch (Exception e) {
+            LOG.errorf("FHIR change feed poll failed: %s", e.getMessage());
+        }
+    }
+
+    public Instant getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    int fullSync() {
+        store.clear();
+
+        Instant newest = Instant.EPOCH;
+        int count = 0;
+        for (String type : LocalFhirStore.RESOURCE_TYPES) {
+            FhirBundle page = await(fhirClient.searchAllByLastUpdated(type, "_lastUpdated", pageSize));
+            while (page != null) {
+                if (page.entry != null) {
+                    for (FhirBundle.BundleEntry entry : page.entry) {
+                        if (entry.resource == null) {
+                            continue;
+                        }
+                        store.upsert(entry.resource);
+                        count++;
+                        Instant lastUpdated = LocalFhirStore.lastUpdatedOf(entry.resource);
+                        if (lastUpdated != null && lastUpdated.isAfter(newest)) {
+                            newest = lastUpdated;
+                        }
+                    }
+                }
+                page = nextPage(page);
+            }
+        }
+
+        highWaterMark = newest;
+        LOG.infof("FHIR change feed synced %d resources, high-water mark %s", count, newest);
+        return count;
+    }
+
+    int pollHistory() {
+        String since = highWaterMark.minus(overlap).toString();
+
+        // Fetch every type before applying anything, so a failure part-way
+        // cannot move the mark past changes that were never read
+        List<FhirBundle.BundleEntry> entries = new ArrayList<>();
+        for (String type : LocalFhirStore.RESOURCE_TYPES) {
+            FhirBundle page = await(fhirClient.history(type, since, pageSize));
+            while (page != null) {
+                if (page.entry != null) {
+                    entries.addAll(page.entry);
+                }
+                page = nextPage(page);
+            }
+        }
+        return applyHistory(entries);
+    }
+
+    /**
+     * Applies history entries to the store. Only the newest version of each
+     * resource is applied; a newest version that is a delete removes it.
+     *
+     * @return number of resources that changed in the store
+     */
+    int applyHistory(List<FhirBundle.BundleEntry> entries) {
+        Map<String, Change> latest = new LinkedHashMap<>();
+        for (FhirBundle.BundleEntry entry : entries) {
+            Change change = toChange(entry);
+            if (change == null || !store.supports(change.resourceType())) {
+                continue;
+            }
+            latest.merge(change.resourceType() + "/" + change.id(), change,
+                    (a, b) -> isLater(b, a) ? b : a);
+        }
+
+        int changed = 0;
+        Instant newest = highWaterMark;
+        for (Change change : latest.values()) {
+            boolean applied = change.resource() != null
+                    ? store.upsert(change.resource())
+                    : store.remove(change.resourceType(), change.id());
+            if (applied) {
+                changed++;
+            }
+            if (change.at() != null && (newest == null || change.at().isAfter(newest))) {
+                newest = change.at();
+            }
+        }
+        highWaterMark = newest;
+        return changed;
+    }
+
+    void loadSnapshot() {
+        Path path = snapshotPath();
+        if (!Files.exists(path)) {
+            return;
+        }
+        try {
+            Snapshot snapshot = objectMapper.readValue(path.toFile(), Snapshot.class);
+            if (snapshot.highWaterMark == null || snapshot.resources == null) {
+                return;
+            }
+            snapshot.resources.forEach(store::upsert);
+            highWaterMark = Instant.parse(snapshot.highWaterMark);
+            LOG.infof("FHIR change feed restored %d resources, high-water mark %s",
+                    snapshot.resources.size(), snapshot.highWaterMark);
+        } catch (Exception e) {
+            LOG.warnf("Could not read FHIR change feed snapshot, doing a full sync: %s", e.getMessage());
+            store.clear();
+            highWaterMark = null;
+        }
+    }
+
+    void saveSnapshot() throws IOException {
+        Path path = snapshotPath();
+        Files.createDirectories(path.getParent());
+
+        Snapshot snapshot = new Snapshot();
+        snapshot.highWaterMark = highWaterMark.toString();
+        snapshot.resources = new ArrayList<>(store.size());
+        for (String type : LocalFhirStore.RESOURCE_TYPES) {
+            snapshot.resources.addAll(store.getAll(type));
+        }
+
+        Path tmp = path.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        objectMapper.copy()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .writeValue(tmp.toFile(), snapshot);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path snapshotPath() {
+        return Path.of(dataDir).resolve(SNAPSHOT_FILE);
+    }
+
+    private FhirBundle nextPage(FhirBundle page) {
+        if (page.link == null) {
+            return null;
+        }
+        for (FhirBundle.Link link : page.link) {
+            if ("next".equals(link.relation) && link.url != null) {
+                return await(fhirClient.loadPage(queryParams(link.url)));
+            }
+        }
+        return null;
+    }
+
+    private static FhirBundle await(Uni<FhirBundle> uni) {
+        return uni.await().atMost(REQUEST_TIMEOUT);
+    }
+
+    static Map<String, String> queryParams(String url) {
+        Map<String, String> params = new LinkedHashMap<>();
+        String query = URI.create(url).getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static Change toChange(FhirBundle.BundleEntry entry) {
+        boolean deleted = entry.request != null && "DELETE".equalsIgnoreCase(entry.request.method);
+
+        String type;
+        String id;
+        long version = 0L;
+        Instant at;
+        FhirBundle.FhirResource resource = null;
+        if (entry.resource != null && !deleted) {
+            resource = entry.resource;
+            type = resource.resourceType;
+            id = resource.id;
+            Long resourceVersion = LocalFhirStore.versionOf(resource);
+            version = resourceVersion != null ? resourceVersion : 0L;
+            at = LocalFhirStore.lastUpdatedOf(resource);
+        } else {
+            String url = entry.request != null && entry.request.url != null ? entry.request.url : entry.fullUrl;
+            if (url == null) {
+                return null;
+            }
+            // [base/]Type/id[/_history/version]
+            String[] parts = url.split("/");
+            int historyAt = Arrays.asList(parts).indexOf("_history");
+            int idAt = historyAt > 0 ? historyAt - 1 : parts.length - 1;
+            if (idAt < 1) {
+                return null;
+            }
+            type = parts[idAt - 1];
+            id = parts[idAt];
+            if (historyAt > 0 && historyAt + 1 < parts.length) {
+                version = parseDigits(parts[historyAt + 1]);
+            }
+            at = entry.response != null ? LocalFhirStore.parseInstant(entry.response.lastModified) : null;
+        }
+
+        if (version == 0L && entry.response != null && entry.response.etag != null) {
+            version = parseDigits(entry.response.etag);
+        }
+        if (type == null || id == null) {
+            return null;
+        }
+        return new Change(type, id, version, at, resource);
+    }
+
+    private static boolean isLater(Change candidate, Change current) {
+        if (candidate.version() != current.version()) {
+            return candidate.version() > current.version();
+        }
+        return candidate.at() != null && current.at() != null && candidate.at().isAfter(current.at());
+    }
+
+    /** Version from an ETag such as W/"3" or a plain number; 0 if there is none. */
+    private static long parseDigits(String value) {
+        String digits = value.replaceAll("[^0-9]", "");
+        try {
+            return digits.isEmpty() ? 0L : Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.journalsystem.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.journalsystem.dto.fhir.FhirBundle;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local copy of the FHIR resources search results are built from, kept current
+ * by {@link FhirChangeFeed}. Lookups that hit the store need no remote call.
+ */
+@ApplicationScoped
+public class LocalFhirStore {
+
+    static final List<String> RESOURCE_TYPES = List.of("Patient", "Practitioner");
+
+    private final Map<String, Map<String, FhirBundle.FhirResource>> resources = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public LocalFhirStore() {
+        for (String type : RESOURCE_TYPES) {
+            resources.put(type, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * True once the change feed has completed a full sync.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    public FhirBundle.FhirResource get(String resourceType, String id) {
+        Map<String, FhirBundle.FhirResource> ofType = resources.get(resourceType);
+        return ofType != null && id != null ? ofType.get(id) : null;
+    }
+
+    public List<FhirBundle.FhirResource> getAll(String resourceType) {
+        Map<String, FhirBundle.FhirResource> ofType = resources.get(resourceType);
+        return ofType != null ? List.copyOf(ofType.values()) : List.of();
+    }
+
+    public boolean supports(String resourceType) {
+        return resources.containsKey(resourceType);
+    }
+
+    /**
+     * Stores the resource unless an equal or newer version is already present.
+     *
+     * @return true if the stored view changed
+     */
+    public boolean upsert(FhirBundle.FhirResource resource) {
+        Map<String, FhirBundle.FhirResource> ofType = resources.get(resource.resourceType);
+        if (ofType == null || resource.id == null) {
+            return false;
+        }
+        boolean[] changed = {false};
+        ofType.compute(resource.id, (id, existing) -> {
+            if (existing != null && !isNewer(resource, existing)) {
+                return existing;
+            }
+            changed[0] = true;
+            return resource;
+        });
+        return changed[0];
+    }
+
+    public boolean remove(String resourceType, String id) {
+        Map<String, FhirBundle.FhirResource> ofType = resources.get(resourceType);
+        return ofType != null && id != null && ofType.remove(id) != null;
+    }
+
+    public void clear() {
+        resources.values().forEach(Map::clear);
+    }
+
+    public int size() {
+        return resources.values().stream().mapToInt(Map::size).sum();
+    }
+
+    static Long versionOf(FhirBundle.FhirResource resource) {
+        if (resource.meta == null || resource.meta.versionId == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(resource.meta.versionId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static Instant lastUpdatedOf(FhirBundle.FhirResource resource) {
+        return resource.meta != null ? parseInstant(resource.meta.lastUpdated) : null;
+    }
+
+    static Instant parseInstant(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static boolean isNewer(FhirBundle.FhirResource incoming, FhirBundle.FhirResource existing) {
+        Long incomingVersion = versionOf(incoming);
+        Long existingVersion = versionOf(existing);
+        if (incomingVersion != null && existingVersion != null) {
+            return incomingVersion > existingVersion;
+        }
+        Instant incomingUpdated = lastUpdatedOf(incoming);
+        Instant existingUpdated = lastUpdatedOf(existing);
+        if (incomingUpdated != null && existingUpdated != null) {
+            return incomingUpdated.isAfter(existingUpdated);
+        }
+        return true;
+    }
+}
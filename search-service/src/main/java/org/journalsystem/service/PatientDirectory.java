@@ -0,0 +1,359 @@
+package org.journalsystem.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.journalsystem.dto.PatientSearchResult;
+import org.journalsystem.dto.fhir.FhirBundle;
+import org.journalsystem.mapper.FhirMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Patient lookup by name or personnummer prefix from a memory-mapped file, so
+ * the directory costs almost no heap. A file left by the previous run is mapped
+ * at startup but only served once a completed change feed poll has confirmed
+ * it is current, so a stale file is never answered from. The file holds fixed-width patient records followed by a sorted
+ * array of fixed-width keys (normalized name forms and personnummer digits,
+ * each with its record number); a prefix search is a binary search for the
+ * first key followed by a scan. {@link FhirChangeFeed} writes a new file after
+ * every poll that changed the store and the mapping is swapped atomically.
+ */
+@ApplicationScoped
+public class PatientDirectory {
+
+    private static final Logger LOG = Logger.getLogger(PatientDirectory.class);
+
+    static final String FILE = "patient-directory.bin";
+
+    private static final int MAGIC = 0x50444952; // PDIR
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    // Record: id, first name, last name, personnummer, birth date, zero-padded UTF-8
+    private static final int[] FIELD_SIZES = {64, 64, 64, 32, 16};
+    private static final int RECORD_SIZE = 256;
+
+    // Key: zero-padded UTF-8, then the record number
+    private static final int KEY_BYTES = 36;
+    private static final int KEY_SIZE = KEY_BYTES + Integer.BYTES;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NON_DIGITS = Pattern.compile("[^0-9]");
+    private static final Pattern PERSONNUMMER_QUERY = Pattern.compile("[0-9 +-]+");
+
+    @ConfigProperty(name = "search.patient-directory.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "search.patient-directory.max-results", defaultValue = "100")
+    int maxResults;
+
+    @ConfigProperty(name = "search.changefeed.data-dir", defaultValue = "data/changefeed")
+    String dataDir;
+
+    private volatile Mapped mapped;
+    private volatile boolean synced;
+
+    private record Mapped(MappedByteBuffer buffer, long highWaterMark, int records, int keys) {
+
+        int keyOffset(int key) {
+            return HEADER_SIZE + records * RECORD_SIZE + key * KEY_SIZE;
+        }
+    }
+
+    private record Key(byte[] bytes, int record) {}
+
+    @PostConstruct
+    void init() {
+        Path path = path();
+        if (!enabled || !Files.exists(path)) {
+            return;
+        }
+        try {
+            mapped = map(path);
+            LOG.infof("Patient directory opened with %d patients", mapped.records());
+        } catch (IOException | RuntimeException e) {
+            LOG.warnf("Could not open patient directory %s, it is rebuilt on the next change feed poll: %s",
+                    path, e.getMessage());
+        }
+    }
+
+    public boolean isOpen() {
+        return mapped != null;
+    }
+
+    /**
+     * True once the open file has been confirmed by {@link #markSynced}.
+     */
+    public boolean isReady() {
+        return mapped != null && synced;
+    }
+
+    /**
+     * Called after every completed change feed poll; from then on searches are
+     * served if the open file was written at the poll's high-water mark.
+     */
+    public void markSynced(Instant highWaterMark) {
+        synced = mapped != null && isCurrent(highWaterMark);
+    }
+
+    /**
+     * True if the open file was written at this change feed high-water mark.
+     */
+    public boolean isCurrent(Instant highWaterMark) {
+        Mapped current = mapped;
+        return !enabled || current != null && highWaterMark != null
+                && current.highWaterMark() == highWaterMark.toEpochMilli();
+    }
+
+    /**
+     * Patients with a name part, "given family", "family given" or personnummer
+     * starting with the query, at most max-results, in key order.
+     */
+    public List<PatientSearchResult> search(String query) {
+        Mapped current = mapped;
+        if (current == null || query == null) {
+            return List.of();
+        }
+        byte[] prefix = searchKey(query);
+        if (prefix.length == 0) {
+            return List.of();
+        }
+
+        List<PatientSearchResult> results = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        for (int key = lowerBound(current, prefix); key < current.keys(); key++) {
+            int offset = current.keyOffset(key);
+            if (!startsWith(current.buffer(), offset, prefix)) {
+                break;
+            }
+            int record = current.buffer().getInt(offset + KEY_BYTES);
+            if (seen.add(record)) {
+                results.add(readRecord(current, record));
+                if (results.size() >= maxResults) {
+                    break;
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Writes a new directory file for the patients and maps it in place of the
+     * current one.
+     */
+    public synchronized void rebuild(Collection<FhirBundle.FhirResource> patients, Instant highWaterMark)
+            throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path path = path();
+        Files.createDirectories(path.getParent());
+        Path tmp = path.resolveSibling(FILE + ".tmp");
+        int written = write(tmp, patients, highWaterMark);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // The previous mapping stays valid for searches still using it
+        mapped = map(path);
+        LOG.debugf("Patient directory rebuilt with %d patients", written);
+    }
+
+    static int write(Path path, Collection<FhirBundle.FhirResource> patients, Instant highWaterMark)
+            throws IOException {
+        List<PatientSearchResult> records = patients.stream()
+                .map(FhirMapper::toPatientSearchResult)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(PatientSearchResult::id))
+                .toList();
+
+        List<Key> keys = new ArrayList<>();
+        for (int record = 0; record < records.size(); record++) {
+            for (byte[] key : keysOf(records.get(record))) {
+                keys.add(new Key(key, record));
+            }
+        }
+        keys.sort((a, b) -> {
+            int order = Arrays.compareUnsigned(a.bytes(), b.bytes());
+            return order != 0 ? order : Integer.compare(a.record(), b.record());
+        });
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(highWaterMark != null ? highWaterMark.toEpochMilli() : -1);
+            out.writeInt(records.size());
+            out.writeInt(keys.size());
+            out.write(new byte[HEADER_SIZE - 24]);
+
+            for (PatientSearchResult record : records) {
+                String[] fields = {record.id(), record.firstName(), record.lastName(),
+                        record.socialSecurityNumber(), record.dateOfBirth()};
+                int used = 0;
+                for (int i = 0; i < fields.length; i++) {
+                    out.write(fixed(utf8(fields[i]), FIELD_SIZES[i]));
+                    used += FIELD_SIZES[i];
+                }
+                out.write(new byte[RECORD_SIZE - used]);
+            }
+            for (Key key : keys) {
+                out.write(fixed(key.bytes(), KEY_BYTES));
+                out.writeInt(key.record());
+            }
+        }
+        return records.size();
+    }
+
+    /**
+     * Key forms a patient is found by; all lower case, truncated to the key width.
+     */
+    static Set<byte[]> keysOf(PatientSearchResult patient) {
+        Set<String> forms = new LinkedHashSet<>();
+        String given = normalize(patient.firstName());
+        String family = normalize(patient.lastName());
+        for (String part : (given + " " + family).split(" ")) {
+            if (!part.isEmpty()) {
+                forms.add(part);
+            }
+        }
+        if (!given.isEmpty() && !family.isEmpty()) {
+            forms.add(given + " " + family);
+            forms.add(family + " " + given);
+        }
+        String digits = digits(patient.socialSecurityNumber());
+        if (!digits.isEmpty()) {
+            forms.add(digits);
+            if (digits.length() == 12) {
+                // Also findable without the century
+                forms.add(digits.substring(2));
+            }
+        }
+
+        Set<byte[]> keys = new TreeSet<>(Arrays::compareUnsigned);
+        for (String form : forms) {
+            keys.add(truncate(form.getBytes(StandardCharsets.UTF_8), KEY_BYTES));
+        }
+        return keys;
+    }
+
+    /**
+     * The key a query is looked up by: personnummer digits if it looks like
+     * one, otherwise the normalized name.
+     */
+    static byte[] searchKey(String query) {
+        String trimmed = query.trim();
+        String key = PERSONNUMMER_QUERY.matcher(trimmed).matches() ? digits(trimmed) : normalize(trimmed);
+        return truncate(key.getBytes(StandardCharsets.UTF_8), KEY_BYTES);
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : WHITESPACE.matcher(value.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String digits(String value) {
+        return value == null ? "" : NON_DIGITS.matcher(value).replaceAll("");
+    }
+
+    private static Mapped map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (channel.size() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("not a patient directory file");
+            }
+            Mapped mapped = new Mapped(buffer, buffer.getLong(8), buffer.getInt(16), buffer.getInt(20));
+            if (mapped.keyOffset(mapped.keys()) != channel.size()) {
+                throw new IOException("patient directory file is truncated");
+            }
+            return mapped;
+        }
+    }
+
+    private static int lowerBound(Mapped mapped, byte[] prefix) {
+        int low = 0;
+        int high = mapped.keys();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(mapped.buffer(), mapped.keyOffset(mid), prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares a stored key with a prefix, where a key that starts with the
+     * prefix counts as equal.
+     */
+    private static int compare(ByteBuffer buffer, int offset, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            int order = Integer.compare(Byte.toUnsignedInt(buffer.get(offset + i)), Byte.toUnsignedInt(prefix[i]));
+            if (order != 0) {
+                return order;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, int offset, byte[] prefix) {
+        return compare(buffer, offset, prefix) == 0;
+    }
+
+    private static PatientSearchResult readRecord(Mapped mapped, int record) {
+        int offset = HEADER_SIZE + record * RECORD_SIZE;
+        String[] fields = new String[FIELD_SIZES.length];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = readString(mapped.buffer(), offset, FIELD_SIZES[i]);
+            offset += FIELD_SIZES[i];
+        }
+        return new PatientSearchResult(fields[0], fields[1], fields[2], fields[3],
+                fields[4].isEmpty() ? null : fields[4]);
+    }
+
+    private static String readString(ByteBuffer buffer, int offset, int size) {
+        byte[] bytes = new byte[size];
+        buffer.get(offset, bytes);
+        int length = 0;
+        while (length < size && bytes[length] != 0) {
+            length++;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] fixed(byte[] bytes, int size) {
+        return Arrays.copyOf(truncate(bytes, size), size);
+    }
+
+    /** Cuts to at most max bytes without splitting a UTF-8 character. */
+    private static byte[] truncate(byte[] bytes, int max) {
+        if (bytes.length <= max) {
+            return bytes;
+        }
+        int length = max;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private Path path() {
+        return Path.of(dataDir).resolve(FILE);
+    }
+}
@@ -0,0 +1,444 @@
+package org.journalsystem.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.journalsystem.dto.PatientSearchResult;
+import org.journalsystem.dto.fhir.FhirBundle;
+import org.journalsystem.mapper.FhirMapper;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Forgiving patient name search over an in-memory index of the patients in
+ * {@link LocalFhirStore}, for when a prefix search finds nothing, e.g.
+ * "Anderson" for Andersson, "Carlson" for Karlsson or a typo.
+ * Every query word is matched against the indexed name words by prefix,
+ * Swedish phonetic key, edit distance and shared trigrams; a patient is found
+ * if every query word matched one of their name words, and ranked by the mean
+ * of the best match per word. The slower steps are skipped once the latency
+ * budget is spent, so a search returns what the cheaper steps found in time.
+ */
+@ApplicationScoped
+public class PatientNameMatcher {
+
+    private static final Logger LOG = Logger.getLogger(PatientNameMatcher.class);
+
+    static final double EXACT = 1.0;
+    static final double PREFIX = 0.9;
+    static final double PHONETIC = 0.85;
+    static final double ONE_EDIT = 0.8;
+    static final double TWO_EDITS = 0.65;
+    static final double TRIGRAMS = 0.75;
+    private static final double MIN_TRIGRAM_SIMILARITY = 0.5;
+
+    private static final int MAX_WORD_LENGTH = 40;
+    private static final int BUDGET_CHECK_INTERVAL = 256;
+
+    private static final Comparator<Match> RANKING = Comparator.comparingDouble(Match::score).reversed()
+            .thenComparing(match -> match.patient().lastName(), Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(match -> match.patient().firstName(), Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(match -> match.patient().id());
+
+    // Swedish spelling of sounds, tried in order. The sj-sound is written #, the tj-sound ç.
+    private static final Rule[] SWEDISH_RULES = {
+            new Rule("sch|skj|stj|sj", "#"),
+            new Rule("sk(?=[eiyäö])", "#"),
+            new Rule("ch(?=[rl])", "k"),
+            new Rule("ch", "#"),
+            new Rule("tj|kj", "ç"),
+            new Rule("^k(?=[eiyäö])", "ç"),
+            new Rule("^(dj|gj|hj|lj)", "j"),
+            new Rule("^g(?=[eiyäö])", "j")
+    };
+
+    // The same names read without soft k/g/sk, as names of other origin usually are (Kevin, Gerald)
+    private static final Rule[] HARD_RULES = {
+            new Rule("sch|skj|stj|sj", "#"),
+            new Rule("ch", "k"),
+            new Rule("tj|kj", "ç"),
+            new Rule("^(dj|gj|hj|lj)", "j")
+    };
+
+    private static final Rule[] SPELLING_RULES = {
+            new Rule("ph", "f"),
+            new Rule("th", "t"),
+            new Rule("dt", "t"),
+            new Rule("ck", "k"),
+            new Rule("qu", "kv"),
+            new Rule("q", "k"),
+            new Rule("x", "ks"),
+            new Rule("c(?=[eiyäö])", "s"),
+            new Rule("c", "k"),
+            new Rule("z", "s"),
+            new Rule("w", "v"),
+            new Rule("(?<=.)h", "")
+    };
+
+    @ConfigProperty(name = "search.name-matcher.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "search.name-matcher.max-results", defaultValue = "25")
+    int maxResults;
+
+    @ConfigProperty(name = "search.name-matcher.min-score", defaultValue = "0.6")
+    double minScore;
+
+    @ConfigProperty(name = "search.name-matcher.budget", defaultValue = "50ms")
+    Duration budget;
+
+    private volatile Index index;
+
+    private record Rule(Pattern pattern, String replacement) {
+
+        Rule(String regex, String replacement) {
+            this(Pattern.compile(regex), replacement);
+        }
+
+        String apply(String value) {
+            return pattern.matcher(value).replaceAll(replacement);
+        }
+    }
+
+    /**
+     * Name words in sorted order, each with the patients that have it and its
+     * number of trigrams, plus the words by phonetic key and by trigram.
+     */
+    private record Index(PatientSearchResult[] patients, String[] words, int[][] patientsByWord,
+                         int[] trigramCounts, Map<String, int[]> wordsByPhoneticKey,
+                         Map<String, int[]> wordsByTrigram) {}
+
+    private record Match(PatientSearchResult patient, double score) {}
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    /**
+     * Replaces the index with one over these patients.
+     */
+    public void rebuild(Collection<FhirBundle.FhirResource> resources) {
+        if (!enabled) {
+            return;
+        }
+        PatientSearchResult[] patients = resources.stream()
+                .map(FhirMapper::toPatientSearchResult)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(PatientSearchResult::id))
+                .toArray(PatientSearchResult[]::new);
+
+        Map<String, List<Integer>> patientsOfWord = new HashMap<>();
+        for (int patient = 0; patient < patients.length; patient++) {
+            for (String word : nameWords(patients[patient])) {
+                List<Integer> withWord = patientsOfWord.computeIfAbsent(word, w -> new ArrayList<>());
+                if (withWord.isEmpty() || withWord.get(withWord.size() - 1) != patient) {
+                    withWord.add(patient);
+                }
+            }
+        }
+
+        String[] words = patientsOfWord.keySet().toArray(String[]::new);
+        Arrays.sort(words);
+        int[][] patientsByWord = new int[words.length][];
+        int[] trigramCounts = new int[words.length];
+        Map<String, List<Integer>> byKey = new HashMap<>();
+        Map<String, List<Integer>> byTrigram = new HashMap<>();
+        for (int word = 0; word < words.length; word++) {
+            patientsByWord[word] = patientsOfWord.get(words[word]).stream().mapToInt(Integer::intValue).toArray();
+            for (String key : phoneticKeys(words[word])) {
+                byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(word);
+            }
+            Set<String> trigrams = trigrams(words[word]);
+            trigramCounts[word] = trigrams.size();
+            for (String trigram : trigrams) {
+                byTrigram.computeIfAbsent(trigram, t -> new ArrayList<>()).add(word);
+            }
+        }
+
+        index = new Index(patients, words, patientsByWord, trigramCounts, toArrays(byKey), toArrays(byTrigram));
+        LOG.debugf("Patient name matcher indexed %d patients with %d name words", patients.length, words.length);
+    }
+
+    /**
+     * Patients matching every word of the query, best match first, at most
+     * max-results and none scoring below min-score.
+     */
+    public List<PatientSearchResult> search(String query) {
+        Index current = index;
+        if (current == null || query == null) {
+            return List.of();
+        }
+        List<String> queryWords = words(query);
+        if (queryWords.isEmpty()) {
+            return List.of();
+        }
+        long deadline = System.nanoTime() + budget.toNanos();
+
+        // Best score of each query word per patient; patients missing a word are dropped
+        Map<Integer, double[]> scores = new HashMap<>();
+        for (int i = 0; i < queryWords.size(); i++) {
+            Map<Integer, Double> wordScores = matchWord(current, queryWords.get(i), deadline);
+            Map<Integer, double[]> next = new HashMap<>();
+            for (Map.Entry<Integer, Double> word : wordScores.entrySet()) {
+                for (int patient : current.patientsByWord()[word.getKey()]) {
+                    double[] perWord = i == 0
+                            ? next.computeIfAbsent(patient, p -> new double[queryWords.size()])
+                            : scores.get(patient);
+                    if (perWord == null) {
+                        continue;
+                    }
+                    perWord[i] = Math.max(perWord[i], word.getValue());
+                    next.put(patient, perWord);
+                }
+            }
+            scores = next;
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (Map.Entry<Integer, double[]> entry : scores.entrySet()) {
+            double score = Arrays.stream(entry.getValue()).average().orElse(0);
+            if (score >= minScore) {
+                matches.add(new Match(current.patients()[entry.getKey()], score));
+            }
+        }
+        return matches.stream()
+                .sorted(RANKING)
+                .limit(maxResults)
+                .map(Match::patient)
+                .toList();
+    }
+
+    /**
+     * Indexed words similar to a query word, with how well they match.
+     */
+    private Map<Integer, Double> matchWord(Index current, String queryWord, long deadline) {
+        Map<Integer, Double> matched = new HashMap<>();
+        String[] words = current.words();
+
+        int from = Arrays.binarySearch(words, queryWord);
+        for (int word = from >= 0 ? from : -from - 1; word < words.length && words[word].startsWith(queryWord); word++) {
+            matched.put(word, words[word].equals(queryWord) ? EXACT : PREFIX);
+        }
+
+        for (String key : phoneticKeys(queryWord)) {
+            for (int word : current.wordsByPhoneticKey().getOrDefault(key, new int[0])) {
+                matched.merge(word, PHONETIC, Math::max);
+            }
+        }
+
+        int maxEdits = maxEdits(queryWord);
+        if (maxEdits > 0 && !budgetSpent(deadline, queryWord, "edit distance")) {
+            withinEdits(words, queryWord, maxEdits, deadline,
+                    (word, edits) -> matched.merge(word, edits == 1 ? ONE_EDIT : TWO_EDITS, Math::max));
+        }
+
+        if (!budgetSpent(deadline, queryWord, "trigrams")) {
+            Set<String> queryTrigrams = trigrams(queryWord);
+            int[] shared = new int[words.length];
+            for (String trigram : queryTrigrams) {
+                for (int word : current.wordsByTrigram().getOrDefault(trigram, new int[0])) {
+                    shared[word]++;
+                }
+            }
+            for (int word = 0; word < words.length; word++) {
+                if (shared[word] == 0) {
+                    continue;
+                }
+                // Dice coefficient: shared trigrams over the trigrams of both words
+                double similarity = 2.0 * shared[word] / (queryTrigrams.size() + current.trigramCounts()[word]);
+                if (similarity >= MIN_TRIGRAM_SIMILARITY) {
+                    matched.merge(word, TRIGRAMS * similarity, Math::max);
+                }
+            }
+        }
+        return matched;
+    }
+
+    interface EditMatch {
+        void accept(int word, int edits);
+    }
+
+    /**
+     * Levenshtein automaton run over the sorted words: one row of edit
+     * distances per character of the word, and words sharing a prefix with the
+     * previous word reuse its rows. Once every cell of a row exceeds maxEdits
+     * no word with that prefix can match, so they are skipped without work.
+     */
+    static void withinEdits(String[] words, String query, int maxEdits, long deadline, EditMatch found) {
+        int length = query.length();
+        int[][] rows = new int[MAX_WORD_LENGTH + 1][length + 1];
+        for (int j = 0; j <= length; j++) {
+            rows[0][j] = j;
+        }
+
+        String previous = "";
+        int deadAt = Integer.MAX_VALUE;
+        for (int word = 0; word < words.length; word++) {
+            if (word % BUDGET_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                return;
+            }
+            String candidate = words[word];
+            int common = commonPrefix(previous, candidate);
+            previous = candidate;
+            if (common >= deadAt) {
+                continue;
+            }
+            deadAt = Integer.MAX_VALUE;
+
+            int size = Math.min(candidate.length(), MAX_WORD_LENGTH);
+            for (int i = common + 1; i <= size; i++) {
+                int[] above = rows[i - 1];
+                int[] row = rows[i];
+                row[0] = i;
+                int best = i;
+                char c = candidate.charAt(i - 1);
+                for (int j = 1; j <= length; j++) {
+                    int cost = query.charAt(j - 1) == c ? 0 : 1;
+                    row[j] = Math.min(Math.min(row[j - 1] + 1, above[j] + 1), above[j - 1] + cost);
+                    best = Math.min(best, row[j]);
+                }
+                if (best > maxEdits) {
+                    deadAt = i;
+                    break;
+                }
+            }
+            if (deadAt == Integer.MAX_VALUE && rows[size][length] <= maxEdits) {
+                found.accept(word, rows[size][length]);
+            }
+        }
+    }
+
+    /**
+     * Phonetic keys of a name word, Cologne-style: letters that sound alike
+     * share a digit, repeated digits collapse and vowels after the first
+     * letter are dropped. Like Double Metaphone there is a second key when
+     * the word reads differently as a non-Swedish name.
+     */
+    static Set<String> phoneticKeys(String word) {
+        Set<String> keys = new LinkedHashSet<>(2);
+        keys.add(encode(apply(apply(word, SWEDISH_RULES), SPELLING_RULES)));
+        keys.add(encode(apply(apply(word, HARD_RULES), SPELLING_RULES)));
+        keys.remove("");
+        return keys;
+    }
+
+    private static String apply(String value, Rule[] rules) {
+        for (Rule rule : rules) {
+            value = rule.apply(value);
+        }
+        return value;
+    }
+
+    private static String encode(String sounds) {
+        StringBuilder key = new StringBuilder(sounds.length());
+        char last = 0;
+        for (int i = 0; i < sounds.length(); i++) {
+            char code = code(sounds.charAt(i));
+            if (code != 0 && code != last && (code != '0' || key.isEmpty())) {
+                key.append(code);
+            }
+            if (code != 0) {
+                last = code;
+            }
+        }
+        return key.toString();
+    }
+
+    private static char code(char c) {
+        return switch (c) {
+            case 'a', 'e', 'i', 'o', 'u', 'y', 'å', 'ä', 'ö', 'h' -> '0';
+            case 'b', 'p' -> '1';
+            case 'd', 't' -> '2';
+            case 'f', 'v' -> '3';
+            case 'g', 'k' -> '4';
+            case 'j' -> '5';
+            case 'l' -> '6';
+            case 'm', 'n' -> '7';
+            case 'r' -> '8';
+            case 's' -> '9';
+            case '#' -> 'S';
+            case 'ç' -> 'C';
+            default -> 0;
+        };
+    }
+
+    /** Distinct trigrams of a word padded with a space at each end. */
+    static Set<String> trigrams(String word) {
+        String padded = " " + word + " ";
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    static int maxEdits(String word) {
+        return word.length() <= 3 ? 0 : word.length() <= 8 ? 1 : 2;
+    }
+
+    private static List<String> nameWords(PatientSearchResult patient) {
+        List<String> words = new ArrayList<>(words(patient.firstName()));
+        words.addAll(words(patient.lastName()));
+        return words;
+    }
+
+    /**
+     * Lower-case words of a name; accents are dropped except on å, ä and ö,
+     * and hyphens and other punctuation separate words.
+     */
+    static List<String> words(String value) {
+        if (value == null) {
+            return List.of();
+        }
+        StringBuilder folded = new StringBuilder(value.length());
+        for (char c : value.toLowerCase(Locale.ROOT).toCharArray()) {
+            switch (c) {
+                case 'å', 'ä', 'ö' -> folded.append(c);
+                case 'æ' -> folded.append('ä');
+                case 'ø' -> folded.append('ö');
+                case 'ü' -> folded.append('y');
+                case '\'', '’' -> { }
+                default -> {
+                    char base = c < 128 ? c : Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+                    folded.append(base < 128 && Character.isLetter(base) ? base : ' ');
+                }
+            }
+        }
+        List<String> words = new ArrayList<>();
+        for (String word : folded.toString().split(" ")) {
+            if (!word.isEmpty()) {
+                words.add(word.length() > MAX_WORD_LENGTH ? word.substring(0, MAX_WORD_LENGTH) : word);
+            }
+        }
+        return words;
+    }
+
+    private static int commonPrefix(String a, String b) {
+        int max = Math.min(Math.min(a.length(), b.length()), MAX_WORD_LENGTH);
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean budgetSpent(long deadline, String queryWord, String step) {
+        if (System.nanoTime() <= deadline) {
+            return false;
+        }
+        LOG.debugf("Patient name matcher skipped %s for '%s', latency budget spent", step, queryWord);
+        return true;
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> lists) {
+        Map<String, int[]> arrays = new HashMap<>(lists.size() * 2);
+        lists.forEach((key, list) -> arrays.put(key, list.stream().mapToInt(Integer::intValue).toArray()));
+        return arrays;
+    }
+}
@@ -0,0 +1,147 @@
+package org.journalsystem.service;
+
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.logging.Logger;
+import org.journalsystem.client.FhirClient;
+import org.journalsystem.dto.fhir.FhirBundle;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches practitioner identifier (personnummer) to FHIR id lookups.
+ * Misses are cached too, with a shorter TTL, so repeated searches for an unknown
+ * identifier do not hit the FHIR server each time; lookup failures are not cached.
+ * Concurrent misses for the same identifier share one FHIR request.
+ */
+@ApplicationScoped
+public class PractitionerIdCache {
+
+    private static final Logger LOG = Logger.getLogger(PractitionerIdCache.class);
+
+    @Inject
+    @RestClient
+    FhirClient fhirClient;
+
+    @ConfigProperty(name = "search.practitioner-id-cache.ttl", defaultValue = "6h")
+    Duration ttl;
+
+    @ConfigProperty(name = "search.practitioner-id-cache.negative-ttl", defaultValue = "5m")
+    Duration negativeTtl;
+
+    @ConfigProperty(name = "search.practitioner-id-cache.max-size", defaultValue = "10000")
+    int maxSize;
+
+    @ConfigProperty(name = "search.practitioner-id-cache.prewarm", defaultValue = "true")
+    boolean prewarm;
+
+    @ConfigProperty(name = "search.practitioner-id-cache.prewarm-count", defaultValue = "1000")
+    int prewarmCount;
+
+    Clock clock = Clock.systemUTC();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Uni<Optional<String>>> inFlight = new ConcurrentHashMap<>();
+
+    private record Entry(String practitionerId, Instant expiresAt) {}
+
+    void onStart(@Observes StartupEvent event) {
+        if (prewarm) {
+            warmUp().subscribe().with(
+                    count -> LOG.infof("Practitioner id cache pre-warmed with %d identifiers", count),
+                    e -> LOG.warnf("Could not pre-warm practitioner id cache: %s", e.getMessage()));
+        }
+    }
+
+    /**
+     * Resolves an identifier to a FHIR id, or null if no practitioner has it.
+     * Fails if the FHIR server could not be asked.
+     */
+    public Uni<String> resolve(String identifier) {
+        Entry cached = entries.get(identifier);
+        if (cached != null) {
+            if (cached.expiresAt().isAfter(clock.instant())) {
+                return Uni.createFrom().item(cached.practitionerId());
+            }
+            entries.remove(identifier, cached);
+        }
+
+        return inFlight.computeIfAbsent(identifier, this::load)
+                .onItem().transform(found -> found.orElse(null));
+    }
+
+    /**
+     * Loads identifiers for the first page of practitioners in one request.
+     *
+     * @return number of identifiers cached
+     */
+    Uni<Integer> warmUp() {
+        return fhirClient.searchPractitionerIdentifiers("identifier", prewarmCount)
+                .onItem().transform(bundle -> {
+                    int count = 0;
+                    if (bundle == null || bundle.entry == null) {
+                        return count;
+                    }
+                    for (FhirBundle.BundleEntry entry : bundle.entry) {
+                        if (entry.resource == null || entry.resource.id == null || entry.resource.identifier == null) {
+                            continue;
+                        }
+                        for (FhirBundle.Identifier identifier : entry.resource.identifier) {
+                            if (identifier.value != null && !entries.containsKey(identifier.value)) {
+                                put(identifier.value, entry.resource.id);
+                                count++;
+                            }
+                        }
+                    }
+                    return count;
+                });
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private Uni<Optional<String>> load(String identifier) {
+        LOG.infof("Searching practitioner by identifier: %s", identifier);
+        return fhirClient.searchPractitionerByIdentifier(identifier)
+                .onItem().transform(bundle -> {
+                    if (bundle != null && bundle.entry != null && !bundle.entry.isEmpty()) {
+                        String practitionerId = bundle.entry.get(0).resource.id;
+                        LOG.infof("Resolved identifier %s to ID: %s", identifier, practitionerId);
+                        put(identifier, practitionerId);
+                        return Optional.of(practitionerId);
+                    }
+                    LOG.warnf("No practitioner found with identifier: %s", identifier);
+                    put(identifier, null);
+                    return Optional.<String>empty();
+                })
+                .onTermination().invoke(() -> inFlight.remove(identifier))
+                .memoize().indefinitely();
+    }
+
+    private void put(String identifier, String practitionerId) {
+        if (entries.size() >= maxSize) {
+            Instant now = clock.instant();
+            entries.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+            if (entries.size() >= maxSize) {
+                return;
+            }
+        }
+        Duration lifetime = practitionerId != null ? ttl : negativeTtl;
+        entries.put(identifier, new Entry(practitionerId, clock.instant().plus(lifetime)));
+    }
+}
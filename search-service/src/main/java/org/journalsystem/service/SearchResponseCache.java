@@ -0,0 +1,216 @@
+package org.journalsystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Caches serialized search responses keyed by endpoint and normalized query
+ * parameters. A fresh entry is returned as is; a stale one is returned at once
+ * while a single background request refreshes it. Only successful responses
+ * are cached, and concurrent misses for the same key share one load.
+ */
+@ApplicationScoped
+public class SearchResponseCache {
+
+    private static final Logger LOG = Logger.getLogger(SearchResponseCache.class);
+
+    public static final String PATIENTS = "patients";
+    public static final String ENCOUNTERS = "encounters";
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "search.response-cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "search.response-cache.max-size", defaultValue = "5000")
+    int maxSize;
+
+    @ConfigProperty(name = "search.response-cache.patients.fresh-for", defaultValue = "30s")
+    Duration patientsFreshFor;
+
+    @ConfigProperty(name = "search.response-cache.patients.stale-for", defaultValue = "5m")
+    Duration patientsStaleFor;
+
+    @ConfigProperty(name = "search.response-cache.encounters.fresh-for", defaultValue = "15s")
+    Duration encountersFreshFor;
+
+    @ConfigProperty(name = "search.response-cache.encounters.stale-for", defaultValue = "2m")
+    Duration encountersStaleFor;
+
+    Clock clock = Clock.systemUTC();
+
+    private final Map<String, Policy> policies = new ConcurrentHashMap<>();
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    private final Map<String, Uni<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * How long an endpoint's responses are fresh, and for how long after that
+     * they may still be served while being refreshed.
+     */
+    public record Policy(Duration freshFor, Duration staleFor) {}
+
+    /**
+     * A serialized response body with its strong ETag.
+     */
+    public record CachedResponse(byte[] body, String etag, Instant freshUntil, Instant staleUntil, Policy policy) {
+
+        /**
+         * True if an If-None-Match header names this response. Weak tags match
+         * too, since a gzipping proxy weakens the tag it passes on.
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals("*") || candidate.equals("\"" + etag + "\"")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Seconds the response stays fresh from now, never negative.
+         */
+        public long maxAgeSeconds(Instant now) {
+            return Math.max(0, Duration.between(now, freshUntil).getSeconds());
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        policies.put(PATIENTS, new Policy(patientsFreshFor, patientsStaleFor));
+        policies.put(ENCOUNTERS, new Policy(encountersFreshFor, encountersStaleFor));
+    }
+
+    /**
+     * Returns the cached response for the endpoint and query parameters, loading
+     * it with {@code loader} on a miss. Blank parameters are ignored and the rest
+     * are keyed in name order, so equivalent queries share one entry.
+     */
+    public Uni<CachedResponse> get(String endpoint, Map<String, String> params, Supplier<Uni<?>> loader) {
+        Policy policy = policyFor(endpoint);
+        String key = key(endpoint, params);
+        if (!enabled) {
+            return loader.get().onItem().transform(value -> toResponse(value, policy));
+        }
+
+        Instant now = clock.instant();
+        CachedResponse cached = entries.get(key);
+        if (cached != null && cached.freshUntil().isAfter(now)) {
+            count(endpoint, "hit");
+            return Uni.createFrom().item(cached);
+        }
+        if (cached != null && cached.staleUntil().isAfter(now)) {
+            count(endpoint, "stale");
+            load(key, policy, loader).subscribe().with(
+                    refreshed -> LOG.debugf("Refreshed cached response %s", key),
+                    e -> LOG.warnf("Could not refresh cached response %s, serving stale: %s", key, e.getMessage()));
+            return Uni.createFrom().item(cached);
+        }
+
+        count(endpoint, "miss");
+        return load(key, policy, loader);
+    }
+
+    public Policy policyFor(String endpoint) {
+        Policy policy = policies.get(endpoint);
+        if (policy == null) {
+            throw new IllegalArgumentException("No response cache policy for endpoint: " + endpoint);
+        }
+        return policy;
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    static String key(String endpoint, Map<String, String> params) {
+        Map<String, String> sorted = new TreeMap<>();
+        params.forEach((name, value) -> {
+            if (value != null && !value.trim().isEmpty()) {
+                sorted.put(name, value.trim());
+            }
+        });
+        return endpoint + "?" + sorted;
+    }
+
+    private Uni<CachedResponse> load(String key, Policy policy, Supplier<Uni<?>> loader) {
+        return inFlight.computeIfAbsent(key, k -> loader.get()
+                .onItem().transform(value -> {
+                    CachedResponse response = toResponse(value, policy);
+                    put(key, response);
+                    return response;
+                })
+                .onTermination().invoke(() -> inFlight.remove(key))
+                .memoize().indefinitely());
+    }
+
+    private CachedResponse toResponse(Object value, Policy policy) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        Instant now = clock.instant();
+        Instant freshUntil = now.plus(policy.freshFor());
+        return new CachedResponse(body, etagOf(body), freshUntil, freshUntil.plus(policy.staleFor()), policy);
+    }
+
+    private void put(String key, CachedResponse response) {
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            Instant now = clock.instant();
+            entries.values().removeIf(entry -> !entry.staleUntil().isAfter(now));
+            if (entries.size() >= maxSize) {
+                return;
+            }
+        }
+        entries.put(key, response);
+    }
+
+    private void count(String endpoint, String result) {
+        meterRegistry.counter("search.response.cache", "endpoint", endpoint, "result", result).increment();
+    }
+
+    private static String etagOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.journalsystem.service;
 
 import org.journalsystem.client.FhirClient;
+import org.journalsystem.client.RetryableFhirFailure;
 import org.journalsystem.dto.*;
 import org.journalsystem.dto.fhir.FhirBundle;
 import org.journalsystem.mapper.FhirMapper;
@@ -9,27 +10,62 @@ import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.Multi;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.jboss.logging.Logger;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 
 @ApplicationScoped
 public class SearchService {
 
     private static final Logger LOG = Logger.getLogger(SearchService.class);
 
+    static final int DEFAULT_ENCOUNTER_LIMIT = 100;
+    private static final RetryableFhirFailure RETRYABLE = new RetryableFhirFailure();
+    private static final Pattern FHIR_UUID =
+            Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
     @Inject
     @RestClient
     FhirClient fhirClient;
 
+    @Inject
+    LocalFhirStore localStore;
+
+    @Inject
+    PractitionerIdCache practitionerIdCache;
+
+    @Inject
+    ConditionTerminology terminology;
+
+    @Inject
+    PatientDirectory patientDirectory;
+
+    @Inject
+    PatientNameMatcher nameMatcher;
+
     /**
-     * Search patients by name
+     * Search patients by name, or personnummer, prefix. Answered from the
+     * {@link PatientDirectory} once a change feed sync has confirmed it, otherwise
+     * by the FHIR server.
+     * When the prefix finds no one the {@link PatientNameMatcher} is asked for
+     * similar names instead.
      */
     public Uni<List<PatientSearchResult>> searchPatientsByName(String name) {
+        if (patientDirectory.isReady()) {
+            return Uni.createFrom().item(() -> {
+                List<PatientSearchResult> found = patientDirectory.search(name);
+                return found.isEmpty() && nameMatcher.isReady() ? nameMatcher.search(name) : found;
+            });
+        }
         LOG.infof("Searching patients by name: %s", name);
 
         return fhirClient.searchPatients(name)
@@ -37,19 +73,89 @@ public class SearchService {
                     LOG.infof("Bundle total field: %d", bundle != null ? bundle.total : 0);
                     return FhirMapper.bundleToPatientList(bundle);
                 })
-                .onFailure().recoverWithItem(e -> {
-                    LOG.error("Error searching patients", e);
-                    return new ArrayList<PatientSearchResult>();
-                });
+                .onFailure(SearchService::isUnavailable).transform(e -> unavailable("searching patients by name", e));
     }
 
     /**
-     * Search patients by condition
+     * Search patients by similar name: spelling variants, typos and names that
+     * sound alike, best match first. Falls back to the prefix search until the
+     * {@link PatientNameMatcher} has been built.
+     */
+    public Uni<List<PatientSearchResult>> searchPatientsByNameFuzzy(String name) {
+        if (!nameMatcher.isReady()) {
+            return searchPatientsByName(name);
+        }
+        LOG.infof("Searching patients by similar name: %s", name);
+        return Uni.createFrom().item(() -> nameMatcher.search(name));
+    }
+
+    /**
+     * Search patients by condition. Terms known to {@link ConditionTerminology}
+     * are searched by code and by the condition text together, since conditions
+     * recorded without a real code (the UI stores a generic SNOMED code) are only
+     * found by their text. Other terms are searched by text alone.
      */
     public Uni<List<PatientSearchResult>> searchPatientsByCondition(String condition) {
-        LOG.infof("Searching patients by condition: %s", condition);
+        List<String> codes = terminology.resolve(condition);
+        Uni<FhirBundle> conditions;
+        if (codes.isEmpty()) {
+            LOG.infof("Searching patients by condition text: %s", condition);
+            conditions = fhirClient.searchConditions(condition);
+        } else {
+            LOG.infof("Searching patients by condition: %s as %d codes and text", condition, codes.size());
+            conditions = Uni.combine().all()
+                    .unis(fhirClient.searchConditionsByCode(String.join(",", codes)),
+                            fhirClient.searchConditions(condition))
+                    .asTuple()
+                    .onItem().transform(both -> merge(both.getItem1(), both.getItem2()));
+        }
 
-        return fhirClient.searchConditions(condition)
+        return patientsWithConditions(conditions)
+                .onFailure(SearchService::isUnavailable).transform(e -> unavailable("searching patients by condition", e));
+    }
+
+    /**
+     * Search patients by condition code, e.g. snomed|44054006 or
+     * http://hl7.org/fhir/sid/icd-10|E11. With below, codes under the given one
+     * match too; they are expanded locally when the code is in the terminology,
+     * otherwise the FHIR server is asked for code:below.
+     */
+    public Uni<List<PatientSearchResult>> searchPatientsByConditionCode(String code, boolean below) {
+        String token = ConditionTerminology.token(code);
+        LOG.infof("Searching patients by condition code: %s%s", token, below ? " and below" : "");
+
+        Uni<FhirBundle> conditions;
+        List<String> expanded = below ? terminology.below(token) : List.of();
+        if (!below) {
+            conditions = fhirClient.searchConditionsByCode(token);
+        } else if (!expanded.isEmpty()) {
+            conditions = fhirClient.searchConditionsByCode(String.join(",", expanded));
+        } else {
+            conditions = fhirClient.searchConditionsByCodeBelow(token);
+        }
+
+        return patientsWithConditions(conditions)
+                .onFailure(SearchService::isUnavailable).transform(e -> unavailable("searching patients by condition code", e));
+    }
+
+    /**
+     * The entries of both bundles in one; a condition found by both searches
+     * appears twice, which is harmless since patients are collected by id.
+     */
+    private static FhirBundle merge(FhirBundle first, FhirBundle second) {
+        FhirBundle merged = new FhirBundle();
+        merged.entry = new ArrayList<>();
+        for (FhirBundle bundle : new FhirBundle[] {first, second}) {
+            if (bundle != null && bundle.entry != null) {
+                merged.entry.addAll(bundle.entry);
+            }
+        }
+        merged.total = merged.entry.size();
+        return merged;
+    }
+
+    private Uni<List<PatientSearchResult>> patientsWithConditions(Uni<FhirBundle> conditions) {
+        return conditions
                 .onItem().transformToUni(conditionBundle -> {
                     if (conditionBundle == null || conditionBundle.entry == null) {
                         return Uni.createFrom().item(new ArrayList<PatientSearchResult>());
@@ -67,17 +173,13 @@ public class SearchService {
                     // Fetch all patients in parallel using Multi
                     Multi<PatientSearchResult> patientsMulti = Multi.createFrom().iterable(patientIds)
                             .onItem().transformToUniAndMerge(patientId ->
-                                    fhirClient.getPatient(patientId)
+                                    getPatient(patientId)
                                             .onItem().transform(FhirMapper::toPatientSearchResult)
-                                            .onFailure().recoverWithNull()
+                                            .onFailure(e -> !isUnavailable(e)).recoverWithNull()
                             )
                             .filter(result -> result != null);
 
                     return patientsMulti.collect().asList();
-                })
-                .onFailure().recoverWithItem(e -> {
-                    LOG.errorf("Error searching patients by condition: %s", e.getMessage());
-                    return new ArrayList<PatientSearchResult>();
                 });
     }
 
@@ -102,7 +204,6 @@ public class SearchService {
 
                     // Fetch encounters
                     return fhirClient.searchEncountersByPractitioner(practitionerReference)
-                            .onFailure().recoverWithItem(new FhirBundle())
                             .onItem().transformToUni(encounterBundle -> {
                                 Set<String> uniquePatientIds = new HashSet<>();
 
@@ -121,47 +222,32 @@ public class SearchService {
                                 // Fetch all patients in parallel
                                 Multi<PatientSearchResult> patientsMulti = Multi.createFrom().iterable(uniquePatientIds)
                                         .onItem().transformToUniAndMerge(patientId ->
-                                                fhirClient.getPatient(patientId)
+                                                getPatient(patientId)
                                                         .onItem().transform(FhirMapper::toPatientSearchResult)
-                                                        .onFailure().recoverWithNull()
+                                                        .onFailure(e -> !isUnavailable(e)).recoverWithNull()
                                         )
                                         .filter(result -> result != null);
 
                                 return patientsMulti.collect().asList();
                             });
                 })
-                .onFailure().recoverWithItem(e -> {
-                    LOG.errorf("Error searching patients by practitioner: %s", e.getMessage());
-                    return new ArrayList<PatientSearchResult>();
-                });
+                .onFailure(SearchService::isUnavailable).transform(e -> unavailable("searching patients by practitioner", e));
     }
 
     /**
-     * Resolve practitioner identifier to FHIR ID
+     * Resolve practitioner identifier to FHIR ID, through the practitioner id cache
      */
     private Uni<String> resolvePractitionerIdReactive(String idOrIdentifier) {
-        // Check if it's already a UUID format (contains hyphens)
-        if (idOrIdentifier.contains("-")) {
-            return Uni.createFrom().item(idOrIdentifier.replace("Practitioner/", ""));
+        // An explicit reference or a UUID is already a FHIR id; anything else, including a
+        // hyphenated personnummer (YYYYMMDD-XXXX), is an identifier
+        if (idOrIdentifier.startsWith("Practitioner/")) {
+            return Uni.createFrom().item(idOrIdentifier.substring("Practitioner/".length()));
+        }
+        if (FHIR_UUID.matcher(idOrIdentifier).matches()) {
+            return Uni.createFrom().item(idOrIdentifier);
         }
 
-        // Search by identifier
-        LOG.infof("Searching practitioner by identifier: %s", idOrIdentifier);
-        return fhirClient.searchPractitionerByIdentifier(idOrIdentifier)
-                .onItem().transform(bundle -> {
-                    if (bundle != null && bundle.entry != null && !bundle.entry.isEmpty()) {
-                        String practitionerId = bundle.entry.get(0).resource.id;
-                        LOG.infof("Resolved identifier %s to ID: %s", idOrIdentifier, practitionerId);
-                        return practitionerId;
-                    } else {
-                        LOG.warnf("No practitioner found with identifier: %s", idOrIdentifier);
-                        return null;
-                    }
-                })
-                .onFailure().recoverWithItem(e -> {
-                    LOG.errorf("Error resolving practitioner identifier %s: %s", idOrIdentifier, e.getMessage());
-                    return null;
-                });
+        return practitionerIdCache.resolve(idOrIdentifier);
     }
 
     /**
@@ -170,8 +256,27 @@ public class SearchService {
     public Uni<List<EncounterSearchResult>> searchEncountersByPractitioner(
             String practitionerIdOrIdentifier,
             String date) {
+        return searchEncountersByPractitioner(practitionerIdOrIdentifier, date, null, null, null);
+    }
+
+    /**
+     * Search encounters by practitioner on one date, or within an inclusive from/to
+     * date range. When from, to or limit is given the FHIR server sorts newest first
+     * and returns at most limit encounters, instead of the practitioner's full history.
+     * A limit also applies to a single date. Without any date the newest
+     * DEFAULT_ENCOUNTER_LIMIT encounters are returned.
+     */
+    public Uni<List<EncounterSearchResult>> searchEncountersByPractitioner(
+            String practitionerIdOrIdentifier,
+            String date,
+            String from,
+            String to,
+            Integer limit) {
 
-        LOG.infof("Searching encounters by practitioner: %s, date: %s", practitionerIdOrIdentifier, date);
+        LOG.infof("Searching encounters by practitioner: %s, date: %s, from: %s, to: %s, limit: %s",
+                practitionerIdOrIdentifier, date, from, to, limit);
+        boolean ranged = !isBlank(from) || !isBlank(to) || limit != null;
+        boolean sortedNewestFirst = ranged || isBlank(date);
 
         return resolvePractitionerIdReactive(practitionerIdOrIdentifier)
                 .onItem().transformToUni(actualPractitionerId -> {
@@ -184,12 +289,21 @@ public class SearchService {
 
                     // Search encounters based on whether date is provided
                     Uni<FhirBundle> encounterBundleUni;
-                    if (date != null && !date.trim().isEmpty()) {
+                    if (ranged) {
+                        LOG.infof("Searching encounters for practitioner %s on %s, from %s to %s",
+                                actualPractitionerId, date, from, to);
+                        encounterBundleUni = fhirClient.searchEncountersByPractitionerInRange(
+                                actualPractitionerId,
+                                dateBounds(date, from, to),
+                                "-date",
+                                limit != null ? limit : DEFAULT_ENCOUNTER_LIMIT);
+                    } else if (!isBlank(date)) {
                         LOG.infof("Searching encounters for practitioner %s on date %s", actualPractitionerId, date);
                         encounterBundleUni = fhirClient.searchEncountersByPractitionerAndDate(actualPractitionerId, date);
                     } else {
-                        LOG.infof("Searching all encounters for practitioner %s", actualPractitionerId);
-                        encounterBundleUni = fhirClient.searchEncountersByPractitionerOnly(actualPractitionerId);
+                        LOG.infof("Searching latest encounters for practitioner %s", actualPractitionerId);
+                        encounterBundleUni = fhirClient.searchEncountersByPractitionerOnly(
+                                actualPractitionerId, "-date", DEFAULT_ENCOUNTER_LIMIT);
                     }
 
                     return encounterBundleUni
@@ -208,13 +322,38 @@ public class SearchService {
                                         )
                                         .filter(result -> result != null);
 
-                                return encountersMulti.collect().asList();
+                                // Lookups complete in any order; restore the server's newest-first order
+                                return encountersMulti.collect().asList()
+                                        .onItem().transform(results -> sortedNewestFirst ? newestFirst(results) : results);
                             });
                 })
-                .onFailure().recoverWithItem(e -> {
-                    LOG.errorf("Error searching encounters by practitioner: %s", e.getMessage());
-                    return new ArrayList<EncounterSearchResult>();
-                });
+                .onFailure(SearchService::isUnavailable).transform(e -> unavailable("searching encounters by practitioner", e));
+    }
+
+    private static List<String> dateBounds(String date, String from, String to) {
+        List<String> bounds = new ArrayList<>(2);
+        if (!isBlank(date)) {
+            bounds.add(date.trim());
+        }
+        if (!isBlank(from)) {
+            bounds.add("ge" + from.trim());
+        }
+        if (!isBlank(to)) {
+            bounds.add("le" + to.trim());
+        }
+        return bounds;
+    }
+
+    private static List<EncounterSearchResult> newestFirst(List<EncounterSearchResult> results) {
+        List<EncounterSearchResult> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparing(
+                (EncounterSearchResult result) -> result.startTime() != null ? result.startTime() : "")
+                .reversed());
+        return sorted;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
     }
 
     /**
@@ -239,13 +378,13 @@ public class SearchService {
         String finalPatientId = patientId;
 
         // Fetch patient and practitioner names in parallel
-        Uni<String> patientNameUni = fhirClient.getPatient(patientId)
+        Uni<String> patientNameUni = getPatient(patientId)
                 .onItem().transform(this::getFullName)
-                .onFailure().recoverWithItem("");
+                .onFailure(e -> !isUnavailable(e)).recoverWithItem("");
 
-        Uni<String> practitionerNameUni = fhirClient.getPractitioner(practitionerId)
+        Uni<String> practitionerNameUni = getPractitioner(practitionerId)
                 .onItem().transform(this::getFullName)
-                .onFailure().recoverWithItem("");
+                .onFailure(e -> !isUnavailable(e)).recoverWithItem("");
 
         return Uni.combine().all().unis(patientNameUni, practitionerNameUni)
                 .asTuple()
@@ -261,6 +400,52 @@ public class SearchService {
                 });
     }
 
+    /**
+     * Patient from the local store when the change feed has it, otherwise from the FHIR server
+     */
+    private Uni<FhirBundle.FhirResource> getPatient(String patientId) {
+        return lookup("Patient", patientId, fhirClient::getPatient);
+    }
+
+    private Uni<FhirBundle.FhirResource> getPractitioner(String practitionerId) {
+        return lookup("Practitioner", practitionerId, fhirClient::getPractitioner);
+    }
+
+    private Uni<FhirBundle.FhirResource> lookup(
+            String resourceType,
+            String id,
+            Function<String, Uni<FhirBundle.FhirResource>> remote) {
+        if (localStore.isReady()) {
+            FhirBundle.FhirResource local = localStore.get(resourceType, id);
+            if (local != null) {
+                return Uni.createFrom().item(local);
+            }
+        }
+        return remote.apply(id);
+    }
+
+    /**
+     * True for failures that mean the FHIR server could not answer at all: the ones
+     * {@link RetryableFhirFailure} retries (a timeout, a connection error, a busy
+     * server), an open circuit or a full bulkhead. These fail the whole search as
+     * unavailable instead of being skipped like a single missing resource. Any
+     * other failure is a bug or a bad request and propagates unchanged.
+     */
+    static boolean isUnavailable(Throwable failure) {
+        return RETRYABLE.test(failure)
+                || failure instanceof CircuitBreakerOpenException
+                || failure instanceof BulkheadException
+                || failure instanceof SearchUnavailableException;
+    }
+
+    private static SearchUnavailableException unavailable(String operation, Throwable failure) {
+        if (failure instanceof SearchUnavailableException alreadyWrapped) {
+            return alreadyWrapped;
+        }
+        LOG.errorf("Error %s: %s", operation, failure.getMessage());
+        return new SearchUnavailableException(operation, failure);
+    }
+
     /**
      * Get full name from FHIR resource
      */
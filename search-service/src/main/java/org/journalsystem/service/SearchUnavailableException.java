@@ -0,0 +1,43 @@
+package org.journalsystem.service;
+
+import jakarta.ws.rs.ProcessingException;
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
+
+/**
+ * A search could not be answered because the FHIR server was unreachable, busy, too slow
+ * or is being shielded by an open circuit breaker or a full bulkhead.
+ */
+public class SearchUnavailableException extends RuntimeException {
+
+    private final String reason;
+
+    public SearchUnavailableException(String operation, Throwable cause) {
+        super("FHIR server unavailable while " + operation, cause);
+        this.reason = reasonOf(cause);
+    }
+
+    /**
+     * circuit-open, bulkhead-full, timeout, unreachable or upstream-error
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    private static String reasonOf(Throwable cause) {
+        if (cause instanceof CircuitBreakerOpenException) {
+            return "circuit-open";
+        }
+        if (cause instanceof BulkheadException) {
+            return "bulkhead-full";
+        }
+        if (cause instanceof TimeoutException) {
+            return "timeout";
+        }
+        if (cause instanceof ProcessingException) {
+            return "unreachable";
+        }
+        return "upstream-error";
+    }
+}
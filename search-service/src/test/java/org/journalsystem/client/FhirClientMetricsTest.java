@@ -0,0 +1,101 @@
+package org.journalsystem.client;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@QuarkusTest
+@TestProfile(FhirClientMetricsTest.LocalFhirProfile.class)
+class FhirClientMetricsTest {
+
+    @Inject
+    @RestClient
+    FhirClient fhirClient;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    public static class LocalFhirProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("quarkus.rest-client.\"fhir-api\".url",
+                    "http://localhost:${quarkus.http.test-port}/test-fhir");
+        }
+    }
+
+    @Path("/test-fhir")
+    @Produces(MediaType.APPLICATION_JSON)
+    public static class TestFhirServer {
+
+        @GET
+        @Path("/Patient")
+        public String searchPatients() {
+            return """
+                    {"resourceType": "Bundle", "entry": [
+                      {"resource": {"resourceType": "Patient", "id": "1"}},
+                      {"resource": {"resourceType": "Patient", "id": "2"}}
+                    ]}""";
+        }
+
+        @GET
+        @Path("/Practitioner/{id}")
+        public Response getPractitioner(@PathParam("id") String id) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+    }
+
+    // FhirClient search TESTS
+
+    @Test
+    void search_shouldRecordLatencyBytesAndEntries_taggedByResourceAndOperation() {
+        // Act
+        fhirClient.searchPatients("Anna").await().atMost(Duration.ofSeconds(10));
+
+        // Assert
+        Timer timer = meterRegistry.find("fhir.client.requests")
+                .tags("resource", "Patient", "operation", "searchPatients", "status", "200")
+                .timer();
+        DistributionSummary entries = meterRegistry.find("fhir.client.bundle.entries")
+                .tags("resource", "Patient", "operation", "searchPatients")
+                .summary();
+        DistributionSummary bytes = meterRegistry.find("fhir.client.response.bytes")
+                .tags("resource", "Patient", "operation", "searchPatients")
+                .summary();
+
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(entries.totalAmount()).isEqualTo(2);
+        assertThat(bytes.totalAmount()).isGreaterThan(0);
+    }
+
+    @Test
+    void read_shouldRecordErrorStatus_whenServerAnswersNotFound() {
+        // Act
+        assertThatThrownBy(() -> fhirClient.getPractitioner("missing").await().atMost(Duration.ofSeconds(10)));
+
+        // Assert
+        Timer timer = meterRegistry.find("fhir.client.requests")
+                .tags("resource", "Practitioner", "operation", "getPractitioner", "status", "404")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,101 @@
+package org.journalsystem.security;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SessionTokenFilterTest {
+
+    private static final String SECRET = "test-session-token-secret-of-32-bytes";
+
+    private SessionTokenFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        SessionTokenVerifier verifier = new SessionTokenVerifier();
+        verifier.secret = Optional.of(SECRET);
+        verifier.init();
+        filter = new SessionTokenFilter();
+        filter.verifier = verifier;
+        filter.enforce = true;
+    }
+
+    // requireSessionToken() TESTS
+
+    @Test
+    void requireSessionToken_shouldPassSearch_withValidBearerToken() {
+        // Arrange
+        ContainerRequestContext request = request("/api/search/patients", "Bearer " + token(Instant.now().plusSeconds(60)));
+
+        // Act
+        Optional<Response> response = filter.requireSessionToken(request);
+
+        // Assert
+        assertThat(response).isEmpty();
+        verify(request).setProperty(eq(SessionTokenFilter.CLAIMS_PROPERTY), any(SessionClaims.class));
+    }
+
+    @Test
+    void requireSessionToken_shouldAnswer401_forMissingOrExpiredToken() {
+        // Act
+        Optional<Response> missing = filter.requireSessionToken(request("/api/search/patients", null));
+        Optional<Response> expired = filter.requireSessionToken(
+                request("/api/search/encounters", "Bearer " + token(Instant.now().minusSeconds(1))));
+
+        // Assert
+        assertThat(missing).hasValueSatisfying(response -> assertThat(response.getStatus()).isEqualTo(401));
+        assertThat(expired).hasValueSatisfying(response -> assertThat(response.getStatus()).isEqualTo(401));
+    }
+
+    @Test
+    void requireSessionToken_shouldPass_healthCheckAndUnenforcedRequests() {
+        // Act & Assert
+        assertThat(filter.requireSessionToken(request("/api/search/hello", null))).isEmpty();
+        filter.enforce = false;
+        assertThat(filter.requireSessionToken(request("/api/search/patients", null))).isEmpty();
+    }
+
+    // HELPER METHODS
+
+    private static ContainerRequestContext request(String path, String authorization) {
+        ContainerRequestContext request = Mockito.mock(ContainerRequestContext.class);
+        UriInfo uriInfo = Mockito.mock(UriInfo.class);
+        lenient().when(uriInfo.getRequestUri()).thenReturn(URI.create("http://localhost:8084" + path));
+        lenient().when(request.getUriInfo()).thenReturn(uriInfo);
+        lenient().when(request.getMethod()).thenReturn("GET");
+        lenient().when(request.getHeaderString("Authorization")).thenReturn(authorization);
+        return request;
+    }
+
+    /** Signs a token the way user-service's SessionTokenService does. */
+    private static String token(Instant expiresAt) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String claims = "{\"sub\":\"7\",\"role\":\"DOCTOR\",\"fid\":\"doc-1\",\"exp\":" + expiresAt.getEpochSecond() + "}";
+        String signingInput = encoder.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8))
+                + "." + encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return signingInput + "." + encoder.encodeToString(
+                    mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
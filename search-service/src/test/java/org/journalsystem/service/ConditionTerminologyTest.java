@@ -0,0 +1,85 @@
+package org.journalsystem.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConditionTerminologyTest {
+
+    private ConditionTerminology terminology;
+
+    @BeforeEach
+    void setUp() {
+        terminology = new ConditionTerminology();
+        terminology.file = Optional.empty();
+        terminology.init();
+    }
+
+    // resolve() TESTS
+
+    @Test
+    void resolve_shouldReturnCodesAndCodesBelow_forKnownTerm() {
+        // Act & Assert
+        assertThat(terminology.resolve("Diabetes")).containsExactly(
+                ConditionTerminology.SNOMED + "|73211009",
+                ConditionTerminology.SNOMED + "|46635009",
+                ConditionTerminology.SNOMED + "|44054006",
+                ConditionTerminology.SNOMED + "|11687002",
+                ConditionTerminology.ICD10 + "|E10",
+                ConditionTerminology.ICD10 + "|E11",
+                ConditionTerminology.ICD10 + "|E14");
+    }
+
+    @Test
+    void resolve_shouldIgnoreCaseAndExtraSpaces_andKnowSwedishTerms() {
+        // Act & Assert
+        assertThat(terminology.resolve("  HÖGT   blodtryck ")).containsExactly(
+                ConditionTerminology.SNOMED + "|38341003",
+                ConditionTerminology.SNOMED + "|59621000",
+                ConditionTerminology.ICD10 + "|I10");
+        assertThat(terminology.resolve("Diabetic")).isEmpty();
+        assertThat(terminology.resolve(null)).isEmpty();
+    }
+
+    @Test
+    void load_shouldAddTermsAndChildrenFromExtraFile() throws Exception {
+        // Act
+        terminology.load(new StringReader("""
+                # local additions
+                snomed\t90708001\t\tKidney disease\tnjursjukdom
+                snomed\t709044004\t90708001\tChronic kidney disease\t
+                not a valid line
+                """));
+
+        // Assert
+        assertThat(terminology.resolve("njursjukdom")).containsExactly(
+                ConditionTerminology.SNOMED + "|90708001",
+                ConditionTerminology.SNOMED + "|709044004");
+        assertThat(terminology.resolve("ckd")).contains(ConditionTerminology.SNOMED + "|709044004");
+    }
+
+    // below() TESTS
+
+    @Test
+    void below_shouldBeEmpty_forUnknownOrSystemlessCode() {
+        // Act & Assert
+        assertThat(terminology.below("snomed|128053003")).isEmpty();
+        assertThat(terminology.below("73211009")).isEmpty();
+        assertThat(terminology.below("sct|13645005")).hasSize(3);
+    }
+
+    // token() TESTS
+
+    @Test
+    void token_shouldExpandSystemAliases() {
+        // Act & Assert
+        assertThat(ConditionTerminology.token(" icd10 | E11 ")).isEqualTo(ConditionTerminology.ICD10 + "|E11");
+        assertThat(ConditionTerminology.token("http://snomed.info/sct|44054006"))
+                .isEqualTo(ConditionTerminology.SNOMED + "|44054006");
+        assertThat(ConditionTerminology.token("E11")).isEqualTo("E11");
+    }
+}
@@ -0,0 +1,162 @@
+package org.journalsystem.service;
+
+import org.journalsystem.dto.PatientSearchResult;
+import org.journalsystem.dto.fhir.FhirBundle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PatientDirectoryTest {
+
+    private static final Instant MARK = Instant.parse("2024-03-01T10:00:00Z");
+
+    @TempDir
+    Path dataDir;
+
+    private PatientDirectory directory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        directory = newDirectory();
+        directory.rebuild(List.of(
+                patient("1", "Anna", "Svensson", "19700101-1234", "1970-01-01"),
+                patient("2", "Anders", "Berg", "198505052345", "1985-05-05"),
+                patient("3", "Åsa", "Öberg", "199912319876", null),
+                patient("4", "Sven", "Andersson", null, null)
+        ), MARK);
+    }
+
+    // search() TESTS
+
+    @Test
+    void search_shouldMatchPrefixOfAnyNamePart_ignoringCase() {
+        // Act
+        List<PatientSearchResult> results = directory.search("ANd");
+
+        // Assert
+        assertThat(results).extracting(PatientSearchResult::id).containsExactly("2", "4");
+    }
+
+    @Test
+    void search_shouldMatchFullNameInEitherOrder_andSwedishLetters() {
+        // Act & Assert
+        assertThat(directory.search("anna  sv")).extracting(PatientSearchResult::id).containsExactly("1");
+        assertThat(directory.search("svensson a")).extracting(PatientSearchResult::id).containsExactly("1");
+        assertThat(directory.search("öb")).singleElement()
+                .satisfies(patient -> {
+                    assertThat(patient.firstName()).isEqualTo("Åsa");
+                    assertThat(patient.dateOfBirth()).isNull();
+                });
+    }
+
+    @Test
+    void search_shouldMatchPersonnummer_withOrWithoutCenturyAndDash() {
+        // Act & Assert
+        assertThat(directory.search("19700101-1234")).extracting(PatientSearchResult::id).containsExactly("1");
+        assertThat(directory.search("850505")).extracting(PatientSearchResult::id).containsExactly("2");
+        assertThat(directory.search("1999")).extracting(PatientSearchResult::socialSecurityNumber)
+                .containsExactly("199912319876");
+        assertThat(directory.search("2000")).isEmpty();
+    }
+
+    @Test
+    void search_shouldReturnAtMostMaxResults() {
+        // Arrange
+        directory.maxResults = 1;
+
+        // Act & Assert
+        assertThat(directory.search("a")).hasSize(1);
+    }
+
+    // init() / rebuild() TESTS
+
+    @Test
+    void init_shouldOpenExistingFile_afterRestart() {
+        // Act
+        PatientDirectory restarted = newDirectory();
+
+        // Assert
+        assertThat(restarted.isOpen()).isTrue();
+        assertThat(restarted.isCurrent(MARK)).isTrue();
+        assertThat(restarted.isCurrent(MARK.plusSeconds(1))).isFalse();
+        assertThat(restarted.search("berg")).extracting(PatientSearchResult::lastName).containsExactly("Berg");
+    }
+
+    @Test
+    void rebuild_shouldReplaceContents() throws Exception {
+        // Act
+        directory.rebuild(List.of(patient("5", "Karin", "Lind", null, null)), MARK.plusSeconds(60));
+
+        // Assert
+        assertThat(directory.search("anna")).isEmpty();
+        assertThat(directory.search("lind")).extracting(PatientSearchResult::id).containsExactly("5");
+    }
+
+    @Test
+    void isReady_shouldWaitForSyncAtFileMark_afterRestart() {
+        // Arrange
+        PatientDirectory restarted = newDirectory();
+
+        // Act
+        boolean beforeSync = restarted.isReady();
+        restarted.markSynced(MARK.plusSeconds(60));
+        boolean afterNewerSync = restarted.isReady();
+        restarted.markSynced(MARK);
+
+        // Assert
+        assertThat(beforeSync).isFalse();
+        assertThat(afterNewerSync).isFalse();
+        assertThat(restarted.isReady()).isTrue();
+    }
+
+    @Test
+    void init_shouldStayClosed_whenFileIsCorrupt() throws Exception {
+        // Arrange
+        Files.write(dataDir.resolve(PatientDirectory.FILE), new byte[]{1, 2, 3});
+
+        // Act
+        PatientDirectory restarted = newDirectory();
+
+        // Assert
+        assertThat(restarted.isOpen()).isFalse();
+        restarted.markSynced(MARK);
+        assertThat(restarted.isReady()).isFalse();
+        assertThat(restarted.search("anna")).isEmpty();
+    }
+
+    // HELPER METHODS
+
+    private PatientDirectory newDirectory() {
+        PatientDirectory patientDirectory = new PatientDirectory();
+        patientDirectory.enabled = true;
+        patientDirectory.maxResults = 100;
+        patientDirectory.dataDir = dataDir.toString();
+        patientDirectory.init();
+        return patientDirectory;
+    }
+
+    private static FhirBundle.FhirResource patient(String id, String given, String family, String ssn,
+                                                   String birthDate) {
+        FhirBundle.FhirResource patient = new FhirBundle.FhirResource();
+        patient.resourceType = "Patient";
+        patient.id = id;
+        FhirBundle.HumanName name = new FhirBundle.HumanName();
+        name.given = List.of(given);
+        name.family = family;
+        patient.name = List.of(name);
+        if (ssn != null) {
+            FhirBundle.Identifier identifier = new FhirBundle.Identifier();
+            identifier.value = ssn;
+            patient.identifier = List.of(identifier);
+        }
+        patient.birthDate = birthDate;
+        return patient;
+    }
+}
@@ -0,0 +1,147 @@
+package org.journalsystem.service;
+
+import org.journalsystem.dto.PatientSearchResult;
+import org.journalsystem.dto.fhir.FhirBundle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PatientNameMatcherTest {
+
+    private PatientNameMatcher matcher;
+
+    @BeforeEach
+    void setUp() {
+        matcher = new PatientNameMatcher();
+        matcher.enabled = true;
+        matcher.maxResults = 25;
+        matcher.minScore = 0.6;
+        matcher.budget = Duration.ofSeconds(5);
+        matcher.rebuild(List.of(
+                patient("1", "Anna", "Andersson"),
+                patient("2", "Erik", "Karlsson"),
+                patient("3", "Kristina", "Sjöberg"),
+                patient("4", "Mohammed", "Ali"),
+                patient("5", "Kerstin", "Lind-Johansson"),
+                patient("6", "Anders", "Berg")
+        ));
+    }
+
+    // search() TESTS
+
+    @Test
+    void search_shouldFindSpellingVariants_bySoundAndEditDistance() {
+        // Act & Assert
+        assertThat(matcher.search("Anderson")).extracting(PatientSearchResult::id).containsExactly("1");
+        assertThat(matcher.search("carlson")).extracting(PatientSearchResult::id).containsExactly("2");
+        assertThat(matcher.search("Christina Schöberg")).extracting(PatientSearchResult::id).containsExactly("3");
+        assertThat(matcher.search("muhammad")).extracting(PatientSearchResult::id).containsExactly("4");
+        assertThat(matcher.search("Chersti")).isEmpty();
+    }
+
+    @Test
+    void search_shouldFindTypos() {
+        // Act & Assert
+        assertThat(matcher.search("Andresson")).extracting(PatientSearchResult::id).containsExactly("1");
+        assertThat(matcher.search("Karlssno")).extracting(PatientSearchResult::id).containsExactly("2");
+        assertThat(matcher.search("johanson kerstn")).extracting(PatientSearchResult::id).containsExactly("5");
+    }
+
+    @Test
+    void search_shouldRankExactAbovePrefixAboveSimilar() {
+        // Arrange
+        matcher.rebuild(List.of(
+                patient("1", "Anna", "Andersson"),
+                patient("2", "Anna", "Anderson"),
+                patient("3", "Anna", "Anderssons"),
+                patient("6", "Anders", "Berg")
+        ));
+
+        // Act
+        List<PatientSearchResult> results = matcher.search("anna andersson");
+
+        // Assert
+        assertThat(results).extracting(PatientSearchResult::id).containsExactly("1", "3", "2");
+    }
+
+    @Test
+    void search_shouldRequireEveryQueryWord() {
+        // Act & Assert
+        assertThat(matcher.search("anna berg")).isEmpty();
+        assertThat(matcher.search("anders berg")).extracting(PatientSearchResult::id).containsExactly("6");
+    }
+
+    @Test
+    void search_shouldReturnAtMostMaxResults() {
+        // Arrange
+        List<FhirBundle.FhirResource> patients = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            patients.add(patient("p" + i, "Nils", "Nilsson"));
+        }
+        matcher.rebuild(patients);
+
+        // Act & Assert
+        assertThat(matcher.search("nilson")).hasSize(25);
+    }
+
+    @Test
+    void search_shouldStillFindExactMatches_whenBudgetIsSpent() {
+        // Arrange
+        matcher.budget = Duration.ZERO;
+
+        // Act & Assert
+        assertThat(matcher.search("karlsson")).extracting(PatientSearchResult::id).containsExactly("2");
+        assertThat(matcher.search("karlsdon")).isEmpty();
+    }
+
+    @Test
+    void search_shouldReturnNothing_beforeFirstRebuild() {
+        // Act & Assert
+        assertThat(new PatientNameMatcher().isReady()).isFalse();
+        assertThat(new PatientNameMatcher().search("anna")).isEmpty();
+    }
+
+    // phoneticKeys() / withinEdits() TESTS
+
+    @Test
+    void phoneticKeys_shouldFollowSwedishSpelling_withAlternateForHardReading() {
+        // Assert
+        assertThat(PatientNameMatcher.phoneticKeys("andersson")).isEqualTo(PatientNameMatcher.phoneticKeys("andersen"));
+        assertThat(PatientNameMatcher.phoneticKeys("kjell")).isEqualTo(PatientNameMatcher.phoneticKeys("tjell"));
+        assertThat(PatientNameMatcher.phoneticKeys("göran")).containsAll(PatientNameMatcher.phoneticKeys("jöran"));
+        assertThat(PatientNameMatcher.phoneticKeys("kevin")).hasSize(2);
+        assertThat(PatientNameMatcher.phoneticKeys("nils")).hasSize(1);
+    }
+
+    @Test
+    void withinEdits_shouldReportEditDistance_forSortedWords() {
+        // Arrange
+        String[] words = {"andersen", "anderson", "andersson", "berg", "borg"};
+        List<String> found = new ArrayList<>();
+
+        // Act
+        PatientNameMatcher.withinEdits(words, "andersson", 2, Long.MAX_VALUE,
+                (word, edits) -> found.add(words[word] + ":" + edits));
+
+        // Assert
+        assertThat(found).containsExactly("andersen:2", "anderson:1", "andersson:0");
+    }
+
+    // HELPER METHODS
+
+    private static FhirBundle.FhirResource patient(String id, String given, String family) {
+        FhirBundle.FhirResource patient = new FhirBundle.FhirResource();
+        patient.resourceType = "Patient";
+        patient.id = id;
+        FhirBundle.HumanName name = new FhirBundle.HumanName();
+        name.given = List.of(given);
+        name.family = family;
+        patient.name = List.of(name);
+        return patient;
+    }
+}
@@ -0,0 +1,180 @@
+package org.journalsystem.service;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.helpers.test.UniAssertSubscriber;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import org.journalsystem.client.FhirClient;
+import org.journalsystem.dto.fhir.FhirBundle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class PractitionerIdCacheTest {
+
+    private FhirClient fhirClient;
+    private PractitionerIdCache cache;
+    private Instant now;
+
+    @BeforeEach
+    void setUp() {
+        fhirClient = Mockito.mock(FhirClient.class);
+        now = Instant.parse("2024-01-01T08:00:00Z");
+
+        cache = new PractitionerIdCache();
+        cache.fhirClient = fhirClient;
+        cache.ttl = Duration.ofHours(6);
+        cache.negativeTtl = Duration.ofMinutes(5);
+        cache.maxSize = 100;
+        cache.prewarmCount = 1000;
+        cache.clock = Clock.fixed(now, ZoneOffset.UTC);
+    }
+
+    // resolve() TESTS
+
+    @Test
+    void resolve_shouldCallFhirOnce_whenIdentifierIsResolvedTwice() {
+        // Arrange
+        when(fhirClient.searchPractitionerByIdentifier("9999994392"))
+                .thenReturn(Uni.createFrom().item(bundleWith("prac-1", "9999994392")));
+
+        // Act
+        String first = await(cache.resolve("9999994392"));
+        String second = await(cache.resolve("9999994392"));
+
+        // Assert
+        assertThat(first).isEqualTo("prac-1");
+        assertThat(second).isEqualTo("prac-1");
+        verify(fhirClient, times(1)).searchPractitionerByIdentifier("9999994392");
+    }
+
+    @Test
+    void resolve_shouldCacheMiss_untilNegativeTtlExpires() {
+        // Arrange
+        when(fhirClient.searchPractitionerByIdentifier("0000000000"))
+                .thenReturn(Uni.createFrom().item(new FhirBundle()));
+
+        // Act
+        String first = await(cache.resolve("0000000000"));
+        String cachedMiss = await(cache.resolve("0000000000"));
+        advance(Duration.ofMinutes(6));
+        String afterExpiry = await(cache.resolve("0000000000"));
+
+        // Assert
+        assertThat(first).isNull();
+        assertThat(cachedMiss).isNull();
+        assertThat(afterExpiry).isNull();
+        verify(fhirClient, times(2)).searchPractitionerByIdentifier("0000000000");
+    }
+
+    @Test
+    void resolve_shouldReload_whenTtlExpires() {
+        // Arrange
+        when(fhirClient.searchPractitionerByIdentifier("9999994392"))
+                .thenReturn(Uni.createFrom().item(bundleWith("prac-1", "9999994392")))
+                .thenReturn(Uni.createFrom().item(bundleWith("prac-2", "9999994392")));
+
+        // Act
+        String first = await(cache.resolve("9999994392"));
+        advance(Duration.ofHours(7));
+        String reloaded = await(cache.resolve("9999994392"));
+
+        // Assert
+        assertThat(first).isEqualTo("prac-1");
+        assertThat(reloaded).isEqualTo("prac-2");
+    }
+
+    @Test
+    void resolve_shouldNotCacheFailure() {
+        // Arrange
+        when(fhirClient.searchPractitionerByIdentifier("9999994392"))
+                .thenReturn(Uni.createFrom().failure(new RuntimeException("FHIR down")))
+                .thenReturn(Uni.createFrom().item(bundleWith("prac-1", "9999994392")));
+
+        // Act
+        cache.resolve("9999994392").subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitFailure();
+        String retried = await(cache.resolve("9999994392"));
+
+        // Assert
+        assertThat(retried).isEqualTo("prac-1");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void resolve_shouldShareOneRequest_whenLookupsRunConcurrently() {
+        // Arrange
+        AtomicReference<UniEmitter<? super FhirBundle>> pending = new AtomicReference<>();
+        when(fhirClient.searchPractitionerByIdentifier("9999994392"))
+                .thenReturn(Uni.createFrom().<FhirBundle>emitter(pending::set));
+
+        // Act
+        List<UniAssertSubscriber<String>> subscribers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            subscribers.add(cache.resolve("9999994392").subscribe().withSubscriber(UniAssertSubscriber.create()));
+        }
+        pending.get().complete(bundleWith("prac-1", "9999994392"));
+
+        // Assert
+        verify(fhirClient, times(1)).searchPractitionerByIdentifier("9999994392");
+        subscribers.forEach(subscriber -> subscriber.awaitItem().assertItem("prac-1"));
+    }
+
+    // warmUp() TESTS
+
+    @Test
+    void warmUp_shouldCacheEveryIdentifier_soResolveNeedsNoLookup() {
+        // Arrange
+        FhirBundle bundle = bundleWith("prac-1", "9999994392");
+        bundle.entry.add(bundleWith("prac-2", "9999994393").entry.get(0));
+        when(fhirClient.searchPractitionerIdentifiers("identifier", 1000))
+                .thenReturn(Uni.createFrom().item(bundle));
+
+        // Act
+        Integer warmed = cache.warmUp().await().indefinitely();
+        String resolved = await(cache.resolve("9999994393"));
+
+        // Assert
+        assertThat(warmed).isEqualTo(2);
+        assertThat(resolved).isEqualTo("prac-2");
+        verify(fhirClient, never()).searchPractitionerByIdentifier(anyString());
+    }
+
+    // HELPER METHODS
+
+    private String await(Uni<String> uni) {
+        return uni.await().atMost(Duration.ofSeconds(5));
+    }
+
+    private void advance(Duration duration) {
+        now = now.plus(duration);
+        cache.clock = Clock.fixed(now, ZoneOffset.UTC);
+    }
+
+    private FhirBundle bundleWith(String practitionerId, String identifierValue) {
+        FhirBundle.Identifier identifier = new FhirBundle.Identifier();
+        identifier.value = identifierValue;
+
+        FhirBundle.FhirResource practitioner = new FhirBundle.FhirResource();
+        practitioner.resourceType = "Practitioner";
+        practitioner.id = practitionerId;
+        practitioner.identifier = List.of(identifier);
+
+        FhirBundle.BundleEntry entry = new FhirBundle.BundleEntry();
+        entry.resource = practitioner;
+
+        FhirBundle bundle = new FhirBundle();
+        bundle.entry = new ArrayList<>(List.of(entry));
+        return bundle;
+    }
+}
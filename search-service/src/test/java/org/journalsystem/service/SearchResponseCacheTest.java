@@ -0,0 +1,178 @@
+package org.journalsystem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.helpers.test.UniAssertSubscriber;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchResponseCacheTest {
+
+    private SearchResponseCache cache;
+    private Instant now;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        now = Instant.parse("2024-01-01T08:00:00Z");
+        loads = new AtomicInteger();
+
+        cache = new SearchResponseCache();
+        cache.objectMapper = new ObjectMapper();
+        cache.meterRegistry = new SimpleMeterRegistry();
+        cache.enabled = true;
+        cache.maxSize = 100;
+        cache.patientsFreshFor = Duration.ofSeconds(30);
+        cache.patientsStaleFor = Duration.ofMinutes(5);
+        cache.encountersFreshFor = Duration.ofSeconds(15);
+        cache.encountersStaleFor = Duration.ofMinutes(2);
+        cache.clock = Clock.fixed(now, ZoneOffset.UTC);
+        cache.init();
+    }
+
+    // get() TESTS
+
+    @Test
+    void get_shouldNotReload_whileEntryIsFresh() {
+        // Act
+        SearchResponseCache.CachedResponse first = await(cache.get("patients", Map.of("name", "anna"), this::load));
+        advance(Duration.ofSeconds(20));
+        SearchResponseCache.CachedResponse second = await(cache.get("patients", Map.of("name", "anna"), this::load));
+
+        // Assert
+        assertThat(loads).hasValue(1);
+        assertThat(second.etag()).isEqualTo(first.etag());
+        assertThat(second.maxAgeSeconds(now)).isEqualTo(10);
+    }
+
+    @Test
+    void get_shouldServeStaleEntry_andRefreshInBackground() {
+        // Act
+        SearchResponseCache.CachedResponse first = await(cache.get("patients", Map.of("name", "anna"), this::load));
+        advance(Duration.ofMinutes(1));
+        SearchResponseCache.CachedResponse stale = await(cache.get("patients", Map.of("name", "anna"), this::load));
+        SearchResponseCache.CachedResponse refreshed = await(cache.get("patients", Map.of("name", "anna"), this::load));
+
+        // Assert
+        assertThat(loads).hasValue(2);
+        assertThat(stale.etag()).isEqualTo(first.etag());
+        assertThat(refreshed.etag()).isNotEqualTo(first.etag());
+        assertThat(refreshed.maxAgeSeconds(now)).isEqualTo(30);
+    }
+
+    @Test
+    void get_shouldReload_whenEntryIsPastStaleWindow() {
+        // Arrange
+        AtomicReference<UniEmitter<? super List<String>>> pending = new AtomicReference<>();
+        await(cache.get("encounters", Map.of("practitionerId", "999"), this::load));
+        advance(Duration.ofMinutes(3));
+
+        // Act
+        UniAssertSubscriber<SearchResponseCache.CachedResponse> subscriber = cache
+                .get("encounters", Map.of("practitionerId", "999"),
+                        () -> Uni.createFrom().<List<String>>emitter(pending::set))
+                .subscribe().withSubscriber(UniAssertSubscriber.create());
+
+        // Assert
+        subscriber.assertNotTerminated();
+        pending.get().complete(List.of("enc-2"));
+        assertThat(new String(subscriber.awaitItem().getItem().body())).isEqualTo("[\"enc-2\"]");
+    }
+
+    @Test
+    void get_shouldShareOneLoad_whenMissesRunConcurrently() {
+        // Arrange
+        AtomicReference<UniEmitter<? super List<String>>> pending = new AtomicReference<>();
+        AtomicInteger started = new AtomicInteger();
+
+        // Act
+        List<UniAssertSubscriber<SearchResponseCache.CachedResponse>> subscribers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            subscribers.add(cache.get("patients", Map.of("condition", "diabetes"), () -> {
+                started.incrementAndGet();
+                return Uni.createFrom().<List<String>>emitter(pending::set);
+            }).subscribe().withSubscriber(UniAssertSubscriber.create()));
+        }
+        pending.get().complete(List.of("123"));
+
+        // Assert
+        assertThat(started).hasValue(1);
+        subscribers.forEach(subscriber -> assertThat(subscriber.awaitItem().getItem().body()).isNotEmpty());
+    }
+
+    @Test
+    void get_shouldShareEntry_whenQueriesDifferOnlyInBlankParamsAndOrder() {
+        // Arrange
+        Map<String, String> withBlanks = new HashMap<>();
+        withBlanks.put("to", "2024-01-07");
+        withBlanks.put("date", " ");
+        withBlanks.put("limit", null);
+        withBlanks.put("practitionerId", " 999 ");
+
+        // Act
+        await(cache.get("encounters", Map.of("practitionerId", "999", "to", "2024-01-07"), this::load));
+        await(cache.get("encounters", withBlanks, this::load));
+
+        // Assert
+        assertThat(loads).hasValue(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void get_shouldNotCacheFailure() {
+        // Act
+        cache.get("patients", Map.of("name", "anna"),
+                        () -> Uni.createFrom().failure(new RuntimeException("FHIR down")))
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitFailure();
+        await(cache.get("patients", Map.of("name", "anna"), this::load));
+
+        // Assert
+        assertThat(loads).hasValue(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    // CachedResponse.matches() TESTS
+
+    @Test
+    void matches_shouldAcceptStrongAndWeakFormsOfTheEtag() {
+        // Arrange
+        SearchResponseCache.CachedResponse response = await(cache.get("patients", Map.of("name", "anna"), this::load));
+
+        // Assert
+        assertThat(response.matches("\"" + response.etag() + "\"")).isTrue();
+        assertThat(response.matches("\"other\", W/\"" + response.etag() + "\"")).isTrue();
+        assertThat(response.matches("\"other\"")).isFalse();
+        assertThat(response.matches(null)).isFalse();
+    }
+
+    // HELPER METHODS
+
+    private Uni<?> load() {
+        return Uni.createFrom().item(List.of("result-" + loads.incrementAndGet()));
+    }
+
+    private SearchResponseCache.CachedResponse await(Uni<SearchResponseCache.CachedResponse> uni) {
+        return uni.await().atMost(Duration.ofSeconds(5));
+    }
+
+    private void advance(Duration duration) {
+        now = now.plus(duration);
+        cache.clock = Clock.fixed(now, ZoneOffset.UTC);
+    }
+}
@@ -5,6 +5,10 @@ import io.quarkus.test.InjectMock;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.helpers.test.UniAssertSubscriber;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.journalsystem.client.FhirClient;
 import org.journalsystem.dto.EncounterSearchResult;
@@ -18,15 +22,24 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @QuarkusTest
 class SearchServiceTest {
 
+    private static final String DIABETES = ConditionTerminology.SNOMED + "|73211009";
+
     @Inject
     SearchService searchService;
 
+    @Inject
+    PractitionerIdCache practitionerIdCache;
+
     @InjectMock
     @RestClient
     FhirClient fhirClient;
@@ -40,6 +53,8 @@ class SearchServiceTest {
     @BeforeEach
     void setUp() {
         Mockito.reset(fhirClient);
+        practitionerIdCache.clear();
+        when(fhirClient.searchConditions(anyString())).thenReturn(Uni.createFrom().item(createEmptyBundle()));
 
         // Setup test data
         testPatient = createTestPatient("123", "Anna", "Andersson", "197001011234", "1970-01-01");
@@ -114,18 +129,59 @@ class SearchServiceTest {
     }
 
     @Test
-    void searchPatientsByName_shouldRecoverWithEmptyList_onError() {
+    void searchPatientsByName_shouldFailAsUnavailable_onError() {
         // Arrange
-        when(fhirClient.searchPatients("Error")).thenReturn(Uni.createFrom().failure(new RuntimeException("FHIR error")));
+        when(fhirClient.searchPatients("Error")).thenReturn(Uni.createFrom().failure(new ProcessingException("FHIR error")));
 
         // Act
-        List<PatientSearchResult> result = searchService.searchPatientsByName("Error")
+        Throwable failure = searchService.searchPatientsByName("Error")
                 .subscribe().withSubscriber(UniAssertSubscriber.create())
-                .awaitItem()
-                .getItem();
+                .awaitFailure()
+                .getFailure();
 
         // Assert
-        assertThat(result).isEmpty();
+        assertThat(failure).isInstanceOf(SearchUnavailableException.class)
+                .hasRootCauseMessage("FHIR error");
+    }
+
+    @Test
+    void searchPatientsByName_shouldFailAsUnavailable_whenServerIsBusy() {
+        // Arrange
+        when(fhirClient.searchPatients("Busy")).thenReturn(Uni.createFrom().failure(
+                new WebApplicationException(Response.status(503).build())));
+
+        // Act
+        Throwable failure = searchService.searchPatientsByName("Busy")
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitFailure()
+                .getFailure();
+
+        // Assert
+        assertThat(failure).isInstanceOf(SearchUnavailableException.class);
+    }
+
+    @Test
+    void searchPatientsByName_shouldPropagateOtherFailures_unchanged() {
+        // Arrange
+        IllegalStateException bug = new IllegalStateException("mapping failed");
+        when(fhirClient.searchPatients("Bug")).thenReturn(Uni.createFrom().failure(bug));
+        when(fhirClient.searchPatients("Bad")).thenReturn(Uni.createFrom().failure(
+                new WebApplicationException(Response.status(400).build())));
+
+        // Act
+        Throwable bugFailure = searchService.searchPatientsByName("Bug")
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitFailure()
+                .getFailure();
+        Throwable badRequest = searchService.searchPatientsByName("Bad")
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitFailure()
+                .getFailure();
+
+        // Assert
+        assertThat(bugFailure).isSameAs(bug);
+        assertThat(badRequest).isInstanceOf(WebApplicationException.class)
+                .isNotInstanceOf(SearchUnavailableException.class);
     }
 
     @Test
@@ -168,7 +224,7 @@ class SearchServiceTest {
     @Test
     void searchPatientsByCondition_shouldReturnPatients_whenConditionsExist() {
         // Arrange
-        when(fhirClient.searchConditions("Diabetes")).thenReturn(Uni.createFrom().item(testConditionBundle));
+        when(fhirClient.searchConditionsByCode(contains(DIABETES))).thenReturn(Uni.createFrom().item(testConditionBundle));
         when(fhirClient.getPatient("123")).thenReturn(Uni.createFrom().item(testPatient));
 
         // Act
@@ -211,7 +267,7 @@ class SearchServiceTest {
 
         FhirBundle.FhirResource patient2 = createTestPatient("456", "Erik", "Svensson", "198001011234", "1980-01-01");
 
-        when(fhirClient.searchConditions("Diabetes")).thenReturn(Uni.createFrom().item(multiConditionBundle));
+        when(fhirClient.searchConditionsByCode(contains(DIABETES))).thenReturn(Uni.createFrom().item(multiConditionBundle));
         when(fhirClient.getPatient("123")).thenReturn(Uni.createFrom().item(testPatient));
         when(fhirClient.getPatient("456")).thenReturn(Uni.createFrom().item(patient2));
 
@@ -226,18 +282,19 @@ class SearchServiceTest {
     }
 
     @Test
-    void searchPatientsByCondition_shouldRecoverWithEmptyList_onError() {
+    void searchPatientsByCondition_shouldFailAsUnavailable_onError() {
         // Arrange
-        when(fhirClient.searchConditions("Error")).thenReturn(Uni.createFrom().failure(new RuntimeException("FHIR error")));
+        when(fhirClient.searchConditions("Error")).thenReturn(Uni.createFrom().failure(new ProcessingException("FHIR error")));
 
         // Act
-        List<PatientSearchResult> result = searchService.searchPatientsByCondition("Error")
+        Throwable failure = searchService.searchPatientsByCondition("Error")
                 .subscribe().withSubscriber(UniAssertSubscriber.create())
-                .awaitItem()
-                .getItem();
+                .awaitFailure()
+                .getFailure();
 
         // Assert
-        assertThat(result).isEmpty();
+        assertThat(failure).isInstanceOf(SearchUnavailableException.class)
+                .hasRootCauseMessage("FHIR error");
     }
 
     @Test
@@ -249,7 +306,7 @@ class SearchServiceTest {
                 condition2
         ));
 
-        when(fhirClient.searchConditions("Diabetes")).thenReturn(Uni.createFrom().item(multiConditionBundle));
+        when(fhirClient.searchConditionsByCode(contains(DIABETES))).thenReturn(Uni.createFrom().item(multiConditionBundle));
         when(fhirClient.getPatient("123")).thenReturn(Uni.createFrom().item(testPatient));
         when(fhirClient.getPatient("456")).thenReturn(Uni.createFrom().failure(new RuntimeException("Not found")));
 
@@ -264,6 +321,121 @@ class SearchServiceTest {
         assertThat(result.get(0).id()).isEqualTo("123");
     }
 
+    @Test
+    void searchPatientsByCondition_shouldFailAsUnavailable_whenPatientLookupsHitOpenCircuit() {
+        // Arrange
+        when(fhirClient.searchConditionsByCode(contains(DIABETES))).thenReturn(Uni.createFrom().item(testConditionBundle));
+        when(fhirClient.getPatient("123"))
+                .thenReturn(Uni.createFrom().failure(new CircuitBreakerOpenException("getPatient")));
+
+        // Act
+        Throwable failure = searchService.searchPatientsByCondition("Diabetes")
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitFailure()
+                .getFailure();
+
+        // Assert
+        assertThat(failure).isInstanceOf(SearchUnavailableException.class);
+        assertThat(((SearchUnavailableException) failure).getReason()).isEqualTo("circuit-open");
+    }
+
+    @Test
+    void searchPatientsByCondition_shouldSearchByCodeAndText_whenTermIsInTerminology() {
+        // Arrange
+        when(fhirClient.searchConditionsByCode(anyString())).thenReturn(Uni.createFrom().item(createEmptyBundle()));
+
+        // Act
+        searchService.searchPatientsByCondition("  Typ 2-diabetes ")
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitItem();
+
+        // Assert
+        verify(fhirClient).searchConditionsByCode(
+                ConditionTerminology.SNOMED + "|44054006," + ConditionTerminology.ICD10 + "|E11");
+        verify(fhirClient).searchConditions("  Typ 2-diabetes ");
+    }
+
+    @Test
+    void searchPatientsByCondition_shouldFindConditionsWithGenericCode_byText() {
+        // Arrange - what the UI stores: the typed text with the generic SNOMED "Disorder" code
+        FhirBundle.FhirResource recorded = createTestCondition("cond1", "Patient/123", "Diabetes");
+        FhirBundle.Coding generic = new FhirBundle.Coding();
+        generic.system = ConditionTerminology.SNOMED;
+        generic.code = "404684003";
+        recorded.code.coding = List.of(generic);
+        FhirBundle.FhirResource coded = createTestCondition("cond2", "Patient/456", "Type 1 diabetes");
+
+        when(fhirClient.searchConditionsByCode(contains(DIABETES)))
+                .thenReturn(Uni.createFrom().item(createBundleWithConditions(List.of(coded))));
+        when(fhirClient.searchConditions("Diabetes"))
+                .thenReturn(Uni.createFrom().item(createBundleWithConditions(List.of(recorded))));
+        when(fhirClient.getPatient("123")).thenReturn(Uni.createFrom().item(testPatient));
+        when(fhirClient.getPatient("456")).thenReturn(Uni.createFrom().item(
+                createTestPatient("456", "Erik", "Svensson", "198001011234", "1980-01-01")));
+
+        // Act
+        List<PatientSearchResult> result = searchService.searchPatientsByCondition("Diabetes")
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitItem()
+                .getItem();
+
+        // Assert
+        assertThat(result).extracting(PatientSearchResult::id).containsExactlyInAnyOrder("123", "456");
+    }
+
+    // searchPatientsByConditionCode() TESTS
+
+    @Test
+    void searchPatientsByConditionCode_shouldSearchExactCode() {
+        // Arrange
+        when(fhirClient.searchConditionsByCode(ConditionTerminology.ICD10 + "|E11"))
+                .thenReturn(Uni.createFrom().item(testConditionBundle));
+        when(fhirClient.getPatient("123")).thenReturn(Uni.createFrom().item(testPatient));
+
+        // Act
+        List<PatientSearchResult> result = searchService.searchPatientsByConditionCode("icd10|E11", false)
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitItem()
+                .getItem();
+
+        // Assert
+        assertThat(result).extracting(PatientSearchResult::id).containsExactly("123");
+    }
+
+    @Test
+    void searchPatientsByConditionCode_shouldExpandBelowLocally_whenCodeIsInTerminology() {
+        // Arrange
+        when(fhirClient.searchConditionsByCode(anyString())).thenReturn(Uni.createFrom().item(createEmptyBundle()));
+
+        // Act
+        searchService.searchPatientsByConditionCode("snomed|73211009", true)
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitItem();
+
+        // Assert
+        verify(fhirClient).searchConditionsByCode(DIABETES
+                + "," + ConditionTerminology.SNOMED + "|46635009"
+                + "," + ConditionTerminology.SNOMED + "|44054006"
+                + "," + ConditionTerminology.SNOMED + "|11687002");
+        verify(fhirClient, never()).searchConditionsByCodeBelow(anyString());
+    }
+
+    @Test
+    void searchPatientsByConditionCode_shouldAskServerForBelow_whenCodeIsUnknown() {
+        // Arrange
+        when(fhirClient.searchConditionsByCodeBelow(ConditionTerminology.SNOMED + "|128053003"))
+                .thenReturn(Uni.createFrom().item(createEmptyBundle()));
+
+        // Act
+        List<PatientSearchResult> result = searchService.searchPatientsByConditionCode("snomed|128053003", true)
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitItem()
+                .getItem();
+
+        // Assert
+        assertThat(result).isEmpty();
+    }
+
     // searchPatientsByPractitionerId() TESTS
 
     @Test
@@ -314,6 +486,34 @@ class SearchServiceTest {
         assertThat(result.get(0).id()).isEqualTo("123");
     }
 
+    @Test
+    void searchPatientsByPractitionerId_shouldResolveIdentifier_whenPersonnummerHasHyphen() {
+        // Arrange
+        String identifier = "19800101-1234";
+        String resolvedId = "30681750-1667-311a-a3e3-878ae10a35bb";
+
+        FhirBundle practitionerSearchBundle = createBundleWithPractitioners(List.of(
+                createTestPractitionerWithId(resolvedId, "Dr. Test", "Doctor")
+        ));
+
+        when(fhirClient.searchPractitionerByIdentifier(identifier))
+                .thenReturn(Uni.createFrom().item(practitionerSearchBundle));
+        when(fhirClient.searchEncountersByPractitioner("Practitioner/" + resolvedId))
+                .thenReturn(Uni.createFrom().item(testEncounterBundle));
+        when(fhirClient.getPatient("123")).thenReturn(Uni.createFrom().item(testPatient));
+
+        // Act
+        List<PatientSearchResult> result = searchService.searchPatientsByPractitionerId(identifier)
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitItem()
+                .getItem();
+
+        // Assert
+        assertThat(result).hasSize(1);
+        verify(fhirClient).searchPractitionerByIdentifier(identifier);
+        verify(fhirClient, never()).searchEncountersByPractitioner("Practitioner/" + identifier);
+    }
+
     @Test
     void searchPatientsByPractitionerId_shouldReturnEmpty_whenPractitionerNotFound() {
         // Arrange
@@ -360,21 +560,22 @@ class SearchServiceTest {
     }
 
     @Test
-    void searchPatientsByPractitionerId_shouldRecoverWithEmptyList_onError() {
+    void searchPatientsByPractitionerId_shouldFailAsUnavailable_onError() {
         // Arrange
-        String practitionerId = "error-id";
+        String practitionerId = "00000000-0000-0000-0000-00000000e404";
 
         when(fhirClient.searchEncountersByPractitioner(anyString()))
-                .thenReturn(Uni.createFrom().failure(new RuntimeException("FHIR error")));
+                .thenReturn(Uni.createFrom().failure(new ProcessingException("FHIR error")));
 
         // Act
-        List<PatientSearchResult> result = searchService.searchPatientsByPractitionerId(practitionerId)
+        Throwable failure = searchService.searchPatientsByPractitionerId(practitionerId)
                 .subscribe().withSubscriber(UniAssertSubscriber.create())
-                .awaitItem()
-                .getItem();
+                .awaitFailure()
+                .getFailure();
 
         // Assert
-        assertThat(result).isEmpty();
+        assertThat(failure).isInstanceOf(SearchUnavailableException.class)
+                .hasRootCauseMessage("FHIR error");
     }
 
     // searchEncountersByPractitioner() TESTS
@@ -384,7 +585,7 @@ class SearchServiceTest {
         // Arrange
         String practitionerId = "30681750-1667-311a-a3e3-878ae10a35bb";
 
-        when(fhirClient.searchEncountersByPractitionerOnly(practitionerId))
+        when(fhirClient.searchEncountersByPractitionerOnly(practitionerId, "-date", SearchService.DEFAULT_ENCOUNTER_LIMIT))
                 .thenReturn(Uni.createFrom().item(testEncounterBundle));
         when(fhirClient.getPatient("123")).thenReturn(Uni.createFrom().item(testPatient));
         when(fhirClient.getPractitioner(practitionerId)).thenReturn(Uni.createFrom().item(testPractitioner));
@@ -400,6 +601,7 @@ class SearchServiceTest {
         assertThat(result).hasSize(1);
         assertThat(result.get(0).id()).isEqualTo("enc1");
         assertThat(result.get(0).patientId()).isEqualTo("123");
+        verify(fhirClient).searchEncountersByPractitionerOnly(practitionerId, "-date", SearchService.DEFAULT_ENCOUNTER_LIMIT);
     }
 
     @Test
@@ -436,7 +638,7 @@ class SearchServiceTest {
 
         when(fhirClient.searchPractitionerByIdentifier(identifier))
                 .thenReturn(Uni.createFrom().item(practitionerSearchBundle));
-        when(fhirClient.searchEncountersByPractitionerOnly(resolvedId))
+        when(fhirClient.searchEncountersByPractitionerOnly(resolvedId, "-date", SearchService.DEFAULT_ENCOUNTER_LIMIT))
                 .thenReturn(Uni.createFrom().item(testEncounterBundle));
         when(fhirClient.getPatient("123")).thenReturn(Uni.createFrom().item(testPatient));
         when(fhirClient.getPractitioner(resolvedId)).thenReturn(Uni.createFrom().item(testPractitioner));
@@ -479,7 +681,7 @@ class SearchServiceTest {
                 createTestEncounter("enc2", "Patient/123", "Practitioner/999", "2024-01-02T10:00:00", "2024-01-02T11:00:00")
         ));
 
-        when(fhirClient.searchEncountersByPractitionerOnly(practitionerId))
+        when(fhirClient.searchEncountersByPractitionerOnly(practitionerId, "-date", SearchService.DEFAULT_ENCOUNTER_LIMIT))
                 .thenReturn(Uni.createFrom().item(multiEncounterBundle));
         when(fhirClient.getPatient("123")).thenReturn(Uni.createFrom().item(testPatient));
         when(fhirClient.getPractitioner(practitionerId)).thenReturn(Uni.createFrom().item(testPractitioner));
@@ -491,27 +693,29 @@ class SearchServiceTest {
                 .getItem();
 
         // Assert
+        // Without a date the latest encounters are returned, newest first
         assertThat(result).hasSize(2);
-        assertThat(result.get(0).id()).isEqualTo("enc1");
-        assertThat(result.get(1).id()).isEqualTo("enc2");
+        assertThat(result.get(0).id()).isEqualTo("enc2");
+        assertThat(result.get(1).id()).isEqualTo("enc1");
     }
 
     @Test
-    void searchEncountersByPractitioner_shouldRecoverWithEmptyList_onError() {
+    void searchEncountersByPractitioner_shouldFailAsUnavailable_onError() {
         // Arrange
-        String practitionerId = "error-id";
+        String practitionerId = "00000000-0000-0000-0000-00000000e404";
 
-        when(fhirClient.searchEncountersByPractitionerOnly(practitionerId))
-                .thenReturn(Uni.createFrom().failure(new RuntimeException("FHIR error")));
+        when(fhirClient.searchEncountersByPractitionerOnly(practitionerId, "-date", SearchService.DEFAULT_ENCOUNTER_LIMIT))
+                .thenReturn(Uni.createFrom().failure(new ProcessingException("FHIR error")));
 
         // Act
-        List<EncounterSearchResult> result = searchService.searchEncountersByPractitioner(practitionerId, null)
+        Throwable failure = searchService.searchEncountersByPractitioner(practitionerId, null)
                 .subscribe().withSubscriber(UniAssertSubscriber.create())
-                .awaitItem()
-                .getItem();
+                .awaitFailure()
+                .getFailure();
 
         // Assert
-        assertThat(result).isEmpty();
+        assertThat(failure).isInstanceOf(SearchUnavailableException.class)
+                .hasRootCauseMessage("FHIR error");
     }
 
     @Test
@@ -525,7 +729,7 @@ class SearchServiceTest {
                 encounterWithoutPatient
         ));
 
-        when(fhirClient.searchEncountersByPractitionerOnly(practitionerId))
+        when(fhirClient.searchEncountersByPractitionerOnly(practitionerId, "-date", SearchService.DEFAULT_ENCOUNTER_LIMIT))
                 .thenReturn(Uni.createFrom().item(mixedBundle));
         when(fhirClient.getPatient("123")).thenReturn(Uni.createFrom().item(testPatient));
         when(fhirClient.getPractitioner(practitionerId)).thenReturn(Uni.createFrom().item(testPractitioner));
@@ -541,6 +745,99 @@ class SearchServiceTest {
         assertThat(result.get(0).id()).isEqualTo("enc1");
     }
 
+    @Test
+    void searchEncountersByPractitioner_shouldQueryDateRangeNewestFirst_whenFromAndToProvided() {
+        // Arrange
+        String practitionerId = "30681750-1667-311a-a3e3-878ae10a35bb";
+
+        FhirBundle weekBundle = createBundleWithEncounters(List.of(
+                createTestEncounter("enc2", "Patient/123", "Practitioner/999", "2024-01-03T10:00:00", "2024-01-03T11:00:00"),
+                createTestEncounter("enc1", "Patient/123", "Practitioner/999", "2024-01-01T10:00:00", "2024-01-01T11:00:00")
+        ));
+
+        when(fhirClient.searchEncountersByPractitionerInRange(
+                practitionerId, List.of("ge2024-01-01", "le2024-01-07"), "-date", 50))
+                .thenReturn(Uni.createFrom().item(weekBundle));
+        when(fhirClient.getPatient("123")).thenReturn(Uni.createFrom().item(testPatient));
+        when(fhirClient.getPractitioner(practitionerId)).thenReturn(Uni.createFrom().item(testPractitioner));
+
+        // Act
+        List<EncounterSearchResult> result = searchService
+                .searchEncountersByPractitioner(practitionerId, null, "2024-01-01", "2024-01-07", 50)
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitItem()
+                .getItem();
+
+        // Assert
+        assertThat(result).extracting(EncounterSearchResult::id).containsExactly("enc2", "enc1");
+        Mockito.verify(fhirClient, Mockito.never()).searchEncountersByPractitionerOnly(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void searchEncountersByPractitioner_shouldUseDefaultLimit_whenOnlyFromProvided() {
+        // Arrange
+        String practitionerId = "30681750-1667-311a-a3e3-878ae10a35bb";
+
+        when(fhirClient.searchEncountersByPractitionerInRange(
+                practitionerId, List.of("ge2024-01-01"), "-date", SearchService.DEFAULT_ENCOUNTER_LIMIT))
+                .thenReturn(Uni.createFrom().item(testEncounterBundle));
+        when(fhirClient.getPatient("123")).thenReturn(Uni.createFrom().item(testPatient));
+        when(fhirClient.getPractitioner(practitionerId)).thenReturn(Uni.createFrom().item(testPractitioner));
+
+        // Act
+        List<EncounterSearchResult> result = searchService
+                .searchEncountersByPractitioner(practitionerId, null, "2024-01-01", null, null)
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitItem()
+                .getItem();
+
+        // Assert
+        assertThat(result).hasSize(1);
+    }
+
+    @Test
+    void searchEncountersByPractitioner_shouldCapNewestEncounters_whenOnlyLimitProvided() {
+        // Arrange
+        String practitionerId = "30681750-1667-311a-a3e3-878ae10a35bb";
+
+        when(fhirClient.searchEncountersByPractitionerInRange(practitionerId, List.of(), "-date", 10))
+                .thenReturn(Uni.createFrom().item(testEncounterBundle));
+        when(fhirClient.getPatient("123")).thenReturn(Uni.createFrom().item(testPatient));
+        when(fhirClient.getPractitioner(practitionerId)).thenReturn(Uni.createFrom().item(testPractitioner));
+
+        // Act
+        List<EncounterSearchResult> result = searchService
+                .searchEncountersByPractitioner(practitionerId, null, null, null, 10)
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitItem()
+                .getItem();
+
+        // Assert
+        assertThat(result).hasSize(1);
+    }
+
+    @Test
+    void searchEncountersByPractitioner_shouldCapEncountersOnDate_whenDateAndLimitProvided() {
+        // Arrange
+        String practitionerId = "30681750-1667-311a-a3e3-878ae10a35bb";
+
+        when(fhirClient.searchEncountersByPractitionerInRange(practitionerId, List.of("2024-01-01"), "-date", 10))
+                .thenReturn(Uni.createFrom().item(testEncounterBundle));
+        when(fhirClient.getPatient("123")).thenReturn(Uni.createFrom().item(testPatient));
+        when(fhirClient.getPractitioner(practitionerId)).thenReturn(Uni.createFrom().item(testPractitioner));
+
+        // Act
+        List<EncounterSearchResult> result = searchService
+                .searchEncountersByPractitioner(practitionerId, "2024-01-01", null, null, 10)
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitItem()
+                .getItem();
+
+        // Assert
+        assertThat(result).hasSize(1);
+        Mockito.verify(fhirClient, Mockito.never()).searchEncountersByPractitionerAndDate(anyString(), anyString());
+    }
+
     // HELPER METHODS
 
     private FhirBundle.FhirResource createTestPatient(String id, String firstName, String lastName, String ssn, String birthDate) {
@@ -0,0 +1,105 @@
+package com.journalSystem.user_service.config;
+
+import com.journalSystem.user_service.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.util.*;
+
+/**
+ * Cleans up the unique keys on users that were declared with
+ * {@code @Column(unique = true)} before the constraints were named.
+ * ddl-auto=update adds the named constraints but leaves the old ones in place,
+ * and a duplicate that trips an old key is reported under a generated name
+ * that {@link com.journalSystem.user_service.service.DuplicateRegistrationException}
+ * cannot map to a field. An old key is dropped when its named replacement
+ * exists, otherwise it is renamed to it (recreated under that name outside
+ * MySQL). Databases created since are left as they are.
+ */
+@Component
+public class LegacyUniqueKeyMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LegacyUniqueKeyMigration.class);
+
+    private static final String UNIQUE_KEYS_SQL = """
+            SELECT tc.CONSTRAINT_NAME, kcu.COLUMN_NAME
+            FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS tc
+            JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE kcu
+              ON kcu.CONSTRAINT_SCHEMA = tc.CONSTRAINT_SCHEMA
+             AND kcu.CONSTRAINT_NAME = tc.CONSTRAINT_NAME
+             AND kcu.TABLE_NAME = tc.TABLE_NAME
+            WHERE tc.CONSTRAINT_TYPE = 'UNIQUE'
+              AND LOWER(tc.TABLE_NAME) = 'users'
+              AND tc.TABLE_SCHEMA = ?
+            """;
+
+    private static final Map<String, String> NAMED_KEYS = Map.of(
+            "username", User.UK_USERNAME,
+            "foreign_id", User.UK_FOREIGN_ID);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public LegacyUniqueKeyMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // Waits for Hibernate's schema update, which may still be running with deferred bootstrap
+        entityManagerFactory.getMetamodel();
+        migrate();
+    }
+
+    /**
+     * Returns the statements that were run.
+     */
+    public List<String> migrate() {
+        boolean mysql = Boolean.TRUE.equals(jdbcTemplate.execute((Connection c) ->
+                c.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql")));
+        String schema = jdbcTemplate.execute((Connection c) -> mysql ? c.getCatalog() : c.getSchema());
+
+        Map<String, List<String>> columnsByKey = new LinkedHashMap<>();
+        jdbcTemplate.query(UNIQUE_KEYS_SQL, rs -> {
+            columnsByKey.computeIfAbsent(rs.getString(1), key -> new ArrayList<>())
+                    .add(rs.getString(2).toLowerCase(Locale.ROOT));
+        }, schema);
+        Set<String> existing = new HashSet<>();
+        columnsByKey.keySet().forEach(name -> existing.add(name.toLowerCase(Locale.ROOT)));
+
+        List<String> statements = new ArrayList<>();
+        for (Map.Entry<String, List<String>> key : columnsByKey.entrySet()) {
+            List<String> columns = key.getValue();
+            String named = columns.size() == 1 ? NAMED_KEYS.get(columns.get(0)) : null;
+            if (named == null || named.equalsIgnoreCase(key.getKey())) {
+                continue;
+            }
+            List<String> migration = new ArrayList<>(2);
+            if (mysql) {
+                migration.add(existing.contains(named)
+                        ? "ALTER TABLE users DROP INDEX `" + key.getKey() + "`"
+                        : "ALTER TABLE users RENAME INDEX `" + key.getKey() + "` TO " + named);
+            } else {
+                // Elsewhere (H2) errors name the backing index, which a constraint rename keeps
+                migration.add("ALTER TABLE users DROP CONSTRAINT \"" + key.getKey() + "\"");
+                if (!existing.contains(named)) {
+                    migration.add("ALTER TABLE users ADD CONSTRAINT " + named + " UNIQUE (" + columns.get(0) + ")");
+                }
+            }
+            existing.add(named);
+            for (String statement : migration) {
+                jdbcTemplate.execute(statement);
+                log.info("Migrated legacy unique key on users({}): {}", columns.get(0), statement);
+            }
+            statements.addAll(migration);
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,38 @@
+package com.journalSystem.user_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Password hashing is deliberately CPU-heavy, so login and register run on their
+ * own bounded pool instead of the servlet threads. When the pool and its queue are
+ * full new requests are rejected straight away rather than piling up behind the
+ * hashes and starving every other endpoint.
+ */
+@Configuration
+public class LoginExecutorConfig {
+
+    public static final String LOGIN_EXECUTOR = "loginExecutor";
+
+    @Bean(name = LOGIN_EXECUTOR)
+    public ThreadPoolTaskExecutor loginExecutor(
+            @Value("${auth.login.executor.core-size:2}") int coreSize,
+            @Value("${auth.login.executor.max-size:4}") int maxSize,
+            @Value("${auth.login.executor.queue-capacity:50}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("login-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setTaskDecorator(StatementCounter::propagate);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,110 @@
+package com.journalSystem.user_service.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records how many SQL statements each request ran (jpa.request.statements,
+ * tagged like http.server.requests). A request that runs more than the
+ * threshold is logged, since that is usually a lazy association loaded once
+ * per row (N+1). An async request is recorded when it completes, so the
+ * statements its executor task ran are included.
+ */
+@Component
+public class StatementCountFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementCountFilter.class);
+
+    private final StatementCounter counter;
+    private final MeterRegistry meterRegistry;
+    private final int warnThreshold;
+
+    public StatementCountFilter(
+            StatementCounter counter,
+            MeterRegistry meterRegistry,
+            @Value("${persistence.statements-per-request.warn-threshold:20}") int warnThreshold
+    ) {
+        this.counter = counter;
+        this.meterRegistry = meterRegistry;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AtomicInteger count = counter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            counter.stop();
+            String method = request.getMethod();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new RecordOnComplete(method, uri, count));
+            } else {
+                record(method, uri, count.get());
+            }
+        }
+    }
+
+    private void record(String method, String uri, int statements) {
+        DistributionSummary.builder("jpa.request.statements")
+                .description("SQL statements prepared while handling one request")
+                .tags("method", method, "uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statements);
+        if (statements > warnThreshold) {
+            log.warn("{} {} ran {} SQL statements (threshold {}), possible N+1 query",
+                    method, uri, statements, warnThreshold);
+        }
+    }
+
+    private class RecordOnComplete implements AsyncListener {
+
+        private final String method;
+        private final String uri;
+        private final AtomicInteger count;
+
+        RecordOnComplete(String method, String uri, AtomicInteger count) {
+            this.method = method;
+            this.uri = uri;
+            this.count = count;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record(method, uri, count.get());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Starting async again clears the listeners
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -1,19 +1,54 @@
 package com.journalSystem.user_service.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.journalSystem.user_service.config.LoginExecutorConfig;
+import com.journalSystem.user_service.dto.ErrorResponse;
+import com.journalSystem.user_service.dto.ImportEvent;
+import com.journalSystem.user_service.dto.LoginResponse;
 import com.journalSystem.user_service.dto.UserDTO;
 import com.journalSystem.user_service.model.Role;
 import com.journalSystem.user_service.model.User;
+import com.journalSystem.user_service.security.SessionTokenService;
 import com.journalSystem.user_service.service.AuthService;
+import com.journalSystem.user_service.service.DuplicateRegistrationException;
+import com.journalSystem.user_service.service.ImportFormat;
+import com.journalSystem.user_service.service.UserImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
 @RestController
 @RequestMapping("/api/v1/auth")
 @CrossOrigin(origins = {"http://localhost:30000", "http://localhost:3000"})
 @RequiredArgsConstructor
 public class AuthController {
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv");
+
     private final AuthService authService;
+    private final SessionTokenService sessionTokenService;
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
+
+    @Qualifier(LoginExecutorConfig.LOGIN_EXECUTOR)
+    private final Executor loginExecutor;
 
     public record RegisterRequest(
             String username,
@@ -26,28 +61,74 @@ public class AuthController {
     public record LoginRequest(String username, String password) {}
 
     @PostMapping("/register")
-    public ResponseEntity<UserDTO> register(@RequestBody RegisterRequest req) {
-        try {
-            User user = authService.register(
-                    req.username(),
-                    req.email(),
-                    req.password(),
-                    req.role(),
-                    req.foreignId()
-            );
-            return ResponseEntity.ok(toDTO(user));
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().build();
-        }
+    public CompletableFuture<ResponseEntity<Object>> register(@RequestBody RegisterRequest req) {
+        return onLoginExecutor(() -> {
+            try {
+                User user = authService.register(
+                        req.username(),
+                        req.email(),
+                        req.password(),
+                        req.role(),
+                        req.foreignId()
+                );
+                return ResponseEntity.ok(toDTO(user));
+            } catch (DuplicateRegistrationException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(new ErrorResponse(e.getMessage(), e.getField()));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage(), null));
+            }
+        });
     }
 
     @PostMapping("/login")
-    public ResponseEntity<UserDTO> login(@RequestBody LoginRequest req) {
-        User user = authService.login(req.username(), req.password());
-        if (user == null) {
-            return ResponseEntity.status(401).build();
+    public CompletableFuture<ResponseEntity<LoginResponse>> login(@RequestBody LoginRequest req) {
+        return onLoginExecutor(() -> {
+            User user = authService.login(req.username(), req.password());
+            if (user == null) {
+                return ResponseEntity.status(401).build();
+            }
+            return ResponseEntity.ok(toLoginResponse(user, sessionTokenService.issue(user)));
+        });
+    }
+
+    /**
+     * Bulk import of users from CSV (with header) or NDJSON.
+     * The response is an NDJSON stream: one "error" line per rejected row,
+     * a "progress" line after every batch and a final "summary" line.
+     */
+    @PostMapping(value = "/import",
+            consumes = {"text/csv", "application/x-ndjson"},
+            produces = "application/x-ndjson")
+    public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        MediaType contentType;
+        try {
+            contentType = MediaType.parseMediaType(request.getContentType());
+        } catch (InvalidMediaTypeException e) {
+            response.sendError(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+            return;
+        }
+        ImportFormat format = TEXT_CSV.equalsTypeAndSubtype(contentType)
+                ? ImportFormat.CSV
+                : ImportFormat.NDJSON;
+        BufferedReader body = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8), 64 * 1024);
+
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        Writer out = response.getWriter();
+
+        try {
+            userImportService.importUsers(body, format, event -> writeEvent(out, event));
+        } catch (IllegalArgumentException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.resetBuffer();
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(out, new ErrorResponse(e.getMessage(), null));
         }
-        return ResponseEntity.ok(toDTO(user));
     }
 
     @GetMapping("/user/{id}")
@@ -66,6 +147,40 @@ public class AuthController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    private <T> CompletableFuture<ResponseEntity<T>> onLoginExecutor(Supplier<ResponseEntity<T>> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, loginExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build());
+        }
+    }
+
+    private void writeEvent(Writer out, ImportEvent event) {
+        try {
+            out.write(objectMapper.writeValueAsString(event));
+            out.write('\n');
+            if (!"error".equals(event.type())) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private LoginResponse toLoginResponse(User user, SessionTokenService.IssuedToken token) {
+        return new LoginResponse(
+                user.getId(),
+                user.getUsername(),
+                user.getEmail(),
+                user.getRole() != null ? user.getRole().name() : null,
+                user.getForeignId(),
+                token.token(),
+                token.expiresAt().getEpochSecond()
+        );
+    }
+
     private UserDTO toDTO(User user) {
         return new UserDTO(
                 user.getId(),
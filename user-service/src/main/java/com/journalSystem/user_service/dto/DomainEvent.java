@@ -0,0 +1,17 @@
+package com.journalSystem.user_service.dto;
+
+import java.time.Instant;
+
+/**
+ * An outbox event as handed to the transport. eventId is unique per event and
+ * stays the same when the relay retries, so consumers can drop redeliveries.
+ * payload is the JSON of the event record, e.g. {@link UserRegisteredEvent}.
+ */
+public record DomainEvent(
+        String eventId,
+        String type,
+        String aggregateType,
+        String aggregateId,
+        Instant occurredAt,
+        String payload
+) {}
@@ -0,0 +1,6 @@
+package com.journalSystem.user_service.dto;
+
+public record ErrorResponse(
+        String error,
+        String field
+) {}
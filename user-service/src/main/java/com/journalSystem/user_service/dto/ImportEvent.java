@@ -0,0 +1,31 @@
+package com.journalSystem.user_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One line of the NDJSON stream returned by the user import endpoint.
+ * type is "error" (one rejected row), "progress" (after each batch) or "summary" (last line).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ImportEvent(
+        String type,
+        Long line,
+        String field,
+        String message,
+        Long processed,
+        Long imported,
+        Long failed,
+        Long durationMs
+) {
+    public static ImportEvent error(long line, String field, String message) {
+        return new ImportEvent("error", line, field, message, null, null, null, null);
+    }
+
+    public static ImportEvent progress(long processed, long imported, long failed) {
+        return new ImportEvent("progress", null, null, null, processed, imported, failed, null);
+    }
+
+    public static ImportEvent summary(long processed, long imported, long failed, long durationMs) {
+        return new ImportEvent("summary", null, null, null, processed, imported, failed, durationMs);
+    }
+}
@@ -0,0 +1,11 @@
+package com.journalSystem.user_service.dto;
+
+public record LoginResponse(
+        Long id,
+        String username,
+        String email,
+        String role,
+        String foreignId,
+        String token,
+        long expiresAt
+) {}
@@ -0,0 +1,22 @@
+package com.journalSystem.user_service.dto;
+
+import com.journalSystem.user_service.model.User;
+
+/**
+ * Published when a user account is created, by registration or bulk import.
+ * foreignId is the personnummer of the patient or practitioner the account belongs to.
+ */
+public record UserRegisteredEvent(
+        Long userId,
+        String username,
+        String role,
+        String foreignId
+) {
+    public static final String TYPE = "UserRegistered";
+    public static final String AGGREGATE = "User";
+
+    public static UserRegisteredEvent of(User user) {
+        return new UserRegisteredEvent(user.getId(), user.getUsername(),
+                user.getRole() != null ? user.getRole().name() : null, user.getForeignId());
+    }
+}
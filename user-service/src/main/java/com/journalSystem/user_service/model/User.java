@@ -6,16 +6,22 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = User.UK_USERNAME, columnNames = "username"),
+        @UniqueConstraint(name = User.UK_FOREIGN_ID, columnNames = "foreign_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
+    public static final String UK_USERNAME = "uk_users_username";
+    public static final String UK_FOREIGN_ID = "uk_users_foreign_id";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String username;
 
     private String email;
@@ -24,6 +30,5 @@ public class User {
     @Enumerated(EnumType.STRING)
     private Role role;
 
-    @Column(unique = true)
     private String foreignId;  // Kopplar till Patient/Practitioner personnummer
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.journalSystem.user_service.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.journalSystem.user_service.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Issues and verifies self-contained session tokens (compact JWS, HS256).
+ * The claims carry user ID, role and foreignId so other services can authorize
+ * a request locally with the shared secret instead of calling user-service.
+ */
+@Service
+public class SessionTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    // We only ever issue HS256, so the header is a constant and never has to be parsed
+    private static final String HEADER = ENCODER.encodeToString(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    private final Duration ttl;
+    private final Clock clock;
+
+    @Autowired
+    public SessionTokenService(
+            @Value("${auth.token.secret}") String secret,
+            @Value("${auth.token.ttl-minutes:480}") long ttlMinutes
+    ) {
+        this(secret, Duration.ofMinutes(ttlMinutes), Clock.systemUTC());
+    }
+
+    SessionTokenService(String secret, Duration ttl, Clock clock) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalArgumentException("auth.token.secret is not set (AUTH_TOKEN_SECRET)");
+        }
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < 32) {
+            throw new IllegalArgumentException("auth.token.secret must be at least 32 bytes");
+        }
+        this.key = new SecretKeySpec(secretBytes, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    public record IssuedToken(String token, Instant expiresAt) {}
+
+    public IssuedToken issue(User user) {
+        Instant now = clock.instant();
+        Instant expiresAt = now.plus(ttl);
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", String.valueOf(user.getId()));
+        claims.put("role", user.getRole() != null ? user.getRole().name() : null);
+        claims.put("fid", user.getForeignId());
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", expiresAt.getEpochSecond());
+
+        try {
+            String payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            String signingInput = HEADER + "." + payload;
+            return new IssuedToken(signingInput + "." + ENCODER.encodeToString(sign(signingInput)), expiresAt);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not issue session token", e);
+        }
+    }
+
+    public Optional<SessionClaims> verify(String token) {
+        if (token == null || !token.startsWith(HEADER + ".")) {
+            return Optional.empty();
+        }
+        int signatureStart = token.lastIndexOf('.');
+        if (signatureStart <= HEADER.length()) {
+            return Optional.empty();
+        }
+
+        try {
+            String signingInput = token.substring(0, signatureStart);
+            byte[] signature = DECODER.decode(token.substring(signatureStart + 1));
+            if (!MessageDigest.isEqual(sign(signingInput), signature)) {
+                return Optional.empty();
+            }
+
+            JsonNode claims = objectMapper.readTree(DECODER.decode(signingInput.substring(HEADER.length() + 1)));
+            Instant expiresAt = Instant.ofEpochSecond(claims.path("exp").asLong());
+            if (!clock.instant().isBefore(expiresAt)) {
+                return Optional.empty();
+            }
+
+            return Optional.of(new SessionClaims(
+                    Long.valueOf(claims.path("sub").asText()),
+                    claims.path("role").asText(null),
+                    claims.path("fid").asText(null),
+                    expiresAt
+            ));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String signingInput) {
+        return macs.get().doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.journalSystem.user_service.service;
 
+import com.journalSystem.user_service.dto.UserRegisteredEvent;
 import com.journalSystem.user_service.model.Role;
 import com.journalSystem.user_service.model.User;
 import com.journalSystem.user_service.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -12,32 +15,53 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class AuthService {
     private final UserRepository userRepository;
+    private final PasswordHasher passwordHasher;
+    private final OutboxWriter outboxWriter;
 
+    /**
+     * Registers a user with a single INSERT. Uniqueness of username and foreignId
+     * is enforced by the database constraints instead of read-before-write checks,
+     * which saves two round trips and cannot race with a concurrent registration.
+     * The UserRegistered event is written to the outbox in the same transaction.
+     */
+    @Transactional
     public User register(String username, String email, String password, Role role, String foreignId) {
-        if (userRepository.existsByUsername(username)) {
-            throw new IllegalArgumentException("Username already taken");
-        }
-
-        if (foreignId != null && userRepository.findByForeignId(foreignId).isPresent()) {
-            throw new IllegalArgumentException("This person is already registered");
-        }
-
         User user = new User();
         user.setUsername(username);
         user.setEmail(email);
-        user.setPassword(password);
+        user.setPassword(passwordHasher.hash(password));
         user.setRole(role);
         user.setForeignId(foreignId);
 
-        return userRepository.save(user);
+        User saved;
+        try {
+            saved = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw DuplicateRegistrationException.from(e).orElseThrow(() -> e);
+        }
+        outboxWriter.record(UserRegisteredEvent.AGGREGATE, saved.getId(), UserRegisteredEvent.TYPE,
+                UserRegisteredEvent.of(saved));
+        return saved;
     }
 
     public User login(String username, String password) {
         Optional<User> userOpt = userRepository.findByUsername(username);
-        if (userOpt.isEmpty() || !userOpt.get().getPassword().equals(password)) {
+        if (userOpt.isEmpty()) {
+            passwordHasher.simulateMatch(password);
             return null;
         }
-        return userOpt.get();
+
+        User user = userOpt.get();
+        if (!passwordHasher.matches(password, user.getPassword())) {
+            return null;
+        }
+
+        // Upgrade plaintext or lower-cost hashes while we still have the raw password
+        if (passwordHasher.needsRehash(user.getPassword()) && passwordHasher.fitsLimit(password)) {
+            user.setPassword(passwordHasher.hash(password));
+            userRepository.save(user);
+        }
+        return user;
     }
 
     public Optional<User> getUserById(Long id) {
@@ -47,4 +71,4 @@ public class AuthService {
     public Optional<User> getUserByForeignId(String foreignId) {
         return userRepository.findByForeignId(foreignId);
     }
-}
\ No newline at end of file
+}
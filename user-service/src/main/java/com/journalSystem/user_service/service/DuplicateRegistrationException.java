@@ -0,0 +1,75 @@
+package com.journalSystem.user_service.service;
+
+import com.journalSystem.user_service.model.User;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Thrown when a registration hits one of the unique constraints on users.
+ * {@link #getField()} names the clashing field so the API can say which one.
+ */
+public class DuplicateRegistrationException extends IllegalArgumentException {
+
+    private static final int MYSQL_DUPLICATE_ENTRY = 1062;
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final String field;
+
+    public DuplicateRegistrationException(String field, String message, Throwable cause) {
+        super(message, cause);
+        this.field = field;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * Maps a duplicate-key error on users to the clashing field. Other integrity
+     * errors, such as a NOT NULL violation, are not duplicates and give empty.
+     * The field comes from the constraint name, which Hibernate extracts for JPA
+     * saves and which plain JDBC inserts only carry in the driver message.
+     * Constraints from before they were named are renamed or dropped at startup
+     * by LegacyUniqueKeyMigration, so only the named ones are matched.
+     */
+    public static Optional<DuplicateRegistrationException> from(DataIntegrityViolationException e) {
+        if (!isDuplicateKey(e)) {
+            return Optional.empty();
+        }
+        String violated = violatedConstraint(e);
+        if (violated.contains(User.UK_FOREIGN_ID)) {
+            return Optional.of(new DuplicateRegistrationException("foreignId", "This person is already registered", e));
+        }
+        if (violated.contains(User.UK_USERNAME)) {
+            return Optional.of(new DuplicateRegistrationException("username", "Username already taken", e));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * MySQL reports duplicate keys as error 1062 (its SQLState 23000 is shared
+     * with NOT NULL and foreign key errors); H2 and standard SQL use SQLState 23505.
+     */
+    private static boolean isDuplicateKey(DataIntegrityViolationException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql) {
+                return sql.getErrorCode() == MYSQL_DUPLICATE_ENTRY || UNIQUE_VIOLATION.equals(sql.getSQLState());
+            }
+        }
+        return false;
+    }
+
+    private static String violatedConstraint(DataIntegrityViolationException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException cve && cve.getConstraintName() != null) {
+                return cve.getConstraintName().toLowerCase(Locale.ROOT);
+            }
+        }
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null ? message.toLowerCase(Locale.ROOT) : "";
+    }
+}
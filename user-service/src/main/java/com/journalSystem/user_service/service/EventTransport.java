@@ -0,0 +1,16 @@
+package com.journalSystem.user_service.service;
+
+import com.journalSystem.user_service.dto.DomainEvent;
+
+/**
+ * Where the outbox relay publishes events. The in-memory transport is used
+ * unless a broker-backed one is declared as a {@code @Primary} bean.
+ */
+public interface EventTransport {
+
+    /**
+     * Publishes the event, returning only once the transport has accepted it.
+     * A thrown exception leaves the event in the outbox to be retried.
+     */
+    void publish(DomainEvent event);
+}
@@ -0,0 +1,5 @@
+package com.journalSystem.user_service.service;
+
+public enum ImportFormat {
+    CSV, NDJSON
+}
@@ -0,0 +1,34 @@
+package com.journalSystem.user_service.service;
+
+import com.journalSystem.user_service.dto.DomainEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers events to subscribers in this JVM, synchronously and in publish
+ * order. A subscriber that throws fails the publish, so the relay retries the
+ * event just as it would after a broker rejected it.
+ */
+@Component
+public class InMemoryEventTransport implements EventTransport {
+
+    private final List<Consumer<DomainEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(DomainEvent event) {
+        for (Consumer<DomainEvent> subscriber : subscribers) {
+            subscriber.accept(event);
+        }
+    }
+
+    /**
+     * Registers a subscriber for every event; run the returned handle to remove it.
+     */
+    public Runnable subscribe(Consumer<DomainEvent> subscriber) {
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+}
@@ -0,0 +1,124 @@
+package com.journalSystem.user_service.service;
+
+import com.journalSystem.user_service.dto.DomainEvent;
+import com.journalSystem.user_service.model.OutboxEvent;
+import com.journalSystem.user_service.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publishes outbox events through the {@link EventTransport} in the order they
+ * were written, polling for unpublished ones. Events are marked published one
+ * batch at a time with a single UPDATE. When the transport fails the round
+ * stops at that event, so later events never overtake it, and the next round
+ * retries from there. Delivery is at least once: an event can be published
+ * again if the service stops between publishing and marking it.
+ */
+// Eager even with lazy initialization: nothing else references it, so it would
+// never be created and its schedule would never start
+@Lazy(false)
+@Service
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final EventTransport transport;
+    private final int batchSize;
+    private final Duration retention;
+    private final boolean enabled;
+
+    public OutboxRelay(
+            OutboxEventRepository outboxEventRepository,
+            EventTransport transport,
+            @Value("${outbox.relay.batch-size:100}") int batchSize,
+            @Value("${outbox.retention-hours:24}") long retentionHours,
+            @Value("${outbox.relay.enabled:true}") boolean enabled
+    ) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.transport = transport;
+        this.batchSize = batchSize;
+        this.retention = Duration.ofHours(retentionHours);
+        this.enabled = enabled;
+    }
+
+    /**
+     * The polling rounds; with outbox.relay.enabled=false events are only
+     * published by calling {@link #relay()} directly.
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:500}")
+    void scheduledRelay() {
+        if (enabled) {
+            relay();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.cleanup.interval-ms:3600000}")
+    void scheduledPurge() {
+        if (enabled) {
+            purgePublished();
+        }
+    }
+
+    /**
+     * Publishes everything that is waiting and returns how many events went out.
+     * Synchronized so a manual call and the scheduled one never publish the same rows twice.
+     */
+    public synchronized int relay() {
+        int total = 0;
+        while (true) {
+            List<OutboxEvent> batch = outboxEventRepository.findByPublishedAtIsNullOrderByIdAsc(Limit.of(batchSize));
+            List<Long> published = new ArrayList<>(batch.size());
+            OutboxEvent failed = null;
+            for (OutboxEvent event : batch) {
+                try {
+                    transport.publish(toDomainEvent(event));
+                    published.add(event.getId());
+                } catch (RuntimeException e) {
+                    failed = event;
+                    recordFailure(event, e);
+                    break;
+                }
+            }
+            if (!published.isEmpty()) {
+                outboxEventRepository.markPublished(published, Instant.now());
+                total += published.size();
+            }
+            if (failed != null || batch.size() < batchSize) {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * Deletes published events once they are older than the retention period.
+     */
+    public int purgePublished() {
+        return outboxEventRepository.deletePublishedBefore(Instant.now().minus(retention));
+    }
+
+    private void recordFailure(OutboxEvent event, RuntimeException e) {
+        String error = String.valueOf(e.getMessage());
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        outboxEventRepository.save(event);
+        log.warn("Could not publish {} event {} (attempt {}), retrying on the next round: {}",
+                event.getEventType(), event.getEventId(), event.getAttempts(), error);
+    }
+
+    private static DomainEvent toDomainEvent(OutboxEvent event) {
+        return new DomainEvent(event.getEventId(), event.getEventType(), event.getAggregateType(),
+                event.getAggregateId(), event.getCreatedAt(), event.getPayload());
+    }
+}
@@ -0,0 +1,81 @@
+package com.journalSystem.user_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.journalSystem.user_service.model.OutboxEvent;
+import com.journalSystem.user_service.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+
+/**
+ * Records domain events in the outbox table. It has to run inside the
+ * transaction that makes the change, so the event is stored if and only if
+ * the change commits; {@link OutboxRelay} publishes it afterwards.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO outbox_events "
+            + "(event_id, event_type, aggregate_type, aggregate_id, payload, created_at, attempts) "
+            + "VALUES (?, ?, ?, ?, ?, ?, 0)";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * One event of a {@link #recordAll} batch.
+     */
+    public record Pending(Object aggregateId, Object payload) {}
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent record(String aggregateType, Object aggregateId, String eventType, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventId(UUID.randomUUID().toString());
+        event.setEventType(eventType);
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(aggregateId != null ? aggregateId.toString() : null);
+        event.setPayload(toJson(payload));
+        event.setCreatedAt(Instant.now());
+        return outboxEventRepository.save(event);
+    }
+
+    /**
+     * Records events of one type with a single JDBC batch, for bulk writes where
+     * a JPA save per event (IDENTITY keys cannot be batched) would cost a round
+     * trip each.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(String aggregateType, String eventType, List<Pending> events) {
+        // Instants are stored as UTC, as Hibernate does for OutboxEvent.createdAt
+        Timestamp createdAt = Timestamp.from(Instant.now());
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, event) -> {
+            ps.setString(1, UUID.randomUUID().toString());
+            ps.setString(2, eventType);
+            ps.setString(3, aggregateType);
+            ps.setString(4, event.aggregateId() != null ? event.aggregateId().toString() : null);
+            ps.setString(5, toJson(event.payload()));
+            ps.setTimestamp(6, createdAt, utc);
+        });
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Event payload is not serializable: " + payload.getClass().getName(), e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.journalSystem.user_service.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.regex.Pattern;
+
+/**
+ * Hashes and verifies passwords with bcrypt.
+ * The cost (log2 rounds) is configurable; hashes created with a lower cost, and
+ * legacy plaintext passwords, are reported by {@link #needsRehash(String)} so they
+ * can be upgraded on the next successful login.
+ */
+@Service
+public class PasswordHasher {
+
+    /** bcrypt only looks at the first 72 bytes of the input. */
+    public static final int MAX_PASSWORD_BYTES = 72;
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$[./A-Za-z0-9]{53}$");
+
+    private final int strength;
+    private final BCryptPasswordEncoder encoder;
+    private final String dummyHash;
+
+    public PasswordHasher(@Value("${auth.password.bcrypt-strength:10}") int strength) {
+        this.strength = strength;
+        this.encoder = new BCryptPasswordEncoder(strength);
+        this.dummyHash = encoder.encode("dummy-password");
+    }
+
+    public String hash(String rawPassword) {
+        if (rawPassword == null || rawPassword.isEmpty()) {
+            throw new IllegalArgumentException("Password is required");
+        }
+        if (!fitsLimit(rawPassword)) {
+            throw new IllegalArgumentException("Password too long");
+        }
+        return encoder.encode(rawPassword);
+    }
+
+    public boolean fitsLimit(String rawPassword) {
+        return rawPassword.getBytes(StandardCharsets.UTF_8).length <= MAX_PASSWORD_BYTES;
+    }
+
+    public boolean matches(String rawPassword, String storedPassword) {
+        if (rawPassword == null || storedPassword == null) {
+            return false;
+        }
+        if (!isHashed(storedPassword)) {
+            // Accounts created before hashing was introduced still hold plaintext
+            return MessageDigest.isEqual(
+                    rawPassword.getBytes(StandardCharsets.UTF_8),
+                    storedPassword.getBytes(StandardCharsets.UTF_8));
+        }
+        if (!fitsLimit(rawPassword)) {
+            return false;
+        }
+        return encoder.matches(rawPassword, storedPassword);
+    }
+
+    /**
+     * Burns the same CPU as a real verification, so unknown usernames
+     * cannot be told apart from wrong passwords by response time.
+     */
+    public void simulateMatch(String rawPassword) {
+        encoder.matches(rawPassword != null ? rawPassword : "", dummyHash);
+    }
+
+    public boolean needsRehash(String storedPassword) {
+        if (storedPassword == null || !isHashed(storedPassword)) {
+            return true;
+        }
+        return encoder.upgradeEncoding(storedPassword);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    private boolean isHashed(String storedPassword) {
+        return BCRYPT_HASH.matcher(storedPassword).matches();
+    }
+}
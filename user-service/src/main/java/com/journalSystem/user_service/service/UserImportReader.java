@@ -0,0 +1,186 @@
+package com.journalSystem.user_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads user import rows one line at a time, so only the current line is held in memory.
+ * CSV needs a header naming the columns (username, email, password, role, foreignId);
+ * NDJSON has one JSON object per line with the same field names.
+ */
+class UserImportReader implements Closeable {
+
+    record Row(
+            long line,
+            String username,
+            String email,
+            String password,
+            String role,
+            String foreignId,
+            String parseError
+    ) {
+        static Row invalid(long line, String parseError) {
+            return new Row(line, null, null, null, null, null, parseError);
+        }
+    }
+
+    private static final List<String> COLUMNS = List.of("username", "email", "password", "role", "foreignid");
+
+    private final BufferedReader reader;
+    private final ImportFormat format;
+    private final ObjectMapper objectMapper;
+    private Map<String, Integer> csvColumns;
+    private long line;
+
+    UserImportReader(Reader reader, ImportFormat format, ObjectMapper objectMapper) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns the next row, or null at end of input. Blank lines are skipped.
+     * Throws IllegalArgumentException when the CSV header is unusable.
+     */
+    Row next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            line++;
+            if (text == null) {
+                return null;
+            }
+        } while (text.isBlank());
+
+        if (format == ImportFormat.NDJSON) {
+            return parseJson(text);
+        }
+        if (csvColumns == null) {
+            csvColumns = parseHeader(text);
+            return next();
+        }
+        return parseCsv(text);
+    }
+
+    private Row parseJson(String text) {
+        try {
+            JsonNode node = objectMapper.readTree(text);
+            if (!node.isObject()) {
+                return Row.invalid(line, "Expected a JSON object");
+            }
+            return new Row(line,
+                    textOrNull(node, "username"),
+                    textOrNull(node, "email"),
+                    textOrNull(node, "password"),
+                    textOrNull(node, "role"),
+                    textOrNull(node, "foreignId"),
+                    null);
+        } catch (IOException e) {
+            return Row.invalid(line, "Malformed JSON");
+        }
+    }
+
+    private Map<String, Integer> parseHeader(String text) {
+        List<String> names = splitCsv(text);
+        if (names == null) {
+            throw new IllegalArgumentException("Malformed CSV header");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i).trim().toLowerCase(Locale.ROOT);
+            if (COLUMNS.contains(name)) {
+                columns.put(name, i);
+            }
+        }
+        if (!columns.containsKey("username") || !columns.containsKey("password")) {
+            throw new IllegalArgumentException("CSV header must contain at least username and password");
+        }
+        return columns;
+    }
+
+    private Row parseCsv(String text) {
+        List<String> values = splitCsv(text);
+        if (values == null) {
+            return Row.invalid(line, "Malformed CSV line");
+        }
+        return new Row(line,
+                column(values, "username"),
+                column(values, "email"),
+                column(values, "password"),
+                column(values, "role"),
+                column(values, "foreignid"),
+                null);
+    }
+
+    private String column(List<String> values, String name) {
+        Integer index = csvColumns.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Splits one RFC 4180 line. Quoted fields may contain commas and doubled quotes,
+     * but not line breaks. Returns null when a quote is left open.
+     */
+    static List<String> splitCsv(String text) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+
+        if (quoted) {
+            return null;
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static String textOrNull(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        String text = value.asText();
+        return text.isEmpty() ? null : text;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
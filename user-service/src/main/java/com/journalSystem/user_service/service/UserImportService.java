@@ -0,0 +1,223 @@
+package com.journalSystem.user_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.journalSystem.user_service.dto.ImportEvent;
+import com.journalSystem.user_service.dto.UserRegisteredEvent;
+import com.journalSystem.user_service.model.Role;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Bulk user import. Rows are read incrementally and handled one batch at a time:
+ * validate, hash the passwords in parallel on a dedicated pool, then insert the
+ * batch with a single JDBC batch statement. Memory use is bounded by the batch
+ * size regardless of file size. Rejected rows and per-batch progress are reported
+ * through the listener as they happen instead of being collected. Each inserted
+ * user gets a UserRegistered outbox event in the transaction that inserts it.
+ *
+ * Hashing dominates the run time: a bcrypt hash at strength 10 takes roughly
+ * 50-100 ms of one core, so each hashing thread manages about 10-20 rows per
+ * second. By default the pool takes every core the login executor does not
+ * reserve; on 8 cores that is 4 threads, about 40-80 rows per second, so 100k
+ * rows take roughly 20-40 minutes. A higher hash-parallelism speeds an import
+ * up at the cost of login latency; the database inserts are not the limit.
+ */
+@Service
+public class UserImportService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO users (username, email, password, role, foreign_id) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordHasher passwordHasher;
+    private final OutboxWriter outboxWriter;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final ForkJoinPool hashingPool;
+
+    private record PreparedRow(long line, String username, String email, String passwordHash,
+                               Role role, String foreignId) {}
+
+    public UserImportService(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            PasswordHasher passwordHasher,
+            OutboxWriter outboxWriter,
+            ObjectMapper objectMapper,
+            @Value("${auth.import.batch-size:500}") int batchSize,
+            @Value("${auth.import.hash-parallelism:0}") int hashParallelism,
+            @Value("${auth.login.executor.max-size:4}") int loginThreads
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordHasher = passwordHasher;
+        this.outboxWriter = outboxWriter;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        // Login and register hash on the login executor; leave it a core per thread
+        this.hashingPool = new ForkJoinPool(hashParallelism > 0
+                ? hashParallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - loginThreads));
+    }
+
+    public ImportEvent importUsers(Reader input, ImportFormat format, Consumer<ImportEvent> listener) throws IOException {
+        long started = System.nanoTime();
+        long processed = 0;
+        long imported = 0;
+        long failed = 0;
+
+        try (UserImportReader reader = new UserImportReader(input, format, objectMapper)) {
+            List<UserImportReader.Row> batch = new ArrayList<>(batchSize);
+            UserImportReader.Row row;
+            do {
+                row = reader.next();
+                if (row != null) {
+                    batch.add(row);
+                }
+                if (batch.size() == batchSize || (row == null && !batch.isEmpty())) {
+                    long inserted = processBatch(batch, listener);
+                    processed += batch.size();
+                    imported += inserted;
+                    failed += batch.size() - inserted;
+                    batch.clear();
+                    listener.accept(ImportEvent.progress(processed, imported, failed));
+                }
+            } while (row != null);
+        }
+
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        ImportEvent summary = ImportEvent.summary(processed, imported, failed, durationMs);
+        listener.accept(summary);
+        return summary;
+    }
+
+    private long processBatch(List<UserImportReader.Row> batch, Consumer<ImportEvent> listener) {
+        List<UserImportReader.Row> valid = new ArrayList<>(batch.size());
+        for (UserImportReader.Row row : batch) {
+            ImportEvent error = validate(row);
+            if (error != null) {
+                listener.accept(error);
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) {
+            return 0;
+        }
+
+        List<PreparedRow> prepared = hashingPool.submit(() -> valid.parallelStream()
+                .map(row -> new PreparedRow(
+                        row.line(),
+                        row.username(),
+                        row.email(),
+                        passwordHasher.hash(row.password()),
+                        Role.valueOf(row.role().toUpperCase(Locale.ROOT)),
+                        row.foreignId()))
+                .toList()
+        ).join();
+
+        return insert(prepared, listener);
+    }
+
+    private ImportEvent validate(UserImportReader.Row row) {
+        if (row.parseError() != null) {
+            return ImportEvent.error(row.line(), null, row.parseError());
+        }
+        if (row.username() == null || row.username().isBlank()) {
+            return ImportEvent.error(row.line(), "username", "Username is required");
+        }
+        if (row.password() == null) {
+            return ImportEvent.error(row.line(), "password", "Password is required");
+        }
+        if (!passwordHasher.fitsLimit(row.password())) {
+            return ImportEvent.error(row.line(), "password", "Password too long");
+        }
+        if (row.role() == null) {
+            return ImportEvent.error(row.line(), "role", "Role is required");
+        }
+        try {
+            Role.valueOf(row.role().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ImportEvent.error(row.line(), "role", "Unknown role: " + row.role());
+        }
+        return null;
+    }
+
+    private long insert(List<PreparedRow> rows, Consumer<ImportEvent> listener) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), this::bind);
+                recordRegistered(rows);
+            });
+            return rows.size();
+        } catch (DataIntegrityViolationException e) {
+            // The batch was rolled back; insert row by row to pin down the duplicates
+            long inserted = 0;
+            for (PreparedRow row : rows) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, row));
+                        recordRegistered(List.of(row));
+                    });
+                    inserted++;
+                } catch (DataIntegrityViolationException rowError) {
+                    listener.accept(DuplicateRegistrationException.from(rowError)
+                            .map(d -> ImportEvent.error(row.line(), d.getField(), d.getMessage()))
+                            .orElseGet(() -> ImportEvent.error(row.line(), null, "Could not insert row")));
+                }
+            }
+            return inserted;
+        }
+    }
+
+    /**
+     * Writes the outbox events for rows just inserted in the current transaction.
+     * The JDBC batch does not return generated keys, so the ids are read back by username.
+     */
+    private void recordRegistered(List<PreparedRow> rows) {
+        String placeholders = String.join(", ", Collections.nCopies(rows.size(), "?"));
+        Map<String, Long> ids = new HashMap<>(rows.size() * 2);
+        jdbcTemplate.query("SELECT id, username FROM users WHERE username IN (" + placeholders + ")",
+                rs -> { ids.put(rs.getString("username"), rs.getLong("id")); },
+                rows.stream().map(PreparedRow::username).toArray());
+
+        List<OutboxWriter.Pending> events = new ArrayList<>(rows.size());
+        for (PreparedRow row : rows) {
+            Long id = ids.get(row.username());
+            events.add(new OutboxWriter.Pending(id,
+                    new UserRegisteredEvent(id, row.username(), row.role().name(), row.foreignId())));
+        }
+        outboxWriter.recordAll(UserRegisteredEvent.AGGREGATE, UserRegisteredEvent.TYPE, events);
+    }
+
+    private void bind(PreparedStatement ps, PreparedRow row) throws SQLException {
+        ps.setString(1, row.username());
+        ps.setString(2, row.email());
+        ps.setString(3, row.passwordHash());
+        ps.setString(4, row.role().name());
+        ps.setString(5, row.foreignId());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashingPool.shutdown();
+    }
+}
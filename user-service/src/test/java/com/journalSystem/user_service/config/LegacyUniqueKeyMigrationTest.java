@@ -0,0 +1,91 @@
+package com.journalSystem.user_service.config;
+
+import com.journalSystem.user_service.model.Role;
+import com.journalSystem.user_service.model.User;
+import com.journalSystem.user_service.repository.UserRepository;
+import com.journalSystem.user_service.service.AuthService;
+import com.journalSystem.user_service.service.DuplicateRegistrationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@DirtiesContext
+@TestPropertySource(properties = {
+        "auth.token.secret=test-session-token-secret-of-32-bytes",
+        "spring.datasource.url=jdbc:h2:mem:legacykeysdb",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "auth.password.bcrypt-strength=4",
+        "outbox.relay.enabled=false"
+})
+class LegacyUniqueKeyMigrationTest {
+
+    @Autowired
+    private LegacyUniqueKeyMigration migration;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+    }
+
+    // migrate() TESTS
+
+    @Test
+    void migrate_shouldDropOldKey_whenNamedKeyExists() {
+        // Arrange - what ddl-auto=update leaves behind on a database from before the keys were named
+        jdbcTemplate.execute("ALTER TABLE users ADD CONSTRAINT UK_r43af9ap4edm43mmtq01oddj6 UNIQUE (username)");
+
+        // Act
+        List<String> statements = migration.migrate();
+
+        // Assert
+        assertThat(statements).singleElement().asString().contains("DROP CONSTRAINT \"UK_R43AF9AP4EDM43MMTQ01ODDJ6\"");
+        authService.register("anna", null, "password", Role.PATIENT, null);
+        assertThatThrownBy(() -> authService.register("anna", null, "password", Role.PATIENT, null))
+                .isInstanceOf(DuplicateRegistrationException.class)
+                .extracting("field").isEqualTo("username");
+    }
+
+    @Test
+    void migrate_shouldRenameOldKey_whenNamedKeyIsMissing() {
+        // Arrange
+        jdbcTemplate.execute("ALTER TABLE users DROP CONSTRAINT " + User.UK_FOREIGN_ID);
+        jdbcTemplate.execute("ALTER TABLE users ADD CONSTRAINT UK_6dotkott2kjsp8vw4d0m25fb7 UNIQUE (foreign_id)");
+
+        // Act
+        List<String> statements = migration.migrate();
+        List<String> again = migration.migrate();
+
+        // Assert
+        assertThat(statements).hasSize(2).last().asString().contains("ADD CONSTRAINT " + User.UK_FOREIGN_ID);
+        assertThat(again).isEmpty();
+        authService.register("anna", null, "password", Role.PATIENT, "197001011234");
+        assertThatThrownBy(() -> authService.register("erik", null, "password", Role.PATIENT, "197001011234"))
+                .isInstanceOf(DuplicateRegistrationException.class)
+                .extracting("field").isEqualTo("foreignId");
+    }
+}
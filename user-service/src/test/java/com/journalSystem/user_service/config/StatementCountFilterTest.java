@@ -0,0 +1,93 @@
+package com.journalSystem.user_service.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementCountFilterTest {
+
+    private StatementCounter counter;
+    private SimpleMeterRegistry meterRegistry;
+    private StatementCountFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        counter = new StatementCounter();
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new StatementCountFilter(counter, meterRegistry, 20);
+    }
+
+    // doFilter() TESTS
+
+    @Test
+    void doFilter_shouldRecordStatementsRunByRequest_taggedWithRoutePattern() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/auth/user/42");
+
+        // Act
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/auth/user/{id}");
+            counter.inspect("select * from users where id=?");
+            counter.inspect("select * from user_roles where user_id=?");
+        });
+
+        // Assert
+        DistributionSummary summary = meterRegistry.find("jpa.request.statements")
+                .tags("method", "GET", "uri", "/api/v1/auth/user/{id}")
+                .summary();
+        assertThat(summary).isNotNull();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void doFilter_shouldRecordAsyncRequest_includingExecutorStatements_whenItCompletes() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/auth/login");
+        request.setAsyncSupported(true);
+        Thread[] worker = new Thread[1];
+
+        // Act
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/auth/login");
+            req.startAsync();
+            worker[0] = new Thread(StatementCounter.propagate(() -> {
+                counter.inspect("select * from users where username=?");
+                counter.inspect("update users set last_login=? where id=?");
+            }));
+        });
+        worker[0].start();
+        worker[0].join();
+        boolean recordedBeforeCompletion = meterRegistry.find("jpa.request.statements").summary() != null;
+        request.getAsyncContext().complete();
+
+        // Assert
+        assertThat(recordedBeforeCompletion).isFalse();
+        DistributionSummary summary = meterRegistry.find("jpa.request.statements")
+                .tags("method", "POST", "uri", "/api/v1/auth/login")
+                .summary();
+        assertThat(summary).isNotNull();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void inspect_shouldNotCount_outsideRequest() throws Exception {
+        // Arrange
+        counter.inspect("select 1");
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/auth/user/1"), new MockHttpServletResponse(),
+                (req, res) -> { });
+
+        // Assert
+        assertThat(meterRegistry.get("jpa.request.statements").summary().totalAmount()).isZero();
+        assertThat(counter.stop()).isZero();
+    }
+}
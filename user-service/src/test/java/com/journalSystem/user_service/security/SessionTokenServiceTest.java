@@ -0,0 +1,119 @@
+package com.journalSystem.user_service.security;
+
+import com.journalSystem.user_service.model.Role;
+import com.journalSystem.user_service.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SessionTokenServiceTest {
+
+    private static final String SECRET = "test-secret-that-is-at-least-32-bytes-long";
+    private static final Instant NOW = Instant.parse("2024-01-01T10:00:00Z");
+
+    private SessionTokenService tokenService;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        tokenService = new SessionTokenService(SECRET, Duration.ofHours(8), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        testUser = new User();
+        testUser.setId(42L);
+        testUser.setUsername("doctor");
+        testUser.setRole(Role.DOCTOR);
+        testUser.setForeignId("198001011234");
+    }
+
+    @Test
+    void issue_thenVerify_shouldReturnClaims() {
+        // Act
+        SessionTokenService.IssuedToken issued = tokenService.issue(testUser);
+        Optional<SessionClaims> claims = tokenService.verify(issued.token());
+
+        // Assert
+        assertThat(issued.expiresAt()).isEqualTo(NOW.plus(Duration.ofHours(8)));
+        assertThat(claims).isPresent();
+        assertThat(claims.get().userId()).isEqualTo(42L);
+        assertThat(claims.get().role()).isEqualTo("DOCTOR");
+        assertThat(claims.get().foreignId()).isEqualTo("198001011234");
+        assertThat(claims.get().expiresAt()).isEqualTo(issued.expiresAt());
+    }
+
+    @Test
+    void verify_shouldHandleNullForeignId() {
+        // Arrange
+        testUser.setForeignId(null);
+        testUser.setRole(Role.STAFF);
+
+        // Act
+        Optional<SessionClaims> claims = tokenService.verify(tokenService.issue(testUser).token());
+
+        // Assert
+        assertThat(claims).isPresent();
+        assertThat(claims.get().foreignId()).isNull();
+        assertThat(claims.get().role()).isEqualTo("STAFF");
+    }
+
+    @Test
+    void verify_shouldRejectTamperedPayload() {
+        // Arrange
+        String token = tokenService.issue(testUser).token();
+        String[] parts = token.split("\\.");
+        String forgedPayload = java.util.Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"1\",\"role\":\"DOCTOR\",\"exp\":9999999999}".getBytes());
+
+        // Act & Assert
+        assertThat(tokenService.verify(parts[0] + "." + forgedPayload + "." + parts[2])).isEmpty();
+    }
+
+    @Test
+    void verify_shouldRejectTokenSignedWithOtherSecret() {
+        // Arrange
+        SessionTokenService other = new SessionTokenService("another-secret-that-is-also-32-bytes-long",
+                Duration.ofHours(8), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        // Act & Assert
+        assertThat(tokenService.verify(other.issue(testUser).token())).isEmpty();
+    }
+
+    @Test
+    void verify_shouldRejectExpiredToken() {
+        // Arrange
+        String token = tokenService.issue(testUser).token();
+        SessionTokenService later = new SessionTokenService(SECRET, Duration.ofHours(8),
+                Clock.fixed(NOW.plus(Duration.ofHours(9)), ZoneOffset.UTC));
+
+        // Act & Assert
+        assertThat(later.verify(token)).isEmpty();
+    }
+
+    @Test
+    void verify_shouldRejectMalformedTokens() {
+        assertThat(tokenService.verify(null)).isEmpty();
+        assertThat(tokenService.verify("")).isEmpty();
+        assertThat(tokenService.verify("not.a.token")).isEmpty();
+        assertThat(tokenService.verify(tokenService.issue(testUser).token() + "x")).isEmpty();
+    }
+
+    @Test
+    void constructor_shouldRejectShortSecret() {
+        assertThatThrownBy(() -> new SessionTokenService("short", Duration.ofHours(1), Clock.systemUTC()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void constructor_shouldRejectMissingSecret() {
+        assertThatThrownBy(() -> new SessionTokenService("", Duration.ofHours(1), Clock.systemUTC()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("AUTH_TOKEN_SECRET");
+    }
+}
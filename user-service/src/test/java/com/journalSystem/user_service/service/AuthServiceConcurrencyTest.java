@@ -0,0 +1,136 @@
+package com.journalSystem.user_service.service;
+
+import com.journalSystem.user_service.model.Role;
+import com.journalSystem.user_service.model.User;
+import com.journalSystem.user_service.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "auth.token.secret=test-session-token-secret-of-32-bytes",
+        "spring.datasource.url=jdbc:h2:mem:registrationdb",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "auth.password.bcrypt-strength=4",
+        "outbox.relay.enabled=false"
+})
+class AuthServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void register_shouldUseSingleUserStatement() {
+        // Act
+        authService.register("single", "s@test.com", "password", Role.PATIENT, "197001011234");
+
+        // Assert - the user INSERT and its outbox INSERT, no existsByUsername/findByForeignId round trips
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void register_parallelDuplicateUsernames_shouldCreateExactlyOne() throws Exception {
+        // Act
+        List<Throwable> failures = registerInParallel(i ->
+                () -> authService.register("sameuser", "u" + i + "@test.com", "password", Role.PATIENT, "1970010100" + i));
+
+        // Assert
+        assertThat(userRepository.findAll()).hasSize(1);
+        assertThat(failures).hasSize(THREADS - 1)
+                .allSatisfy(e -> assertThat(e)
+                        .isInstanceOf(DuplicateRegistrationException.class)
+                        .extracting("field").isEqualTo("username"));
+    }
+
+    @Test
+    void register_parallelDuplicateForeignIds_shouldCreateExactlyOne() throws Exception {
+        // Act
+        List<Throwable> failures = registerInParallel(i ->
+                () -> authService.register("user" + i, "u" + i + "@test.com", "password", Role.PATIENT, "197001011234"));
+
+        // Assert
+        assertThat(userRepository.findAll()).hasSize(1);
+        assertThat(failures).hasSize(THREADS - 1)
+                .allSatisfy(e -> assertThat(e)
+                        .isInstanceOf(DuplicateRegistrationException.class)
+                        .extracting("field").isEqualTo("foreignId"));
+    }
+
+    @Test
+    void register_parallelNullForeignIds_shouldAllSucceed() throws Exception {
+        // Act
+        List<Throwable> failures = registerInParallel(i ->
+                () -> authService.register("staff" + i, "s" + i + "@test.com", "password", Role.STAFF, null));
+
+        // Assert
+        assertThat(failures).isEmpty();
+        assertThat(userRepository.findAll()).hasSize(THREADS);
+    }
+
+    // HELPER METHODS
+
+    private List<Throwable> registerInParallel(IntFunction<Callable<User>> registration) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<User>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Callable<User> call = registration.apply(i);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+
+            List<Throwable> failures = new ArrayList<>();
+            for (Future<User> future : futures) {
+                try {
+                    future.get(30, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                }
+            }
+            return failures;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,15 +1,18 @@
 package com.journalSystem.user_service.service;
 
+import com.journalSystem.user_service.dto.UserRegisteredEvent;
 import com.journalSystem.user_service.model.Role;
 import com.journalSystem.user_service.model.User;
 import com.journalSystem.user_service.repository.UserRepository;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.sql.SQLException;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -23,13 +26,20 @@ class AuthServiceTest {
     @Mock
     private UserRepository userRepository;
 
-    @InjectMocks
+    @Mock
+    private OutboxWriter outboxWriter;
+
+    private PasswordHasher passwordHasher;
+
     private AuthService authService;
 
     private User testUser;
 
     @BeforeEach
     void setUp() {
+        passwordHasher = new PasswordHasher(4);
+        authService = new AuthService(userRepository, passwordHasher, outboxWriter);
+
         testUser = createTestUser(1L, "testuser", "test@example.com",
                 "password123", Role.PATIENT, "197001011234");
     }
@@ -39,9 +49,7 @@ class AuthServiceTest {
     @Test
     void register_shouldCreateAndReturnUser_whenValidData() {
         // Arrange
-        when(userRepository.existsByUsername("newuser")).thenReturn(false);
-        when(userRepository.findByForeignId("197001011234")).thenReturn(Optional.empty());
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setId(1L);
             return user;
@@ -55,53 +63,79 @@ class AuthServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getUsername()).isEqualTo("newuser");
         assertThat(result.getEmail()).isEqualTo("new@example.com");
-        assertThat(result.getPassword()).isEqualTo("password");
+        assertThat(result.getPassword()).isNotEqualTo("password");
+        assertThat(passwordHasher.matches("password", result.getPassword())).isTrue();
         assertThat(result.getRole()).isEqualTo(Role.PATIENT);
         assertThat(result.getForeignId()).isEqualTo("197001011234");
 
-        verify(userRepository).existsByUsername("newuser");
-        verify(userRepository).findByForeignId("197001011234");
-        verify(userRepository).save(any(User.class));
+        verify(userRepository).saveAndFlush(any(User.class));
+        verify(outboxWriter).record(UserRegisteredEvent.AGGREGATE, 1L, UserRegisteredEvent.TYPE,
+                new UserRegisteredEvent(1L, "newuser", "PATIENT", "197001011234"));
     }
 
     @Test
     void register_shouldThrowException_whenUsernameExists() {
         // Arrange
-        when(userRepository.existsByUsername("existinguser")).thenReturn(true);
+        when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(constraintViolation(User.UK_USERNAME));
 
         // Act & Assert
         assertThatThrownBy(() -> authService.register("existinguser", "email@test.com",
                 "password", Role.PATIENT, "197001011234"))
-                .isInstanceOf(IllegalArgumentException.class)
-                .hasMessage("Username already taken");
+                .isInstanceOf(DuplicateRegistrationException.class)
+                .hasMessage("Username already taken")
+                .extracting("field").isEqualTo("username");
 
-        verify(userRepository).existsByUsername("existinguser");
-        verify(userRepository, never()).save(any());
+        verify(userRepository, never()).existsByUsername(any());
+        verifyNoInteractions(outboxWriter);
     }
 
     @Test
     void register_shouldThrowException_whenForeignIdExists() {
         // Arrange
         String existingForeignId = "197001011234";
-        when(userRepository.existsByUsername("newuser")).thenReturn(false);
-        when(userRepository.findByForeignId(existingForeignId)).thenReturn(Optional.of(testUser));
+        when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(constraintViolation("USERS." + User.UK_FOREIGN_ID.toUpperCase()));
 
         // Act & Assert
         assertThatThrownBy(() -> authService.register("newuser", "email@test.com",
                 "password", Role.PATIENT, existingForeignId))
-                .isInstanceOf(IllegalArgumentException.class)
-                .hasMessage("This person is already registered");
+                .isInstanceOf(DuplicateRegistrationException.class)
+                .hasMessage("This person is already registered")
+                .extracting("field").isEqualTo("foreignId");
 
-        verify(userRepository).existsByUsername("newuser");
-        verify(userRepository).findByForeignId(existingForeignId);
-        verify(userRepository, never()).save(any());
+        verify(userRepository, never()).findByForeignId(any());
+    }
+
+    @Test
+    void register_shouldRethrow_whenNotNullViolationNamesAColumn() {
+        // Arrange - MySQL uses SQLState 23000 for NOT NULL too, only 1062 is a duplicate
+        DataIntegrityViolationException notNull = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("Column 'username' cannot be null", "23000", 1048));
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(notNull);
+
+        // Act & Assert
+        assertThatThrownBy(() -> authService.register(null, "email@test.com",
+                "password", Role.PATIENT, "197001011234"))
+                .isSameAs(notNull);
+    }
+
+    @Test
+    void register_shouldRethrow_whenOtherIntegrityViolation() {
+        // Arrange
+        DataIntegrityViolationException other = constraintViolation("fk_something_else");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(other);
+
+        // Act & Assert
+        assertThatThrownBy(() -> authService.register("newuser", "email@test.com",
+                "password", Role.PATIENT, null))
+                .isSameAs(other);
     }
 
     @Test
     void register_shouldAllowNullForeignId() {
         // Arrange
-        when(userRepository.existsByUsername("staffuser")).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setId(2L);
             return user;
@@ -115,17 +149,13 @@ class AuthServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getForeignId()).isNull();
 
-        verify(userRepository).existsByUsername("staffuser");
-        verify(userRepository, never()).findByForeignId(any());
-        verify(userRepository).save(any(User.class));
+        verify(userRepository).saveAndFlush(any(User.class));
     }
 
     @Test
     void register_shouldCreateDoctorUser() {
         // Arrange
-        when(userRepository.existsByUsername("doctor")).thenReturn(false);
-        when(userRepository.findByForeignId("198001011234")).thenReturn(Optional.empty());
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setId(3L);
             return user;
@@ -143,8 +173,7 @@ class AuthServiceTest {
     @Test
     void register_shouldCreateStaffUser() {
         // Arrange
-        when(userRepository.existsByUsername("staff")).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setId(4L);
             return user;
@@ -162,8 +191,7 @@ class AuthServiceTest {
     @Test
     void register_shouldHandleEmptyEmail() {
         // Arrange
-        when(userRepository.existsByUsername("user")).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setId(5L);
             return user;
@@ -179,8 +207,7 @@ class AuthServiceTest {
     @Test
     void register_shouldHandleNullEmail() {
         // Arrange
-        when(userRepository.existsByUsername("user")).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setId(6L);
             return user;
@@ -197,8 +224,7 @@ class AuthServiceTest {
     void register_shouldHandleSpecialCharactersInUsername() {
         // Arrange
         String specialUsername = "user.name_123";
-        when(userRepository.existsByUsername(specialUsername)).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setId(7L);
             return user;
@@ -447,9 +473,7 @@ class AuthServiceTest {
     @Test
     void register_thenGetByIdAndForeignId_shouldWork() {
         // Arrange
-        when(userRepository.existsByUsername("integrated")).thenReturn(false);
-        when(userRepository.findByForeignId("197001011234")).thenReturn(Optional.empty());
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setId(10L);
             return user;
@@ -481,8 +505,7 @@ class AuthServiceTest {
         String username = "logintest";
         String password = "secret";
 
-        when(userRepository.existsByUsername(username)).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setId(11L);
             return user;
@@ -510,8 +533,7 @@ class AuthServiceTest {
     void register_shouldHandleLongUsername() {
         // Arrange
         String longUsername = "a".repeat(100);
-        when(userRepository.existsByUsername(longUsername)).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setId(12L);
             return user;
@@ -528,9 +550,8 @@ class AuthServiceTest {
     @Test
     void register_shouldHandleLongPassword() {
         // Arrange
-        String longPassword = "p".repeat(200);
-        when(userRepository.existsByUsername("user")).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        String longPassword = "p".repeat(PasswordHasher.MAX_PASSWORD_BYTES);
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setId(13L);
             return user;
@@ -541,15 +562,28 @@ class AuthServiceTest {
                 longPassword, Role.PATIENT, null);
 
         // Assert
-        assertThat(result.getPassword()).hasSize(200);
+        assertThat(passwordHasher.matches(longPassword, result.getPassword())).isTrue();
+    }
+
+    @Test
+    void register_shouldRejectPasswordLongerThanBcryptLimit() {
+        // Arrange
+        String tooLong = "p".repeat(200);
+
+        // Act & Assert
+        assertThatThrownBy(() -> authService.register("user", "email@test.com",
+                tooLong, Role.PATIENT, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Password too long");
+
+        verify(userRepository, never()).saveAndFlush(any());
     }
 
     @Test
     void register_shouldHandleSpecialCharactersInEmail() {
         // Arrange
         String specialEmail = "user+test@example.co.uk";
-        when(userRepository.existsByUsername("user")).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setId(14L);
             return user;
@@ -579,8 +613,75 @@ class AuthServiceTest {
         assertThat(incorrect).isNull();
     }
 
+    // password hashing TESTS
+
+    @Test
+    void login_shouldAcceptHashedPassword_withoutRehash() {
+        // Arrange
+        User hashedUser = createTestUser(1L, "hashed", "h@test.com",
+                passwordHasher.hash("secret"), Role.PATIENT, null);
+        when(userRepository.findByUsername("hashed")).thenReturn(Optional.of(hashedUser));
+
+        // Act
+        User result = authService.login("hashed", "secret");
+
+        // Assert
+        assertThat(result).isNotNull();
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void login_shouldRehashLegacyPlaintextPassword() {
+        // Arrange
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+
+        // Act
+        User result = authService.login("testuser", "password123");
+
+        // Assert
+        assertThat(result.getPassword()).isNotEqualTo("password123");
+        assertThat(passwordHasher.matches("password123", result.getPassword())).isTrue();
+        verify(userRepository).save(testUser);
+    }
+
+    @Test
+    void login_shouldRehash_whenCostIsRaised() {
+        // Arrange
+        String weakHash = new PasswordHasher(4).hash("secret");
+        User user = createTestUser(1L, "user", "u@test.com", weakHash, Role.PATIENT, null);
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+        AuthService strongerService = new AuthService(userRepository, new PasswordHasher(5), outboxWriter);
+
+        // Act
+        User result = strongerService.login("user", "secret");
+
+        // Assert
+        assertThat(result.getPassword()).isNotEqualTo(weakHash);
+        assertThat(result.getPassword()).startsWith("$2a$05$");
+        verify(userRepository).save(user);
+    }
+
+    @Test
+    void login_shouldNotRehash_whenPasswordIncorrect() {
+        // Arrange
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+
+        // Act
+        authService.login("testuser", "wrong");
+
+        // Assert
+        assertThat(testUser.getPassword()).isEqualTo("password123");
+        verify(userRepository, never()).save(any());
+    }
+
     // HELPER METHODS
 
+    private DataIntegrityViolationException constraintViolation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("Duplicate entry",
+                        new SQLException("Duplicate entry", "23000", 1062), constraintName));
+    }
+
     private User createTestUser(Long id, String username, String email,
                                 String password, Role role, String foreignId) {
         User user = new User();
@@ -0,0 +1,207 @@
+package com.journalSystem.user_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.journalSystem.user_service.dto.DomainEvent;
+import com.journalSystem.user_service.dto.UserRegisteredEvent;
+import com.journalSystem.user_service.model.OutboxEvent;
+import com.journalSystem.user_service.model.Role;
+import com.journalSystem.user_service.model.User;
+import com.journalSystem.user_service.repository.OutboxEventRepository;
+import com.journalSystem.user_service.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.StringReader;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "auth.token.secret=test-session-token-secret-of-32-bytes",
+        "spring.datasource.url=jdbc:h2:mem:outboxdb",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "auth.password.bcrypt-strength=4",
+        "outbox.relay.batch-size=2",
+        "outbox.relay.enabled=false"
+})
+class OutboxRelayTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserImportService importService;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private InMemoryEventTransport transport;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<DomainEvent> received = new ArrayList<>();
+    private Runnable unsubscribe;
+
+    @BeforeEach
+    void setUp() {
+        relay.relay();
+        outboxEventRepository.deleteAll();
+        userRepository.deleteAll();
+        unsubscribe = transport.subscribe(received::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        unsubscribe.run();
+    }
+
+    // register() / importUsers() TESTS
+
+    @Test
+    void register_shouldWriteUserRegisteredEvent_inTheSameTransaction() throws Exception {
+        // Act
+        User anna = authService.register("anna", "anna@test.com", "password", Role.PATIENT, "197001011234");
+        assertThatThrownBy(() -> authService.register("anna", "other@test.com", "password", Role.PATIENT, null))
+                .isInstanceOf(DuplicateRegistrationException.class);
+
+        // Assert
+        assertThat(outboxEventRepository.findAll()).singleElement().satisfies(event -> {
+            assertThat(event.getEventType()).isEqualTo(UserRegisteredEvent.TYPE);
+            assertThat(event.getAggregateId()).isEqualTo(anna.getId().toString());
+            assertThat(event.getPublishedAt()).isNull();
+            assertThat(objectMapper.readValue(event.getPayload(), UserRegisteredEvent.class))
+                    .isEqualTo(new UserRegisteredEvent(anna.getId(), "anna", "PATIENT", "197001011234"));
+        });
+    }
+
+    @Test
+    void importUsers_shouldWriteUserRegisteredEvents_withGeneratedIds() throws Exception {
+        // Arrange
+        String csv = """
+                username,email,password,role,foreignId
+                anna,anna@test.com,secret1,PATIENT,197001011234
+                erik,erik@test.com,secret2,DOCTOR,198001011234
+                """;
+
+        // Act
+        importService.importUsers(new StringReader(csv), ImportFormat.CSV, event -> {});
+
+        // Assert
+        List<UserRegisteredEvent> events = new ArrayList<>();
+        for (OutboxEvent event : outboxEventRepository.findAll()) {
+            events.add(objectMapper.readValue(event.getPayload(), UserRegisteredEvent.class));
+            assertThat(event.getAggregateId()).isEqualTo(events.get(events.size() - 1).userId().toString());
+            assertThat(event.getEventId()).hasSize(36);
+            assertThat(event.getCreatedAt()).isCloseTo(Instant.now(), within(1, ChronoUnit.MINUTES));
+        }
+        assertThat(events).containsExactlyInAnyOrder(
+                new UserRegisteredEvent(userRepository.findByUsername("anna").orElseThrow().getId(),
+                        "anna", "PATIENT", "197001011234"),
+                new UserRegisteredEvent(userRepository.findByUsername("erik").orElseThrow().getId(),
+                        "erik", "DOCTOR", "198001011234"));
+    }
+
+    // relay() TESTS
+
+    @Test
+    void relay_shouldPublishInWriteOrder_acrossBatches_andOnlyOnce() {
+        // Arrange
+        for (String username : List.of("u1", "u2", "u3", "u4", "u5")) {
+            authService.register(username, null, "password", Role.STAFF, null);
+        }
+
+        // Act
+        int published = relay.relay();
+        int again = relay.relay();
+
+        // Assert
+        assertThat(published).isEqualTo(5);
+        assertThat(again).isZero();
+        assertThat(received).extracting(DomainEvent::payload)
+                .allSatisfy(payload -> assertThat(payload).contains("\"role\":\"STAFF\""));
+        assertThat(received).extracting(DomainEvent::aggregateId).isSortedAccordingTo(
+                (a, b) -> Long.compare(Long.parseLong(a), Long.parseLong(b)));
+        assertThat(outboxEventRepository.findAll()).allSatisfy(event -> assertThat(event.getPublishedAt()).isNotNull());
+    }
+
+    @Test
+    void relay_shouldStopAtFailedEvent_andRetryItNextRound() {
+        // Arrange
+        authService.register("u1", null, "password", Role.STAFF, null);
+        authService.register("u2", null, "password", Role.STAFF, null);
+        authService.register("u3", null, "password", Role.STAFF, null);
+        AtomicBoolean brokerDown = new AtomicBoolean(true);
+        Runnable failing = transport.subscribe(event -> {
+            if (brokerDown.get() && event.payload().contains("\"u2\"")) {
+                throw new IllegalStateException("Broker unavailable");
+            }
+        });
+
+        try {
+            // Act
+            int first = relay.relay();
+            brokerDown.set(false);
+            int second = relay.relay();
+
+            // Assert
+            assertThat(first).isEqualTo(1);
+            assertThat(second).isEqualTo(2);
+            assertThat(received).extracting(DomainEvent::payload)
+                    .map(payload -> objectMapper.readValue(payload, UserRegisteredEvent.class).username())
+                    .containsExactly("u1", "u2", "u2", "u3");
+            assertThat(outboxEventRepository.findAll())
+                    .filteredOn(event -> event.getPayload().contains("\"u2\""))
+                    .singleElement().satisfies(event -> {
+                        assertThat(event.getAttempts()).isEqualTo(1);
+                        assertThat(event.getLastError()).isEqualTo("Broker unavailable");
+                    });
+        } finally {
+            failing.run();
+        }
+    }
+
+    @Test
+    void purgePublished_shouldDeleteOnlyOldPublishedEvents() {
+        // Arrange
+        authService.register("old", null, "password", Role.STAFF, null);
+        relay.relay();
+        OutboxEvent old = outboxEventRepository.findAll().get(0);
+        old.setPublishedAt(Instant.now().minus(2, ChronoUnit.DAYS));
+        outboxEventRepository.save(old);
+        authService.register("recent", null, "password", Role.STAFF, null);
+        relay.relay();
+        authService.register("pending", null, "password", Role.STAFF, null);
+
+        // Act
+        int deleted = relay.purgePublished();
+
+        // Assert
+        assertThat(deleted).isEqualTo(1);
+        assertThat(outboxEventRepository.findAll()).hasSize(2);
+    }
+}
@@ -0,0 +1,213 @@
+package com.journalSystem.user_service.service;
+
+import com.journalSystem.user_service.dto.ImportEvent;
+import com.journalSystem.user_service.model.Role;
+import com.journalSystem.user_service.model.User;
+import com.journalSystem.user_service.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "auth.token.secret=test-session-token-secret-of-32-bytes",
+        "spring.datasource.url=jdbc:h2:mem:importdb",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "auth.password.bcrypt-strength=4",
+        "auth.import.batch-size=100",
+        "outbox.relay.enabled=false"
+})
+class UserImportServiceTest {
+
+    @Autowired
+    private UserImportService importService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    private List<ImportEvent> events;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        events = new ArrayList<>();
+    }
+
+    // CSV TESTS
+
+    @Test
+    void importUsers_shouldImportValidCsvRows() throws Exception {
+        // Arrange
+        String csv = """
+                username,email,password,role,foreignId
+                anna,anna@test.com,secret1,PATIENT,197001011234
+                "erik, dr",erik@test.com,"pa""ss",doctor,198001011234
+                staff1,,secret3,STAFF,
+                """;
+
+        // Act
+        ImportEvent summary = importService.importUsers(new StringReader(csv), ImportFormat.CSV, events::add);
+
+        // Assert
+        assertThat(summary.processed()).isEqualTo(3);
+        assertThat(summary.imported()).isEqualTo(3);
+        assertThat(summary.failed()).isZero();
+
+        User erik = userRepository.findByUsername("erik, dr").orElseThrow();
+        assertThat(erik.getRole()).isEqualTo(Role.DOCTOR);
+        assertThat(passwordHasher.matches("pa\"ss", erik.getPassword())).isTrue();
+
+        User staff = userRepository.findByUsername("staff1").orElseThrow();
+        assertThat(staff.getEmail()).isNull();
+        assertThat(staff.getForeignId()).isNull();
+    }
+
+    @Test
+    void importUsers_shouldReportInvalidAndDuplicateRowsPerLine() throws Exception {
+        // Arrange
+        userRepository.save(existingUser("taken", "199001011234"));
+        String csv = """
+                username,password,role,foreignId
+                ok1,secret,PATIENT,197001011234
+                ,secret,PATIENT,
+                nopass,,PATIENT,
+                badrole,secret,NURSE,
+                taken,secret,PATIENT,
+                dupperson,secret,PATIENT,199001011234
+                ok2,secret,STAFF,
+                "broken,secret,PATIENT,
+                """;
+
+        // Act
+        ImportEvent summary = importService.importUsers(new StringReader(csv), ImportFormat.CSV, events::add);
+
+        // Assert
+        assertThat(summary.processed()).isEqualTo(8);
+        assertThat(summary.imported()).isEqualTo(2);
+        assertThat(summary.failed()).isEqualTo(6);
+        assertThat(errors()).extracting(ImportEvent::line, ImportEvent::field).containsExactlyInAnyOrder(
+                tuple(3L, "username"),
+                tuple(4L, "password"),
+                tuple(5L, "role"),
+                tuple(6L, "username"),
+                tuple(7L, "foreignId"),
+                tuple(9L, null)
+        );
+        assertThat(userRepository.findByUsername("ok1")).isPresent();
+        assertThat(userRepository.findByUsername("ok2")).isPresent();
+    }
+
+    @Test
+    void importUsers_shouldRejectCsvWithoutRequiredColumns() {
+        assertThatThrownBy(() -> importService.importUsers(
+                new StringReader("email,role\na@test.com,PATIENT\n"), ImportFormat.CSV, events::add))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // NDJSON TESTS
+
+    @Test
+    void importUsers_shouldImportNdjsonAndReportMalformedLines() throws Exception {
+        // Arrange
+        String ndjson = """
+                {"username":"p1","password":"secret","role":"PATIENT","foreignId":"197001011234"}
+                {not json}
+
+                {"username":"p2","password":"secret","role":"STAFF","email":"p2@test.com"}
+                """;
+
+        // Act
+        ImportEvent summary = importService.importUsers(new StringReader(ndjson), ImportFormat.NDJSON, events::add);
+
+        // Assert
+        assertThat(summary.imported()).isEqualTo(2);
+        assertThat(summary.failed()).isEqualTo(1);
+        assertThat(errors()).singleElement().extracting(ImportEvent::line).isEqualTo(2L);
+        assertThat(userRepository.findByUsername("p2").orElseThrow().getEmail()).isEqualTo("p2@test.com");
+    }
+
+    // STREAMING TESTS
+
+    @Test
+    void importUsers_shouldStreamLargeInputInBatches() throws Exception {
+        // Arrange
+        int rows = 2_000;
+
+        // Act
+        ImportEvent summary = importService.importUsers(generatedCsv(rows), ImportFormat.CSV, events::add);
+
+        // Assert
+        assertThat(summary.imported()).isEqualTo(rows);
+        assertThat(userRepository.count()).isEqualTo(rows);
+        assertThat(events).filteredOn(e -> "progress".equals(e.type())).hasSize(rows / 100);
+        assertThat(events.get(events.size() - 1).type()).isEqualTo("summary");
+    }
+
+    // HELPER METHODS
+
+    private List<ImportEvent> errors() {
+        return events.stream().filter(e -> "error".equals(e.type())).toList();
+    }
+
+    private User existingUser(String username, String foreignId) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword(passwordHasher.hash("secret"));
+        user.setRole(Role.PATIENT);
+        user.setForeignId(foreignId);
+        return user;
+    }
+
+    /**
+     * Produces the CSV lazily so the whole file never exists in memory.
+     */
+    private Reader generatedCsv(int rows) {
+        return new Reader() {
+            private int next = -1;
+            private String pending = "";
+            private int offset;
+
+            @Override
+            public int read(char[] buffer, int off, int len) {
+                if (offset == pending.length()) {
+                    if (next >= rows) {
+                        return -1;
+                    }
+                    pending = next < 0
+                            ? "username,password,role,foreignId\n"
+                            : "user" + next + ",secret,PATIENT,ID" + next + "\n";
+                    next++;
+                    offset = 0;
+                }
+                int count = Math.min(len, pending.length() - offset);
+                pending.getChars(offset, offset + count, buffer, off);
+                offset += count;
+                return count;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}